@@ -0,0 +1,70 @@
+package uvt.benchmarks;
+
+import java.util.Map;
+
+/**
+ * The objects of this class are the benchmarks run by the BenchmarkRunner. A benchmark prepares its state once,
+ * prepares it again before each iteration if the operation changes it, and then its operation is called
+ * in a loop. The time of one call is measured.
+ */
+public abstract class Benchmark {
+    /**
+     * Represents the name of the benchmark.
+     */
+    private final String name;
+    /**
+     * Represents the parameters of the benchmark (for example the number of vehicles of the area), by name.
+     */
+    private final Map<String, String> params;
+
+    /**
+     * This is the constructor for class Benchmark.
+     * @param name Represents the name of the benchmark.
+     * @param params Represents the parameters of the benchmark, by name.
+     */
+    protected Benchmark(String name, Map<String, String> params) {
+        this.name = name;
+        this.params = params;
+    }
+
+    /**
+     * This is the getter for name.
+     * @return The name of the benchmark.
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * This is the getter for params.
+     * @return The parameters of the benchmark, by name.
+     */
+    public Map<String, String> getParams() {
+        return params;
+    }
+
+    /**
+     * This method prepares the state of the benchmark, before the first iteration.
+     * @throws Exception It is thrown when the state can not be prepared.
+     */
+    public void setUp() throws Exception { }
+
+    /**
+     * This method prepares the state of the benchmark before each iteration (warmup or measured).
+     * @throws Exception It is thrown when the state can not be prepared.
+     */
+    public void setUpIteration() throws Exception { }
+
+    /**
+     * This method runs the benchmarked operation once.
+     * @param blackhole Represents the sink for the results of the operation.
+     * @throws Exception It is thrown when the operation fails.
+     */
+    public abstract void run(Blackhole blackhole) throws Exception;
+
+    /**
+     * This method releases the state of the benchmark, after the last iteration.
+     * @throws Exception It is thrown when the state can not be released.
+     */
+    public void tearDown() throws Exception { }
+}
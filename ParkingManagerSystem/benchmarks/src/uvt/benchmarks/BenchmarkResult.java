@@ -0,0 +1,121 @@
+package uvt.benchmarks;
+
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * The objects of this class keep the measured iterations of a benchmark: the average time of one operation in each
+ * iteration, in nanoseconds. They are written in the JSON format of JMH, so the results of two versions can be
+ * compared with the same tools.
+ */
+public class BenchmarkResult {
+    /**
+     * Represents the value of Student's t distribution for a 99.9% confidence interval, for 1 to 30 degrees of freedom.
+     */
+    private static final double[] T_999 = {
+            636.619, 31.599, 12.924, 8.610, 6.869, 5.959, 5.408, 5.041, 4.781, 4.587,
+            4.437, 4.318, 4.221, 4.140, 4.073, 4.015, 3.965, 3.922, 3.883, 3.850,
+            3.819, 3.792, 3.768, 3.745, 3.725, 3.707, 3.690, 3.674, 3.659, 3.646
+    };
+
+    /**
+     * Represents the benchmark that was measured.
+     */
+    private final Benchmark benchmark;
+    /**
+     * Represents the average time of one operation in each measured iteration, in nanoseconds.
+     */
+    private final double[] scores;
+
+    /**
+     * This is the constructor for class BenchmarkResult.
+     * @param benchmark Represents the benchmark that was measured.
+     * @param scores Represents the average time of one operation in each measured iteration, in nanoseconds.
+     */
+    public BenchmarkResult(Benchmark benchmark, double[] scores) {
+        this.benchmark = benchmark;
+        this.scores = scores;
+    }
+
+    /**
+     * This method computes the average time of one operation.
+     * @return The mean of the iterations, in nanoseconds.
+     */
+    public double getScore() {
+        return Arrays.stream(scores).average().orElse(Double.NaN);
+    }
+
+    /**
+     * This method computes the half width of the 99.9% confidence interval of the score.
+     * @return The error of the score, in nanoseconds, or NaN if there is only one iteration.
+     */
+    public double getScoreError() {
+        int n = scores.length;
+        if (n < 2) {
+            return Double.NaN;
+        }
+
+        double mean = getScore();
+        double sum = 0;
+        for (double score : scores) {
+            sum += (score - mean) * (score - mean);
+        }
+
+        double t = n - 1 <= T_999.length ? T_999[n - 2] : 3.291;
+        return t * Math.sqrt(sum / (n - 1) / n);
+    }
+
+    /**
+     * This method writes the result as a JSON object, in the format of JMH.
+     * @param builder Represents the builder in which the object is written.
+     */
+    public void appendJson(StringBuilder builder) {
+        builder.append("  {\n    \"benchmark\" : \"").append(escape(benchmark.getName())).append("\",\n");
+        builder.append("    \"mode\" : \"avgt\",\n    \"measurementIterations\" : ").append(scores.length).append(",\n");
+        builder.append("    \"params\" : {");
+
+        boolean first = true;
+        for (Map.Entry<String, String> param : benchmark.getParams().entrySet()) {
+            builder.append(first ? "\n" : ",\n").append("      \"").append(escape(param.getKey())).append("\" : \"")
+                    .append(escape(param.getValue())).append('"');
+            first = false;
+        }
+
+        builder.append(first ? "},\n" : "\n    },\n");
+        builder.append("    \"primaryMetric\" : {\n      \"score\" : ").append(number(getScore()))
+                .append(",\n      \"scoreError\" : ").append(number(getScoreError()))
+                .append(",\n      \"scoreUnit\" : \"ns/op\",\n      \"rawData\" : [ [ ");
+        for (int i = 0; i < scores.length; i++) {
+            builder.append(i == 0 ? "" : ", ").append(number(scores[i]));
+        }
+        builder.append(" ] ]\n    }\n  }");
+    }
+
+    /**
+     * This method writes a number in JSON, where NaN is not a number.
+     * @param value Represents the number.
+     * @return The JSON representation of the number.
+     */
+    private static String number(double value) {
+        return Double.isNaN(value) ? "\"NaN\"" : String.format(Locale.ROOT, "%.3f", value);
+    }
+
+    /**
+     * This method escapes the quotes and the backslashes of a JSON string.
+     * @param value Represents the string.
+     * @return The escaped string.
+     */
+    private static String escape(String value) {
+        return value.replace("\\", "\\\\").replace("\"", "\\\"");
+    }
+
+    /**
+     * This methods overrides the toString() method.
+     * @return The representation of an object of type BenchmarkResult.
+     */
+    @Override
+    public String toString() {
+        return String.format("%-40s %-45s %14.1f +- %10.1f ns/op", benchmark.getName(), benchmark.getParams(), getScore(), getScoreError());
+    }
+}
@@ -0,0 +1,150 @@
+package uvt.benchmarks;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.regex.Pattern;
+
+/**
+ * This class runs the benchmarks of the parking chain and saves their results as JSON. Each benchmark runs a number
+ * of warmup iterations, which are not measured, and then a number of measured iterations. In each iteration the
+ * operation is called in a loop for a fixed time and the average time of one call is kept.
+ * Usage: BenchmarkRunner [-lots N] [-areas N] [-vehicles N] [-areaSizes N,N,...] [-warmup N] [-iterations N]
+ * [-time milliseconds] [-filter regex] [-out file.json]
+ */
+public final class BenchmarkRunner {
+    /**
+     * Represents the number of warmup iterations of each benchmark.
+     */
+    private final int warmupIterations;
+    /**
+     * Represents the number of measured iterations of each benchmark.
+     */
+    private final int measurementIterations;
+    /**
+     * Represents the time of one iteration, in nanoseconds.
+     */
+    private final long iterationNanos;
+    /**
+     * Represents the stream on which the progress is printed. It is the standard output from before the
+     * benchmarks, because some of them redirect it.
+     */
+    private final PrintStream console = System.out;
+
+    /**
+     * This is the constructor for class BenchmarkRunner.
+     * @param warmupIterations Represents the number of warmup iterations of each benchmark.
+     * @param measurementIterations Represents the number of measured iterations of each benchmark.
+     * @param iterationMillis Represents the time of one iteration, in milliseconds.
+     */
+    public BenchmarkRunner(int warmupIterations, int measurementIterations, long iterationMillis) {
+        this.warmupIterations = warmupIterations;
+        this.measurementIterations = measurementIterations;
+        this.iterationNanos = iterationMillis * 1_000_000;
+    }
+
+    /**
+     * This method runs a benchmark: its warmup iterations and its measured iterations.
+     * @param benchmark Represents the benchmark.
+     * @return The average time of one operation in each measured iteration.
+     * @throws Exception It is thrown when the benchmark fails.
+     */
+    public BenchmarkResult run(Benchmark benchmark) throws Exception {
+        Blackhole blackhole = new Blackhole();
+        double[] scores = new double[measurementIterations];
+
+        benchmark.setUp();
+        try {
+            for (int i = 0; i < warmupIterations + measurementIterations; i++) {
+                benchmark.setUpIteration();
+
+                long operations = 0;
+                long start = System.nanoTime();
+                long elapsed;
+                do {
+                    benchmark.run(blackhole);
+                    operations++;
+                } while ((elapsed = System.nanoTime() - start) < iterationNanos);
+
+                if (i >= warmupIterations) {
+                    scores[i - warmupIterations] = (double) elapsed / operations;
+                }
+            }
+        } finally {
+            benchmark.tearDown();
+        }
+
+        return new BenchmarkResult(benchmark, scores);
+    }
+
+    /**
+     * This method writes the results of the benchmarks as a JSON array, in the format of JMH.
+     * @param results Represents the results of the benchmarks.
+     * @param file Represents the file in which the results are written.
+     * @throws IOException It is thrown when the file can not be written.
+     */
+    public static void writeJson(List<BenchmarkResult> results, String file) throws IOException {
+        StringBuilder builder = new StringBuilder("[\n");
+
+        for (int i = 0; i < results.size(); i++) {
+            results.get(i).appendJson(builder);
+            builder.append(i + 1 < results.size() ? ",\n" : "\n");
+        }
+
+        Files.write(Paths.get(file), builder.append("]\n").toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * This is the main method. It creates the benchmarks for the size given in the arguments, runs the ones whose
+     * name matches the filter and saves their results.
+     * @param args Represents the options, each one followed by its value.
+     * @throws Exception It is thrown when a benchmark fails or the results can not be written.
+     */
+    public static void main(String[] args) throws Exception {
+        int lots = 4;
+        int areas = 5;
+        int vehicles = 200;
+        int[] areaSizes = {100, 1_000, 10_000};
+        int warmup = 3;
+        int iterations = 5;
+        long time = 1_000;
+        Pattern filter = Pattern.compile(".*");
+        String out = "benchmark-results.json";
+
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            String value = args[i + 1];
+
+            switch (args[i]) {
+                case "-lots" -> lots = Integer.parseInt(value);
+                case "-areas" -> areas = Integer.parseInt(value);
+                case "-vehicles" -> vehicles = Integer.parseInt(value);
+                case "-areaSizes" -> areaSizes = Arrays.stream(value.split(",")).mapToInt(Integer::parseInt).toArray();
+                case "-warmup" -> warmup = Integer.parseInt(value);
+                case "-iterations" -> iterations = Integer.parseInt(value);
+                case "-time" -> time = Long.parseLong(value);
+                case "-filter" -> filter = Pattern.compile(value);
+                case "-out" -> out = value;
+                default -> throw new IllegalArgumentException("Unknown option " + args[i]);
+            }
+        }
+
+        BenchmarkRunner runner = new BenchmarkRunner(warmup, iterations, time);
+        List<BenchmarkResult> results = new ArrayList<>();
+
+        for (Benchmark benchmark : ChainBenchmarks.create(lots, areas, vehicles, areaSizes)) {
+            if (filter.matcher(benchmark.getName()).find()) {
+                BenchmarkResult result = runner.run(benchmark);
+                results.add(result);
+                runner.console.println(result);
+            }
+        }
+
+        writeJson(results, out);
+        runner.console.println("Results saved in " + out);
+    }
+}
@@ -0,0 +1,36 @@
+package uvt.benchmarks;
+
+/**
+ * The objects of this class receive the results of the benchmarked operations, so the JIT compiler can not
+ * remove an operation whose result is not used.
+ */
+public final class Blackhole {
+    /**
+     * Represents the sum of the consumed values. It is volatile, so each value is really written.
+     */
+    private volatile long sink;
+
+    /**
+     * This method consumes a value.
+     * @param value Represents the value.
+     */
+    public void consume(long value) {
+        sink += value;
+    }
+
+    /**
+     * This method consumes a value.
+     * @param value Represents the value.
+     */
+    public void consume(double value) {
+        sink += Double.doubleToRawLongBits(value);
+    }
+
+    /**
+     * This method consumes an object.
+     * @param value Represents the object.
+     */
+    public void consume(Object value) {
+        sink += System.identityHashCode(value);
+    }
+}
@@ -0,0 +1,468 @@
+package uvt.benchmarks;
+
+import uvt.Area;
+import uvt.ParkingChain;
+import uvt.ParkingLot;
+import uvt.Subscription;
+import uvt.Vehicle;
+import uvt.VehicleType;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.TreeMap;
+
+/**
+ * This class creates the benchmarks of the hot paths of the parking chain: loading a file, admitting a vehicle in
+ * areas of increasing size, computing the parking cost of a vehicle, printing the occupancy and the gain of a
+ * parking lot and writing the parking chain to a file. The parking chains are generated from a seed, with a number
+ * of parking lots, areas and vehicles, so the same dataset is measured by each version.
+ */
+public final class ChainBenchmarks {
+    /**
+     * Represents the first day of the generated parking intervals.
+     */
+    private static final LocalDate FIRST_DAY = LocalDate.of(2023, 11, 1);
+    /**
+     * Represents the number of days of the generated parking intervals.
+     */
+    private static final int DAYS = 30;
+    /**
+     * Represents the number of parking intervals of each generated vehicle.
+     */
+    private static final int INTERVALS_PER_VEHICLE = 4;
+    /**
+     * Represents the seed of the generated parking chains.
+     */
+    private static final long SEED = 42;
+
+    /**
+     * This is the constructor for class ChainBenchmarks. It is private because the class only has static methods.
+     */
+    private ChainBenchmarks() { }
+
+    /**
+     * This method creates all the benchmarks for a size of the parking chain.
+     * @param lots Represents the number of parking lots.
+     * @param areas Represents the number of areas of each parking lot.
+     * @param vehicles Represents the number of vehicles of each area.
+     * @param areaSizes Represents the numbers of vehicles of the areas in which the admissions are measured.
+     * @return The list of benchmarks.
+     */
+    public static List<Benchmark> create(int lots, int areas, int vehicles, int[] areaSizes) {
+        Map<String, String> chainParams = new LinkedHashMap<>();
+        chainParams.put("lots", Integer.toString(lots));
+        chainParams.put("areas", Integer.toString(areas));
+        chainParams.put("vehicles", Integer.toString(vehicles));
+
+        List<Benchmark> benchmarks = new ArrayList<>();
+        benchmarks.add(new ReadBenchmark(chainParams, lots, areas, vehicles));
+        for (int areaSize : areaSizes) {
+            benchmarks.add(new AdmitBenchmark(areaSize));
+        }
+        benchmarks.add(new ParkingCostBenchmark());
+        benchmarks.add(new PrintBenchmark("ParkingLot.printOccupancyRate", chainParams, lots, areas, vehicles, false));
+        benchmarks.add(new PrintBenchmark("ParkingLot.printParkingLotGain", chainParams, lots, areas, vehicles, true));
+        benchmarks.add(new WriteBenchmark(chainParams, lots, areas, vehicles));
+
+        return benchmarks;
+    }
+
+    /**
+     * This method generates a parking chain. Each vehicle has a few parking intervals on random days, a part of
+     * the vehicles have a subscription and the capacities are large enough for all the vehicles.
+     * @param lots Represents the number of parking lots.
+     * @param areas Represents the number of areas of each parking lot.
+     * @param vehicles Represents the number of vehicles of each area.
+     * @return The generated parking chain.
+     * @throws Exception It is thrown when a vehicle can not be admitted.
+     */
+    static ParkingChain generate(int lots, int areas, int vehicles) throws Exception {
+        SplittableRandom random = new SplittableRandom(SEED);
+        ParkingChain parkingChain = new ParkingChain();
+
+        for (int lot = 0; lot < lots; lot++) {
+            ParkingLot parkingLot = new ParkingLot("Lot " + lot, 4);
+            parkingChain.addParkingLot(parkingLot);
+
+            for (int a = 0; a < areas; a++) {
+                Area area = newArea("Area " + a, vehicles);
+                parkingChain.addArea(parkingLot, area);
+
+                for (int v = 0; v < vehicles; v++) {
+                    VehicleType type = VehicleType.values()[random.nextInt(VehicleType.values().length)];
+                    String licensePlate = "B" + lot + "X" + a + "P" + v;
+
+                    for (int i = 0; i < INTERVALS_PER_VEHICLE; i++) {
+                        Vehicle vehicle = newVehicle(type, random);
+                        LocalDateTime entry = randomEntry(random);
+                        parkingChain.addVehicle(parkingLot, area, licensePlate, vehicle, entry, entry.plusMinutes(30 + random.nextInt(600)));
+                    }
+                }
+            }
+        }
+
+        return parkingChain;
+    }
+
+    /**
+     * This method creates an area with places for a number of vehicles of each type.
+     * @param name Represents the name of the area.
+     * @param places Represents the number of places for each type of vehicle.
+     * @return The new area.
+     */
+    private static Area newArea(String name, int places) {
+        Map<VehicleType, Integer> capacity = new EnumMap<>(VehicleType.class);
+        for (VehicleType type : VehicleType.values()) {
+            capacity.put(type, places);
+        }
+
+        return new Area(name, capacity);
+    }
+
+    /**
+     * This method creates a vehicle, with a subscription for one vehicle in ten.
+     * @param type Represents the type of the vehicle.
+     * @param random Represents the random numbers.
+     * @return The new vehicle.
+     */
+    private static Vehicle newVehicle(VehicleType type, SplittableRandom random) {
+        Vehicle vehicle = Vehicle.getVehicleObject(type);
+
+        if (random.nextInt(10) == 0) {
+            vehicle.setSubscription(new Subscription(FIRST_DAY.atTime(8, 0).plusDays(random.nextInt(DAYS))));
+        }
+
+        return vehicle;
+    }
+
+    /**
+     * This method returns a random entry time, on a random day of the generated interval of days.
+     * @param random Represents the random numbers.
+     * @return The entry time.
+     */
+    private static LocalDateTime randomEntry(SplittableRandom random) {
+        return FIRST_DAY.atStartOfDay().plusMinutes(random.nextInt(DAYS * 24 * 60));
+    }
+
+    /**
+     * The objects of this class are the benchmarks that use a generated parking chain.
+     */
+    private abstract static class ChainBenchmark extends Benchmark {
+        /**
+         * Represents the number of parking lots of the generated parking chain.
+         */
+        private final int lots;
+        /**
+         * Represents the number of areas of each parking lot.
+         */
+        private final int areas;
+        /**
+         * Represents the number of vehicles of each area.
+         */
+        private final int vehicles;
+
+        /**
+         * This is the constructor for class ChainBenchmark.
+         * @param name Represents the name of the benchmark.
+         * @param params Represents the parameters of the benchmark.
+         * @param lots Represents the number of parking lots.
+         * @param areas Represents the number of areas of each parking lot.
+         * @param vehicles Represents the number of vehicles of each area.
+         */
+        private ChainBenchmark(String name, Map<String, String> params, int lots, int areas, int vehicles) {
+            super(name, params);
+            this.lots = lots;
+            this.areas = areas;
+            this.vehicles = vehicles;
+        }
+
+        /**
+         * This method generates the parking chain of the benchmark.
+         * @return The generated parking chain.
+         * @throws Exception It is thrown when a vehicle can not be admitted.
+         */
+        ParkingChain generate() throws Exception {
+            return ChainBenchmarks.generate(lots, areas, vehicles);
+        }
+
+        /**
+         * This is the getter for lots.
+         * @return The number of parking lots of the generated parking chain.
+         */
+        int getLots() {
+            return lots;
+        }
+    }
+
+    /**
+     * This benchmark measures ParkingChain.readParkingChainFile() on a generated file.
+     */
+    private static final class ReadBenchmark extends ChainBenchmark {
+        /**
+         * Represents the generated file.
+         */
+        private Path file;
+
+        /**
+         * This is the constructor for class ReadBenchmark.
+         * @param params Represents the parameters of the benchmark.
+         * @param lots Represents the number of parking lots.
+         * @param areas Represents the number of areas of each parking lot.
+         * @param vehicles Represents the number of vehicles of each area.
+         */
+        private ReadBenchmark(Map<String, String> params, int lots, int areas, int vehicles) {
+            super("ParkingChain.readParkingChainFile", params, lots, areas, vehicles);
+        }
+
+        @Override
+        public void setUp() throws Exception {
+            file = Files.createTempFile("benchmark", ".txt");
+            generate().writeParkingChainFile(file.toString());
+        }
+
+        @Override
+        public void run(Blackhole blackhole) {
+            ParkingChain parkingChain = new ParkingChain();
+            parkingChain.readParkingChainFile(file.toString());
+            blackhole.consume(parkingChain);
+        }
+
+        @Override
+        public void tearDown() throws Exception {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    /**
+     * This benchmark measures Area.addVehicle() in an area that already has a number of vehicles. Each operation
+     * admits one of the vehicles again, for a parking interval in the past, so the area does not become full.
+     */
+    private static final class AdmitBenchmark extends Benchmark {
+        /**
+         * Represents the number of vehicles of the area.
+         */
+        private final int areaSize;
+        /**
+         * Represents the area in which the vehicles are admitted.
+         */
+        private Area area;
+        /**
+         * Represents the license plates of the vehicles of the area.
+         */
+        private String[] licensePlates;
+        /**
+         * Represents the vehicles of the area.
+         */
+        private Vehicle[] vehicles;
+        /**
+         * Represents the entry times used by the admissions, in a cycle.
+         */
+        private final LocalDateTime[] entries = new LocalDateTime[4096];
+        /**
+         * Represents the number of admissions of the iteration.
+         */
+        private int admissions;
+
+        /**
+         * This is the constructor for class AdmitBenchmark.
+         * @param areaSize Represents the number of vehicles of the area.
+         */
+        private AdmitBenchmark(int areaSize) {
+            super("Area.addVehicle", Map.of("areaVehicles", Integer.toString(areaSize)));
+            this.areaSize = areaSize;
+        }
+
+        @Override
+        public void setUp() {
+            SplittableRandom random = new SplittableRandom(SEED);
+            for (int i = 0; i < entries.length; i++) {
+                entries[i] = randomEntry(random);
+            }
+        }
+
+        @Override
+        public void setUpIteration() throws Exception {
+            SplittableRandom random = new SplittableRandom(SEED);
+            area = newArea("Area", areaSize);
+            new ParkingLot("Lot", 1).addArea(area);
+            licensePlates = new String[areaSize];
+            vehicles = new Vehicle[areaSize];
+
+            for (int i = 0; i < areaSize; i++) {
+                licensePlates[i] = "B" + i;
+                vehicles[i] = newVehicle(VehicleType.values()[random.nextInt(VehicleType.values().length)], random);
+                LocalDateTime entry = randomEntry(random);
+                area.addVehicle(licensePlates[i], vehicles[i], entry, entry.plusHours(2));
+            }
+
+            area.getGain(FIRST_DAY.toEpochDay());
+            admissions = 0;
+        }
+
+        @Override
+        public void run(Blackhole blackhole) throws Exception {
+            int vehicle = admissions % areaSize;
+            LocalDateTime entry = entries[admissions++ & (entries.length - 1)];
+
+            area.addVehicle(licensePlates[vehicle], vehicles[vehicle], entry, entry.plusMinutes(90));
+            blackhole.consume(vehicles[vehicle].getParkingEntrances());
+        }
+    }
+
+    /**
+     * This benchmark measures Vehicle.parkingCost() for the days of a vehicle that parked several times a day.
+     */
+    private static final class ParkingCostBenchmark extends Benchmark {
+        /**
+         * Represents the vehicle whose cost is computed.
+         */
+        private Vehicle vehicle;
+        /**
+         * Represents the number of computed costs.
+         */
+        private int costs;
+
+        /**
+         * This is the constructor for class ParkingCostBenchmark.
+         */
+        private ParkingCostBenchmark() {
+            super("Vehicle.parkingCost", new TreeMap<>(Map.of("days", Integer.toString(DAYS), "intervalsPerDay", "3")));
+        }
+
+        @Override
+        public void setUp() throws Exception {
+            Area area = newArea("Area", 1);
+            vehicle = Vehicle.getVehicleObject(VehicleType.CAR);
+            vehicle.setSubscription(new Subscription(FIRST_DAY.atTime(8, 0).plusDays(DAYS / 2)));
+
+            for (int day = 0; day < DAYS; day++) {
+                for (int i = 0; i < 3; i++) {
+                    LocalDateTime entry = FIRST_DAY.plusDays(day).atTime(8 + 4 * i, 15);
+                    area.addVehicle("B1", vehicle, entry, entry.plusMinutes(150));
+                }
+            }
+        }
+
+        @Override
+        public void run(Blackhole blackhole) {
+            blackhole.consume(vehicle.parkingCost(FIRST_DAY.toEpochDay() + costs++ % DAYS));
+        }
+    }
+
+    /**
+     * This benchmark measures ParkingLot.printOccupancyRate() or ParkingLot.printParkingLotGain() for all the
+     * parking lots of a generated parking chain. The standard output is redirected to a stream that drops the bytes.
+     */
+    private static final class PrintBenchmark extends ChainBenchmark {
+        /**
+         * Represents the fact that the gain is printed instead of the occupancy rate.
+         */
+        private final boolean gain;
+        /**
+         * Represents the parking lots of the generated parking chain.
+         */
+        private final List<ParkingLot> parkingLots = new ArrayList<>();
+        /**
+         * Represents the standard output before it was redirected.
+         */
+        private PrintStream out;
+        /**
+         * Represents the number of printed reports.
+         */
+        private int reports;
+
+        /**
+         * This is the constructor for class PrintBenchmark.
+         * @param name Represents the name of the benchmark.
+         * @param params Represents the parameters of the benchmark.
+         * @param lots Represents the number of parking lots.
+         * @param areas Represents the number of areas of each parking lot.
+         * @param vehicles Represents the number of vehicles of each area.
+         * @param gain Represents the fact that the gain is printed instead of the occupancy rate.
+         */
+        private PrintBenchmark(String name, Map<String, String> params, int lots, int areas, int vehicles, boolean gain) {
+            super(name, params, lots, areas, vehicles);
+            this.gain = gain;
+        }
+
+        @Override
+        public void setUp() throws Exception {
+            ParkingChain parkingChain = generate();
+            for (int lot = 0; lot < getLots(); lot++) {
+                parkingLots.add(parkingChain.getParkingLot("Lot " + lot));
+            }
+
+            out = System.out;
+            System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+        }
+
+        @Override
+        public void run(Blackhole blackhole) {
+            ParkingLot parkingLot = parkingLots.get(reports % parkingLots.size());
+
+            if (gain) {
+                parkingLot.printParkingLotGain(FIRST_DAY.plusDays(reports % DAYS).toString());
+            } else {
+                parkingLot.printOccupancyRate();
+            }
+            blackhole.consume(reports++);
+        }
+
+        @Override
+        public void tearDown() {
+            System.setOut(out);
+        }
+    }
+
+    /**
+     * This benchmark measures ParkingChain.writeParkingChainFile() for a generated parking chain.
+     */
+    private static final class WriteBenchmark extends ChainBenchmark {
+        /**
+         * Represents the generated parking chain.
+         */
+        private ParkingChain parkingChain;
+        /**
+         * Represents the file in which the parking chain is written.
+         */
+        private Path file;
+
+        /**
+         * This is the constructor for class WriteBenchmark.
+         * @param params Represents the parameters of the benchmark.
+         * @param lots Represents the number of parking lots.
+         * @param areas Represents the number of areas of each parking lot.
+         * @param vehicles Represents the number of vehicles of each area.
+         */
+        private WriteBenchmark(Map<String, String> params, int lots, int areas, int vehicles) {
+            super("ParkingChain.writeParkingChainFile", params, lots, areas, vehicles);
+        }
+
+        @Override
+        public void setUp() throws Exception {
+            parkingChain = generate();
+            file = Files.createTempFile("benchmark", ".txt");
+        }
+
+        @Override
+        public void run(Blackhole blackhole) throws Exception {
+            parkingChain.writeParkingChainFile(file.toString());
+            blackhole.consume(file);
+        }
+
+        @Override
+        public void tearDown() throws Exception {
+            Files.deleteIfExists(file);
+        }
+    }
+}
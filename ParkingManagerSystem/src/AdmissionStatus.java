@@ -0,0 +1,38 @@
+package uvt;
+
+/**
+ * This enum contains the results of an attempt to admit a vehicle, returned by the tryAdmit() methods instead of
+ * throwing an exception, so a rejected vehicle costs as little as an admitted one.
+ */
+public enum AdmissionStatus {
+    /**
+     * Represents a vehicle that was admitted.
+     */
+    ADMITTED,
+    /**
+     * Represents a vehicle that was not admitted because the maximum capacity of the area for its type was reached.
+     */
+    FULL,
+    /**
+     * Represents a vehicle that was not admitted because there is no parking lot with the given name.
+     */
+    UNKNOWN_LOT,
+    /**
+     * Represents a vehicle that was not admitted because there is no area with the given name in the parking lot.
+     */
+    UNKNOWN_AREA,
+    /**
+     * Represents a vehicle that was not admitted because its parking interval is missing or ends before it starts.
+     */
+    BAD_INTERVAL,
+    /**
+     * Represents a vehicle that was not admitted in any area of a parking lot because its license plate is still
+     * parked in one of its areas.
+     */
+    ALREADY_PARKED,
+    /**
+     * Represents a vehicle that was not admitted because its license plate was already parked in the parking chain
+     * with another type of vehicle.
+     */
+    WRONG_TYPE
+}
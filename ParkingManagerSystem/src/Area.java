@@ -1,32 +1,89 @@
 package uvt;
 
+import uvt.Exceptions.*;
+
 import java.time.LocalDateTime;
-import java.time.format.DateTimeFormatter;
-import java.util.ArrayList;
-import java.util.HashMap;
+import java.util.EnumMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.locks.ReentrantLock;
 
 /**
  * The objects of this class represent the areas in the parking lots.
+ * The vehicles of an area can be admitted from several threads: each area has its own admission lock, so the
+ * admissions in different areas never wait for each other and the capacity of an area is checked and taken
+ * in one step. The number of used parking places and the gain are read without taking the lock.
+ * The areas and the parking lots are still added by a single thread, before the admissions start.
  */
 public class Area {
+    /**
+     * Represents the order in which the maximum capacities appear on an area line of the input file.
+     */
+    private static final VehicleType[] CAPACITY_ORDER = {
+            VehicleType.MOTORCYCLE, VehicleType.CAR, VehicleType.VAN, VehicleType.BUS, VehicleType.TRUCK
+    };
+
     /**
      * Represents the name of the area.
      */
     private final String name;
     /**
-     * Represents the maximum capacity of the area for each type of vehicle.
+     * Represents the parking lot that contains the area (null until the area is added to a parking lot).
      */
-    private Map<VehicleType, Integer> maxCapacity = new HashMap<>();
+    private ParkingLot parkingLot;
     /**
-     * Represents the number of parking places that are used for each type of vehicle.
+     * Represents the position of the area in the area list of its parking lot, used for its bits in the free
+     * capacity index of the parking lot.
      */
-    private final Map<VehicleType, Integer> currentCapacity = new HashMap<>();
+    private int position;
+    /**
+     * Represents the maximum capacity of the area for each type of vehicle, indexed by the ordinal of the type.
+     */
+    private final int[] maxCapacity = new int[VehicleType.values().length];
+    /**
+     * Represents the number of parking places that are used for each type of vehicle, indexed by the ordinal
+     * of the type. It is only changed when a vehicle is admitted or when it departs, while holding admissionLock.
+     */
+    private final AtomicIntegerArray currentCapacity = new AtomicIntegerArray(VehicleType.values().length);
     /**
      * Maps each vehicle in the area to its vehicle plate.
      */
-    private final Map<String, Vehicle> vehiclePlatesMap = new HashMap<>();
+    private final Map<String, Vehicle> vehiclePlatesMap = new ConcurrentHashMap<>();
+    /**
+     * Represents the lock held while a vehicle is admitted in the area or while its departures are processed,
+     * so the parking places, the parking intervals and the revenue of the area are changed by one thread at a time.
+     */
+    private final ReentrantLock admissionLock = new ReentrantLock();
+    /**
+     * Represents the departures of the vehicles counted in currentCapacity.
+     */
+    private final DepartureScheduler departureScheduler = new DepartureScheduler(this);
+    /**
+     * Represents the discount of the last parking interval admitted in the area. It is read while holding the
+     * admission lock, so the journal keeps the discount that was given to the admission.
+     */
+    private boolean lastDiscount;
+    /**
+     * Represents the revenue of the area for each day and type of vehicle.
+     */
+    private volatile RevenueLedger revenueLedger = new RevenueLedger();
+    /**
+     * Represents the fact that revenueLedger contains the revenue of all the vehicles of the area. It is false
+     * until the ledger is first used and after the vehicles are loaded without being admitted one by one,
+     * so the ledger is computed once from the parking intervals and then updated by each admission.
+     */
+    private volatile boolean revenueLedgerBuilt;
+    /**
+     * Represents the index of the parking intervals of the area, used for the occupancy at any time. It is null
+     * until it is first used and after the vehicles are loaded without being admitted one by one.
+     */
+    private OccupancyIndex occupancyIndex;
+    /**
+     * Represents the number of admissions and rejections of the area for each type of vehicle.
+     */
+    private final AreaMetrics metrics = new AreaMetrics(this);
 
     /**
      * This is a constructor for the class Area.
@@ -34,7 +91,6 @@ public class Area {
      */
     public Area(String name) {
         this.name = name;
-        initializeTypeCapacity();
     }
 
     /**
@@ -44,7 +100,9 @@ public class Area {
      */
     public Area(String name, Map<VehicleType, Integer> maxCapacity) {
         this.name = name;
-        this.maxCapacity = maxCapacity;
+        for (Map.Entry<VehicleType, Integer> entry : maxCapacity.entrySet()) {
+            this.maxCapacity[entry.getKey().ordinal()] = entry.getValue();
+        }
     }
 
     /**
@@ -55,12 +113,65 @@ public class Area {
         return name;
     }
 
+    /**
+     * This is the getter for parkingLot.
+     * @return The parking lot that contains the area.
+     */
+    public ParkingLot getParkingLot() {
+        return parkingLot;
+    }
+
+    /**
+     * This is the setter for parkingLot. It is called when the area is added to a parking lot, after the
+     * free capacity index of the parking lot has room for it, and marks the types of vehicles for which
+     * the area has free parking places.
+     * @param parkingLot Represents the parking lot that contains the area.
+     * @param position Represents the position of the area in the area list of the parking lot.
+     */
+    void setParkingLot(ParkingLot parkingLot, int position) {
+        admissionLock.lock();
+        try {
+            this.parkingLot = parkingLot;
+            this.position = position;
+            for (VehicleType type : VehicleType.values()) {
+                updateFreeCapacity(type);
+            }
+        } finally {
+            admissionLock.unlock();
+        }
+    }
+
+    /**
+     * This method marks in the free capacity index of the parking lot whether the area has a free parking place
+     * for a type of vehicle. It is called while holding the admission lock, after the number of used places or
+     * the maximum capacity of the type changed.
+     * @param type Represents the type of vehicle.
+     */
+    private void updateFreeCapacity(VehicleType type) {
+        ParkingLot parkingLot = this.parkingLot;
+
+        if (parkingLot != null) {
+            parkingLot.getFreeCapacityIndex().set(position, type, currentCapacity.get(type.ordinal()) < maxCapacity[type.ordinal()]);
+        }
+    }
+
     /**
      * This is the getter for currentCapacity.
      * @return A map representing the number of parking places that are used for each type of vehicles.
      */
     public Map<VehicleType, Integer> getCurrentCapacity() {
-        return currentCapacity;
+        tryReleaseDepartures(LocalDateTime.now());
+        return toMap(currentCapacity);
+    }
+
+    /**
+     * This method returns the number of parking places that are used by a type of vehicle.
+     * @param type Represents the type of vehicle.
+     * @return An integer representing the number of occupied parking places for that type.
+     */
+    public int getCurrentCapacity(VehicleType type) {
+        tryReleaseDepartures(LocalDateTime.now());
+        return currentCapacity.get(type.ordinal());
     }
 
     /**
@@ -71,13 +182,82 @@ public class Area {
         return vehiclePlatesMap;
     }
 
+    /**
+     * This method returns the gain of the area in a day (the sum of the parking costs of its vehicles), from the revenue ledger.
+     * @param epochDay Represents the day in which the gain is computed, as the number of days since 1970-01-01.
+     * @return The gain of the area.
+     */
+    public double getGain(long epochDay) {
+        return getRevenueLedger().getRevenue(epochDay);
+    }
+
+    /**
+     * This method returns the gain of the area in an interval of days, from the revenue ledger. It does not wait for
+     * the admissions in the area.
+     * @param fromDay Represents the first day, as the number of days since 1970-01-01.
+     * @param toDay Represents the last day (included), as the number of days since 1970-01-01.
+     * @return The gain of the area between the two days.
+     */
+    public double getGain(long fromDay, long toDay) {
+        return getRevenueLedger().getRevenue(fromDay, toDay);
+    }
+
+    /**
+     * This is the getter for revenueLedger. The ledger is computed from the parking intervals of the vehicles
+     * the first time it is used after the area was loaded, while holding the admission lock.
+     * @return The revenue of the area for each day and type of vehicle.
+     */
+    public RevenueLedger getRevenueLedger() {
+        if (!revenueLedgerBuilt) {
+            admissionLock.lock();
+            try {
+                if (!revenueLedgerBuilt) {
+                    RevenueLedger builtLedger = new RevenueLedger();
+
+                    for (Vehicle vehicle : vehiclePlatesMap.values()) {
+                        vehicle.addRevenue(builtLedger);
+                    }
+                    revenueLedger = builtLedger;
+                    revenueLedgerBuilt = true;
+                }
+            } finally {
+                admissionLock.unlock();
+            }
+        }
+
+        return revenueLedger;
+    }
+
     /**
      * This is the getter fot maxCapacity.
      * @return A map representing the maximum capacity of the area for each type.
      * for each type of vehicles.
      */
     public Map<VehicleType, Integer> getMaxCapacity() {
-        return maxCapacity;
+        return toMap(maxCapacity);
+    }
+
+    /**
+     * This method returns the maximum capacity of the area for a type of vehicle.
+     * @param type Represents the type of vehicle.
+     * @return An integer representing the maximum number of parking places for that type.
+     */
+    public int getMaxCapacity(VehicleType type) {
+        return maxCapacity[type.ordinal()];
+    }
+
+    /**
+     * This method returns the maximum capacities in the order used by the area lines of the input file.
+     * @return The array of values that are the maximum capacity for a certain type of vehicle.
+     */
+    public int[] getMaxCapacityValues() {
+        int[] values = new int[CAPACITY_ORDER.length];
+
+        for (int i = 0; i < CAPACITY_ORDER.length; i++) {
+            values[i] = maxCapacity[CAPACITY_ORDER[i].ordinal()];
+        }
+
+        return values;
     }
 
     /**
@@ -86,42 +266,222 @@ public class Area {
      *               a certain type of vehicle.
      */
     public void setMaxCapacity(int[] values) {
-        maxCapacity.put(VehicleType.MOTORCYCLE, values[0]);
-        maxCapacity.put(VehicleType.CAR, values[1]);
-        maxCapacity.put(VehicleType.VAN, values[2]);
-        maxCapacity.put(VehicleType.BUS, values[3]);
-        maxCapacity.put(VehicleType.TRUCK, values[4]);
+        admissionLock.lock();
+        try {
+            for (int i = 0; i < CAPACITY_ORDER.length; i++) {
+                maxCapacity[CAPACITY_ORDER[i].ordinal()] = values[i];
+                updateFreeCapacity(CAPACITY_ORDER[i]);
+            }
+        } finally {
+            admissionLock.unlock();
+        }
+    }
+
+    /**
+     * This method copies an array indexed by the ordinal of the vehicle types into a map.
+     * @param values Represents the array indexed by the ordinal of the vehicle types.
+     * @return A map containing the value for each type of vehicle.
+     */
+    private static Map<VehicleType, Integer> toMap(int[] values) {
+        Map<VehicleType, Integer> map = new EnumMap<>(VehicleType.class);
+
+        for (VehicleType type : VehicleType.values()) {
+            map.put(type, values[type.ordinal()]);
+        }
+
+        return map;
     }
 
     /**
-     * This method initialises the typeCapacity with 0, so that the number of vehicles
-     * will be increased easier.
+     * This method copies an atomic array indexed by the ordinal of the vehicle types into a map.
+     * @param values Represents the atomic array indexed by the ordinal of the vehicle types.
+     * @return A map containing the value for each type of vehicle.
      */
-    private void initializeTypeCapacity() {
+    private static Map<VehicleType, Integer> toMap(AtomicIntegerArray values) {
+        Map<VehicleType, Integer> map = new EnumMap<>(VehicleType.class);
+
         for (VehicleType type : VehicleType.values()) {
-            currentCapacity.put(type, 0);
+            map.put(type, values.get(type.ordinal()));
+        }
+
+        return map;
+    }
+
+    /**
+     * This is the getter for metrics.
+     * @return The number of admissions and rejections of the area for each type of vehicle.
+     */
+    public AreaMetrics getMetrics() {
+        return metrics;
+    }
+
+    /**
+     * This is the getter for admissionLock.
+     * @return The lock held while a vehicle is admitted in the area or while its departures are processed.
+     */
+    ReentrantLock getAdmissionLock() {
+        return admissionLock;
+    }
+
+    /**
+     * This is the getter for lastDiscount. It must be called while holding the admission lock.
+     * @return True if the last parking interval admitted in the area has the discount, false otherwise.
+     */
+    boolean getLastDiscount() {
+        return lastDiscount;
+    }
+
+    /**
+     * This method frees the parking places of the vehicles that left the area until a certain time.
+     * Only the departures whose exit time passed are visited. It waits for the admission lock of the area.
+     * @param now Represents the time until which the departures are processed.
+     */
+    public void releaseDepartures(LocalDateTime now) {
+        admissionLock.lock();
+        try {
+            Departure departure;
+
+            while ((departure = departureScheduler.pollDue(now)) != null) {
+                currentCapacity.decrementAndGet(departure.getType().ordinal());
+                updateFreeCapacity(departure.getType());
+            }
+        } finally {
+            admissionLock.unlock();
         }
     }
 
     /**
-     * This method computes the typeOccupancy based on the current time.
-     * For each vehicle in vehiclePlatesMap it checks if it is still in the parking lot
-     * at the current time. (Compares the lastExit of a car with the current time).
-     * If it is, the capacity for that type of car is incremented.
+     * This method frees the parking places of the vehicles that left the area until a certain time, only if no
+     * other thread holds the admission lock. It is used by the readers of the number of used parking places, so
+     * they never wait for an admission (the admission releases the departures itself).
+     * @param now Represents the time until which the departures are processed.
      */
-    private void computeTypeOccupancy() {
-        LocalDateTime now = LocalDateTime.now();
-        initializeTypeCapacity();
+    private void tryReleaseDepartures(LocalDateTime now) {
+        if (admissionLock.tryLock()) {
+            try {
+                releaseDepartures(now);
+            } finally {
+                admissionLock.unlock();
+            }
+        }
+    }
+
+    /**
+     * This is the getter for departureScheduler.
+     * @return The scheduler that keeps the departures of the vehicles from the area.
+     */
+    public DepartureScheduler getDepartureScheduler() {
+        return departureScheduler;
+    }
+
+    /**
+     * This method marks that a vehicle occupies a parking place in the area until a certain time.
+     * If the vehicle did not already occupy a place, the number of used places for its type is incremented.
+     * @param licensePlate Represents the license plate of the vehicle.
+     * @param type Represents the type of the vehicle.
+     * @param exit Represents the time when the vehicle leaves the area.
+     * @param now Represents the current time.
+     */
+    private void occupy(String licensePlate, VehicleType type, LocalDateTime exit, LocalDateTime now) {
+        if (exit.compareTo(now) > 0 && departureScheduler.schedule(licensePlate, type, exit)) {
+            currentCapacity.incrementAndGet(type.ordinal());
+            updateFreeCapacity(type);
+        }
+        if (exit.compareTo(now) > 0 && parkingLot != null) {
+            parkingLot.noteDeparture(EpochMinutes.of(exit));
+        }
+    }
 
-        for (Map.Entry<String, Vehicle> set : vehiclePlatesMap.entrySet()) {
-            int capacity = currentCapacity.get(set.getValue().getType());
+    /**
+     * This method adds a vehicle whose parking intervals are decoded later from a mapped snapshot. The parking
+     * intervals were already checked when the snapshot was written, so only their summary is used: their number
+     * is counted on the canonical vehicle, the exit of the last one becomes the lastExit of the vehicle and the
+     * latest exit decides if the vehicle still occupies a parking place.
+     * @param licensePlate Represents the license plate of the vehicle.
+     * @param vehicle Represents the vehicle, which is not already in the area.
+     * @param intervalCount Represents the number of parking intervals of the vehicle.
+     * @param lastExit Represents the exit of the last parking interval of the vehicle.
+     * @param latestExit Represents the latest exit of the parking intervals of the vehicle.
+     * @param plateIndex Represents the license plate index of the parking chain.
+     * @return The number of parking entrances that the license plate had in the parking chain before the parking
+     * intervals of this vehicle, used to give the discounts when the parking intervals are decoded.
+     */
+    int addSummarizedVehicle(String licensePlate, Vehicle vehicle, int intervalCount, LocalDateTime lastExit, LocalDateTime latestExit, PlateIndex plateIndex) {
+        admissionLock.lock();
+        try {
+            vehiclePlatesMap.putIfAbsent(licensePlate, vehicle);
+            revenueLedgerBuilt = false;
+            occupancyIndex = null;
+
+            if (intervalCount == 0) {
+                return 0;
+            }
+
+            vehicle.setLastExit(lastExit);
+
+            int previousEntrances = plateIndex.register(licensePlate, vehicle, this).addParkingEntrances(intervalCount) - intervalCount;
 
-            if (set.getValue().getLastExit().compareTo(now) > 0) {
-                currentCapacity.put(set.getValue().getType(), ++capacity);
+            LocalDateTime now = LocalDateTime.now();
+            releaseDepartures(now);
+            occupy(licensePlate, vehicle.getType(), latestExit, now);
+
+            return previousEntrances;
+        } finally {
+            admissionLock.unlock();
+        }
+    }
+
+    /**
+     * This method returns the number of parking intervals of a type of vehicle that include a certain time, from
+     * the interval index of the area (built the first time it is used). Unlike getCurrentCapacity(), it can be
+     * used for any time in the past or in the future, and it counts every parking interval of the vehicles.
+     * The index is changed by the admissions, so it is read while holding the admission lock.
+     * @param type Represents the type of vehicle.
+     * @param time Represents the time.
+     * @return The number of parking intervals that entered at that time or before it and exit after it.
+     */
+    public int getOccupancy(VehicleType type, LocalDateTime time) {
+        admissionLock.lock();
+        try {
+            if (occupancyIndex == null) {
+                occupancyIndex = new OccupancyIndex(this);
             }
+
+            return occupancyIndex.getOccupancy(type, EpochMinutes.of(time));
+        } finally {
+            admissionLock.unlock();
         }
     }
 
+    /**
+     * This method returns the occupancy of the area at a certain time for each type of vehicle.
+     * @param time Represents the time.
+     * @return A map representing the number of parking intervals of each type of vehicle that include that time.
+     */
+    public Map<VehicleType, Integer> getOccupancy(LocalDateTime time) {
+        int[] occupancy = new int[VehicleType.values().length];
+
+        for (VehicleType type : VehicleType.values()) {
+            occupancy[type.ordinal()] = getOccupancy(type, time);
+        }
+
+        return toMap(occupancy);
+    }
+
+    /**
+     * This method computes the occupancy of the area for each type of vehicle during an interval of time, with
+     * one sweep over the parking intervals of its vehicles.
+     * @param from Represents the beginning of the interval of time.
+     * @param to Represents the end of the interval of time (not included).
+     * @param stepMinutes Represents the number of minutes between two sample times (for example 5).
+     * @return The occupancy at each sample time, the peak occupancy and the time at capacity for each type.
+     * @throws InvalidParkingIntervalException It is thrown when the end is before the beginning or the step
+     * is not a positive number of minutes.
+     */
+    public OccupancySeries getOccupancySeries(LocalDateTime from, LocalDateTime to, int stepMinutes) throws InvalidParkingIntervalException {
+        return new OccupancySeries(List.of(this), from, to, stepMinutes);
+    }
+
     /**
      * This method transforms a String variable intro a LocalDateTime variable.
      * @param str Represents the String that will be transformed into LocalDateTime.
@@ -143,12 +503,8 @@ public class Area {
      * that was read from a file.
      * The data from the line is assigned to different variables. Based on line[1]
      * (representing the type of the car) we will know what kind of vehicle we should create.
-     * We check if the vehicle was parked another time that day in that area.
-     * We check if there are free parking spaces in the area. If there are and the vehicle was earlier in that day, we only
-     * add the new parking intervals to its parkingIntervalsMap. Otherwise,
-     * the vehicle, parking interval and the subscription are created and the lastExit of the car is set. The vehicles are added to
-     * vehiclePlatesMap. If there are no free parking spaces in the area, an error will be thrown.
-     * To keep the rate occupancy updated, it will be computed again.
+     * If the vehicle was already parked in the area, the existing object is used, otherwise
+     * the vehicle and its subscription are created. Then the vehicle is admitted in the area.
      * @param line Represents the line that was read form a file
      * @throws InvalidFieldException It is thrown when a field is not valid. In this context
      * it means that the vehicle type read from the text file is not a valid one.
@@ -165,47 +521,231 @@ public class Area {
         LocalDateTime entry = getLocalDateTime(line[4]);
         LocalDateTime exit = getLocalDateTime(line[5]);
 
-        Subscription subscription = new Subscription(boughtTime);
-        if (boughtTime == null) {
-            subscription = null;
-        }
-
-        Vehicle existingVehicle = vehiclePlatesMap.get(licensePlate);
-        Vehicle vehicle;
+        Vehicle vehicle = vehiclePlatesMap.get(licensePlate);
 
-        if (existingVehicle == null) {
+        if (vehicle == null) {
             vehicle = Vehicle.getVehicleObject(carType);
-            vehicle.setSubscription(subscription);
-        } else {
-            vehicle = existingVehicle;
+            if (boughtTime != null) {
+                vehicle.setSubscription(new Subscription(boughtTime));
+            }
         }
 
-        vehicle.setLastExit(exit);
-        VehicleType type = vehicle.getType();
-        if (this.maxCapacity.get(type).equals(this.currentCapacity.get(type))) {
-            throw new MaximumCapacityReachedException("Maximum capacity for " + type + " is " + this.maxCapacity.get(type));
+        addVehicle(licensePlate, vehicle, entry, exit);
+    }
+
+    /**
+     * This method admits a vehicle in the area for a parking interval.
+     * If a vehicle with the same license plate was already parked in the area, the existing object is used.
+     * We check if there are free parking spaces in the area (a vehicle that already occupies a place does not
+     * need a new one) and if the parking interval is a valid one.
+     * Then the parking interval is added to the vehicle and the lastExit of the vehicle is set. The 10th parking
+     * of a vehicle gets a discount. If the vehicle is still in the area, the number of used places for its
+     * type is incremented (only if the vehicle did not already occupy a place).
+     * @param licensePlate Represents the license plate of the vehicle.
+     * @param vehicle Represents the vehicle that is admitted.
+     * @param entry Represents the time when the vehicle enters the area.
+     * @param exit Represents the time when the vehicle exits the area.
+     * @throws MaximumCapacityReachedException It is thrown when the maximum capacity of the area
+     * for a certain type of vehicle is reached.
+     * @throws InvalidParkingIntervalException It is thrown when the duration of
+     * a parking interval is negative, so the parking interval was not introduced correctly.
+     */
+    public void addVehicle(String licensePlate, Vehicle vehicle, LocalDateTime entry, LocalDateTime exit) throws MaximumCapacityReachedException, InvalidParkingIntervalException {
+        checkAdmitted(tryAdmit(licensePlate, vehicle, entry, exit), licensePlate, vehicle);
+    }
+
+    /**
+     * This method tries to admit a vehicle in the area for a parking interval, like addVehicle(), but returns the
+     * reason for which the vehicle was not admitted instead of throwing an exception, so a full area can be
+     * handled without the cost of creating the exception.
+     * @param licensePlate Represents the license plate of the vehicle.
+     * @param vehicle Represents the vehicle that is admitted.
+     * @param entry Represents the time when the vehicle enters the area.
+     * @param exit Represents the time when the vehicle exits the area.
+     * @return ADMITTED if the vehicle was admitted, FULL if the maximum capacity of the area for its type was
+     * reached or BAD_INTERVAL if the parking interval is not a valid one.
+     */
+    public AdmissionStatus tryAdmit(String licensePlate, Vehicle vehicle, LocalDateTime entry, LocalDateTime exit) {
+        return tryAdmit(licensePlate, vehicle, entry, exit, null);
+    }
+
+    /**
+     * This method admits a vehicle in the area for a parking interval. If the area is part of a parking chain,
+     * the parking entrances are counted on the canonical vehicle of the license plate, so the 10th parking in
+     * the whole parking chain gets a discount, and the license plate index is updated. The cost of the parking
+     * interval (and the subscription of a new vehicle) is added to the revenue ledger. The whole admission is done
+     * while holding the admission lock of the area, so two gates can not take the last parking place together.
+     * @param licensePlate Represents the license plate of the vehicle.
+     * @param vehicle Represents the vehicle that is admitted.
+     * @param entry Represents the time when the vehicle enters the area.
+     * @param exit Represents the time when the vehicle exits the area.
+     * @param plateIndex Represents the license plate index of the parking chain or null if the area is not
+     *                   part of a parking chain.
+     * @throws MaximumCapacityReachedException It is thrown when the maximum capacity of the area
+     * for a certain type of vehicle is reached.
+     * @throws InvalidParkingIntervalException It is thrown when the duration of
+     * a parking interval is negative, so the parking interval was not introduced correctly.
+     * @throws InvalidVehicleTypeException It is thrown when the license plate was parked in the parking chain
+     * with another type of vehicle.
+     */
+    void addVehicle(String licensePlate, Vehicle vehicle, LocalDateTime entry, LocalDateTime exit, PlateIndex plateIndex) throws MaximumCapacityReachedException, InvalidParkingIntervalException, InvalidVehicleTypeException {
+        AdmissionStatus status = tryAdmit(licensePlate, vehicle, entry, exit, plateIndex);
+
+        checkType(status, licensePlate, vehicle, plateIndex);
+        checkAdmitted(status, licensePlate, vehicle);
+    }
+
+    /**
+     * This method throws the exception that corresponds to a vehicle that was not admitted in the area because
+     * its license plate was parked in the parking chain with another type of vehicle.
+     * @param status Represents the result of the attempt to admit the vehicle.
+     * @param licensePlate Represents the license plate of the vehicle.
+     * @param vehicle Represents the vehicle.
+     * @param plateIndex Represents the license plate index of the parking chain.
+     * @throws InvalidVehicleTypeException It is thrown when the status is WRONG_TYPE.
+     */
+    void checkType(AdmissionStatus status, String licensePlate, Vehicle vehicle, PlateIndex plateIndex) throws InvalidVehicleTypeException {
+        if (status == AdmissionStatus.WRONG_TYPE) {
+            VehicleType knownType = plateIndex.get(licensePlate).getVehicle().getType();
+
+            throw new InvalidVehicleTypeException("Vehicle '" + licensePlate + "' is a " + knownType + ", not a " + vehicle.getType() + ".");
         }
+    }
 
-        int parkingDays = exit.getDayOfYear() - entry.getDayOfYear();
-        String date = String.valueOf(entry.toLocalDate());
-        ParkingInterval parkingInterval = new ParkingInterval(entry, exit);
-        LocalDateTime dateTime = entry;
+    /**
+     * This method throws the exception that corresponds to a vehicle that was not admitted in the area.
+     * @param status Represents the result of the attempt to admit the vehicle.
+     * @param licensePlate Represents the license plate of the vehicle.
+     * @param vehicle Represents the vehicle.
+     * @throws MaximumCapacityReachedException It is thrown when the status is FULL.
+     * @throws InvalidParkingIntervalException It is thrown when the status is BAD_INTERVAL.
+     */
+    void checkAdmitted(AdmissionStatus status, String licensePlate, Vehicle vehicle) throws MaximumCapacityReachedException, InvalidParkingIntervalException {
+        if (status == AdmissionStatus.FULL) {
+            Vehicle existingVehicle = vehiclePlatesMap.get(licensePlate);
+            VehicleType type = (existingVehicle != null ? existingVehicle : vehicle).getType();
 
-        vehiclePlatesMap.putIfAbsent(licensePlate, vehicle);
-        if (parkingDays >= 0) {
-            vehiclePlatesMap.get(licensePlate).getParkingIntervals().putIfAbsent(date, new ArrayList<>());
-            vehiclePlatesMap.get(licensePlate).getParkingIntervals().get(date).add(parkingInterval);
-        } else {
+            throw new MaximumCapacityReachedException("Maximum capacity for " + type + " is " + maxCapacity[type.ordinal()]);
+        }
+        if (status == AdmissionStatus.BAD_INTERVAL) {
             throw new InvalidParkingIntervalException("The parking interval is not a valid one.");
         }
+    }
 
-        vehicle.addParkingEntrances();
+    /**
+     * This method tries to admit a vehicle in the area for a parking interval, as described by
+     * addVehicle(String, Vehicle, LocalDateTime, LocalDateTime, PlateIndex), and returns the reason for which it was
+     * not admitted instead of throwing an exception. Nothing is changed when the vehicle is not admitted.
+     * @param licensePlate Represents the license plate of the vehicle.
+     * @param vehicle Represents the vehicle that is admitted.
+     * @param entry Represents the time when the vehicle enters the area.
+     * @param exit Represents the time when the vehicle exits the area.
+     * @param plateIndex Represents the license plate index of the parking chain or null if the area is not
+     *                   part of a parking chain.
+     * @return ADMITTED if the vehicle was admitted, FULL if the maximum capacity of the area for its type was
+     * reached, BAD_INTERVAL if the parking interval is not a valid one or WRONG_TYPE if the license plate was
+     * parked in the parking chain with another type of vehicle.
+     */
+    AdmissionStatus tryAdmit(String licensePlate, Vehicle vehicle, LocalDateTime entry, LocalDateTime exit, PlateIndex plateIndex) {
+        return tryAdmit(licensePlate, vehicle, entry, exit, plateIndex, null);
+    }
 
-        if (vehicle.getParkingEntrances() % 10 == 0) {
-            parkingInterval.setDiscount(true);
+    /**
+     * This method tries to admit a vehicle in the area for a parking interval whose discount may already be known,
+     * because it was saved with the parking interval. The parking entrance is counted in both cases, so the next
+     * admissions give the discount to the same parkings as before the parking chain was saved.
+     * @param licensePlate Represents the license plate of the vehicle.
+     * @param vehicle Represents the vehicle that is admitted.
+     * @param entry Represents the time when the vehicle enters the area.
+     * @param exit Represents the time when the vehicle exits the area.
+     * @param plateIndex Represents the license plate index of the parking chain or null if the area is not
+     *                   part of a parking chain.
+     * @param discount Represents the discount of the parking interval, or null to give the discount to each 10th
+     *                 parking entrance of the license plate.
+     * @return ADMITTED if the vehicle was admitted, FULL if the maximum capacity of the area for its type was
+     * reached, BAD_INTERVAL if the parking interval is not a valid one or WRONG_TYPE if the license plate was
+     * parked in the parking chain with another type of vehicle.
+     */
+    AdmissionStatus tryAdmit(String licensePlate, Vehicle vehicle, LocalDateTime entry, LocalDateTime exit, PlateIndex plateIndex, Boolean discount) {
+        if (entry == null || exit == null || exit.isBefore(entry)) {
+            return AdmissionStatus.BAD_INTERVAL;
         }
 
-        computeTypeOccupancy();
+        admissionLock.lock();
+        try {
+            LocalDateTime now = LocalDateTime.now();
+            releaseDepartures(now);
+
+            Vehicle existingVehicle = vehiclePlatesMap.get(licensePlate);
+
+            if (existingVehicle != null) {
+                vehicle = existingVehicle;
+            }
+
+            VehicleType type = vehicle.getType();
+            if (plateIndex != null) {
+                PlateIndex.PlateRecord knownRecord = plateIndex.get(licensePlate);
+
+                if (knownRecord != null && knownRecord.getVehicle().getType() != type) {
+                    return AdmissionStatus.WRONG_TYPE;
+                }
+            }
+
+            if (currentCapacity.get(type.ordinal()) >= maxCapacity[type.ordinal()] && !departureScheduler.isOccupying(licensePlate)) {
+                metrics.recordRejection(type);
+                updateFreeCapacity(type);
+                return AdmissionStatus.FULL;
+            }
+
+            PlateIndex.PlateRecord record = null;
+            if (plateIndex != null) {
+                record = plateIndex.admit(licensePlate, vehicle, this);
+
+                if (record == null) {
+                    return AdmissionStatus.WRONG_TYPE;
+                }
+            }
+
+            boolean newVehicle = vehiclePlatesMap.putIfAbsent(licensePlate, vehicle) == null;
+
+            int parkingEntrances;
+            if (record == null) {
+                vehicle.addParkingEntrances();
+                parkingEntrances = vehicle.getParkingEntrances();
+            } else {
+                parkingEntrances = record.addParkingEntrances(1);
+            }
+
+            long entryMinute = EpochMinutes.of(entry);
+            long exitMinute = EpochMinutes.of(exit);
+            boolean hasDiscount = discount != null ? discount : parkingEntrances % 10 == 0;
+            vehicle.addParkingInterval(entryMinute, exitMinute, hasDiscount);
+            vehicle.setLastExit(exit);
+            lastDiscount = hasDiscount;
+
+            if (occupancyIndex != null) {
+                occupancyIndex.add(type, entryMinute, exitMinute);
+            }
+            if (revenueLedgerBuilt) {
+                Subscription subscription = vehicle.getSubscription();
+
+                if (newVehicle && subscription != null) {
+                    revenueLedger.add(subscription.getBoughtDay(), type, subscription.getPrice());
+                }
+                revenueLedger.add(EpochMinutes.toEpochDay(entryMinute), type, vehicle.intervalCost(entryMinute, (int) (exitMinute - entryMinute), hasDiscount));
+            }
+
+            if (record != null) {
+                plateIndex.logVisit(record, vehicle, entryMinute, exitMinute, discount != null);
+            }
+
+            occupy(licensePlate, type, exit, now);
+            metrics.recordAdmission(type);
+
+            return AdmissionStatus.ADMITTED;
+        } finally {
+            admissionLock.unlock();
+        }
     }
 
     /**
@@ -216,8 +756,8 @@ public class Area {
     public String toString() {
         return "Area{" +
                 "name='" + name + '\'' +
-                ", totalNumberOfParkingSpaces=" + maxCapacity +
-                ", typeOccupancy=" + currentCapacity +
+                ", totalNumberOfParkingSpaces=" + toMap(maxCapacity) +
+                ", typeOccupancy=" + toMap(currentCapacity) +
                 ", vehiclePlatesMap=" + vehiclePlatesMap +
                 '}';
     }
@@ -0,0 +1,141 @@
+package uvt;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * The objects of this class count the admissions and the rejections of an area for each type of vehicle. The
+ * counters are only incremented while the admission lock of the area is held, but they are read without it, so
+ * they are atomic and recording them does not need any other lock.
+ */
+public class AreaMetrics implements AreaMetricsMXBean {
+    /**
+     * Represents the area whose admissions are counted.
+     */
+    private final Area area;
+    /**
+     * Represents the number of admitted vehicles, indexed by the ordinal of their type.
+     */
+    private final AtomicLongArray admissions = new AtomicLongArray(VehicleType.values().length);
+    /**
+     * Represents the number of vehicles that were not admitted because the area was full, indexed by the ordinal
+     * of their type.
+     */
+    private final AtomicLongArray rejections = new AtomicLongArray(VehicleType.values().length);
+
+    /**
+     * This is the constructor for class AreaMetrics.
+     * @param area Represents the area whose admissions are counted.
+     */
+    AreaMetrics(Area area) {
+        this.area = area;
+    }
+
+    /**
+     * This method counts an admitted vehicle.
+     * @param type Represents the type of the vehicle.
+     */
+    void recordAdmission(VehicleType type) {
+        admissions.incrementAndGet(type.ordinal());
+    }
+
+    /**
+     * This method counts a vehicle that was not admitted because the area was full.
+     * @param type Represents the type of the vehicle.
+     */
+    void recordRejection(VehicleType type) {
+        rejections.incrementAndGet(type.ordinal());
+    }
+
+    /**
+     * This method returns the number of vehicles of a type admitted in the area.
+     * @param type Represents the type of vehicle.
+     * @return The number of admissions of the type.
+     */
+    public long getAdmissions(VehicleType type) {
+        return admissions.get(type.ordinal());
+    }
+
+    /**
+     * This method returns the number of vehicles of a type that were not admitted because the area was full.
+     * @param type Represents the type of vehicle.
+     * @return The number of rejections of the type.
+     */
+    public long getRejections(VehicleType type) {
+        return rejections.get(type.ordinal());
+    }
+
+    @Override
+    public long getAdmissions() {
+        return sum(admissions);
+    }
+
+    @Override
+    public long getRejections() {
+        return sum(rejections);
+    }
+
+    @Override
+    public Map<String, Long> getAdmissionsByVehicleType() {
+        return byVehicleType(admissions);
+    }
+
+    @Override
+    public Map<String, Long> getRejectionsByVehicleType() {
+        return byVehicleType(rejections);
+    }
+
+    @Override
+    public Map<String, Integer> getOccupiedPlaces() {
+        Map<String, Integer> occupied = new TreeMap<>();
+
+        for (VehicleType type : VehicleType.values()) {
+            occupied.put(type.name(), area.getCurrentCapacity(type));
+        }
+
+        return occupied;
+    }
+
+    /**
+     * This method adds the counters of all the types of vehicles.
+     * @param counters Represents the counters, indexed by the ordinal of the type of vehicle.
+     * @return The sum of the counters.
+     */
+    private static long sum(AtomicLongArray counters) {
+        long sum = 0;
+
+        for (int i = 0; i < counters.length(); i++) {
+            sum += counters.get(i);
+        }
+
+        return sum;
+    }
+
+    /**
+     * This method maps the counters to the names of the types of vehicles.
+     * @param counters Represents the counters, indexed by the ordinal of the type of vehicle.
+     * @return The counters, by the name of the type of vehicle.
+     */
+    private static Map<String, Long> byVehicleType(AtomicLongArray counters) {
+        Map<String, Long> map = new TreeMap<>();
+
+        for (VehicleType type : VehicleType.values()) {
+            map.put(type.name(), counters.get(type.ordinal()));
+        }
+
+        return map;
+    }
+
+    /**
+     * This methods overrides the toString() method.
+     * @return The representation of an object of type AreaMetrics.
+     */
+    @Override
+    public String toString() {
+        return "AreaMetrics{" +
+                "admissions=" + getAdmissionsByVehicleType() +
+                ", rejections=" + getRejectionsByVehicleType() +
+                '}';
+    }
+}
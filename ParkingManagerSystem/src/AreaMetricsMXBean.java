@@ -0,0 +1,40 @@
+package uvt;
+
+import java.util.Map;
+
+/**
+ * This is the management interface of the metrics of an area, registered in the platform MBean server as
+ * uvt:type=Area,chain=...,parkingLot=...,name=... so it can be read with JConsole or any JMX client.
+ */
+public interface AreaMetricsMXBean {
+    /**
+     * This method returns the number of vehicles admitted in the area.
+     * @return The number of admissions of all types of vehicles.
+     */
+    long getAdmissions();
+
+    /**
+     * This method returns the number of vehicles that were not admitted because the area was full.
+     * @return The number of rejections of all types of vehicles.
+     */
+    long getRejections();
+
+    /**
+     * This method returns the number of vehicles admitted in the area for each type of vehicle.
+     * @return The number of admissions, by the name of the type of vehicle.
+     */
+    Map<String, Long> getAdmissionsByVehicleType();
+
+    /**
+     * This method returns the number of vehicles that were not admitted because the area was full, for each type
+     * of vehicle.
+     * @return The number of rejections, by the name of the type of vehicle.
+     */
+    Map<String, Long> getRejectionsByVehicleType();
+
+    /**
+     * This method returns the number of parking places that are used for each type of vehicle.
+     * @return The number of used parking places, by the name of the type of vehicle.
+     */
+    Map<String, Integer> getOccupiedPlaces();
+}
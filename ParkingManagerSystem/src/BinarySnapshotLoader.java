@@ -0,0 +1,512 @@
+package uvt;
+
+import uvt.Exceptions.*;
+
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.CRC32;
+
+/**
+ * The objects of this class load a parking chain from a binary snapshot written by BinarySnapshotWriter.
+ * The whole file is read with one bulk read and each section is checked with its CRC32 before it is decoded.
+ * The vehicle sections of an area that are damaged are recorded in the LoadReport and skipped, so the other areas
+ * are still loaded. A damaged DIRECTORY or PLATES section stops the loading, because nothing can be decoded
+ * without them.
+ * The snapshot can also be mapped in memory. Then the parking lots, the areas, the license plates and the
+ * vehicles are created, but the parking intervals of a vehicle are decoded from the mapped file only when the
+ * vehicle needs them, so the time and the memory used depend on the number of vehicles and not on the number
+ * of parking intervals.
+ */
+public class BinarySnapshotLoader {
+    /**
+     * Represents the vehicle types, indexed by their ordinal.
+     */
+    private static final VehicleType[] VEHICLE_TYPES = VehicleType.values();
+
+    /**
+     * Represents the parking chain in which the data is loaded.
+     */
+    private final ParkingChain parkingChain;
+    /**
+     * Represents the areas of the directory, in the order of their VEHICLES sections.
+     */
+    private final List<Area> areas = new ArrayList<>();
+    /**
+     * Represents the parking lot of each area of the directory.
+     */
+    private final List<ParkingLot> areaParkingLots = new ArrayList<>();
+    /**
+     * Represents the license plates, indexed as in the PLATES section.
+     */
+    private String[] plates;
+    /**
+     * Represents the fact that the parking intervals are decoded only when they are needed.
+     */
+    private boolean lazy;
+    /**
+     * Represents the fact that the snapshot contains the discount of each parking interval (from version 3).
+     */
+    private boolean savedDiscounts;
+    /**
+     * Represents the sequence number of the last journal event included in the snapshot, or 0 if it has none.
+     */
+    private long journalSequence;
+
+    /**
+     * This is the constructor for class BinarySnapshotLoader.
+     * @param parkingChain Represents the parking chain in which the data is loaded.
+     */
+    public BinarySnapshotLoader(ParkingChain parkingChain) {
+        this.parkingChain = parkingChain;
+    }
+
+    /**
+     * This is the getter for journalSequence.
+     * @return The sequence number of the last journal event included in the loaded snapshot, or 0 if it has none.
+     */
+    long getJournalSequence() {
+        return journalSequence;
+    }
+
+    /**
+     * This method checks if a file starts with the bytes of a binary snapshot.
+     * @param path Represents the path of the file.
+     * @return True if the file is a binary snapshot, false otherwise.
+     * @throws IOException It is thrown when the file can not be read.
+     */
+    public static boolean isBinarySnapshot(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            ByteBuffer magic = ByteBuffer.allocate(BinarySnapshotWriter.MAGIC.length);
+
+            while (magic.hasRemaining() && channel.read(magic) > 0) {
+                // The magic bytes are read.
+            }
+
+            return !magic.hasRemaining() && ByteBuffer.wrap(BinarySnapshotWriter.MAGIC).equals(magic.flip());
+        }
+    }
+
+    /**
+     * This method loads the parking lots, areas and vehicles from a binary snapshot.
+     * @param path Represents the path of the file.
+     * @return The report that contains the throughput and the sections or vehicles that could not be loaded.
+     * @throws IOException It is thrown when the file can not be read or when it is not a valid binary snapshot.
+     */
+    public LoadReport load(Path path) throws IOException {
+        long startTime = System.nanoTime();
+        ByteBuffer data;
+
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            if (channel.size() > Integer.MAX_VALUE - 8) {
+                throw new IOException("The snapshot " + path + " is too big.");
+            }
+
+            data = ByteBuffer.allocate((int) channel.size());
+            while (data.hasRemaining() && channel.read(data) > 0) {
+                // The whole file is read.
+            }
+            data.flip();
+        }
+
+        lazy = false;
+
+        return decode(path, data, startTime);
+    }
+
+    /**
+     * This method maps a binary snapshot in memory and loads the parking lots, areas and vehicles from it. The
+     * parking intervals of each vehicle are decoded the first time the vehicle needs them. A snapshot of
+     * version 1 does not allow this, so its parking intervals are decoded immediately.
+     * @param path Represents the path of the file.
+     * @return The report that contains the throughput and the sections or vehicles that could not be loaded.
+     * @throws IOException It is thrown when the file can not be read or when it is not a valid binary snapshot.
+     */
+    public LoadReport loadMapped(Path path) throws IOException {
+        long startTime = System.nanoTime();
+        MappedByteBuffer data;
+
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            if (channel.size() > Integer.MAX_VALUE - 8) {
+                throw new IOException("The snapshot " + path + " is too big.");
+            }
+
+            data = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+
+        lazy = true;
+
+        return decode(path, data, startTime);
+    }
+
+    /**
+     * This method decodes the sections of a binary snapshot.
+     * @param path Represents the path of the file, used in the error messages.
+     * @param data Represents the content of the file.
+     * @param startTime Represents the time when the loading started, in nanoseconds.
+     * @return The report that contains the throughput and the sections or vehicles that could not be loaded.
+     * @throws IOException It is thrown when the file is not a valid binary snapshot.
+     */
+    private LoadReport decode(Path path, ByteBuffer data, long startTime) throws IOException {
+        LoadReport report = new LoadReport();
+        long records = 0;
+
+        try {
+            byte[] magic = new byte[BinarySnapshotWriter.MAGIC.length];
+            data.get(magic);
+            if (!ByteBuffer.wrap(magic).equals(ByteBuffer.wrap(BinarySnapshotWriter.MAGIC))) {
+                throw new IOException(path + " is not a binary snapshot.");
+            }
+
+            int version = data.getInt();
+            if (version < 1 || version > BinarySnapshotWriter.VERSION) {
+                throw new IOException("The snapshot version " + version + " is not supported.");
+            }
+            savedDiscounts = version >= 3;
+
+            int sectionNumber = 0;
+            int vehicleSection = 0;
+            ByteBuffer headers = null;
+            boolean headersValid = false;
+
+            while (true) {
+                sectionNumber++;
+                byte tag = data.get();
+                int length = data.getInt();
+
+                if (length < 0 || length > data.remaining() - 4) {
+                    throw new IOException("Section " + sectionNumber + " of the snapshot is truncated.");
+                }
+
+                ByteBuffer payload = data.slice();
+                payload.limit(length);
+                data.position(data.position() + length);
+                int checksum = data.getInt();
+
+                if (tag == BinarySnapshotWriter.END) {
+                    break;
+                }
+
+                boolean valid = tag == BinarySnapshotWriter.INTERVALS && lazy || checksum(payload) == checksum;
+
+                switch (tag) {
+                    case BinarySnapshotWriter.DIRECTORY:
+                        checkSection(valid, sectionNumber, "directory");
+                        records += readDirectory(payload);
+                        break;
+                    case BinarySnapshotWriter.PLATES:
+                        checkSection(valid, sectionNumber, "license plate");
+                        readPlates(payload);
+                        break;
+                    case BinarySnapshotWriter.SEQUENCE:
+                        checkSection(valid, sectionNumber, "journal sequence");
+                        journalSequence = getVarint(payload);
+                        records++;
+                        break;
+                    case BinarySnapshotWriter.VEHICLES:
+                        checkArea(vehicleSection, sectionNumber);
+
+                        if (valid) {
+                            records += readVehicles(payload, vehicleSection, sectionNumber, report);
+                        } else {
+                            reportDamagedArea(vehicleSection, sectionNumber, report);
+                        }
+                        vehicleSection++;
+                        break;
+                    case BinarySnapshotWriter.VEHICLE_HEADERS:
+                        checkArea(vehicleSection, sectionNumber);
+                        headers = payload;
+                        headersValid = valid;
+                        break;
+                    case BinarySnapshotWriter.INTERVALS:
+                        if (headers == null) {
+                            throw new IOException("Section " + sectionNumber + " of the snapshot does not follow the vehicles of an area.");
+                        }
+
+                        if (headersValid && valid) {
+                            records += readVehicles(headers, payload, checksum, vehicleSection, sectionNumber, report);
+                        } else {
+                            reportDamagedArea(vehicleSection, sectionNumber, report);
+                        }
+                        headers = null;
+                        vehicleSection++;
+                        break;
+                    default:
+                        report.addError(sectionNumber, "Unknown section " + tag + ".");
+                }
+            }
+        } catch (BufferUnderflowException | IllegalArgumentException | IndexOutOfBoundsException e) {
+            throw new IOException("The snapshot " + path + " is truncated or damaged.", e);
+        }
+
+        report.finish(records, data.limit(), System.nanoTime() - startTime);
+
+        return report;
+    }
+
+    /**
+     * This method computes the CRC32 of a payload.
+     * @param payload Represents the payload.
+     * @return The CRC32, as it is written in the snapshot.
+     */
+    private static int checksum(ByteBuffer payload) {
+        CRC32 crc = new CRC32();
+        crc.update(payload.duplicate());
+
+        return (int) crc.getValue();
+    }
+
+    /**
+     * This method checks that there is an area for the next vehicle section.
+     * @param vehicleSection Represents the index of the area in the directory.
+     * @param sectionNumber Represents the number of the section.
+     * @throws IOException It is thrown when there are more vehicle sections than areas.
+     */
+    private void checkArea(int vehicleSection, int sectionNumber) throws IOException {
+        if (vehicleSection >= areas.size() || plates == null) {
+            throw new IOException("Section " + sectionNumber + " of the snapshot does not belong to an area.");
+        }
+    }
+
+    /**
+     * This method records that the vehicles of an area could not be loaded.
+     * @param vehicleSection Represents the index of the area in the directory.
+     * @param sectionNumber Represents the number of the section.
+     * @param report Represents the report in which the error is added.
+     */
+    private void reportDamagedArea(int vehicleSection, int sectionNumber, LoadReport report) {
+        report.addError(sectionNumber, "The vehicles of area '" + areas.get(vehicleSection).getName() + "' are damaged (wrong CRC).");
+    }
+
+    /**
+     * This method checks that a section without which the snapshot can not be decoded has the right CRC32.
+     * @param valid Represents the fact that the CRC32 of the section is right.
+     * @param sectionNumber Represents the number of the section.
+     * @param name Represents the name of the section.
+     * @throws IOException It is thrown when the CRC32 is wrong.
+     */
+    private static void checkSection(boolean valid, int sectionNumber, String name) throws IOException {
+        if (!valid) {
+            throw new IOException("The " + name + " section (section " + sectionNumber + ") of the snapshot is damaged (wrong CRC).");
+        }
+    }
+
+    /**
+     * This method adds the parking lots and the areas of the directory to the parking chain.
+     * @param payload Represents the payload of the section.
+     * @return The number of parking lots and areas.
+     */
+    private long readDirectory(ByteBuffer payload) {
+        int parkingLotCount = (int) getVarint(payload);
+        long records = parkingLotCount;
+
+        for (int i = 0; i < parkingLotCount; i++) {
+            ParkingLot parkingLot = new ParkingLot(getString(payload), (int) getVarint(payload));
+            parkingChain.addParkingLot(parkingLot);
+
+            int areaCount = (int) getVarint(payload);
+            records += areaCount;
+
+            for (int j = 0; j < areaCount; j++) {
+                Area area = new Area(getString(payload));
+                int[] maxCapacity = new int[5];
+                for (int k = 0; k < maxCapacity.length; k++) {
+                    maxCapacity[k] = (int) getVarint(payload);
+                }
+                area.setMaxCapacity(maxCapacity);
+
+                parkingChain.addArea(parkingLot, area);
+                areas.add(area);
+                areaParkingLots.add(parkingLot);
+            }
+        }
+
+        return records;
+    }
+
+    /**
+     * This method reads the license plates.
+     * @param payload Represents the payload of the section.
+     */
+    private void readPlates(ByteBuffer payload) {
+        plates = new String[(int) getVarint(payload)];
+
+        for (int i = 0; i < plates.length; i++) {
+            plates[i] = getString(payload);
+        }
+    }
+
+    /**
+     * This method admits the vehicles of an area from a VEHICLES section of version 1, in the order in which
+     * they were written.
+     * @param payload Represents the payload of the section.
+     * @param areaIndex Represents the index of the area in the directory.
+     * @param sectionNumber Represents the number of the section, used in the error messages.
+     * @param report Represents the report in which the parking intervals that can not be admitted are added.
+     * @return The number of parking intervals.
+     */
+    private long readVehicles(ByteBuffer payload, int areaIndex, int sectionNumber, LoadReport report) {
+        Area area = areas.get(areaIndex);
+        ParkingLot parkingLot = areaParkingLots.get(areaIndex);
+        int vehicleCount = (int) getVarint(payload);
+        long records = 0;
+
+        for (int i = 0; i < vehicleCount; i++) {
+            String licensePlate = plates[(int) getVarint(payload)];
+            VehicleType type = VEHICLE_TYPES[(int) getVarint(payload)];
+            long subscription = getVarint(payload);
+            int intervalCount = (int) getVarint(payload);
+
+            Vehicle vehicle = Vehicle.getVehicleObject(type);
+            if (subscription != 0) {
+                vehicle.setSubscription(new Subscription(EpochMinutes.toDateTime(subscription - 1)));
+            }
+
+            records += intervalCount;
+            admitIntervals(payload, parkingLot, area, licensePlate, vehicle, intervalCount, sectionNumber, report);
+        }
+
+        return records;
+    }
+
+    /**
+     * This method admits the vehicles of an area from the sections of versions 2 and 3. If the snapshot is mapped,
+     * the vehicles are added with the summary of their parking intervals, which are decoded later.
+     * @param headers Represents the payload of the VEHICLE_HEADERS section.
+     * @param intervals Represents the payload of the INTERVALS section.
+     * @param checksum Represents the CRC32 of the INTERVALS section.
+     * @param areaIndex Represents the index of the area in the directory.
+     * @param sectionNumber Represents the number of the section, used in the error messages.
+     * @param report Represents the report in which the parking intervals that can not be admitted are added.
+     * @return The number of parking intervals.
+     */
+    private long readVehicles(ByteBuffer headers, ByteBuffer intervals, int checksum, int areaIndex, int sectionNumber, LoadReport report) {
+        Area area = areas.get(areaIndex);
+        ParkingLot parkingLot = areaParkingLots.get(areaIndex);
+        LazyHistory.IntervalBlock block = lazy ? new LazyHistory.IntervalBlock(intervals, checksum, area.getName()) : null;
+        int vehicleCount = (int) getVarint(headers);
+        long records = 0;
+
+        for (int i = 0; i < vehicleCount; i++) {
+            String licensePlate = plates[(int) getVarint(headers)];
+            VehicleType type = VEHICLE_TYPES[(int) getVarint(headers)];
+            long subscription = getVarint(headers);
+            int intervalCount = (int) getVarint(headers);
+            long lastExit = unZigZag(getVarint(headers));
+            long latestExit = unZigZag(getVarint(headers));
+            int offset = (int) getVarint(headers);
+            records += intervalCount;
+
+            Vehicle vehicle = Vehicle.getVehicleObject(type);
+            if (subscription != 0) {
+                vehicle.setSubscription(new Subscription(EpochMinutes.toDateTime(subscription - 1)));
+            }
+
+            if (lazy) {
+                if (offset < 0 || offset > intervals.limit()) {
+                    throw new IndexOutOfBoundsException("The parking intervals of '" + licensePlate + "' are outside of their section.");
+                }
+
+                int previousEntrances = area.addSummarizedVehicle(licensePlate, vehicle, intervalCount,
+                        EpochMinutes.toDateTime(lastExit), EpochMinutes.toDateTime(latestExit), parkingChain.getPlateIndex());
+                if (intervalCount > 0) {
+                    vehicle.setLazyHistory(new LazyHistory(block, offset, intervalCount, previousEntrances, savedDiscounts));
+                }
+                continue;
+            }
+
+            intervals.position(offset);
+            admitIntervals(intervals, parkingLot, area, licensePlate, vehicle, intervalCount, sectionNumber, report);
+        }
+
+        return records;
+    }
+
+    /**
+     * This method decodes the parking intervals of a vehicle and admits the vehicle in the area for each of them,
+     * with the discounts from the snapshot if it contains them.
+     * @param payload Represents the buffer positioned at the first parking interval.
+     * @param parkingLot Represents the parking lot of the area.
+     * @param area Represents the area.
+     * @param licensePlate Represents the license plate of the vehicle.
+     * @param vehicle Represents the vehicle.
+     * @param intervalCount Represents the number of parking intervals.
+     * @param sectionNumber Represents the number of the section, used in the error messages.
+     * @param report Represents the report in which the parking intervals that can not be admitted are added.
+     */
+    private void admitIntervals(ByteBuffer payload, ParkingLot parkingLot, Area area, String licensePlate, Vehicle vehicle, int intervalCount, int sectionNumber, LoadReport report) {
+        long previousExit = 0;
+
+        for (int j = 0; j < intervalCount; j++) {
+            long entry = previousExit + unZigZag(getVarint(payload));
+            long duration = getVarint(payload);
+            Boolean discount = null;
+
+            if (savedDiscounts) {
+                discount = (duration & 1) != 0;
+                duration >>>= 1;
+            }
+
+            long exit = entry + unZigZag(duration);
+            previousExit = exit;
+
+            try {
+                parkingChain.addVehicle(parkingLot, area, licensePlate, vehicle, EpochMinutes.toDateTime(entry), EpochMinutes.toDateTime(exit), discount);
+            } catch (MaximumCapacityReachedException | InvalidParkingIntervalException | InvalidVehicleTypeException e) {
+                report.addError(sectionNumber, "Vehicle '" + licensePlate + "' in area '" + area.getName() + "': " + e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * This method reads a variable-length number.
+     * @param payload Represents the buffer from which the number is read.
+     * @return The number.
+     */
+    static long getVarint(ByteBuffer payload) {
+        long value = 0;
+        int shift = 0;
+        byte b;
+
+        do {
+            b = payload.get();
+            value |= (long) (b & 0x7F) << shift;
+            shift += 7;
+        } while (b < 0 && shift < 64);
+
+        return value;
+    }
+
+    /**
+     * This method decodes a number encoded with BinarySnapshotWriter.zigZag().
+     * @param value Represents the encoded number.
+     * @return The signed number.
+     */
+    static long unZigZag(long value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    /**
+     * This method reads a String written as the number of its UTF-8 bytes followed by the bytes.
+     * @param payload Represents the buffer from which the String is read.
+     * @return The String.
+     */
+    private static String getString(ByteBuffer payload) {
+        int length = (int) getVarint(payload);
+        if (length < 0 || length > payload.remaining()) {
+            throw new BufferUnderflowException();
+        }
+
+        byte[] bytes = new byte[length];
+        payload.get(bytes);
+
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
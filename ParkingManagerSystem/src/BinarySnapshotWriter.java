@@ -0,0 +1,407 @@
+package uvt;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.zip.CRC32;
+
+/**
+ * The objects of this class save a parking chain in a compact binary snapshot, which is loaded by
+ * BinarySnapshotLoader. The file starts with MAGIC and VERSION and continues with sections, each one made of
+ * a tag byte, the length of the payload (4 bytes), the payload and its CRC32 (4 bytes):
+ * <ul>
+ *     <li>DIRECTORY: the parking lots (name, number of entries, areas) and their areas (name, maximum capacities)</li>
+ *     <li>PLATES: the distinct license plates of the parking chain, each one written once</li>
+ *     <li>VEHICLE_HEADERS: one section for each area, in the order of the directory, with its vehicles. A vehicle
+ *     is written as the index of its license plate, its type, its subscription, the number of its parking
+ *     intervals, the exit of its last parking, its latest exit and the position of its parking intervals in the
+ *     INTERVALS section that follows</li>
+ *     <li>INTERVALS: the parking intervals of the vehicles of the area, as minutes since 1970-01-01 00:00: the entry
+ *     as the difference from the previous exit of the vehicle and the exit as the duration of the parking, whose
+ *     lowest bit is the discount of the parking</li>
+ *     <li>SEQUENCE: the sequence number of the last journal event included in the snapshot. It is written only
+ *     in the snapshots of a journal</li>
+ *     <li>END: it has no payload</li>
+ * </ul>
+ * The numbers are written as variable-length integers (7 bits in each byte). The vehicles and the parking
+ * intervals are written in the same order as in a parking chain file, so both formats load the same parking chain.
+ * Because the headers are separated from the parking intervals, a mapped snapshot can create all the vehicles
+ * and decode the parking intervals of a vehicle only when they are needed. Version 1 of the format had a single
+ * VEHICLES section for each area, with the parking intervals after each vehicle, and versions 1 and 2 did not
+ * write the discounts, which were given again to each 10th parking; they can still be loaded.
+ */
+public class BinarySnapshotWriter {
+    /**
+     * Represents the first bytes of a binary snapshot.
+     */
+    static final byte[] MAGIC = {'P', 'M', 'S', 'B'};
+    /**
+     * Represents the version of the format written by this class.
+     */
+    static final int VERSION = 3;
+    /**
+     * Represents the tag of the section that ends the file.
+     */
+    static final byte END = 0;
+    /**
+     * Represents the tag of the section with the parking lots and the areas.
+     */
+    static final byte DIRECTORY = 1;
+    /**
+     * Represents the tag of the section with the license plates.
+     */
+    static final byte PLATES = 2;
+    /**
+     * Represents the tag of the section with the vehicles of an area and their parking intervals (version 1).
+     */
+    static final byte VEHICLES = 3;
+    /**
+     * Represents the tag of the section with the vehicles of an area (version 2).
+     */
+    static final byte VEHICLE_HEADERS = 4;
+    /**
+     * Represents the tag of the section with the parking intervals of the vehicles of an area (version 2).
+     */
+    static final byte INTERVALS = 5;
+    /**
+     * Represents the tag of the section with the sequence number of the last journal event included in the snapshot.
+     */
+    static final byte SEQUENCE = 6;
+
+    /**
+     * Represents the parking chain that is saved.
+     */
+    private final ParkingChain parkingChain;
+    /**
+     * Maps the index in the PLATES section to each license plate.
+     */
+    private final Map<String, Integer> plateIds = new HashMap<>();
+    /**
+     * Represents the payload of the current section.
+     */
+    private final Payload section = new Payload();
+    /**
+     * Represents the payload of the INTERVALS section of the current area.
+     */
+    private final Payload intervals = new Payload();
+    /**
+     * Represents the channel of the temporary file.
+     */
+    private FileChannel channel;
+    /**
+     * Represents the number of bytes written in the file.
+     */
+    private long bytes;
+    /**
+     * Represents the number of parking lots, areas and parking intervals written in the file, which is the number
+     * of lines of the same parking chain in the text format.
+     */
+    private long records;
+    /**
+     * Represents the sequence number of the last journal event included in the snapshot, or 0 if the snapshot is
+     * not the snapshot of a journal.
+     */
+    private long journalSequence;
+
+    /**
+     * This is the constructor for class BinarySnapshotWriter.
+     * @param parkingChain Represents the parking chain that is saved.
+     */
+    public BinarySnapshotWriter(ParkingChain parkingChain) {
+        this.parkingChain = parkingChain;
+    }
+
+    /**
+     * This method saves the parking chain in a binary snapshot. As for the text format, the data is written in a
+     * temporary file that replaces the given file only after it was synchronized with the disk.
+     * @param path Represents the path of the file.
+     * @return The report that contains the number of records and bytes written.
+     * @throws IOException It is thrown when the file can not be written.
+     */
+    public SaveReport write(Path path) throws IOException {
+        long startTime = System.nanoTime();
+        Path target = path.toAbsolutePath();
+        Path temporary = writeTemporary(target);
+
+        try {
+            ParkingChainWriter.commit(temporary, target);
+        } finally {
+            Files.deleteIfExists(temporary);
+        }
+
+        return getReport(System.nanoTime() - startTime);
+    }
+
+    /**
+     * This method writes the binary snapshot in a temporary file from the directory of the target file, which is
+     * then committed with ParkingChainWriter.commit().
+     * @param target Represents the absolute path of the file that will be replaced.
+     * @return The path of the temporary file.
+     * @throws IOException It is thrown when the file can not be written.
+     */
+    Path writeTemporary(Path target) throws IOException {
+        Path temporary = Files.createTempFile(target.getParent(), target.getFileName().toString(), ".tmp");
+
+        try (FileChannel fileChannel = FileChannel.open(temporary, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            channel = fileChannel;
+            bytes = 0;
+            records = 0;
+            plateIds.clear();
+
+            ByteBuffer header = ByteBuffer.allocate(MAGIC.length + 4);
+            header.put(MAGIC).putInt(VERSION).flip();
+            writeFully(header);
+
+            if (journalSequence > 0) {
+                section.clear();
+                section.putVarint(journalSequence);
+                writeSection(SEQUENCE, section);
+                records++;
+            }
+
+            writeDirectory();
+            writePlates();
+            for (ParkingLot parkingLot : parkingChain.parkingLotList) {
+                for (Area area : parkingLot.getAreaList()) {
+                    writeVehicles(area);
+                }
+            }
+
+            section.clear();
+            writeSection(END, section);
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(temporary);
+            throw e;
+        } finally {
+            channel = null;
+        }
+
+        return temporary;
+    }
+
+    /**
+     * This is the setter for journalSequence.
+     * @param journalSequence Represents the sequence number of the last journal event included in the snapshot.
+     */
+    void setJournalSequence(long journalSequence) {
+        this.journalSequence = journalSequence;
+    }
+
+    /**
+     * This method creates the report of the last file written.
+     * @param elapsedNanos Represents the time it took to save the file, in nanoseconds.
+     * @return The report that contains the number of records and bytes written.
+     */
+    SaveReport getReport(long elapsedNanos) {
+        return new SaveReport(records, bytes, elapsedNanos);
+    }
+
+    /**
+     * This method writes the section with the parking lots and their areas.
+     * @throws IOException It is thrown when the file can not be written.
+     */
+    private void writeDirectory() throws IOException {
+        section.clear();
+        section.putVarint(parkingChain.parkingLotList.size());
+
+        for (ParkingLot parkingLot : parkingChain.parkingLotList) {
+            records += 1 + parkingLot.getAreaList().size();
+            section.putString(parkingLot.getName());
+            section.putVarint(parkingLot.getNoOfEntries());
+            section.putVarint(parkingLot.getAreaList().size());
+
+            for (Area area : parkingLot.getAreaList()) {
+                section.putString(area.getName());
+
+                for (int value : area.getMaxCapacityValues()) {
+                    section.putVarint(value);
+                }
+            }
+        }
+
+        writeSection(DIRECTORY, section);
+    }
+
+    /**
+     * This method writes the section with the license plates, giving each one an index in the order in which
+     * it is first found.
+     * @throws IOException It is thrown when the file can not be written.
+     */
+    private void writePlates() throws IOException {
+        section.clear();
+        int count = 0;
+
+        for (ParkingLot parkingLot : parkingChain.parkingLotList) {
+            for (Area area : parkingLot.getAreaList()) {
+                for (String licensePlate : area.getVehiclePlatesMap().keySet()) {
+                    if (plateIds.putIfAbsent(licensePlate, count) == null) {
+                        count++;
+                    }
+                }
+            }
+        }
+
+        String[] plates = new String[count];
+        for (Map.Entry<String, Integer> entry : plateIds.entrySet()) {
+            plates[entry.getValue()] = entry.getKey();
+        }
+
+        section.putVarint(count);
+        for (String licensePlate : plates) {
+            section.putString(licensePlate);
+        }
+
+        writeSection(PLATES, section);
+    }
+
+    /**
+     * This method writes the sections with the vehicles of an area and with their parking intervals.
+     * @param area Represents the area.
+     * @throws IOException It is thrown when the file can not be written.
+     */
+    private void writeVehicles(Area area) throws IOException {
+        section.clear();
+        intervals.clear();
+        section.putVarint(area.getVehiclePlatesMap().size());
+
+        for (Map.Entry<String, Vehicle> entry : area.getVehiclePlatesMap().entrySet()) {
+            Vehicle vehicle = entry.getValue();
+            Subscription subscription = vehicle.getSubscription();
+            int offset = intervals.length;
+            int count = 0;
+            long previousExit = 0;
+            long maxExit = 0;
+
+            IntervalStore parkingIntervals = vehicle.getIntervals();
+            for (int i = 0; i < parkingIntervals.size(); i++) {
+                long entryMinute = parkingIntervals.getEntry(i);
+                long exitMinute = parkingIntervals.getExit(i);
+
+                intervals.putVarint(zigZag(entryMinute - previousExit));
+                intervals.putVarint(zigZag(exitMinute - entryMinute) << 1 | (parkingIntervals.hasDiscount(i) ? 1 : 0));
+                previousExit = exitMinute;
+                maxExit = count == 0 ? exitMinute : Math.max(maxExit, exitMinute);
+                count++;
+            }
+            records += count;
+
+            section.putVarint(plateIds.get(entry.getKey()));
+            section.putVarint(vehicle.getType().ordinal());
+            section.putVarint(subscription == null ? 0 : EpochMinutes.of(subscription.getBoughtTime()) + 1);
+            section.putVarint(count);
+            section.putVarint(zigZag(previousExit));
+            section.putVarint(zigZag(maxExit));
+            section.putVarint(offset);
+        }
+
+        writeSection(VEHICLE_HEADERS, section);
+        writeSection(INTERVALS, intervals);
+    }
+
+    /**
+     * This method encodes a signed number so that the numbers close to 0 have a short variable-length encoding.
+     * @param value Represents the number.
+     * @return The encoded number, which is not negative for the numbers that fit in 63 bits.
+     */
+    static long zigZag(long value) {
+        return (value << 1) ^ (value >> 63);
+    }
+
+    /**
+     * This method writes a section in the file, together with its tag, length and CRC32.
+     * @param tag Represents the tag of the section.
+     * @param payload Represents the payload of the section.
+     * @throws IOException It is thrown when the file can not be written.
+     */
+    private void writeSection(byte tag, Payload payload) throws IOException {
+        CRC32 crc = new CRC32();
+        crc.update(payload.data, 0, payload.length);
+
+        ByteBuffer header = ByteBuffer.allocate(5);
+        header.put(tag).putInt(payload.length).flip();
+        writeFully(header);
+        writeFully(ByteBuffer.wrap(payload.data, 0, payload.length));
+
+        ByteBuffer checksum = ByteBuffer.allocate(4);
+        checksum.putInt((int) crc.getValue()).flip();
+        writeFully(checksum);
+    }
+
+    /**
+     * This method writes all the bytes of a buffer in the file.
+     * @param buffer Represents the buffer.
+     * @throws IOException It is thrown when the file can not be written.
+     */
+    private void writeFully(ByteBuffer buffer) throws IOException {
+        bytes += buffer.remaining();
+
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+    }
+
+    /**
+     * The objects of this class keep the payload of a section while it is encoded.
+     */
+    private static class Payload {
+        /**
+         * Represents the bytes of the payload.
+         */
+        private byte[] data = new byte[1 << 16];
+        /**
+         * Represents the number of bytes of the payload.
+         */
+        private int length;
+
+        /**
+         * This method empties the payload, keeping its array.
+         */
+        private void clear() {
+            length = 0;
+        }
+
+        /**
+         * This method makes sure that the payload has enough free bytes.
+         * @param count Represents the number of bytes that will be added.
+         */
+        private void ensureCapacity(int count) {
+            if (data.length - length < count) {
+                data = Arrays.copyOf(data, Math.max(data.length * 2, length + count));
+            }
+        }
+
+        /**
+         * This method adds a variable-length number to the payload.
+         * @param value Represents the number, which must not be negative.
+         */
+        private void putVarint(long value) {
+            ensureCapacity(10);
+
+            while ((value & ~0x7FL) != 0) {
+                data[length++] = (byte) ((value & 0x7F) | 0x80);
+                value >>>= 7;
+            }
+            data[length++] = (byte) value;
+        }
+
+        /**
+         * This method adds a String to the payload, as the number of its UTF-8 bytes followed by the bytes.
+         * @param value Represents the String.
+         */
+        private void putString(String value) {
+            byte[] encoded = value.getBytes(StandardCharsets.UTF_8);
+
+            putVarint(encoded.length);
+            ensureCapacity(encoded.length);
+            System.arraycopy(encoded, 0, data, length, encoded.length);
+            length += encoded.length;
+        }
+    }
+}
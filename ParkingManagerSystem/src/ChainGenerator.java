@@ -0,0 +1,424 @@
+package uvt;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+/**
+ * The objects of this class generate parking chain files in the format read by ParkingChainLoader, for scale
+ * testing. The size of the parking chain (parking lots, areas, capacities, license plates and parking intervals)
+ * is configurable and the file is generated from a seed, so the same seed always gives the same file.
+ * The lines are encoded directly into a large byte buffer, like in ParkingChainWriter, so no object is created for
+ * a vehicle line.
+ * The type and the subscription of a license plate are computed from its number, so a license plate that appears
+ * in several areas (when the license plates are shared by the parking chain) is always the same vehicle.
+ * The parking intervals should end before the file is loaded: a vehicle that is still parked when it is loaded
+ * occupies a parking place and the areas can become full.
+ */
+public class ChainGenerator {
+    /**
+     * Represents the size of the buffer in which the lines are encoded.
+     */
+    private static final int BUFFER_SIZE = 1 << 20;
+    /**
+     * Represents the maximum number of bytes of a vehicle line.
+     */
+    private static final int MAX_VEHICLE_LINE = 96;
+    /**
+     * Represents the minimum duration of a parking interval, in minutes.
+     */
+    private static final int MIN_DURATION = 15;
+
+    /**
+     * Represents the value written instead of the bought time of a vehicle without a subscription.
+     */
+    private static final byte[] NULL = "null".getBytes(StandardCharsets.US_ASCII);
+
+    /**
+     * Represents the beginning of the vehicle lines for each vehicle type, indexed by the ordinal of the type.
+     */
+    private static final byte[][] VEHICLE_PREFIX = new byte[VehicleType.values().length][];
+
+    static {
+        for (VehicleType type : VehicleType.values()) {
+            VEHICLE_PREFIX[type.ordinal()] = ("vehicle," + type.toString().toLowerCase() + ",").getBytes(StandardCharsets.US_ASCII);
+        }
+    }
+
+    /**
+     * Represents the number of parking lots.
+     */
+    private int parkingLots = 10;
+    /**
+     * Represents the number of areas of each parking lot.
+     */
+    private int areasPerLot = 10;
+    /**
+     * Represents the number of entries of each parking lot.
+     */
+    private int entriesPerLot = 4;
+    /**
+     * Represents the maximum capacity of each area, in the order of the area lines (motorcycle, car, van, bus, truck).
+     */
+    private int[] capacity = {20, 100, 20, 5, 10};
+    /**
+     * Represents the number of license plates parked in each area.
+     */
+    private int platesPerArea = 1000;
+    /**
+     * Represents the number of license plates of the whole parking chain, from which the license plates of each area
+     * are chosen, or 0 if each area has its own license plates.
+     */
+    private int sharedPlates;
+    /**
+     * Represents the number of parking intervals of each license plate in an area.
+     */
+    private int intervalsPerPlate = 5;
+    /**
+     * Represents the part of the vehicles that have a subscription.
+     */
+    private double subscriptionRatio = 0.1;
+    /**
+     * Represents the first day of the parking intervals. It is a fixed day, so the default file does not depend
+     * on the day when it is generated.
+     */
+    private LocalDate firstDay = LocalDate.of(2023, 11, 1);
+    /**
+     * Represents the number of days of the parking intervals.
+     */
+    private int days = 30;
+    /**
+     * Represents the maximum duration of a parking interval, in minutes.
+     */
+    private int maxDurationMinutes = 12 * 60;
+    /**
+     * Represents the seed of the random numbers.
+     */
+    private long seed = 1;
+
+    /**
+     * Represents the buffer in which the lines are encoded.
+     */
+    private final ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+    /**
+     * Represents the array of the buffer.
+     */
+    private final byte[] out = buffer.array();
+    /**
+     * Represents the position in out at which the next byte is written.
+     */
+    private int position;
+    /**
+     * Represents the channel of the generated file.
+     */
+    private FileChannel channel;
+
+    /**
+     * This is the constructor for class ChainGenerator. The sizes have default values that can be changed
+     * with the setters before the file is generated.
+     */
+    public ChainGenerator() { }
+
+    /**
+     * This is the setter for parkingLots.
+     * @param parkingLots Represents the number of parking lots.
+     */
+    public void setParkingLots(int parkingLots) {
+        this.parkingLots = parkingLots;
+    }
+
+    /**
+     * This is the setter for areasPerLot.
+     * @param areasPerLot Represents the number of areas of each parking lot.
+     */
+    public void setAreasPerLot(int areasPerLot) {
+        this.areasPerLot = areasPerLot;
+    }
+
+    /**
+     * This is the setter for entriesPerLot.
+     * @param entriesPerLot Represents the number of entries of each parking lot.
+     */
+    public void setEntriesPerLot(int entriesPerLot) {
+        this.entriesPerLot = entriesPerLot;
+    }
+
+    /**
+     * This is the setter for capacity.
+     * @param capacity Represents the maximum capacity of each area, in the order of the area lines
+     *                 (motorcycle, car, van, bus, truck).
+     */
+    public void setCapacity(int[] capacity) {
+        this.capacity = capacity.clone();
+    }
+
+    /**
+     * This is the setter for platesPerArea.
+     * @param platesPerArea Represents the number of license plates parked in each area.
+     */
+    public void setPlatesPerArea(int platesPerArea) {
+        this.platesPerArea = platesPerArea;
+    }
+
+    /**
+     * This is the setter for sharedPlates.
+     * @param sharedPlates Represents the number of license plates of the whole parking chain, from which the license
+     *                     plates of each area are chosen, or 0 if each area has its own license plates.
+     */
+    public void setSharedPlates(int sharedPlates) {
+        this.sharedPlates = sharedPlates;
+    }
+
+    /**
+     * This is the setter for intervalsPerPlate.
+     * @param intervalsPerPlate Represents the number of parking intervals of each license plate in an area.
+     */
+    public void setIntervalsPerPlate(int intervalsPerPlate) {
+        this.intervalsPerPlate = intervalsPerPlate;
+    }
+
+    /**
+     * This is the setter for subscriptionRatio.
+     * @param subscriptionRatio Represents the part of the vehicles that have a subscription (between 0 and 1).
+     */
+    public void setSubscriptionRatio(double subscriptionRatio) {
+        this.subscriptionRatio = subscriptionRatio;
+    }
+
+    /**
+     * This method sets the days of the parking intervals.
+     * @param firstDay Represents the first day of the parking intervals.
+     * @param days Represents the number of days.
+     */
+    public void setDateSpan(LocalDate firstDay, int days) {
+        this.firstDay = firstDay;
+        this.days = days;
+    }
+
+    /**
+     * This is the setter for maxDurationMinutes.
+     * @param maxDurationMinutes Represents the maximum duration of a parking interval, in minutes.
+     */
+    public void setMaxDurationMinutes(int maxDurationMinutes) {
+        this.maxDurationMinutes = maxDurationMinutes;
+    }
+
+    /**
+     * This is the setter for seed.
+     * @param seed Represents the seed of the random numbers.
+     */
+    public void setSeed(long seed) {
+        this.seed = seed;
+    }
+
+    /**
+     * This method computes the number of lines of the generated file.
+     * @return The number of parking lot, area and vehicle lines.
+     */
+    public long getLineCount() {
+        return (long) parkingLots * (1 + (long) areasPerLot * (1 + (long) platesPerArea * intervalsPerPlate));
+    }
+
+    /**
+     * This method generates the file.
+     * @param file Represents the file that is generated. If it exists, it is replaced.
+     * @return The report that contains the number of lines and bytes that were written and the time it took.
+     * @throws IOException It is thrown when the file can not be written.
+     */
+    public SaveReport generate(String file) throws IOException {
+        long start = System.nanoTime();
+        long lines = 0;
+        long bytes = 0;
+        Path path = Paths.get(file);
+
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            this.channel = channel;
+            position = 0;
+            SplittableRandom random = new SplittableRandom(seed);
+            long firstMinute = firstDay.toEpochDay() * IntervalStore.MINUTES_PER_DAY;
+            int spanMinutes = days * IntervalStore.MINUTES_PER_DAY;
+
+            for (int lot = 0; lot < parkingLots; lot++) {
+                ensureRemaining(64);
+                position = ParkingChainWriter.encodeString("parkingLot,Lot " + lot + "," + entriesPerLot + "\n", out, position);
+                lines++;
+
+                for (int area = 0; area < areasPerLot; area++) {
+                    StringBuilder line = new StringBuilder("area,Area ").append(lot).append('-').append(area);
+                    for (int value : capacity) {
+                        line.append(',').append(value);
+                    }
+                    ensureRemaining(line.length() + 1);
+                    position = ParkingChainWriter.encodeString(line.append('\n').toString(), out, position);
+                    lines++;
+
+                    for (int p = 0; p < platesPerArea; p++) {
+                        long plate = sharedPlates > 0 ? random.nextInt(sharedPlates) : ((long) lot * areasPerLot + area) * platesPerArea + p;
+                        long hash = mix(seed + plate * 0x9E3779B97F4A7C15L);
+                        byte[] prefix = VEHICLE_PREFIX[vehicleType(hash).ordinal()];
+                        boolean subscription = (hash >>> 11) * 0x1.0p-53 < subscriptionRatio;
+                        long boughtMinute = firstMinute + Math.floorMod(mix(hash), (long) spanMinutes);
+
+                        for (int i = 0; i < intervalsPerPlate; i++) {
+                            ensureRemaining(MAX_VEHICLE_LINE);
+                            System.arraycopy(prefix, 0, out, position, prefix.length);
+                            position = encodePlate(plate, position + prefix.length);
+                            out[position++] = ',';
+
+                            if (subscription) {
+                                position = ParkingChainWriter.encodeMinutes(boughtMinute, out, position);
+                            } else {
+                                System.arraycopy(NULL, 0, out, position, NULL.length);
+                                position += NULL.length;
+                            }
+
+                            long entry = firstMinute + random.nextInt(spanMinutes);
+                            out[position++] = ',';
+                            position = ParkingChainWriter.encodeMinutes(entry, out, position);
+                            out[position++] = ',';
+                            position = ParkingChainWriter.encodeMinutes(entry + MIN_DURATION + random.nextInt(Math.max(1, maxDurationMinutes - MIN_DURATION)), out, position);
+                            out[position++] = '\n';
+                        }
+                        lines += intervalsPerPlate;
+                    }
+                }
+            }
+
+            bytes = channel.position() + position;
+            flush();
+        } finally {
+            channel = null;
+        }
+
+        return new SaveReport(lines, bytes, System.nanoTime() - start);
+    }
+
+    /**
+     * This method chooses the type of a license plate from its hash, with more cars than other vehicles.
+     * @param hash Represents the hash of the license plate.
+     * @return The type of the vehicle.
+     */
+    private static VehicleType vehicleType(long hash) {
+        int value = (int) (hash & 127);
+
+        if (value < 80) {
+            return VehicleType.CAR;
+        } else if (value < 96) {
+            return VehicleType.MOTORCYCLE;
+        } else if (value < 114) {
+            return VehicleType.VAN;
+        } else if (value < 122) {
+            return VehicleType.TRUCK;
+        }
+        return VehicleType.BUS;
+    }
+
+    /**
+     * This method mixes the bits of a number (the finalizer of SplitMix64), so close numbers get unrelated hashes.
+     * @param value Represents the number.
+     * @return The hash of the number.
+     */
+    private static long mix(long value) {
+        value = (value ^ (value >>> 30)) * 0xBF58476D1CE4E5B9L;
+        value = (value ^ (value >>> 27)) * 0x94D049BB133111EBL;
+        return value ^ (value >>> 31);
+    }
+
+    /**
+     * This method encodes a license plate from its number: "B" followed by the number in base 36.
+     * @param plate Represents the number of the license plate.
+     * @param offset Represents the position of the first byte of the license plate.
+     * @return The position after the last byte of the license plate.
+     */
+    private int encodePlate(long plate, int offset) {
+        out[offset++] = 'B';
+
+        int digits = 1;
+        for (long rest = plate / 36; rest > 0; rest /= 36) {
+            digits++;
+        }
+        for (int i = digits - 1; i >= 0; i--) {
+            int digit = (int) (plate % 36);
+            out[offset + i] = (byte) (digit < 10 ? '0' + digit : 'A' + digit - 10);
+            plate /= 36;
+        }
+
+        return offset + digits;
+    }
+
+    /**
+     * This method makes sure that the buffer has a number of free bytes, writing it in the file if it does not.
+     * @param length Represents the number of bytes.
+     * @throws IOException It is thrown when the file can not be written.
+     */
+    private void ensureRemaining(int length) throws IOException {
+        if (position + length > out.length) {
+            flush();
+        }
+    }
+
+    /**
+     * This method writes the encoded bytes in the file and empties the buffer.
+     * @throws IOException It is thrown when the file can not be written.
+     */
+    private void flush() throws IOException {
+        buffer.limit(position).position(0);
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+        position = 0;
+    }
+
+    /**
+     * This method generates a file from the arguments.
+     * When the path of the file is missing, it prints the usage and generates nothing.
+     * @param args Represents the arguments: the path of the file followed by options, each one followed by its value:
+     *             -lots, -areas, -entries, -capacity (five values separated by commas), -plates, -sharedPlates,
+     *             -intervals, -subscriptions, -from (a date), -days, -maxDuration (minutes) and -seed.
+     * @throws IOException It is thrown when the file can not be written.
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length == 0 || args[0].startsWith("-")) {
+            System.err.println("Usage: ChainGenerator <file> [-lots N] [-areas N] [-entries N] [-capacity N,N,N,N,N]"
+                    + " [-plates N] [-sharedPlates N] [-intervals N] [-subscriptions R] [-from YYYY-MM-DD] [-days N]"
+                    + " [-maxDuration N] [-seed N]");
+            return;
+        }
+
+        ChainGenerator generator = new ChainGenerator();
+        LocalDate from = generator.firstDay;
+        int days = generator.days;
+
+        for (int i = 1; i + 1 < args.length; i += 2) {
+            String value = args[i + 1];
+
+            switch (args[i]) {
+                case "-lots" -> generator.setParkingLots(Integer.parseInt(value));
+                case "-areas" -> generator.setAreasPerLot(Integer.parseInt(value));
+                case "-entries" -> generator.setEntriesPerLot(Integer.parseInt(value));
+                case "-capacity" -> generator.setCapacity(Arrays.stream(value.split(",")).mapToInt(Integer::parseInt).toArray());
+                case "-plates" -> generator.setPlatesPerArea(Integer.parseInt(value));
+                case "-sharedPlates" -> generator.setSharedPlates(Integer.parseInt(value));
+                case "-intervals" -> generator.setIntervalsPerPlate(Integer.parseInt(value));
+                case "-subscriptions" -> generator.setSubscriptionRatio(Double.parseDouble(value));
+                case "-from" -> from = LocalDate.parse(value);
+                case "-days" -> days = Integer.parseInt(value);
+                case "-maxDuration" -> generator.setMaxDurationMinutes(Integer.parseInt(value));
+                case "-seed" -> generator.setSeed(Long.parseLong(value));
+                default -> System.err.println("Unknown option " + args[i]);
+            }
+        }
+        generator.setDateSpan(from, days);
+
+        System.out.println("Generating " + generator.getLineCount() + " lines in " + args[0]);
+        System.out.println(generator.generate(args[0]));
+    }
+}
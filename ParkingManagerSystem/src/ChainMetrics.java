@@ -0,0 +1,331 @@
+package uvt;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.BiConsumer;
+
+/**
+ * The objects of this class keep the metrics of a parking chain: the time of the admissions, of the loads, of the
+ * saves and of the reports, and the bytes that were read and written. The admissions and the rejections are counted
+ * by the AreaMetrics of each area and are added here when they are read. Nothing is locked when a metric is
+ * recorded. The metrics can be registered in the platform MBean server, together with the metrics of each area.
+ */
+public class ChainMetrics implements ChainMetricsMXBean {
+    /**
+     * Represents the domain of the names of the MBeans.
+     */
+    public static final String DOMAIN = "uvt";
+
+    /**
+     * Represents the parking chain whose metrics are kept.
+     */
+    private final ParkingChain parkingChain;
+    /**
+     * Represents the time of the admissions done through the parking chain.
+     */
+    private final LatencyHistogram admissionLatency = new LatencyHistogram();
+    /**
+     * Represents the time of the loads.
+     */
+    private final LatencyHistogram loadLatency = new LatencyHistogram();
+    /**
+     * Represents the time of the saves.
+     */
+    private final LatencyHistogram saveLatency = new LatencyHistogram();
+    /**
+     * Represents the time of the reports.
+     */
+    private final LatencyHistogram reportLatency = new LatencyHistogram();
+    /**
+     * Represents the number of bytes read by the loads.
+     */
+    private final LongAdder loadedBytes = new LongAdder();
+    /**
+     * Represents the number of bytes written by the saves.
+     */
+    private final LongAdder savedBytes = new LongAdder();
+    /**
+     * Represents the name under which the MBeans are registered, or null if they are not registered.
+     */
+    private String name;
+    /**
+     * Represents the names of the registered MBeans.
+     */
+    private final List<ObjectName> registeredNames = new ArrayList<>();
+
+    /**
+     * This is the constructor for class ChainMetrics.
+     * @param parkingChain Represents the parking chain whose metrics are kept.
+     */
+    ChainMetrics(ParkingChain parkingChain) {
+        this.parkingChain = parkingChain;
+    }
+
+    /**
+     * This method records the time of an admission.
+     * @param nanos Represents the time of the admission, in nanoseconds.
+     */
+    void recordAdmission(long nanos) {
+        admissionLatency.record(nanos);
+    }
+
+    /**
+     * This method records a load.
+     * @param report Represents the report of the load.
+     */
+    void recordLoad(LoadReport report) {
+        loadLatency.record(report.getElapsedNanos());
+        loadedBytes.add(report.getBytes());
+    }
+
+    /**
+     * This method records a save.
+     * @param report Represents the report of the save.
+     */
+    void recordSave(SaveReport report) {
+        saveLatency.record(report.getElapsedNanos());
+        savedBytes.add(report.getBytes());
+    }
+
+    /**
+     * This method records the time of a report.
+     * @param nanos Represents the time of the report, in nanoseconds.
+     */
+    void recordReport(long nanos) {
+        reportLatency.record(nanos);
+    }
+
+    /**
+     * This is the getter for admissionLatency.
+     * @return The histogram of the time of the admissions.
+     */
+    public LatencyHistogram getAdmissionHistogram() {
+        return admissionLatency;
+    }
+
+    /**
+     * This is the getter for loadLatency.
+     * @return The histogram of the time of the loads.
+     */
+    public LatencyHistogram getLoadHistogram() {
+        return loadLatency;
+    }
+
+    /**
+     * This is the getter for saveLatency.
+     * @return The histogram of the time of the saves.
+     */
+    public LatencyHistogram getSaveHistogram() {
+        return saveLatency;
+    }
+
+    /**
+     * This is the getter for reportLatency.
+     * @return The histogram of the time of the reports.
+     */
+    public LatencyHistogram getReportHistogram() {
+        return reportLatency;
+    }
+
+    @Override
+    public long getAdmissions() {
+        long[] admissions = new long[1];
+        forEachArea((parkingLot, area) -> admissions[0] += area.getMetrics().getAdmissions());
+        return admissions[0];
+    }
+
+    @Override
+    public long getRejections() {
+        long[] rejections = new long[1];
+        forEachArea((parkingLot, area) -> rejections[0] += area.getMetrics().getRejections());
+        return rejections[0];
+    }
+
+    @Override
+    public Map<String, Long> getAdmissionsByParkingLot() {
+        Map<String, Long> admissions = new TreeMap<>();
+        forEachArea((parkingLot, area) -> admissions.merge(parkingLot.getName(), area.getMetrics().getAdmissions(), Long::sum));
+        return admissions;
+    }
+
+    @Override
+    public Map<String, Long> getRejectionsByParkingLot() {
+        Map<String, Long> rejections = new TreeMap<>();
+        forEachArea((parkingLot, area) -> rejections.merge(parkingLot.getName(), area.getMetrics().getRejections(), Long::sum));
+        return rejections;
+    }
+
+    @Override
+    public Map<String, Long> getAdmissionsByVehicleType() {
+        Map<String, Long> admissions = new TreeMap<>();
+
+        for (VehicleType type : VehicleType.values()) {
+            long[] count = new long[1];
+            forEachArea((parkingLot, area) -> count[0] += area.getMetrics().getAdmissions(type));
+            admissions.put(type.name(), count[0]);
+        }
+
+        return admissions;
+    }
+
+    @Override
+    public Map<String, Long> getRejectionsByVehicleType() {
+        Map<String, Long> rejections = new TreeMap<>();
+
+        for (VehicleType type : VehicleType.values()) {
+            long[] count = new long[1];
+            forEachArea((parkingLot, area) -> count[0] += area.getMetrics().getRejections(type));
+            rejections.put(type.name(), count[0]);
+        }
+
+        return rejections;
+    }
+
+    /**
+     * This method calls an action for each area of the parking chain. The metrics are read by the threads of the
+     * MBean server while the parking chain may still be loaded, so the lists are walked by index, up to the size
+     * they have when they are reached, and the parking lots and areas that are not visible yet are skipped.
+     * @param action Represents the action called with each area and its parking lot.
+     */
+    private void forEachArea(BiConsumer<ParkingLot, Area> action) {
+        List<ParkingLot> parkingLots = parkingChain.parkingLotList;
+
+        for (int i = 0; i < parkingLots.size(); i++) {
+            ParkingLot parkingLot = parkingLots.get(i);
+            if (parkingLot == null) {
+                continue;
+            }
+
+            List<Area> areas = parkingLot.getAreaList();
+            for (int j = 0; j < areas.size(); j++) {
+                Area area = areas.get(j);
+                if (area != null) {
+                    action.accept(parkingLot, area);
+                }
+            }
+        }
+    }
+
+    @Override
+    public Map<String, Double> getAdmissionLatency() {
+        return admissionLatency.getSummaryMicros();
+    }
+
+    @Override
+    public Map<String, Double> getLoadLatency() {
+        return loadLatency.getSummaryMicros();
+    }
+
+    @Override
+    public long getLoadedBytes() {
+        return loadedBytes.sum();
+    }
+
+    @Override
+    public Map<String, Double> getSaveLatency() {
+        return saveLatency.getSummaryMicros();
+    }
+
+    @Override
+    public long getSavedBytes() {
+        return savedBytes.sum();
+    }
+
+    @Override
+    public Map<String, Double> getReportLatency() {
+        return reportLatency.getSummaryMicros();
+    }
+
+    /**
+     * This method registers the metrics of the parking chain and of each of its areas in the platform MBean server.
+     * The areas added later to the parking chain are registered when they are added.
+     * @param name Represents the name of the parking chain in the names of the MBeans.
+     * @throws JMException It is thrown when the MBeans are already registered under this name or can not be registered.
+     */
+    synchronized void register(String name) throws JMException {
+        if (this.name != null) {
+            unregister();
+        }
+
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        ObjectName objectName = new ObjectName(DOMAIN + ":type=ParkingChain,name=" + ObjectName.quote(name));
+
+        server.registerMBean(this, objectName);
+        registeredNames.add(objectName);
+        this.name = name;
+
+        for (ParkingLot parkingLot : parkingChain.parkingLotList) {
+            register(parkingLot);
+        }
+    }
+
+    /**
+     * This method registers the metrics of the areas of a parking lot that are not registered yet, if the metrics
+     * of the parking chain are registered.
+     * @param parkingLot Represents the parking lot.
+     */
+    synchronized void register(ParkingLot parkingLot) {
+        if (name == null) {
+            return;
+        }
+
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+
+        for (Area area : parkingLot.getAreaList()) {
+            try {
+                ObjectName objectName = new ObjectName(DOMAIN + ":type=Area,chain=" + ObjectName.quote(name)
+                        + ",parkingLot=" + ObjectName.quote(parkingLot.getName()) + ",name=" + ObjectName.quote(area.getName()));
+
+                if (!server.isRegistered(objectName)) {
+                    server.registerMBean(area.getMetrics(), objectName);
+                    registeredNames.add(objectName);
+                }
+            } catch (JMException e) {
+                throw new IllegalStateException("The metrics of area '" + area.getName() + "' can not be registered", e);
+            }
+        }
+    }
+
+    /**
+     * This method removes the metrics of the parking chain and of its areas from the platform MBean server.
+     */
+    synchronized void unregister() {
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+
+        for (ObjectName objectName : registeredNames) {
+            try {
+                server.unregisterMBean(objectName);
+            } catch (JMException e) {
+                // It was already removed from the MBean server.
+            }
+        }
+
+        registeredNames.clear();
+        name = null;
+    }
+
+    /**
+     * This methods overrides the toString() method.
+     * @return The representation of an object of type ChainMetrics.
+     */
+    @Override
+    public String toString() {
+        return "ChainMetrics{" +
+                "admissions=" + getAdmissions() +
+                ", rejections=" + getRejections() +
+                ", admissionLatency=" + getAdmissionLatency() +
+                ", loadLatency=" + getLoadLatency() +
+                ", loadedBytes=" + getLoadedBytes() +
+                ", saveLatency=" + getSaveLatency() +
+                ", savedBytes=" + getSavedBytes() +
+                ", reportLatency=" + getReportLatency() +
+                '}';
+    }
+}
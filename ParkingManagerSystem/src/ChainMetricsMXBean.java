@@ -0,0 +1,85 @@
+package uvt;
+
+import java.util.Map;
+
+/**
+ * This is the management interface of the metrics of a parking chain, registered in the platform MBean server as
+ * uvt:type=ParkingChain,name=... so it can be read with JConsole or any JMX client. The durations are summarized
+ * in microseconds (count, mean, p50, p90, p99, p999 and max).
+ */
+public interface ChainMetricsMXBean {
+    /**
+     * This method returns the number of vehicles admitted in all the areas of the parking chain.
+     * @return The number of admissions.
+     */
+    long getAdmissions();
+
+    /**
+     * This method returns the number of vehicles that were not admitted because their area was full.
+     * @return The number of rejections.
+     */
+    long getRejections();
+
+    /**
+     * This method returns the number of vehicles admitted in each parking lot.
+     * @return The number of admissions, by the name of the parking lot.
+     */
+    Map<String, Long> getAdmissionsByParkingLot();
+
+    /**
+     * This method returns the number of vehicles that were not admitted in each parking lot because their area
+     * was full.
+     * @return The number of rejections, by the name of the parking lot.
+     */
+    Map<String, Long> getRejectionsByParkingLot();
+
+    /**
+     * This method returns the number of vehicles admitted for each type of vehicle.
+     * @return The number of admissions, by the name of the type of vehicle.
+     */
+    Map<String, Long> getAdmissionsByVehicleType();
+
+    /**
+     * This method returns the number of vehicles that were not admitted because their area was full, for each type
+     * of vehicle.
+     * @return The number of rejections, by the name of the type of vehicle.
+     */
+    Map<String, Long> getRejectionsByVehicleType();
+
+    /**
+     * This method summarizes the time of the admissions done through the parking chain, including the time spent
+     * waiting for the admission lock of the area and the admissions that failed.
+     * @return The summary of the admission times, in microseconds.
+     */
+    Map<String, Double> getAdmissionLatency();
+
+    /**
+     * This method summarizes the time of the loads of the parking chain (files, snapshots and journals).
+     * @return The summary of the load times, in microseconds.
+     */
+    Map<String, Double> getLoadLatency();
+
+    /**
+     * This method returns the number of bytes read by all the loads.
+     * @return The number of bytes read.
+     */
+    long getLoadedBytes();
+
+    /**
+     * This method summarizes the time of the saves of the parking chain (files, snapshots and compactions).
+     * @return The summary of the save times, in microseconds.
+     */
+    Map<String, Double> getSaveLatency();
+
+    /**
+     * This method returns the number of bytes written by all the saves.
+     * @return The number of bytes written.
+     */
+    long getSavedBytes();
+
+    /**
+     * This method summarizes the time of the computation of the occupancy and gain reports.
+     * @return The summary of the report times, in microseconds.
+     */
+    Map<String, Double> getReportLatency();
+}
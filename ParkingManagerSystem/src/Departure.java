@@ -0,0 +1,96 @@
+package uvt;
+
+import java.time.LocalDateTime;
+
+/**
+ * The objects of this class represent the moment when a vehicle frees its parking place in an area.
+ */
+public class Departure implements Comparable<Departure> {
+    /**
+     * Represents the area in which the vehicle is parked.
+     */
+    private final Area area;
+    /**
+     * Represents the license plate of the vehicle.
+     */
+    private final String licensePlate;
+    /**
+     * Represents the type of the vehicle.
+     */
+    private final VehicleType type;
+    /**
+     * Represents the declared time when the vehicle leaves the area.
+     */
+    private final LocalDateTime exit;
+
+    /**
+     * This is the constructor for class Departure.
+     * @param area Represents the area in which the vehicle is parked.
+     * @param licensePlate Represents the license plate of the vehicle.
+     * @param type Represents the type of the vehicle.
+     * @param exit Represents the declared time when the vehicle leaves the area.
+     */
+    public Departure(Area area, String licensePlate, VehicleType type, LocalDateTime exit) {
+        this.area = area;
+        this.licensePlate = licensePlate;
+        this.type = type;
+        this.exit = exit;
+    }
+
+    /**
+     * This is the getter for area.
+     * @return The area in which the vehicle is parked.
+     */
+    public Area getArea() {
+        return area;
+    }
+
+    /**
+     * This is the getter for licensePlate.
+     * @return A String representing the license plate of the vehicle.
+     */
+    public String getLicensePlate() {
+        return licensePlate;
+    }
+
+    /**
+     * This is the getter for type.
+     * @return The type of the vehicle.
+     */
+    public VehicleType getType() {
+        return type;
+    }
+
+    /**
+     * This is the getter for exit.
+     * @return A LocalDateTime value representing the declared exit time.
+     */
+    public LocalDateTime getExit() {
+        return exit;
+    }
+
+    /**
+     * This method compares two departures by their exit time.
+     * @param other Represents the departure to which this one is compared.
+     * @return A negative integer, zero or a positive integer if this departure is earlier, at the same time or
+     * later than the other one.
+     */
+    @Override
+    public int compareTo(Departure other) {
+        return exit.compareTo(other.exit);
+    }
+
+    /**
+     * This methods overrides the toString() method.
+     * @return The representation of an object of type Departure.
+     */
+    @Override
+    public String toString() {
+        return "Departure{" +
+                "area='" + area.getName() + '\'' +
+                ", licensePlate='" + licensePlate + '\'' +
+                ", type=" + type +
+                ", exit=" + exit +
+                '}';
+    }
+}
@@ -0,0 +1,150 @@
+package uvt;
+
+import java.time.LocalDateTime;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.PriorityQueue;
+
+/**
+ * The objects of this class keep the departures of the vehicles that occupy parking places in an area.
+ * The departures are kept in a min-heap ordered by exit time, so the vehicles that left are found without
+ * visiting the ones that are still parked.
+ * The departures are scheduled and released by the admissions of the area, while holding its admission lock, but the
+ * next exit and the departure feed can be read by the parking chain from any thread, so the methods are synchronized.
+ * The parking chain is not told when a vehicle really leaves, so a vehicle is considered gone at its declared exit;
+ * the departure feed lists these departures and not vehicles that stay longer.
+ */
+public class DepartureScheduler {
+    /**
+     * Represents the maximum number of departures kept in the departure feed. When it is reached, the oldest
+     * departure is dropped and counted in droppedDepartures.
+     */
+    private static final int MAX_FEED_DEPARTURES = 10_000;
+
+    /**
+     * Represents the area whose departures are scheduled.
+     */
+    private final Area area;
+    /**
+     * Represents the scheduled departures, ordered by their exit time.
+     */
+    private final PriorityQueue<Departure> departures = new PriorityQueue<>();
+    /**
+     * Maps the license plate of each vehicle that currently occupies a parking place to the time it leaves.
+     */
+    private final Map<String, LocalDateTime> occupiedUntil = new HashMap<>();
+    /**
+     * Represents the departures that freed a parking place and were not read yet, in the order in which they were
+     * processed.
+     */
+    private final Deque<Departure> departureFeed = new ArrayDeque<>();
+    /**
+     * Represents the number of departures dropped from the departure feed because it was full.
+     */
+    private long droppedDepartures;
+
+    /**
+     * This is the constructor for class DepartureScheduler.
+     * @param area Represents the area whose departures are scheduled.
+     */
+    public DepartureScheduler(Area area) {
+        this.area = area;
+    }
+
+    /**
+     * This method schedules the departure of a vehicle that occupies a parking place until a certain time.
+     * If the vehicle already occupies a place until a later time, nothing is changed.
+     * @param licensePlate Represents the license plate of the vehicle.
+     * @param type Represents the type of the vehicle.
+     * @param exit Represents the time when the vehicle leaves the area.
+     * @return True if the vehicle did not already occupy a parking place, false otherwise.
+     */
+    public synchronized boolean schedule(String licensePlate, VehicleType type, LocalDateTime exit) {
+        LocalDateTime previousExit = occupiedUntil.get(licensePlate);
+
+        if (previousExit != null && previousExit.compareTo(exit) >= 0) {
+            return false;
+        }
+
+        occupiedUntil.put(licensePlate, exit);
+        departures.add(new Departure(area, licensePlate, type, exit));
+
+        return previousExit == null;
+    }
+
+    /**
+     * This method returns the next departure whose exit time passed and that frees a parking place.
+     * A departure is ignored if the vehicle was admitted again and occupies its place until a later time.
+     * The returned departure is also added to the departure feed.
+     * @param now Represents the current time.
+     * @return The departure that frees a parking place or null if there is no such departure.
+     */
+    public synchronized Departure pollDue(LocalDateTime now) {
+        while (!departures.isEmpty() && departures.peek().getExit().compareTo(now) <= 0) {
+            Departure departure = departures.poll();
+
+            if (departure.getExit().equals(occupiedUntil.get(departure.getLicensePlate()))) {
+                occupiedUntil.remove(departure.getLicensePlate());
+
+                if (departureFeed.size() == MAX_FEED_DEPARTURES) {
+                    departureFeed.pollFirst();
+                    droppedDepartures++;
+                }
+                departureFeed.addLast(departure);
+
+                return departure;
+            }
+        }
+
+        return null;
+    }
+
+    /**
+     * This method returns the time of the next scheduled departure.
+     * @return A LocalDateTime value representing the earliest exit time or null if no vehicle occupies a place.
+     */
+    public synchronized LocalDateTime getNextExit() {
+        Departure departure = departures.peek();
+
+        return departure == null ? null : departure.getExit();
+    }
+
+    /**
+     * This method checks if a vehicle currently occupies a parking place.
+     * @param licensePlate Represents the license plate of the vehicle.
+     * @return True if the vehicle occupies a parking place, false otherwise.
+     */
+    public synchronized boolean isOccupying(String licensePlate) {
+        return occupiedUntil.containsKey(licensePlate);
+    }
+
+    /**
+     * This method checks if a vehicle occupies a parking place after a certain time.
+     * @param licensePlate Represents the license plate of the vehicle.
+     * @param time Represents the time.
+     * @return True if the vehicle occupies a parking place that it leaves after the given time, false otherwise.
+     */
+    public synchronized boolean isOccupying(String licensePlate, LocalDateTime time) {
+        LocalDateTime exit = occupiedUntil.get(licensePlate);
+
+        return exit != null && exit.isAfter(time);
+    }
+
+    /**
+     * This method removes and returns the oldest departure from the departure feed.
+     * @return The departure of a vehicle whose declared exit passed or null if the feed is empty.
+     */
+    public synchronized Departure pollDeparted() {
+        return departureFeed.pollFirst();
+    }
+
+    /**
+     * This is the getter for droppedDepartures.
+     * @return The number of departures dropped from the departure feed because it was not read in time.
+     */
+    public synchronized long getDroppedDepartures() {
+        return droppedDepartures;
+    }
+}
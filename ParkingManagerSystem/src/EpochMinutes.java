@@ -0,0 +1,59 @@
+package uvt;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+
+/**
+ * This class converts dates to and from the number of minutes since 1970-01-01 00:00. The parking chain keeps
+ * dates with a precision of one minute (see Main.formatterPattern), so a date fits in a long (or in an int) and
+ * two dates are compared or subtracted without creating objects.
+ */
+public final class EpochMinutes {
+    /**
+     * This constructor is private, because the class only has static methods.
+     */
+    private EpochMinutes() { }
+
+    /**
+     * This method converts a date to the number of minutes since 1970-01-01 00:00. The seconds are ignored.
+     * @param dateTime Represents the date.
+     * @return The number of minutes since 1970-01-01 00:00.
+     */
+    public static long of(LocalDateTime dateTime) {
+        return Math.floorDiv(dateTime.toEpochSecond(ZoneOffset.UTC), 60);
+    }
+
+    /**
+     * This method converts a date to the number of the first minute since 1970-01-01 00:00 that is not before it.
+     * It is used for the dates that have seconds (for example a subscription bought now).
+     * @param dateTime Represents the date.
+     * @return The number of minutes since 1970-01-01 00:00, rounded up.
+     */
+    public static long ceilOf(LocalDateTime dateTime) {
+        long minutes = of(dateTime);
+
+        if (dateTime.getSecond() != 0 || dateTime.getNano() != 0) {
+            minutes++;
+        }
+
+        return minutes;
+    }
+
+    /**
+     * This method returns the day of a number of minutes since 1970-01-01 00:00.
+     * @param minutes Represents the number of minutes since 1970-01-01 00:00.
+     * @return The number of days since 1970-01-01.
+     */
+    public static long toEpochDay(long minutes) {
+        return Math.floorDiv(minutes, IntervalStore.MINUTES_PER_DAY);
+    }
+
+    /**
+     * This method converts a number of minutes since 1970-01-01 00:00 to a date.
+     * @param minutes Represents the number of minutes since 1970-01-01 00:00.
+     * @return The date.
+     */
+    public static LocalDateTime toDateTime(long minutes) {
+        return LocalDateTime.ofEpochSecond(minutes * 60, 0, ZoneOffset.UTC);
+    }
+}
@@ -0,0 +1,107 @@
+package uvt;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * The objects of this class index the areas of a parking lot that have a free parking place for each type of
+ * vehicle. For each type there is a bitset with one bit for each area, in the order of the area list of the parking
+ * lot, so an area with a free place is found by looking at 64 areas at a time instead of trying them one by one.
+ * The bitsets are kept in blocks of 64 areas, one word for each type, that are shared by the larger arrays of blocks
+ * created when areas are added. The bit of an area is only changed while the admission lock of the area is held,
+ * after its number of used places or its maximum capacity changed; the bits of different areas in the same word
+ * are changed with compare and set, so no other lock is needed.
+ */
+final class FreeCapacityIndex {
+    /**
+     * Represents the number of types of vehicles.
+     */
+    private static final int TYPES = VehicleType.values().length;
+
+    /**
+     * Represents the blocks of 64 areas. Each block contains a word for each type of vehicle, indexed by the
+     * ordinal of the type, whose bits are set for the areas that have a free parking place for the type.
+     */
+    private volatile AtomicLongArray[] blocks = new AtomicLongArray[0];
+
+    /**
+     * This method makes room for the bits of a number of areas. The blocks that already exist are kept, so the bits
+     * changed while the array of blocks is replaced are not lost.
+     * @param areas Represents the number of areas of the parking lot.
+     */
+    synchronized void ensureCapacity(int areas) {
+        int length = blocks.length;
+
+        if (areas <= length * Long.SIZE) {
+            return;
+        }
+
+        AtomicLongArray[] larger = Arrays.copyOf(blocks, Math.max((areas + Long.SIZE - 1) / Long.SIZE, length * 2));
+        for (int i = length; i < larger.length; i++) {
+            larger[i] = new AtomicLongArray(TYPES);
+        }
+        blocks = larger;
+    }
+
+    /**
+     * This method marks whether an area has a free parking place for a type of vehicle.
+     * @param position Represents the position of the area in the area list of the parking lot.
+     * @param type Represents the type of vehicle.
+     * @param free Represents the fact that the area has a free parking place for the type.
+     */
+    void set(int position, VehicleType type, boolean free) {
+        AtomicLongArray block = blocks[position / Long.SIZE];
+        long mask = 1L << position;
+        int i = type.ordinal();
+        long word = block.get(i);
+
+        while (((word & mask) != 0) != free) {
+            if (block.compareAndSet(i, word, free ? word | mask : word & ~mask)) {
+                return;
+            }
+            word = block.get(i);
+        }
+    }
+
+    /**
+     * This method finds the first area, starting from a position, that has a free parking place for a type of vehicle.
+     * @param type Represents the type of vehicle.
+     * @param from Represents the position of the first area that is checked.
+     * @return The position of the area in the area list of the parking lot or -1 if no area from the position on
+     * has a free place.
+     */
+    int findFree(VehicleType type, int from) {
+        AtomicLongArray[] blocks = this.blocks;
+        int i = type.ordinal();
+
+        for (int b = from / Long.SIZE; b < blocks.length; b++) {
+            long word = blocks[b].get(i);
+
+            if (b == from / Long.SIZE) {
+                word &= -1L << from;
+            }
+            if (word != 0) {
+                return b * Long.SIZE + Long.numberOfTrailingZeros(word);
+            }
+        }
+
+        return -1;
+    }
+
+    /**
+     * This method counts the areas that have a free parking place for a type of vehicle.
+     * @param type Represents the type of vehicle.
+     * @return The number of areas with a free place for the type.
+     */
+    int countFree(VehicleType type) {
+        AtomicLongArray[] blocks = this.blocks;
+        int i = type.ordinal();
+        int count = 0;
+
+        for (AtomicLongArray block : blocks) {
+            count += Long.bitCount(block.get(i));
+        }
+
+        return count;
+    }
+}
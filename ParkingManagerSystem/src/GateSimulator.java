@@ -0,0 +1,420 @@
+package uvt;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * The objects of this class simulate the gates of the parking lots of a parking chain. Each parking lot has as
+ * many gates as its number of entries and each gate sends vehicles to the parking chain from its own thread
+ * (a virtual thread when the Java runtime has them). The vehicles arrive at random times (the time between two
+ * arrivals at a gate follows an exponential distribution), their type follows the usual mix of a parking lot and
+ * they stay for a random time that depends on their type. Some license plates come back, so the discounts and the
+ * subscriptions are also used. Each gate has its own license plates and never sends one that is still parked.
+ * The gates keep a simulated clock that starts at the beginning of the simulation and runs faster than the real time
+ * by a time scale. The vehicles are admitted with their simulated entry and exit, so the parking chain keeps and
+ * bills the real parking durations, and the places are freed when the simulated clock passes their exits. A gate
+ * waits in real time between two arrivals, so a vehicle that stays 2 hours with a time scale of 60 keeps its place
+ * for about 2 real minutes.
+ */
+public class GateSimulator {
+    /**
+     * Represents the number of types of vehicles.
+     */
+    private static final int TYPES = VehicleType.values().length;
+    /**
+     * Represents the number of different license plates that arrive at a parking lot for each parking place.
+     */
+    private static final int PLATES_PER_PLACE = 4;
+    /**
+     * Represents the part of the vehicles that have a subscription.
+     */
+    private static final double SUBSCRIPTION_RATE = 0.1;
+    /**
+     * Represents the spread of the logarithm of the parking durations around the median.
+     */
+    private static final double DURATION_SPREAD = 0.6;
+
+    /**
+     * Represents the parking chain whose gates are simulated.
+     */
+    private final ParkingChain parkingChain;
+    /**
+     * Represents the number of vehicles that arrive at each gate.
+     */
+    private final int arrivalsPerGate;
+    /**
+     * Represents the average number of simulated minutes between two arrivals at a gate.
+     */
+    private final double minutesBetweenArrivals;
+    /**
+     * Represents the number of simulated minutes that pass in one real minute.
+     */
+    private final double timeScale;
+    /**
+     * Represents the seed of the random numbers, so a simulation can be repeated.
+     */
+    private final long seed;
+
+    /**
+     * This is the constructor for class GateSimulator.
+     * @param parkingChain Represents the parking chain whose gates are simulated.
+     * @param arrivalsPerGate Represents the number of vehicles that arrive at each gate.
+     * @param minutesBetweenArrivals Represents the average number of simulated minutes between two arrivals at a gate.
+     * @param timeScale Represents the number of simulated minutes that pass in one real minute.
+     * @param seed Represents the seed of the random numbers.
+     */
+    public GateSimulator(ParkingChain parkingChain, int arrivalsPerGate, double minutesBetweenArrivals, double timeScale, long seed) {
+        this.parkingChain = parkingChain;
+        this.arrivalsPerGate = arrivalsPerGate;
+        this.minutesBetweenArrivals = minutesBetweenArrivals;
+        this.timeScale = timeScale;
+        this.seed = seed;
+    }
+
+    /**
+     * This method runs the simulation: it starts one thread for each gate of each parking lot and waits until all
+     * the gates sent their vehicles.
+     * @return The numbers of admissions and rejections and the duration of the admissions.
+     * @throws InterruptedException It is thrown when the thread is interrupted while it waits for the gates.
+     */
+    public SimulationReport run() throws InterruptedException {
+        List<Gate> gates = new ArrayList<>();
+        LocalDateTime simulatedStart = LocalDateTime.now();
+        for (int lot = 0; lot < parkingChain.parkingLotList.size(); lot++) {
+            ParkingLot parkingLot = parkingChain.parkingLotList.get(lot);
+
+            for (int entry = 0; entry < parkingLot.getNoOfEntries(); entry++) {
+                gates.add(new Gate(parkingLot, entry, new SplittableRandom(seed * 31 + gates.size()), simulatedStart));
+            }
+        }
+
+        ExecutorService executor = newGateExecutor();
+        long start = System.nanoTime();
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (Gate gate : gates) {
+                futures.add(executor.submit(gate));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } catch (ExecutionException e) {
+            // The gates only throw unchecked exceptions.
+            if (e.getCause() instanceof Error) {
+                throw (Error) e.getCause();
+            }
+            throw (RuntimeException) e.getCause();
+        } finally {
+            executor.shutdown();
+            executor.awaitTermination(1, TimeUnit.MINUTES);
+        }
+        long elapsedNanos = System.nanoTime() - start;
+
+        long[] arrivals = new long[TYPES];
+        long[] admissions = new long[TYPES];
+        long[] fullRejections = new long[TYPES];
+        long[] otherRejections = new long[TYPES];
+        int attempts = 0;
+        for (Gate gate : gates) {
+            for (int type = 0; type < TYPES; type++) {
+                arrivals[type] += gate.arrivals[type];
+                admissions[type] += gate.admissions[type];
+                fullRejections[type] += gate.fullRejections[type];
+                otherRejections[type] += gate.otherRejections[type];
+            }
+            attempts += gate.attempts;
+        }
+
+        long[] latencies = new long[attempts];
+        int position = 0;
+        for (Gate gate : gates) {
+            System.arraycopy(gate.latencies, 0, latencies, position, gate.attempts);
+            position += gate.attempts;
+        }
+
+        return new SimulationReport(gates.size(), arrivals, admissions, fullRejections, otherRejections, latencies, elapsedNanos);
+    }
+
+    /**
+     * This method creates the executor that runs the gates, with one thread for each gate. The threads are virtual
+     * when the Java runtime has them (Java 21 or later), so many gates do not need many platform threads.
+     * @return The executor that starts a new thread for each gate.
+     */
+    private static ExecutorService newGateExecutor() {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException e) {
+            return Executors.newCachedThreadPool();
+        }
+    }
+
+    /**
+     * This method returns the part of the arrivals that have a type of vehicle.
+     * @param type Represents the type of vehicle.
+     * @return The weight of the type in the mix of vehicles.
+     */
+    private static double getWeight(VehicleType type) {
+        return switch (type) {
+            case MOTORCYCLE -> 0.12;
+            case CAR -> 0.65;
+            case VAN -> 0.15;
+            case BUS -> 0.03;
+            case TRUCK -> 0.05;
+        };
+    }
+
+    /**
+     * This method returns the median parking duration of a type of vehicle.
+     * @param type Represents the type of vehicle.
+     * @return The median number of minutes that a vehicle of that type stays.
+     */
+    private static double getMedianMinutes(VehicleType type) {
+        return switch (type) {
+            case MOTORCYCLE -> 60;
+            case CAR -> 120;
+            case VAN -> 90;
+            case BUS -> 180;
+            case TRUCK -> 240;
+        };
+    }
+
+    /**
+     * The objects of this class are the gates of a parking lot. Each gate counts its own results, so the gates
+     * only meet in the parking chain.
+     */
+    private class Gate implements Runnable {
+        /**
+         * Represents the parking lot of the gate.
+         */
+        private final ParkingLot parkingLot;
+        /**
+         * Represents the number of the gate in its parking lot, used in its license plates.
+         */
+        private final int gateNumber;
+        /**
+         * Represents the random numbers of the gate.
+         */
+        private final SplittableRandom random;
+        /**
+         * Represents the moment at which the simulated clock starts.
+         */
+        private final LocalDateTime simulatedStart;
+        /**
+         * Represents the areas of the parking lot that have places for each type of vehicle.
+         */
+        private final List<List<Area>> areasByType = new ArrayList<>();
+        /**
+         * Represents the simulated minute at which each license plate of the gate leaves its area, for each type.
+         * The number of license plates of a type is larger than the number of places of the parking lot for that
+         * type, so the gate always has a license plate that is not parked.
+         */
+        private final double[][] parkedUntil = new double[TYPES][];
+        /**
+         * Represents the number of vehicles that arrived for each type.
+         */
+        private final long[] arrivals = new long[TYPES];
+        /**
+         * Represents the number of vehicles that were admitted for each type.
+         */
+        private final long[] admissions = new long[TYPES];
+        /**
+         * Represents the number of vehicles that were rejected because the area was full, for each type.
+         */
+        private final long[] fullRejections = new long[TYPES];
+        /**
+         * Represents the number of vehicles that were rejected for another reason, for each type.
+         */
+        private final long[] otherRejections = new long[TYPES];
+        /**
+         * Represents the duration of each admission attempt, in nanoseconds.
+         */
+        private final long[] latencies = new long[arrivalsPerGate];
+        /**
+         * Represents the number of admission attempts.
+         */
+        private int attempts;
+
+        /**
+         * This is the constructor for class Gate.
+         * @param parkingLot Represents the parking lot of the gate.
+         * @param gateNumber Represents the number of the gate in its parking lot.
+         * @param random Represents the random numbers of the gate.
+         * @param simulatedStart Represents the moment at which the simulated clock starts.
+         */
+        private Gate(ParkingLot parkingLot, int gateNumber, SplittableRandom random, LocalDateTime simulatedStart) {
+            this.parkingLot = parkingLot;
+            this.gateNumber = gateNumber;
+            this.random = random;
+            this.simulatedStart = simulatedStart;
+
+            for (VehicleType type : VehicleType.values()) {
+                List<Area> areas = new ArrayList<>();
+                int places = 0;
+
+                for (Area area : parkingLot.getAreaList()) {
+                    if (area.getMaxCapacity(type) > 0) {
+                        areas.add(area);
+                        places += area.getMaxCapacity(type);
+                    }
+                }
+                areasByType.add(areas);
+                parkedUntil[type.ordinal()] = new double[Math.max(places * PLATES_PER_PLACE / Math.max(1, parkingLot.getNoOfEntries()), places + 1)];
+            }
+        }
+
+        /**
+         * This method sends the vehicles of the gate to the parking chain, waiting between two arrivals.
+         */
+        @Override
+        public void run() {
+            long start = System.nanoTime();
+            double simulatedMinutes = 0;
+
+            for (int i = 0; i < arrivalsPerGate; i++) {
+                simulatedMinutes += -Math.log(1 - random.nextDouble()) * minutesBetweenArrivals;
+                waitUntil(start + (long) (simulatedMinutes / timeScale * 60e9));
+
+                arrive(nextType(), simulatedMinutes);
+            }
+        }
+
+        /**
+         * This method converts a simulated minute into a time of the simulated clock.
+         * @param simulatedMinutes Represents the number of simulated minutes since the start of the simulation.
+         * @return The time of the simulated clock.
+         */
+        private LocalDateTime toSimulatedTime(double simulatedMinutes) {
+            return simulatedStart.plusNanos((long) (simulatedMinutes * 60e9));
+        }
+
+        /**
+         * This method chooses a random license plate of the gate among the ones that are not parked.
+         * @param type Represents the type of the vehicle.
+         * @param simulatedMinutes Represents the simulated minute of the arrival.
+         * @return The number of the license plate, or -1 if all the license plates of the type are still parked
+         * (which only happens when the gates of the parking lot free the places at different simulated times).
+         */
+        private int nextFreePlate(VehicleType type, double simulatedMinutes) {
+            double[] until = parkedUntil[type.ordinal()];
+            int plate = random.nextInt(until.length);
+
+            for (int i = 0; i < until.length; i++, plate = (plate + 1) % until.length) {
+                if (until[plate] <= simulatedMinutes) {
+                    return plate;
+                }
+            }
+
+            return -1;
+        }
+
+        /**
+         * This method sends a vehicle of a type to a random area of the parking lot that has places for that type
+         * and measures how long the admission takes. The places of the vehicles whose simulated exit passed are
+         * freed first.
+         * @param type Represents the type of the vehicle.
+         * @param simulatedMinutes Represents the simulated minute of the arrival.
+         */
+        private void arrive(VehicleType type, double simulatedMinutes) {
+            int t = type.ordinal();
+            List<Area> areas = areasByType.get(t);
+            int plate = nextFreePlate(type, simulatedMinutes);
+            arrivals[t]++;
+
+            if (areas.isEmpty() || plate < 0) {
+                otherRejections[t]++;
+                return;
+            }
+
+            Area area = areas.get(random.nextInt(areas.size()));
+            String licensePlate = parkingLot.getName() + "-" + gateNumber + "-" + type + "-" + plate;
+            Vehicle vehicle = Vehicle.getVehicleObject(type);
+            LocalDateTime entry = toSimulatedTime(simulatedMinutes);
+            if (random.nextDouble() < SUBSCRIPTION_RATE) {
+                vehicle.setSubscription(new Subscription(entry.minusDays(random.nextInt(30))));
+            }
+            double stayMinutes = getMedianMinutes(type) * Math.exp(DURATION_SPREAD * nextGaussian());
+            LocalDateTime exit = toSimulatedTime(simulatedMinutes + stayMinutes);
+
+            parkingLot.releaseDueDepartures(entry);
+
+            long attemptStart = System.nanoTime();
+            AdmissionStatus status = parkingChain.tryAdmit(parkingLot, area, licensePlate, vehicle, entry, exit);
+            if (status == AdmissionStatus.ADMITTED) {
+                admissions[t]++;
+                parkedUntil[t][plate] = simulatedMinutes + stayMinutes;
+            } else if (status == AdmissionStatus.FULL) {
+                fullRejections[t]++;
+            } else {
+                otherRejections[t]++;
+            }
+            latencies[attempts++] = System.nanoTime() - attemptStart;
+        }
+
+        /**
+         * This method chooses the type of the next vehicle, following the mix of vehicles.
+         * @return The type of the vehicle.
+         */
+        private VehicleType nextType() {
+            double value = random.nextDouble();
+
+            for (VehicleType type : VehicleType.values()) {
+                value -= getWeight(type);
+                if (value < 0) {
+                    return type;
+                }
+            }
+
+            return VehicleType.CAR;
+        }
+
+        /**
+         * This method returns a random number with the standard normal distribution (Box-Muller transform).
+         * @return The random number.
+         */
+        private double nextGaussian() {
+            return Math.sqrt(-2 * Math.log(1 - random.nextDouble())) * Math.cos(2 * Math.PI * random.nextDouble());
+        }
+
+        /**
+         * This method waits until a certain moment, if it did not pass yet.
+         * @param deadline Represents the moment, as a value of System.nanoTime().
+         */
+        private void waitUntil(long deadline) {
+            long remaining;
+
+            while ((remaining = deadline - System.nanoTime()) > 0) {
+                LockSupport.parkNanos(remaining);
+            }
+        }
+    }
+
+    /**
+     * This method runs a simulation against a parking chain file. The file is only read, the vehicles of the
+     * simulation are not saved.
+     * @param args Represents the arguments: the path to the parking chain file, the number of vehicles that arrive
+     *             at each gate, the average number of simulated minutes between two arrivals, the time scale and the seed.
+     * @throws IOException It is thrown when the file can not be read.
+     * @throws InterruptedException It is thrown when the thread is interrupted while it waits for the gates.
+     */
+    public static void main(String[] args) throws IOException, InterruptedException {
+        ParkingChain parkingChain = new ParkingChain();
+        LoadReport loadReport = parkingChain.loadParkingChainFile(args[0]);
+        System.out.println(loadReport);
+
+        int arrivalsPerGate = args.length > 1 ? Integer.parseInt(args[1]) : 10_000;
+        double minutesBetweenArrivals = args.length > 2 ? Double.parseDouble(args[2]) : 2;
+        double timeScale = args.length > 3 ? Double.parseDouble(args[3]) : 3600;
+        long seed = args.length > 4 ? Long.parseLong(args[4]) : 1;
+
+        System.out.println(new GateSimulator(parkingChain, arrivalsPerGate, minutesBetweenArrivals, timeScale, seed).run());
+    }
+}
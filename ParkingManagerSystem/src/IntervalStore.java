@@ -0,0 +1,221 @@
+package uvt;
+
+import java.util.Arrays;
+
+/**
+ * The objects of this class keep the parking intervals of a vehicle in primitive arrays, sorted by their entry.
+ * An interval is kept as the minute of its entry (see EpochMinutes) shifted left by one bit, with the discount
+ * in the lowest bit, and as its duration in minutes. So an interval takes 12 bytes instead of a ParkingInterval,
+ * two LocalDateTime objects, a list slot and a String key for each day.
+ * The intervals of a day are found with a binary search, because they are consecutive in the arrays.
+ */
+public final class IntervalStore {
+    /**
+     * Represents the number of minutes of a day.
+     */
+    public static final int MINUTES_PER_DAY = 24 * 60;
+    /**
+     * Represents the number of intervals for which space is reserved when the first interval is added.
+     */
+    private static final int FIRST_CHUNK = 4;
+
+    /**
+     * Represents the entry of each interval, in minutes, shifted left by one bit. The lowest bit is the discount.
+     */
+    private long[] entries;
+    /**
+     * Represents the duration of each interval, in minutes.
+     */
+    private int[] durations;
+    /**
+     * Represents the number of intervals.
+     */
+    private int size;
+
+    /**
+     * This is the constructor for class IntervalStore. No memory is reserved until the first interval is added.
+     */
+    public IntervalStore() { }
+
+    /**
+     * This method adds an interval, keeping the intervals sorted by their entry. An interval with the same entry
+     * as other ones is added after them, so the intervals of a day keep the order in which they were added.
+     * @param entryMinute Represents the entry, in minutes since 1970-01-01 00:00.
+     * @param exitMinute Represents the exit, in minutes since 1970-01-01 00:00. It is not before the entry.
+     * @param discount Represents the fact that the interval gets a discount.
+     * @return The index of the interval.
+     */
+    public int add(long entryMinute, long exitMinute, boolean discount) {
+        if (entries == null) {
+            entries = new long[FIRST_CHUNK];
+            durations = new int[FIRST_CHUNK];
+        } else if (size == entries.length) {
+            int capacity = size + Math.max(FIRST_CHUNK, size >> 1);
+            entries = Arrays.copyOf(entries, capacity);
+            durations = Arrays.copyOf(durations, capacity);
+        }
+
+        int index = size;
+        if (size > 0 && getEntry(size - 1) > entryMinute) {
+            index = upperBound(entryMinute);
+            System.arraycopy(entries, index, entries, index + 1, size - index);
+            System.arraycopy(durations, index, durations, index + 1, size - index);
+        }
+
+        entries[index] = entryMinute << 1 | (discount ? 1 : 0);
+        durations[index] = Math.toIntExact(exitMinute - entryMinute);
+        size++;
+
+        return index;
+    }
+
+    /**
+     * This is the getter for size.
+     * @return The number of intervals.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * This method returns the entry of an interval.
+     * @param index Represents the index of the interval.
+     * @return The entry, in minutes since 1970-01-01 00:00.
+     */
+    public long getEntry(int index) {
+        return entries[index] >> 1;
+    }
+
+    /**
+     * This method returns the exit of an interval.
+     * @param index Represents the index of the interval.
+     * @return The exit, in minutes since 1970-01-01 00:00.
+     */
+    public long getExit(int index) {
+        return getEntry(index) + durations[index];
+    }
+
+    /**
+     * This method returns the duration of an interval.
+     * @param index Represents the index of the interval.
+     * @return The duration, in minutes.
+     */
+    public int getDuration(int index) {
+        return durations[index];
+    }
+
+    /**
+     * This method checks if an interval gets a discount.
+     * @param index Represents the index of the interval.
+     * @return True if the interval gets a discount, false otherwise.
+     */
+    public boolean hasDiscount(int index) {
+        return (entries[index] & 1) != 0;
+    }
+
+    /**
+     * This method sets the discount of an interval.
+     * @param index Represents the index of the interval.
+     * @param discount Represents the fact that the interval gets a discount.
+     */
+    public void setDiscount(int index, boolean discount) {
+        entries[index] = entries[index] & ~1L | (discount ? 1 : 0);
+    }
+
+    /**
+     * This method searches an interval.
+     * @param entryMinute Represents the entry, in minutes since 1970-01-01 00:00.
+     * @param exitMinute Represents the exit, in minutes since 1970-01-01 00:00.
+     * @return The index of the first interval with the same entry and exit, or -1 if there is no such interval.
+     */
+    public int indexOf(long entryMinute, long exitMinute) {
+        for (int i = lowerBound(entryMinute); i < size && getEntry(i) == entryMinute; i++) {
+            if (getExit(i) == exitMinute) {
+                return i;
+            }
+        }
+
+        return -1;
+    }
+
+    /**
+     * This method returns the index of the first interval of a day.
+     * @param epochDay Represents the day, as the number of days since 1970-01-01.
+     * @return The index of the first interval that enters in the day or after it.
+     */
+    public int firstOfDay(long epochDay) {
+        return lowerBound(epochDay * MINUTES_PER_DAY);
+    }
+
+    /**
+     * This method returns the index after the last interval of a day.
+     * @param epochDay Represents the day, as the number of days since 1970-01-01.
+     * @return The index of the first interval that enters after the day.
+     */
+    public int endOfDay(long epochDay) {
+        return lowerBound((epochDay + 1) * MINUTES_PER_DAY);
+    }
+
+    /**
+     * This method returns the index of the first interval that enters at a minute or after it.
+     * @param minute Represents the minute, in minutes since 1970-01-01 00:00.
+     * @return The index of the interval, or size if all the intervals enter before the minute.
+     */
+    public int firstOfMinute(long minute) {
+        return lowerBound(minute);
+    }
+
+    /**
+     * This method returns the index of the first interval whose entry is not before a minute.
+     * @param minute Represents the minute.
+     * @return The index of the interval, or size if all the intervals enter before the minute.
+     */
+    private int lowerBound(long minute) {
+        int low = 0;
+        int high = size;
+
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (getEntry(middle) < minute) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+
+        return low;
+    }
+
+    /**
+     * This method returns the index of the first interval whose entry is after a minute.
+     * @param minute Represents the minute.
+     * @return The index of the interval, or size if no interval enters after the minute.
+     */
+    private int upperBound(long minute) {
+        int low = 0;
+        int high = size;
+
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (getEntry(middle) <= minute) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+
+        return low;
+    }
+
+    /**
+     * This method creates a ParkingInterval object for an interval.
+     * @param index Represents the index of the interval.
+     * @return A new ParkingInterval with the entry, the exit and the discount of the interval.
+     */
+    public ParkingInterval get(int index) {
+        ParkingInterval parkingInterval = new ParkingInterval(EpochMinutes.toDateTime(getEntry(index)), EpochMinutes.toDateTime(getExit(index)));
+        parkingInterval.setDiscount(hasDiscount(index));
+
+        return parkingInterval;
+    }
+}
@@ -1,8 +1,10 @@
 package uvt;
 
 import uvt.Exceptions.InvalidAreaNameException;
+import uvt.Exceptions.InvalidParkingIntervalException;
 import uvt.Exceptions.InvalidParkingLotNameException;
 import uvt.Exceptions.InvalidVehicleTypeException;
+import uvt.Exceptions.MaximumCapacityReachedException;
 
 import java.time.LocalDate;
 import java.time.LocalDateTime;
@@ -350,7 +352,9 @@ public class KeyboardInputParser {
                     break;
                 case 3:
                     String parkingLotName = getParkingLotName();
-                    String areaName = getAreaName();
+
+                    System.out.println("Enter area name (leave it empty to use any area with a free place):");
+                    String areaName = sc.nextLine();
 
                     System.out.println("Enter license plate:");
                     String licensePlate = sc.nextLine();
@@ -360,9 +364,13 @@ public class KeyboardInputParser {
                     LocalDateTime exitTime = getExitTime();
 
                     try {
-                        pc.addVehicle(parkingLotName, areaName, licensePlate, vehicle, entryTime, exitTime);
+                        if (areaName.isEmpty()) {
+                            areaName = pc.addVehicleAnywhere(parkingLotName, licensePlate, vehicle, entryTime, exitTime).getName();
+                        } else {
+                            pc.addVehicle(parkingLotName, areaName, licensePlate, vehicle, entryTime, exitTime);
+                        }
                         System.out.println("Vehicle with license plate '" + licensePlate + "' was added in area '" + areaName + "' from parking lot '" + parkingLotName + "'!");
-                    } catch (InvalidAreaNameException | InvalidParkingLotNameException e) {
+                    } catch (InvalidAreaNameException | InvalidParkingLotNameException | MaximumCapacityReachedException | InvalidParkingIntervalException | InvalidVehicleTypeException e) {
                         System.out.println(e.getMessage());
                         option = readOption();
                     }
@@ -0,0 +1,187 @@
+package uvt;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * The objects of this class count durations, in nanoseconds, in buckets whose width grows with the duration:
+ * each power of two is split in SUB_BUCKETS buckets, so a percentile is known with an error of at most 1/SUB_BUCKETS
+ * of its value. A duration is recorded without locks, by incrementing one bucket, so the histogram can be used
+ * on the admission path from many threads.
+ */
+public class LatencyHistogram {
+    /**
+     * Represents the number of bits of a duration, after its highest one, that choose its bucket in a power of two.
+     */
+    private static final int SUB_BUCKET_BITS = 3;
+    /**
+     * Represents the number of buckets in each power of two.
+     */
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    /**
+     * Represents the number of buckets, enough for any non negative long value.
+     */
+    private static final int BUCKETS = (Long.SIZE - SUB_BUCKET_BITS) * SUB_BUCKETS;
+
+    /**
+     * Represents the number of durations recorded in each bucket.
+     */
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+    /**
+     * Represents the number of recorded durations.
+     */
+    private final LongAdder count = new LongAdder();
+    /**
+     * Represents the sum of the recorded durations, in nanoseconds.
+     */
+    private final LongAdder totalNanos = new LongAdder();
+    /**
+     * Represents the longest recorded duration, in nanoseconds.
+     */
+    private final LongAccumulator maxNanos = new LongAccumulator(Math::max, 0);
+
+    /**
+     * This method records a duration.
+     * @param nanos Represents the duration, in nanoseconds. Negative durations are recorded as 0.
+     */
+    public void record(long nanos) {
+        if (nanos < 0) {
+            nanos = 0;
+        }
+
+        counts.incrementAndGet(bucketOf(nanos));
+        count.increment();
+        totalNanos.add(nanos);
+        maxNanos.accumulate(nanos);
+    }
+
+    /**
+     * This method computes the bucket of a duration. The durations smaller than SUB_BUCKETS have a bucket each,
+     * then each power of two has SUB_BUCKETS buckets of equal width.
+     * @param nanos Represents the duration, in nanoseconds.
+     * @return The index of the bucket.
+     */
+    private static int bucketOf(long nanos) {
+        if (nanos < SUB_BUCKETS) {
+            return (int) nanos;
+        }
+
+        int exponent = Long.SIZE - 1 - Long.numberOfLeadingZeros(nanos);
+        int subBucket = (int) (nanos >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1);
+
+        return (exponent - SUB_BUCKET_BITS + 1) * SUB_BUCKETS + subBucket;
+    }
+
+    /**
+     * This method computes the longest duration that is counted in a bucket.
+     * @param bucket Represents the index of the bucket.
+     * @return The upper bound of the bucket, in nanoseconds.
+     */
+    private static long upperBoundOf(int bucket) {
+        if (bucket < SUB_BUCKETS) {
+            return bucket;
+        }
+
+        int exponent = bucket / SUB_BUCKETS + SUB_BUCKET_BITS - 1;
+        long lowerBound = (long) (SUB_BUCKETS + bucket % SUB_BUCKETS) << (exponent - SUB_BUCKET_BITS);
+
+        return lowerBound + (1L << (exponent - SUB_BUCKET_BITS)) - 1;
+    }
+
+    /**
+     * This is the getter for count.
+     * @return The number of recorded durations.
+     */
+    public long getCount() {
+        return count.sum();
+    }
+
+    /**
+     * This is the getter for totalNanos.
+     * @return The sum of the recorded durations, in nanoseconds.
+     */
+    public long getTotalNanos() {
+        return totalNanos.sum();
+    }
+
+    /**
+     * This is the getter for maxNanos.
+     * @return The longest recorded duration, in nanoseconds.
+     */
+    public long getMaxNanos() {
+        return maxNanos.get();
+    }
+
+    /**
+     * This method computes the mean of the recorded durations.
+     * @return The mean duration in nanoseconds, or 0 if no duration was recorded.
+     */
+    public double getMeanNanos() {
+        long count = getCount();
+        return count == 0 ? 0 : (double) getTotalNanos() / count;
+    }
+
+    /**
+     * This method computes a percentile of the recorded durations. The durations that are recorded while it runs
+     * may or may not be counted.
+     * @param percentile Represents the percentile, between 0 and 100.
+     * @return The upper bound of the bucket that contains the percentile (but not more than the longest duration),
+     * in nanoseconds, or 0 if no duration was recorded.
+     */
+    public long getPercentileNanos(double percentile) {
+        long[] snapshot = new long[BUCKETS];
+        long total = 0;
+
+        for (int i = 0; i < BUCKETS; i++) {
+            snapshot[i] = counts.get(i);
+            total += snapshot[i];
+        }
+
+        if (total == 0) {
+            return 0;
+        }
+
+        long rank = Math.max(1, (long) Math.ceil(percentile / 100 * total));
+        long seen = 0;
+
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += snapshot[i];
+            if (seen >= rank) {
+                return Math.min(upperBoundOf(i), getMaxNanos());
+            }
+        }
+
+        return getMaxNanos();
+    }
+
+    /**
+     * This method summarizes the histogram: the number of durations and, in microseconds, their mean, the 50th,
+     * 90th, 99th and 99.9th percentiles and the longest one.
+     * @return The summary of the histogram, by name.
+     */
+    public Map<String, Double> getSummaryMicros() {
+        Map<String, Double> summary = new LinkedHashMap<>();
+
+        summary.put("count", (double) getCount());
+        summary.put("mean", getMeanNanos() / 1_000);
+        summary.put("p50", getPercentileNanos(50) / 1_000.0);
+        summary.put("p90", getPercentileNanos(90) / 1_000.0);
+        summary.put("p99", getPercentileNanos(99) / 1_000.0);
+        summary.put("p999", getPercentileNanos(99.9) / 1_000.0);
+        summary.put("max", getMaxNanos() / 1_000.0);
+
+        return summary;
+    }
+
+    /**
+     * This methods overrides the toString() method.
+     * @return The representation of an object of type LatencyHistogram.
+     */
+    @Override
+    public String toString() {
+        return "LatencyHistogram" + getSummaryMicros();
+    }
+}
@@ -0,0 +1,133 @@
+package uvt;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.util.zip.CRC32;
+
+/**
+ * The objects of this class keep the position of the parking intervals of a vehicle in a mapped binary snapshot,
+ * so they are decoded only when the vehicle needs them.
+ */
+final class LazyHistory {
+    /**
+     * Represents the INTERVALS section of the area of the vehicle.
+     */
+    private final IntervalBlock block;
+    /**
+     * Represents the position of the first parking interval of the vehicle in the section.
+     */
+    private final int offset;
+    /**
+     * Represents the number of parking intervals of the vehicle.
+     */
+    private final int count;
+    /**
+     * Represents the number of parking entrances of the license plate in the parking chain before the parking
+     * intervals of the vehicle. It is used to give the discount to each 10th parking.
+     */
+    private final int previousEntrances;
+    /**
+     * Represents the fact that the lowest bit of each duration is the discount of the parking interval. The
+     * snapshots written before version 3 do not have it, so the discount is given to each 10th parking.
+     */
+    private final boolean savedDiscounts;
+
+    /**
+     * This is the constructor for class LazyHistory.
+     * @param block Represents the INTERVALS section of the area of the vehicle.
+     * @param offset Represents the position of the first parking interval of the vehicle in the section.
+     * @param count Represents the number of parking intervals of the vehicle.
+     * @param previousEntrances Represents the number of parking entrances of the license plate before the
+     *                          parking intervals of the vehicle.
+     * @param savedDiscounts Represents the fact that the section contains the discount of each parking interval.
+     */
+    LazyHistory(IntervalBlock block, int offset, int count, int previousEntrances, boolean savedDiscounts) {
+        this.block = block;
+        this.offset = offset;
+        this.count = count;
+        this.previousEntrances = previousEntrances;
+        this.savedDiscounts = savedDiscounts;
+    }
+
+    /**
+     * This method decodes the parking intervals and adds them to the vehicle, in the order in which they were
+     * admitted, with their saved discounts or, for an older snapshot, giving the discount to the ones that were a
+     * 10th parking of the license plate.
+     * @param vehicle Represents the vehicle.
+     * @throws UncheckedIOException It is thrown when the section is damaged.
+     */
+    void hydrate(Vehicle vehicle) {
+        ByteBuffer data = block.verifiedData();
+        data.position(offset);
+
+        long previousExit = 0;
+        for (int i = 0; i < count; i++) {
+            long entry = previousExit + BinarySnapshotLoader.unZigZag(BinarySnapshotLoader.getVarint(data));
+            long duration = BinarySnapshotLoader.getVarint(data);
+            boolean discount = savedDiscounts ? (duration & 1) != 0 : (previousEntrances + i + 1) % 10 == 0;
+            long exit = entry + BinarySnapshotLoader.unZigZag(savedDiscounts ? duration >>> 1 : duration);
+            previousExit = exit;
+
+            vehicle.addDecodedInterval(entry, exit, discount);
+        }
+    }
+
+    /**
+     * The objects of this class represent the INTERVALS section of an area in a mapped snapshot. Its CRC32 is
+     * checked the first time a vehicle of the area is decoded.
+     */
+    static final class IntervalBlock {
+        /**
+         * Represents the payload of the section, which is a part of the mapped file.
+         */
+        private final ByteBuffer data;
+        /**
+         * Represents the CRC32 of the payload written in the snapshot.
+         */
+        private final int checksum;
+        /**
+         * Represents the name of the area, used in the error message.
+         */
+        private final String areaName;
+        /**
+         * Represents the fact that the CRC32 of the payload was checked and is right.
+         */
+        private volatile boolean verified;
+
+        /**
+         * This is the constructor for class IntervalBlock.
+         * @param data Represents the payload of the section.
+         * @param checksum Represents the CRC32 of the payload written in the snapshot.
+         * @param areaName Represents the name of the area.
+         */
+        IntervalBlock(ByteBuffer data, int checksum, String areaName) {
+            this.data = data;
+            this.checksum = checksum;
+            this.areaName = areaName;
+        }
+
+        /**
+         * This method returns a view of the payload, after its CRC32 was checked.
+         * @return A new buffer that shares the payload of the section.
+         * @throws UncheckedIOException It is thrown when the CRC32 is wrong.
+         */
+        ByteBuffer verifiedData() {
+            if (!verified) {
+                synchronized (this) {
+                    if (!verified) {
+                        CRC32 crc = new CRC32();
+                        crc.update(data.duplicate());
+
+                        if ((int) crc.getValue() != checksum) {
+                            throw new UncheckedIOException(new IOException("The parking intervals of area '" + areaName + "' are damaged (wrong CRC)."));
+                        }
+                        verified = true;
+                    }
+                }
+            }
+
+            return data.duplicate();
+        }
+    }
+}
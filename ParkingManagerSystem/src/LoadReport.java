@@ -0,0 +1,148 @@
+package uvt;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * The objects of this class describe the result of loading a parking chain file: how many lines and bytes
+ * were read, how long it took and which lines could not be loaded.
+ */
+public class LoadReport {
+    /**
+     * Represents the maximum number of error messages that are kept. The errors after it are only counted.
+     */
+    private static final int MAX_ERROR_MESSAGES = 1000;
+
+    /**
+     * Represents the number of lines that were read.
+     */
+    private long lines;
+    /**
+     * Represents the number of bytes that were read.
+     */
+    private long bytes;
+    /**
+     * Represents the number of lines that could not be loaded.
+     */
+    private long errorCount;
+    /**
+     * Represents the time it took to load the file, in nanoseconds.
+     */
+    private long elapsedNanos;
+    /**
+     * Represents the messages of the errors, each one starting with the number of the line.
+     */
+    private final List<String> errors = new ArrayList<>();
+
+    /**
+     * This is the constructor for class LoadReport.
+     */
+    public LoadReport() { }
+
+    /**
+     * This method records that a line could not be loaded.
+     * @param lineNumber Represents the number of the line (starting from 1).
+     * @param message Represents the reason for which the line could not be loaded.
+     */
+    public void addError(long lineNumber, String message) {
+        errorCount++;
+
+        if (errors.size() < MAX_ERROR_MESSAGES) {
+            errors.add("Line " + lineNumber + ": " + message);
+        }
+    }
+
+    /**
+     * This method records the number of lines and bytes that were read and the time it took.
+     * @param lines Represents the number of lines that were read.
+     * @param bytes Represents the number of bytes that were read.
+     * @param elapsedNanos Represents the time it took to load the file, in nanoseconds.
+     */
+    public void finish(long lines, long bytes, long elapsedNanos) {
+        this.lines = lines;
+        this.bytes = bytes;
+        this.elapsedNanos = elapsedNanos;
+    }
+
+    /**
+     * This method adds the errors of another report to this one. It is used when the parts of a file are
+     * loaded separately.
+     * @param other Represents the report of a part of the file.
+     */
+    public void addErrors(LoadReport other) {
+        errorCount += other.errorCount;
+
+        for (String error : other.errors) {
+            if (errors.size() < MAX_ERROR_MESSAGES) {
+                errors.add(error);
+            }
+        }
+    }
+
+    /**
+     * This is the getter for lines.
+     * @return The number of lines that were read.
+     */
+    public long getLines() {
+        return lines;
+    }
+
+    /**
+     * This is the getter for bytes.
+     * @return The number of bytes that were read.
+     */
+    public long getBytes() {
+        return bytes;
+    }
+
+    /**
+     * This is the getter for errorCount.
+     * @return The number of lines that could not be loaded.
+     */
+    public long getErrorCount() {
+        return errorCount;
+    }
+
+    /**
+     * This is the getter for errors.
+     * @return The messages of the first errors (at most 1000).
+     */
+    public List<String> getErrors() {
+        return Collections.unmodifiableList(errors);
+    }
+
+    /**
+     * This is the getter for elapsedNanos.
+     * @return The time it took to load the file, in nanoseconds.
+     */
+    public long getElapsedNanos() {
+        return elapsedNanos;
+    }
+
+    /**
+     * This method computes the number of lines loaded per second.
+     * @return A double representing the throughput in lines per second.
+     */
+    public double getLinesPerSecond() {
+        return elapsedNanos == 0 ? 0 : lines * 1e9 / elapsedNanos;
+    }
+
+    /**
+     * This method computes the number of megabytes loaded per second.
+     * @return A double representing the throughput in megabytes per second.
+     */
+    public double getMegabytesPerSecond() {
+        return elapsedNanos == 0 ? 0 : bytes * 1e9 / elapsedNanos / (1024 * 1024);
+    }
+
+    /**
+     * This methods overrides the toString() method.
+     * @return The representation of an object of type LoadReport.
+     */
+    @Override
+    public String toString() {
+        return String.format("Loaded %d lines (%d bytes) in %.3f s: %.0f lines/s, %.2f MB/s, %d errors.",
+                lines, bytes, elapsedNanos / 1e9, getLinesPerSecond(), getMegabytesPerSecond(), errorCount);
+    }
+}
@@ -4,6 +4,9 @@ import uvt.Exceptions.InvalidAreaNameException;
 import uvt.Exceptions.InvalidParkingLotNameException;
 import uvt.Exceptions.InvalidVehicleTypeException;
 
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
@@ -28,18 +31,51 @@ public class Main {
     public static final DateTimeFormatter formatter = DateTimeFormatter.ofPattern(formatterPattern);
 
     /**
-     * This is the main method. It provides the interaction with the user. The parking chain is configured there and also,
-     * the object that overwrites the input file is created here too.
+     * Represents the suffix added to the path of the input file to get the path of the journal.
+     */
+    public static final String journalSuffix = ".journal";
+
+    /**
+     * Represents the suffix added to the path of the input file to get the path of the snapshot written by the
+     * compactions of the journal.
+     */
+    public static final String snapshotSuffix = ".snapshot";
+
+    /**
+     * This is the main method. It provides the interaction with the user. The parking chain is configured there from
+     * the input file, or from the snapshot of the last session if it did not end, and from the journal of the changes
+     * made after it. Each change is kept in the journal, which is folded into the snapshot (a separate file, so the
+     * input file keeps its format) in the background when it becomes too big. At the end, the journal is folded into
+     * the snapshot one last time, the input file is overwritten with the new data of the parking chain and only then
+     * the journal and the snapshot are deleted, so a crash at any step leaves the files from which the parking chain
+     * is restored. The metrics of the parking chain are registered in the platform MBean server under the path of the
+     * input file.
      * @param args Represents the arguments list. There will be the paths to the input file.
      */
     public static void main(String[] args) {
         ParkingChain pc = new ParkingChain();
         try {
-            pc.readParkingChainFile(args[0]);
+            Path snapshot = Paths.get(args[0] + snapshotSuffix);
+            Path journal = Paths.get(args[0] + journalSuffix);
+
+            if (!Files.exists(snapshot)) {
+                pc.readParkingChainFile(args[0]);
+            }
+
+            LoadReport report = pc.openJournal(snapshot.toString(), journal.toString());
+            for (String error : report.getErrors()) {
+                System.err.println(error);
+            }
+            pc.registerMBeans(args[0]);
+
             uvt.KeyboardInputParser keyboardInputParser = new uvt.KeyboardInputParser();
             keyboardInputParser.processInputEvents(pc);
 
+            pc.getJournal().compact();
+            pc.closeJournal();
             pc.writeParkingChainFile(args[0]);
+            Files.deleteIfExists(journal);
+            Files.deleteIfExists(snapshot);
         } catch (Exception e) {
             e.printStackTrace();
         }
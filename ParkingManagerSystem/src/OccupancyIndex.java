@@ -0,0 +1,194 @@
+package uvt;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * The objects of this class index the parking intervals of an area, so the number of parking intervals of each
+ * type of vehicle that include a certain minute is found with binary searches. A parking interval includes a
+ * minute if it entered at that minute or before it and exits after it, so the answer is the number of entries that
+ * are not after the minute minus the number of exits that are not after the minute. For each type, the entries and
+ * the exits are kept in sorted runs: one run for the intervals found when the index is built and smaller runs for
+ * the intervals admitted later. A run is merged with the previous one when it becomes as large as it, so there are
+ * O(log N) runs and an admission costs O(log N) amortized. The last intervals are kept in a small unsorted buffer.
+ */
+final class OccupancyIndex {
+    /**
+     * Represents the number of types of vehicles.
+     */
+    private static final int TYPES = VehicleType.values().length;
+    /**
+     * Represents the number of parking intervals kept in the unsorted buffer before it becomes a run.
+     */
+    private static final int PENDING = 32;
+
+    /**
+     * Represents the sorted runs of entries (in epoch minutes) for each type of vehicle, indexed by the ordinal
+     * of the type. The runs are ordered from the largest to the smallest.
+     */
+    private final List<List<long[]>> entryRuns = new ArrayList<>();
+    /**
+     * Represents the sorted runs of exits (in epoch minutes) for each type of vehicle, matching entryRuns.
+     */
+    private final List<List<long[]>> exitRuns = new ArrayList<>();
+    /**
+     * Represents the entries of the parking intervals that are not in a run yet, for each type of vehicle.
+     */
+    private final long[][] pendingEntries = new long[TYPES][PENDING];
+    /**
+     * Represents the exits of the parking intervals that are not in a run yet, for each type of vehicle.
+     */
+    private final long[][] pendingExits = new long[TYPES][PENDING];
+    /**
+     * Represents the number of parking intervals that are not in a run yet, for each type of vehicle.
+     */
+    private final int[] pendingCount = new int[TYPES];
+
+    /**
+     * This is the constructor for class OccupancyIndex. It indexes all the parking intervals of the vehicles
+     * of an area.
+     * @param area Represents the area.
+     */
+    OccupancyIndex(Area area) {
+        int[] counts = new int[TYPES];
+        for (Vehicle vehicle : area.getVehiclePlatesMap().values()) {
+            counts[vehicle.getType().ordinal()] += vehicle.getIntervals().size();
+        }
+
+        long[][] entries = new long[TYPES][];
+        long[][] exits = new long[TYPES][];
+        for (int type = 0; type < TYPES; type++) {
+            entries[type] = new long[counts[type]];
+            exits[type] = new long[counts[type]];
+        }
+
+        int[] positions = new int[TYPES];
+        for (Vehicle vehicle : area.getVehiclePlatesMap().values()) {
+            int type = vehicle.getType().ordinal();
+            IntervalStore intervals = vehicle.getIntervals();
+
+            for (int i = 0; i < intervals.size(); i++) {
+                entries[type][positions[type]] = intervals.getEntry(i);
+                exits[type][positions[type]] = intervals.getExit(i);
+                positions[type]++;
+            }
+        }
+
+        for (int type = 0; type < TYPES; type++) {
+            Arrays.sort(entries[type]);
+            Arrays.sort(exits[type]);
+            entryRuns.add(new ArrayList<>());
+            exitRuns.add(new ArrayList<>());
+
+            if (counts[type] > 0) {
+                entryRuns.get(type).add(entries[type]);
+                exitRuns.get(type).add(exits[type]);
+            }
+        }
+    }
+
+    /**
+     * This method adds a parking interval that was admitted after the index was built.
+     * @param type Represents the type of the vehicle.
+     * @param entryMinute Represents the entry, in epoch minutes.
+     * @param exitMinute Represents the exit, in epoch minutes.
+     */
+    void add(VehicleType type, long entryMinute, long exitMinute) {
+        int t = type.ordinal();
+
+        pendingEntries[t][pendingCount[t]] = entryMinute;
+        pendingExits[t][pendingCount[t]] = exitMinute;
+        pendingCount[t]++;
+
+        if (pendingCount[t] == PENDING) {
+            addRun(entryRuns.get(t), pendingEntries[t].clone());
+            addRun(exitRuns.get(t), pendingExits[t].clone());
+            pendingCount[t] = 0;
+        }
+    }
+
+    /**
+     * This method returns the number of parking intervals of a type of vehicle that include a minute.
+     * @param type Represents the type of vehicle.
+     * @param minute Represents the minute, in epoch minutes.
+     * @return The number of parking intervals that entered at the minute or before it and exit after it.
+     */
+    int getOccupancy(VehicleType type, long minute) {
+        int t = type.ordinal();
+        int occupancy = 0;
+
+        for (long[] run : entryRuns.get(t)) {
+            occupancy += countNotAfter(run, minute);
+        }
+        for (long[] run : exitRuns.get(t)) {
+            occupancy -= countNotAfter(run, minute);
+        }
+        for (int i = 0; i < pendingCount[t]; i++) {
+            if (pendingEntries[t][i] <= minute && pendingExits[t][i] > minute) {
+                occupancy++;
+            }
+        }
+
+        return occupancy;
+    }
+
+    /**
+     * This method sorts a new run and adds it after the other runs, merging the last runs while the last one
+     * is at least as large as the one before it.
+     * @param runs Represents the runs of a type of vehicle.
+     * @param run Represents the new run.
+     */
+    private static void addRun(List<long[]> runs, long[] run) {
+        Arrays.sort(run);
+
+        while (!runs.isEmpty() && runs.get(runs.size() - 1).length <= run.length) {
+            run = merge(runs.remove(runs.size() - 1), run);
+        }
+        runs.add(run);
+    }
+
+    /**
+     * This method merges two sorted arrays.
+     * @param first Represents the first array.
+     * @param second Represents the second array.
+     * @return A new sorted array with the values of both arrays.
+     */
+    private static long[] merge(long[] first, long[] second) {
+        long[] merged = new long[first.length + second.length];
+        int i = 0;
+        int j = 0;
+
+        for (int k = 0; k < merged.length; k++) {
+            if (j == second.length || (i < first.length && first[i] <= second[j])) {
+                merged[k] = first[i++];
+            } else {
+                merged[k] = second[j++];
+            }
+        }
+
+        return merged;
+    }
+
+    /**
+     * This method counts the values of a sorted array that are not greater than a value, with a binary search.
+     * @param values Represents the sorted array.
+     * @param value Represents the value.
+     * @return The number of values that are less than or equal to the value.
+     */
+    private static int countNotAfter(long[] values, long value) {
+        int low = 0;
+        int high = values.length;
+
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (values[middle] <= value) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+
+        return low;
+    }
+}
@@ -0,0 +1,247 @@
+package uvt;
+
+import uvt.Exceptions.InvalidParkingIntervalException;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+
+/**
+ * The objects of this class represent the occupancy of an area (or of the areas of a parking lot) for each type of
+ * vehicle during an interval of time: the number of parking intervals that include each sample time, the peak
+ * occupancy with the time when it was first reached and the time spent at the maximum capacity.
+ * All of them are computed with one sweep over the entries and exits of the parking intervals, sorted once.
+ * The parking intervals of each area are read while holding its admission lock.
+ */
+public class OccupancySeries {
+    /**
+     * Represents the number of types of vehicles.
+     */
+    private static final int TYPES = VehicleType.values().length;
+
+    /**
+     * Represents the beginning of the interval of time, in epoch minutes.
+     */
+    private final long fromMinute;
+    /**
+     * Represents the number of minutes between two sample times.
+     */
+    private final int stepMinutes;
+    /**
+     * Represents the occupancy at each sample time, for each type of vehicle (indexed by the ordinal of the type).
+     */
+    private final int[][] samples;
+    /**
+     * Represents the maximum capacity for each type of vehicle.
+     */
+    private final int[] capacity;
+    /**
+     * Represents the peak occupancy during the interval of time, for each type of vehicle.
+     */
+    private final int[] peak = new int[TYPES];
+    /**
+     * Represents the minute (in epoch minutes) when the peak occupancy was first reached, for each type of vehicle.
+     */
+    private final long[] peakMinute = new long[TYPES];
+    /**
+     * Represents the number of minutes in which the occupancy was at least the maximum capacity, for each type of
+     * vehicle. The types without parking places are never at capacity.
+     */
+    private final long[] minutesAtCapacity = new long[TYPES];
+
+    /**
+     * This is the constructor for class OccupancySeries. It sorts the entries and exits of the parking intervals
+     * of the areas that overlap the interval of time and sweeps over them once.
+     * @param areas Represents the areas whose parking intervals are counted.
+     * @param from Represents the beginning of the interval of time.
+     * @param to Represents the end of the interval of time (not included).
+     * @param stepMinutes Represents the number of minutes between two sample times.
+     * @throws InvalidParkingIntervalException It is thrown when the end is before the beginning or the step
+     * is not a positive number of minutes.
+     */
+    OccupancySeries(Iterable<Area> areas, LocalDateTime from, LocalDateTime to, int stepMinutes) throws InvalidParkingIntervalException {
+        if (from == null || to == null || to.isBefore(from) || stepMinutes <= 0) {
+            throw new InvalidParkingIntervalException("The interval of time or the step is not a valid one.");
+        }
+
+        this.fromMinute = EpochMinutes.ceilOf(from);
+        this.stepMinutes = stepMinutes;
+        long toMinute = EpochMinutes.ceilOf(to);
+        this.samples = new int[TYPES][Math.toIntExact((toMinute - fromMinute + stepMinutes - 1) / stepMinutes)];
+        this.capacity = new int[TYPES];
+        Arrays.fill(peakMinute, fromMinute);
+
+        long[] events = new long[64];
+        int eventCount = 0;
+        for (Area area : areas) {
+            for (VehicleType type : VehicleType.values()) {
+                capacity[type.ordinal()] += area.getMaxCapacity(type);
+            }
+
+            area.getAdmissionLock().lock();
+            try {
+                for (Vehicle vehicle : area.getVehiclePlatesMap().values()) {
+                    int type = vehicle.getType().ordinal();
+                    IntervalStore intervals = vehicle.getIntervals();
+
+                    for (int i = 0, end = intervals.firstOfMinute(toMinute); i < end; i++) {
+                        long exit = intervals.getExit(i);
+
+                        if (exit > fromMinute) {
+                            if (eventCount + 2 > events.length) {
+                                events = Arrays.copyOf(events, events.length * 2);
+                            }
+                            events[eventCount++] = event(Math.max(intervals.getEntry(i), fromMinute), type, true);
+                            if (exit < toMinute) {
+                                events[eventCount++] = event(exit, type, false);
+                            }
+                        }
+                    }
+                }
+            } finally {
+                area.getAdmissionLock().unlock();
+            }
+        }
+
+        Arrays.sort(events, 0, eventCount);
+        sweep(events, eventCount, toMinute);
+    }
+
+    /**
+     * This method encodes an entry or an exit in a long, so the events are sorted by their minute and the exits
+     * of a minute come before its entries (a parking interval does not include the minute of its exit).
+     * @param minute Represents the minute of the event, in epoch minutes.
+     * @param type Represents the ordinal of the type of vehicle.
+     * @param entry Represents the fact that the event is an entry.
+     * @return The encoded event.
+     */
+    private static long event(long minute, int type, boolean entry) {
+        return minute << 4 | (long) type << 1 | (entry ? 1 : 0);
+    }
+
+    /**
+     * This method sweeps over the sorted events, filling the samples, the peaks and the time at capacity.
+     * @param events Represents the sorted events.
+     * @param eventCount Represents the number of events.
+     * @param toMinute Represents the end of the interval of time, in epoch minutes.
+     */
+    private void sweep(long[] events, int eventCount, long toMinute) {
+        int[] occupancy = new int[TYPES];
+        long previousMinute = fromMinute;
+        int sample = 0;
+        int i = 0;
+
+        while (i <= eventCount) {
+            long minute = i < eventCount ? events[i] >> 4 : toMinute;
+
+            for (; sample < samples[0].length && fromMinute + (long) sample * stepMinutes < minute; sample++) {
+                for (int type = 0; type < TYPES; type++) {
+                    samples[type][sample] = occupancy[type];
+                }
+            }
+            for (int type = 0; type < TYPES; type++) {
+                if (capacity[type] > 0 && occupancy[type] >= capacity[type]) {
+                    minutesAtCapacity[type] += minute - previousMinute;
+                }
+            }
+
+            if (i == eventCount) {
+                break;
+            }
+
+            for (; i < eventCount && events[i] >> 4 == minute; i++) {
+                int type = (int) (events[i] >> 1 & 7);
+                occupancy[type] += (events[i] & 1) != 0 ? 1 : -1;
+            }
+            for (int type = 0; type < TYPES; type++) {
+                if (occupancy[type] > peak[type]) {
+                    peak[type] = occupancy[type];
+                    peakMinute[type] = minute;
+                }
+            }
+            previousMinute = minute;
+        }
+    }
+
+    /**
+     * This method returns the number of sample times.
+     * @return The number of sample times in the interval of time.
+     */
+    public int getSampleCount() {
+        return samples[0].length;
+    }
+
+    /**
+     * This method returns a sample time.
+     * @param sample Represents the index of the sample time.
+     * @return The sample time.
+     */
+    public LocalDateTime getTime(int sample) {
+        return EpochMinutes.toDateTime(fromMinute + (long) sample * stepMinutes);
+    }
+
+    /**
+     * This method returns the occupancy of a type of vehicle at a sample time.
+     * @param type Represents the type of vehicle.
+     * @param sample Represents the index of the sample time.
+     * @return The number of parking intervals of that type that include the sample time.
+     */
+    public int getOccupancy(VehicleType type, int sample) {
+        return samples[type.ordinal()][sample];
+    }
+
+    /**
+     * This method returns the maximum capacity of a type of vehicle.
+     * @param type Represents the type of vehicle.
+     * @return The number of parking places for that type.
+     */
+    public int getCapacity(VehicleType type) {
+        return capacity[type.ordinal()];
+    }
+
+    /**
+     * This method returns the peak occupancy of a type of vehicle during the interval of time (not only at the
+     * sample times).
+     * @param type Represents the type of vehicle.
+     * @return The maximum number of parking intervals of that type that include the same minute.
+     */
+    public int getPeak(VehicleType type) {
+        return peak[type.ordinal()];
+    }
+
+    /**
+     * This method returns the time when the peak occupancy of a type of vehicle was first reached.
+     * @param type Represents the type of vehicle.
+     * @return The first minute with the peak occupancy.
+     */
+    public LocalDateTime getPeakTime(VehicleType type) {
+        return EpochMinutes.toDateTime(peakMinute[type.ordinal()]);
+    }
+
+    /**
+     * This method returns the time in which the occupancy of a type of vehicle was at least its maximum capacity.
+     * @param type Represents the type of vehicle.
+     * @return The time spent at capacity during the interval of time.
+     */
+    public Duration getTimeAtCapacity(VehicleType type) {
+        return Duration.ofMinutes(minutesAtCapacity[type.ordinal()]);
+    }
+
+    /**
+     * This methods overrides the toString() method.
+     * @return The representation of an object of type OccupancySeries.
+     */
+    @Override
+    public String toString() {
+        StringBuilder builder = new StringBuilder("OccupancySeries{from=" + getTime(0) + ", step=" + stepMinutes + "min, samples=" + getSampleCount());
+
+        for (VehicleType type : VehicleType.values()) {
+            builder.append(", ").append(type.toString().toLowerCase())
+                    .append("={peak=").append(getPeak(type))
+                    .append(" at ").append(getPeakTime(type))
+                    .append(", atCapacity=").append(getTimeAtCapacity(type).toMinutes()).append("min}");
+        }
+
+        return builder.append('}').toString();
+    }
+}
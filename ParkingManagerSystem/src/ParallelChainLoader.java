@@ -0,0 +1,261 @@
+package uvt;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * The objects of this class load a parking chain file in parallel. Each parkingLot line starts a section that
+ * contains the areas and vehicles of that parking lot, so the sections are found first and then each of them is
+ * loaded in a separate parking chain on a fork-join pool. At the end, the parking lots are added to the parking
+ * chain in the order from the file and the license plate indexes of the sections are merged.
+ */
+public class ParallelChainLoader {
+    /**
+     * Represents the beginning of the lines that start a section.
+     */
+    private static final byte[] SECTION_START = "parkingLot,".getBytes(StandardCharsets.US_ASCII);
+    /**
+     * Represents the size of the blocks in which the file is read when the sections are searched.
+     */
+    private static final int BUFFER_SIZE = 1 << 20;
+
+    /**
+     * Represents the parking chain in which the data is loaded.
+     */
+    private final ParkingChain parkingChain;
+    /**
+     * Represents the number of threads that load the sections.
+     */
+    private final int parallelism;
+
+    /**
+     * This is the constructor for class ParallelChainLoader.
+     * @param parkingChain Represents the parking chain in which the data is loaded.
+     * @param parallelism Represents the number of threads that load the sections.
+     */
+    public ParallelChainLoader(ParkingChain parkingChain, int parallelism) {
+        this.parkingChain = parkingChain;
+        this.parallelism = parallelism;
+    }
+
+    /**
+     * This method loads the parking lots, areas and vehicles from a file.
+     * @param path Represents the path to the file.
+     * @return The report that contains the throughput and the lines that could not be loaded.
+     * @throws IOException It is thrown when the file can not be read.
+     */
+    public LoadReport load(Path path) throws IOException {
+        LoadReport report = new LoadReport();
+        long startTime = System.nanoTime();
+        long bytes;
+        List<Section> sections;
+
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            bytes = channel.size();
+            sections = findSections(channel);
+
+            ForkJoinPool pool = new ForkJoinPool(parallelism);
+            try {
+                pool.invoke(new SectionTask(channel, sections, 0, sections.size()));
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            } finally {
+                pool.shutdown();
+            }
+        }
+
+        long lines = 0;
+        for (Section section : sections) {
+            for (ParkingLot parkingLot : section.parkingChain.parkingLotList) {
+                parkingChain.attachParkingLot(parkingLot);
+            }
+            parkingChain.getPlateIndex().merge(section.parkingChain.getPlateIndex());
+            report.addErrors(section.report);
+            lines += section.lines;
+        }
+
+        report.finish(lines, bytes, System.nanoTime() - startTime);
+
+        return report;
+    }
+
+    /**
+     * This method reads the file once and finds the position of each line that starts with "parkingLot,".
+     * The lines before the first such line form a section too, so their errors are reported.
+     * @param channel Represents the channel from which the file is read.
+     * @return The list of sections, in the order from the file.
+     * @throws IOException It is thrown when the file can not be read.
+     */
+    private static List<Section> findSections(FileChannel channel) throws IOException {
+        List<Section> sections = new ArrayList<>();
+        ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+        byte[] data = buffer.array();
+        long position = 0;
+        long lineNumber = 1;
+        long sectionStart = 0;
+        long sectionLine = 1;
+        int matched = 0;
+        int read;
+
+        while ((read = channel.read(buffer, position)) > 0) {
+            for (int i = 0; i < read; i++) {
+                byte b = data[i];
+
+                if (b == '\n') {
+                    lineNumber++;
+                    matched = 0;
+                } else if (matched >= 0) {
+                    if (b != SECTION_START[matched]) {
+                        matched = -1;
+                    } else if (++matched == SECTION_START.length) {
+                        long lineStart = position + i + 1 - SECTION_START.length;
+
+                        if (lineStart > sectionStart) {
+                            sections.add(new Section(sectionStart, lineStart, sectionLine));
+                        }
+                        sectionStart = lineStart;
+                        sectionLine = lineNumber;
+                        matched = -1;
+                    }
+                }
+            }
+
+            position += read;
+            buffer.clear();
+        }
+
+        if (position > sectionStart) {
+            sections.add(new Section(sectionStart, position, sectionLine));
+        }
+
+        return sections;
+    }
+
+    /**
+     * The objects of this class represent a part of the file that starts with a parkingLot line.
+     */
+    private static class Section {
+        /**
+         * Represents the position of the first byte of the section.
+         */
+        private final long start;
+        /**
+         * Represents the position after the last byte of the section.
+         */
+        private final long end;
+        /**
+         * Represents the number of the first line of the section in the whole file.
+         */
+        private final long firstLineNumber;
+        /**
+         * Represents the parking chain in which the section is loaded.
+         */
+        private final ParkingChain parkingChain = new ParkingChain(new PlateIndex(true));
+        /**
+         * Represents the report with the errors of the section.
+         */
+        private final LoadReport report = new LoadReport();
+        /**
+         * Represents the number of lines of the section.
+         */
+        private long lines;
+
+        /**
+         * This is the constructor for class Section.
+         * @param start Represents the position of the first byte of the section.
+         * @param end Represents the position after the last byte of the section.
+         * @param firstLineNumber Represents the number of the first line of the section in the whole file.
+         */
+        private Section(long start, long end, long firstLineNumber) {
+            this.start = start;
+            this.end = end;
+            this.firstLineNumber = firstLineNumber;
+        }
+
+        /**
+         * This method reads the section from the file and loads it.
+         * @param channel Represents the channel from which the file is read.
+         * @throws IOException It is thrown when the file can not be read or the section is too big.
+         */
+        private void load(FileChannel channel) throws IOException {
+            if (end - start > Integer.MAX_VALUE - 8) {
+                throw new IOException("The section that starts at line " + firstLineNumber + " is too big.");
+            }
+
+            ByteBuffer buffer = ByteBuffer.allocate((int) (end - start));
+            while (buffer.hasRemaining()) {
+                if (channel.read(buffer, start + buffer.position()) < 0) {
+                    throw new IOException("Unexpected end of file at line " + firstLineNumber + ".");
+                }
+            }
+
+            lines = new ParkingChainLoader(parkingChain).load(buffer.array(), firstLineNumber, report);
+        }
+    }
+
+    /**
+     * The objects of this class load a range of sections, splitting it in two halves until one section is left.
+     */
+    private static class SectionTask extends RecursiveAction {
+        /**
+         * Represents the version of the class used when it is serialized.
+         */
+        private static final long serialVersionUID = 1L;
+        /**
+         * Represents the channel from which the file is read.
+         */
+        private final FileChannel channel;
+        /**
+         * Represents all the sections of the file.
+         */
+        private final List<Section> sections;
+        /**
+         * Represents the index of the first section of the range.
+         */
+        private final int from;
+        /**
+         * Represents the index after the last section of the range.
+         */
+        private final int to;
+
+        /**
+         * This is the constructor for class SectionTask.
+         * @param channel Represents the channel from which the file is read.
+         * @param sections Represents all the sections of the file.
+         * @param from Represents the index of the first section of the range.
+         * @param to Represents the index after the last section of the range.
+         */
+        private SectionTask(FileChannel channel, List<Section> sections, int from, int to) {
+            this.channel = channel;
+            this.sections = sections;
+            this.from = from;
+            this.to = to;
+        }
+
+        /**
+         * This method loads the sections of the range.
+         */
+        @Override
+        protected void compute() {
+            if (to - from > 1) {
+                int middle = (from + to) >>> 1;
+                invokeAll(new SectionTask(channel, sections, from, middle), new SectionTask(channel, sections, middle, to));
+            } else if (to > from) {
+                try {
+                    sections.get(from).load(channel);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }
+        }
+    }
+}
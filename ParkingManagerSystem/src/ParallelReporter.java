@@ -0,0 +1,192 @@
+package uvt;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.IntConsumer;
+
+/**
+ * The objects of this class compute the gain and the occupancy of all the parking lots of a parking chain on a
+ * fork-join pool. The areas of all the parking lots are split in ranges that are computed in parallel, each area
+ * by a single thread, and the results of the areas are then added for each parking lot in the order of the areas,
+ * so the results are the same as the ones computed on one thread.
+ * The result of an area is read from its ledger or its counters in constant time, so the pool is kept between the
+ * reports and a range is not split below AREAS_PER_TASK areas: a smaller task would cost more to schedule than to
+ * compute. A parking chain with at most AREAS_PER_TASK areas is computed on the calling thread.
+ * The threads of the pool are daemon threads that end after some time without reports.
+ */
+public class ParallelReporter {
+    /**
+     * Represents the number of types of vehicles.
+     */
+    private static final int TYPES = VehicleType.values().length;
+    /**
+     * Represents the smallest number of areas that is computed by a task.
+     */
+    static final int AREAS_PER_TASK = 256;
+
+    /**
+     * Represents the parking chain for which the reports are computed.
+     */
+    private final ParkingChain parkingChain;
+    /**
+     * Represents the number of threads that compute the reports.
+     */
+    private final int parallelism;
+    /**
+     * Represents the fork-join pool on which the reports are computed.
+     */
+    private final ForkJoinPool pool;
+
+    /**
+     * This is the constructor for class ParallelReporter.
+     * @param parkingChain Represents the parking chain for which the reports are computed.
+     * @param parallelism Represents the number of threads that compute the reports.
+     */
+    public ParallelReporter(ParkingChain parkingChain, int parallelism) {
+        this.parkingChain = parkingChain;
+        this.parallelism = parallelism;
+        this.pool = new ForkJoinPool(parallelism);
+    }
+
+    /**
+     * This is the getter for parallelism.
+     * @return An integer representing the number of threads that compute the reports.
+     */
+    public int getParallelism() {
+        return parallelism;
+    }
+
+    /**
+     * This method computes the gain of each parking lot of the parking chain in a day.
+     * @param epochDay Represents the day, as the number of days since 1970-01-01.
+     * @return The gain of each parking lot, in the order of the parking lots in the parking chain.
+     */
+    public double[] computeGains(long epochDay) {
+        List<Area> areas = getAreas();
+        double[] areaGains = new double[areas.size()];
+
+        invoke(areas.size(), index -> areaGains[index] = areas.get(index).getGain(epochDay));
+
+        double[] gains = new double[parkingChain.parkingLotList.size()];
+        int index = 0;
+        for (int i = 0; i < gains.length; i++) {
+            for (int j = 0; j < parkingChain.parkingLotList.get(i).getAreaList().size(); j++) {
+                gains[i] += areaGains[index++];
+            }
+        }
+
+        return gains;
+    }
+
+    /**
+     * This method computes the number of used parking places of each parking lot of the parking chain for each
+     * type of vehicle.
+     * @return For each parking lot (in the order of the parking chain), the number of used places indexed by the
+     * ordinal of the type of vehicle.
+     */
+    public int[][] computeOccupancy() {
+        List<Area> areas = getAreas();
+        int[] areaOccupancy = new int[areas.size() * TYPES];
+
+        invoke(areas.size(), index -> {
+            for (VehicleType type : VehicleType.values()) {
+                areaOccupancy[index * TYPES + type.ordinal()] = areas.get(index).getCurrentCapacity(type);
+            }
+        });
+
+        int[][] occupancy = new int[parkingChain.parkingLotList.size()][TYPES];
+        int index = 0;
+        for (int i = 0; i < occupancy.length; i++) {
+            for (int j = 0; j < parkingChain.parkingLotList.get(i).getAreaList().size(); j++) {
+                for (int type = 0; type < TYPES; type++) {
+                    occupancy[i][type] += areaOccupancy[index * TYPES + type];
+                }
+                index++;
+            }
+        }
+
+        return occupancy;
+    }
+
+    /**
+     * This method returns the areas of all the parking lots, in the order of the parking lots and of their areas.
+     * @return The list of the areas of the parking chain.
+     */
+    private List<Area> getAreas() {
+        List<Area> areas = new ArrayList<>();
+
+        for (ParkingLot parkingLot : parkingChain.parkingLotList) {
+            areas.addAll(parkingLot.getAreaList());
+        }
+
+        return areas;
+    }
+
+    /**
+     * This method computes a result for each area, on the fork-join pool of the reporter if there are more areas
+     * than a task computes, or else on the calling thread.
+     * @param areaCount Represents the number of areas.
+     * @param computeArea Represents the computation done for the area with a certain index.
+     */
+    private void invoke(int areaCount, IntConsumer computeArea) {
+        if (areaCount > AREAS_PER_TASK) {
+            pool.invoke(new AreaTask(0, areaCount, computeArea));
+        } else {
+            for (int index = 0; index < areaCount; index++) {
+                computeArea.accept(index);
+            }
+        }
+    }
+
+    /**
+     * The objects of this class compute a result for each area of a range, splitting the range in two halves
+     * that are computed in parallel until it contains at most AREAS_PER_TASK areas.
+     */
+    private static class AreaTask extends RecursiveAction {
+        /**
+         * Represents the version of the class used when it is serialized.
+         */
+        private static final long serialVersionUID = 1L;
+        /**
+         * Represents the index of the first area of the range.
+         */
+        private final int from;
+        /**
+         * Represents the index after the last area of the range.
+         */
+        private final int to;
+        /**
+         * Represents the computation done for the area with a certain index.
+         */
+        private final IntConsumer computeArea;
+
+        /**
+         * This is the constructor for class AreaTask.
+         * @param from Represents the index of the first area of the range.
+         * @param to Represents the index after the last area of the range.
+         * @param computeArea Represents the computation done for the area with a certain index.
+         */
+        private AreaTask(int from, int to, IntConsumer computeArea) {
+            this.from = from;
+            this.to = to;
+            this.computeArea = computeArea;
+        }
+
+        /**
+         * This method computes the results of the areas of the range.
+         */
+        @Override
+        protected void compute() {
+            if (to - from > AREAS_PER_TASK) {
+                int middle = (from + to) >>> 1;
+                invokeAll(new AreaTask(from, middle, computeArea), new AreaTask(middle, to, computeArea));
+            } else {
+                for (int index = from; index < to; index++) {
+                    computeArea.accept(index);
+                }
+            }
+        }
+    }
+}
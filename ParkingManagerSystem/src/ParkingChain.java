@@ -2,17 +2,16 @@ package uvt;
 
 import uvt.Exceptions.*;
 
-import java.io.File;
+import javax.management.JMException;
 import java.io.IOException;
-import java.io.FileWriter;
+import java.nio.file.Paths;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.Scanner;
-import java.util.stream.IntStream;
-
-import static uvt.Main.formatter;
 
 /**
  * The objects of this class represent the Parking Chain.
@@ -23,97 +22,209 @@ public class ParkingChain {
      */
     List<ParkingLot> parkingLotList = new ArrayList<>();
 
+    /**
+     * Maps each parking lot to its name. If two parking lots have the same name, the first one is kept.
+     */
+    private final Map<String, ParkingLot> parkingLotsByName = new HashMap<>();
+
+    /**
+     * Represents the index of the license plates of all the vehicles in the parking chain.
+     */
+    private final PlateIndex plateIndex;
+    /**
+     * Represents the journal in which the changes of the parking chain are kept, or null if they are not kept.
+     */
+    private volatile ParkingChainJournal journal;
+    /**
+     * Represents the metrics of the parking chain: the time of the admissions, loads, saves and reports.
+     */
+    private final ChainMetrics metrics = new ChainMetrics(this);
+    /**
+     * Represents the reporter that computes the parallel reports, kept so its threads are reused by the next
+     * reports, or null if no parallel report was computed.
+     */
+    private ParallelReporter parallelReporter;
+
     /**
      * This is a constructor fot objects of type ParkingChain.
      */
-    public ParkingChain() { }
+    public ParkingChain() {
+        this(new PlateIndex());
+    }
+
+    /**
+     * This is a constructor fot objects of type ParkingChain that uses a specific license plate index.
+     * @param plateIndex Represents the index of the license plates of the parking chain.
+     */
+    ParkingChain(PlateIndex plateIndex) {
+        this.plateIndex = plateIndex;
+    }
 
     /**
      * This method adds a parking lot to the parking chain.
      * @param parkingLot Represents the parking lot that will be added to the parking chain.
      */
     public void addParkingLot(ParkingLot parkingLot) {
+        ParkingChainJournal journal = this.journal;
+
+        if (journal == null) {
+            doAddParkingLot(parkingLot);
+            return;
+        }
+
+        journal.beginChange();
+        try {
+            doAddParkingLot(parkingLot);
+            journal.logParkingLot(parkingLot);
+        } finally {
+            journal.endChange();
+        }
+    }
+
+    /**
+     * This method adds a parking lot to the parking chain and its vehicles to the license plate index.
+     * @param parkingLot Represents the parking lot that will be added to the parking chain.
+     */
+    private void doAddParkingLot(ParkingLot parkingLot) {
         parkingLotList.add(parkingLot);
+        parkingLotsByName.putIfAbsent(parkingLot.getName(), parkingLot);
+        plateIndex.register(parkingLot);
+        metrics.register(parkingLot);
     }
 
     /**
-     * This method reads the data needed to create the parking chain and its components from a file.
-     * @param file Represents the file from which the data is read.
+     * This method adds a parking lot whose vehicles are already in the license plate index.
+     * @param parkingLot Represents the parking lot that will be added to the parking chain.
      */
-    public void readParkingChainFile(String file) {
-        File f = new File(file);
+    void attachParkingLot(ParkingLot parkingLot) {
+        ParkingChainJournal journal = this.journal;
 
+        if (journal != null) {
+            journal.beginChange();
+        }
         try {
-            Scanner sc = new Scanner(f);
-
-            while (sc.hasNext()) {
-                String[] line = sc.nextLine().split(",");
-                if (line[0].equals("parkingLot")) {
-                    addParkingLotFromLine(line);
-                } else if (line[0].equals("area")) {
-                    addAreaFromLine(line);
-                } else if (line[0].equals("vehicle")) {
-                    addVehicleFromLine(line);
-                } else {
-                    throw new InvalidFieldException("The introduced field is not a valid one");
-                }
-            }
+            parkingLotList.add(parkingLot);
+            parkingLotsByName.putIfAbsent(parkingLot.getName(), parkingLot);
+            metrics.register(parkingLot);
 
-        } catch (Exception e) {
-            e.printStackTrace();
+            if (journal != null) {
+                journal.logParkingLot(parkingLot);
+            }
+        } finally {
+            if (journal != null) {
+                journal.endChange();
+            }
         }
     }
 
     /**
-     * This method creates a parking log using data from a line that was read from a file and adds it to the parking chain.
-     * @param line Represents the line that was read from the file. It contains the data needed to construct the parking
-     *             lot.
-     * @throws InvalidLineLengthException It is thrown when the line contains more data fields that it should.
+     * This is the getter for metrics.
+     * @return The metrics of the parking chain.
      */
-    private void addParkingLotFromLine(String[] line) throws InvalidLineLengthException {
-        final int rowFields = 3;
+    public ChainMetrics getMetrics() {
+        return metrics;
+    }
 
-        if (line.length != rowFields) {
-            throw new InvalidLineLengthException("Invalid number of fields (" + line.length + " instead of " + rowFields + ") for type " + line[0] + ".");
-        }
+    /**
+     * This method registers the metrics of the parking chain and of each of its areas in the platform MBean server,
+     * as uvt:type=ParkingChain,name=... and uvt:type=Area,chain=...,parkingLot=...,name=..., so they can be read
+     * with JConsole or any JMX client while the parking chain is used. The areas added later through the parking
+     * chain are registered when they are added.
+     * @param name Represents the name of the parking chain in the names of the MBeans.
+     * @throws JMException It is thrown when another parking chain is registered under the same name.
+     */
+    public void registerMBeans(String name) throws JMException {
+        metrics.register(name);
+    }
 
-        parkingLotList.add(new ParkingLot(line[1], Integer.parseInt(line[2])));
+    /**
+     * This method removes the metrics of the parking chain and of its areas from the platform MBean server.
+     */
+    public void unregisterMBeans() {
+        metrics.unregister();
     }
 
     /**
-     * This method creates an area using data from a line read from a file and adds it to the parking lot.
-     * @param line Represents the line read form a file that contains the data needed to create an area.
-     * @throws InvalidLineLengthException It is thrown when the line contains more data fields that it should.
+     * This is the getter for plateIndex.
+     * @return The index of the license plates of the parking chain.
      */
-    private void addAreaFromLine(String[] line) throws InvalidLineLengthException {
-        final int rowFields = 7;
+    PlateIndex getPlateIndex() {
+        return plateIndex;
+    }
 
-        if (line.length != rowFields) {
-            throw new InvalidLineLengthException("Invalid number of fields (" + line.length + " instead of " + rowFields + ") for type " + line[0] + ".");
-        }
-        parkingLotList.get(parkingLotList.size() - 1).addArea(line);
+    /**
+     * This method returns the parking lot that has a specific name. The returned parking lot can be kept and
+     * used again (together with the areas returned by its getArea() method) without searching for it.
+     * @param name Represents the name of the parking lot.
+     * @return The parking lot with the name passed as parameter or null if there is no such parking lot.
+     */
+    public ParkingLot getParkingLot(String name) {
+        return parkingLotsByName.get(name);
     }
 
     /**
-     * This method creates a vehicle using data from a line read from a file and adds it to the are.a
-     * @param line Represents the line read form a file that contains the data needed to create an area.
-     * @throws InvalidLineLengthException      It is thrown when the line contains more data fields that it should.
-     * @throws MaximumCapacityReachedException It is thrown when the maximum capacity of the area for a vehicle type is reached.
-     * @throws InvalidParkingIntervalException It is thrown when the duration of an interval in negative, so the interval in not
-     *                                         correctly formed.
-     * @throws InvalidFieldException           It is thrown if an invalid type for a field will is passed to a method.
-     * @throws InvalidVehicleTypeException     It is thrown if an invalid vehicle type will is passed to a method.
+     * This method returns the record of a license plate. It contains the canonical vehicle, the number of times
+     * it parked in the parking chain and the areas (and their parking lots) in which it was parked.
+     * @param licensePlate Represents the license plate that is searched.
+     * @return The record of the license plate or null if the vehicle was never parked in the parking chain.
      */
-    private void addVehicleFromLine(String[] line) throws InvalidLineLengthException, MaximumCapacityReachedException, InvalidParkingIntervalException, InvalidFieldException, InvalidVehicleTypeException {
-        final int rowFields = 6;
+    public PlateIndex.PlateRecord findVehicle(String licensePlate) {
+        return plateIndex.get(licensePlate);
+    }
+
+    /**
+     * This method reads the data needed to create the parking chain and its components from a file.
+     * The lines that can not be loaded are printed together with their number.
+     * @param file Represents the file from which the data is read.
+     */
+    public void readParkingChainFile(String file) {
+        try {
+            LoadReport report = loadParkingChainFile(file);
 
-        if (line.length != rowFields) {
-            throw new InvalidLineLengthException("Invalid number of fields (" + line.length + " instead of " + rowFields + ") for type " + line[0] + ".");
+            for (String error : report.getErrors()) {
+                System.err.println(error);
+            }
+        } catch (IOException e) {
+            e.printStackTrace();
         }
+    }
+
+    /**
+     * This method loads the parking chain from a file using a ParkingChainLoader. A line that can not be loaded
+     * does not stop the loading, it is added to the returned report.
+     * @param file Represents the file from which the data is read.
+     * @return The report that contains the throughput (lines/s, MB/s) and the lines that could not be loaded.
+     * @throws IOException It is thrown when the file can not be read.
+     */
+    public LoadReport loadParkingChainFile(String file) throws IOException {
+        LoadReport report = new ParkingChainLoader(this).load(Paths.get(file));
+        metrics.recordLoad(report);
+        return report;
+    }
+
+    /**
+     * This method loads the parking chain from a file, loading the parking lots in parallel using all the
+     * available processors.
+     * @param file Represents the file from which the data is read.
+     * @return The report that contains the throughput and the lines that could not be loaded.
+     * @throws IOException It is thrown when the file can not be read.
+     */
+    public LoadReport loadParkingChainFileParallel(String file) throws IOException {
+        return loadParkingChainFileParallel(file, Runtime.getRuntime().availableProcessors());
+    }
 
-        List<uvt.Area> areaList = parkingLotList.get(parkingLotList.size() - 1).getAreaList();
-        int lastAreaListIdx = areaList.size() - 1;
-        areaList.get(lastAreaListIdx).addVehicle(line);
+    /**
+     * This method loads the parking chain from a file, loading the parking lots in parallel. The result is the
+     * same as the one of loadParkingChainFile().
+     * @param file Represents the file from which the data is read.
+     * @param parallelism Represents the number of threads that load the parking lots.
+     * @return The report that contains the throughput and the lines that could not be loaded.
+     * @throws IOException It is thrown when the file can not be read.
+     */
+    public LoadReport loadParkingChainFileParallel(String file, int parallelism) throws IOException {
+        LoadReport report = new ParallelChainLoader(this, parallelism).load(Paths.get(file));
+        metrics.recordLoad(report);
+        return report;
     }
 
     /**
@@ -124,13 +235,39 @@ public class ParkingChain {
      * @throws InvalidParkingLotNameException It is thrown when there is no parking lot with the name passed as parameter.
      */
     public void addArea(String parkingLotName, uvt.Area area) throws InvalidParkingLotNameException {
-        int parkingLotIdx = getParkingLotIndex(parkingLotName);
+        ParkingLot parkingLot = getParkingLot(parkingLotName);
 
-        if (parkingLotIdx == -1) {
+        if (parkingLot == null) {
             throw new InvalidParkingLotNameException("Parking lot '" + parkingLotName + "' does not exist!");
         }
 
-        parkingLotList.get(parkingLotIdx).addArea(area);
+        addArea(parkingLot, area);
+    }
+
+    /**
+     * This method adds an area to a parking lot that was already found using getParkingLot().
+     * @param parkingLot Represents the parking lot in which the new area will be added.
+     * @param area Represents the area that will be added to the parking lot.
+     */
+    public void addArea(ParkingLot parkingLot, uvt.Area area) {
+        ParkingChainJournal journal = this.journal;
+
+        if (journal == null) {
+            parkingLot.addArea(area);
+            plateIndex.register(area);
+            metrics.register(parkingLot);
+            return;
+        }
+
+        journal.beginChange();
+        try {
+            parkingLot.addArea(area);
+            plateIndex.register(area);
+            metrics.register(parkingLot);
+            journal.logArea(parkingLot, area);
+        } finally {
+            journal.endChange();
+        }
     }
 
 
@@ -145,126 +282,560 @@ public class ParkingChain {
      * @param exitTime Represents the time when the car exits the parking lot.
      * @throws InvalidParkingLotNameException It is thrown when there is no parking lot with the name passed as parameter.
      * @throws InvalidAreaNameException It is thrown when there is no are with the name passed as parameter.
+     * @throws MaximumCapacityReachedException It is thrown when the maximum capacity of the area for the vehicle type is reached.
+     * @throws InvalidParkingIntervalException It is thrown when the exit time is before the entry time.
+     * @throws InvalidVehicleTypeException It is thrown when the license plate was parked in the parking chain with another type of vehicle.
      */
-    public void addVehicle(String parkingLotName, String areaName, String licensePlate, Vehicle vehicle, LocalDateTime entryTime, LocalDateTime exitTime) throws InvalidParkingLotNameException, InvalidAreaNameException {
-        int parkingLotIdx = getParkingLotIndex(parkingLotName);
+    public void addVehicle(String parkingLotName, String areaName, String licensePlate, Vehicle vehicle, LocalDateTime entryTime, LocalDateTime exitTime) throws InvalidParkingLotNameException, InvalidAreaNameException, MaximumCapacityReachedException, InvalidParkingIntervalException, InvalidVehicleTypeException {
+        ParkingLot parkingLot = getParkingLot(parkingLotName);
 
-        if (parkingLotIdx == -1) {
+        if (parkingLot == null) {
             throw new InvalidParkingLotNameException("Parking lot '" + parkingLotName + "' does not exist!");
         }
 
-        ParkingLot parkingLot = parkingLotList.get(parkingLotIdx);
-        int areaIdx = getAreaIndex(parkingLot, areaName);
+        uvt.Area area = parkingLot.getArea(areaName);
 
-        if (areaIdx == -1) {
+        if (area == null) {
             throw new InvalidAreaNameException("Area '" + areaName + "' does not exist!");
         }
 
-        uvt.Area area = parkingLot.getAreaList().get(areaIdx);
+        addVehicle(parkingLot, area, licensePlate, vehicle, entryTime, exitTime);
+    }
 
-        if (area.getVehiclePlatesMap().containsKey(licensePlate)) {
-            Vehicle existingVehicle = area.getVehiclePlatesMap().get(licensePlate);
-            existingVehicle.addParkingInterval(entryTime, exitTime);
-        } else {
-            area.getVehiclePlatesMap().put(licensePlate, vehicle);
-            vehicle.addParkingInterval(entryTime, exitTime);
+    /**
+     * This method adds a vehicle to an area that was already found using getParkingLot() and getArea(), so
+     * no search is done for each vehicle.
+     * It can be called from several threads: the admissions in different areas run in parallel and, if a journal
+     * is attached, the event is written while holding the admission lock of the area, so the journal keeps the
+     * order of the admissions of each area, and the journal is synchronized with the disk after the lock is
+     * released. The time of the admission, including the time spent waiting for the admission lock, is recorded
+     * in the metrics of the parking chain without taking another lock.
+     * @param parkingLot Represents the parking lot that contains the area.
+     * @param area Represents the area in which the car will be added.
+     * @param licensePlate Represents the licencePlate of the car that will be added.
+     * @param vehicle Represents the car that will pe added.
+     * @param entryTime Represents the time when the car entries the parking lot.
+     * @param exitTime Represents the time when the car exits the parking lot.
+     * @throws MaximumCapacityReachedException It is thrown when the maximum capacity of the area for the vehicle type is reached.
+     * @throws InvalidParkingIntervalException It is thrown when the exit time is before the entry time.
+     * @throws InvalidVehicleTypeException It is thrown when the license plate was parked in the parking chain with another type of vehicle.
+     */
+    public void addVehicle(ParkingLot parkingLot, uvt.Area area, String licensePlate, Vehicle vehicle, LocalDateTime entryTime, LocalDateTime exitTime) throws MaximumCapacityReachedException, InvalidParkingIntervalException, InvalidVehicleTypeException {
+        addVehicle(parkingLot, area, licensePlate, vehicle, entryTime, exitTime, null);
+    }
+
+    /**
+     * This method adds a vehicle to an area, like addVehicle(), for a parking interval whose discount was saved
+     * in a file, so the parking costs the same after the parking chain is loaded again.
+     * @param parkingLot Represents the parking lot that contains the area.
+     * @param area Represents the area in which the car will be added.
+     * @param licensePlate Represents the licencePlate of the car that will be added.
+     * @param vehicle Represents the car that will pe added.
+     * @param entryTime Represents the time when the car entries the parking lot.
+     * @param exitTime Represents the time when the car exits the parking lot.
+     * @param discount Represents the saved discount of the parking interval, or null to give the discount to each
+     *                 10th parking entrance of the license plate.
+     * @throws MaximumCapacityReachedException It is thrown when the maximum capacity of the area for the vehicle type is reached.
+     * @throws InvalidParkingIntervalException It is thrown when the exit time is before the entry time.
+     * @throws InvalidVehicleTypeException It is thrown when the license plate was parked in the parking chain with another type of vehicle.
+     */
+    void addVehicle(ParkingLot parkingLot, uvt.Area area, String licensePlate, Vehicle vehicle, LocalDateTime entryTime, LocalDateTime exitTime, Boolean discount) throws MaximumCapacityReachedException, InvalidParkingIntervalException, InvalidVehicleTypeException {
+        AdmissionStatus status = tryAdmit(parkingLot, area, licensePlate, vehicle, entryTime, exitTime, discount);
+
+        area.checkType(status, licensePlate, vehicle, plateIndex);
+        area.checkAdmitted(status, licensePlate, vehicle);
+    }
+
+    /**
+     * This method tries to add a vehicle to an area of the parking chain, like addVehicle(), but returns the reason
+     * for which the vehicle was not added instead of throwing an exception, so a full area or a wrong name can be
+     * handled without the cost of creating the exception.
+     * @param parkingLotName Represents the name of the parking lot that contains the area.
+     * @param areaName Represents the name of the area in which the car will be added.
+     * @param licensePlate Represents the licencePlate of the car that will be added.
+     * @param vehicle Represents the car that will pe added.
+     * @param entryTime Represents the time when the car entries the parking lot.
+     * @param exitTime Represents the time when the car exits the parking lot.
+     * @return ADMITTED if the vehicle was added, UNKNOWN_LOT or UNKNOWN_AREA if there is no parking lot or area with
+     * the name passed as parameter, FULL if the maximum capacity of the area for the vehicle type is reached,
+     * BAD_INTERVAL if the exit time is before the entry time or WRONG_TYPE if the license plate was parked in the
+     * parking chain with another type of vehicle.
+     */
+    public AdmissionStatus tryAdmit(String parkingLotName, String areaName, String licensePlate, Vehicle vehicle, LocalDateTime entryTime, LocalDateTime exitTime) {
+        ParkingLot parkingLot = getParkingLot(parkingLotName);
+
+        if (parkingLot == null) {
+            return AdmissionStatus.UNKNOWN_LOT;
+        }
+
+        uvt.Area area = parkingLot.getArea(areaName);
+
+        if (area == null) {
+            return AdmissionStatus.UNKNOWN_AREA;
         }
+
+        return tryAdmit(parkingLot, area, licensePlate, vehicle, entryTime, exitTime);
     }
 
     /**
-     * This method returns the index of a parking lot that has a specific name in the parking lot list of a parking chain.
-     * @param name Represents the name of the parking lot that is searched in the parking chain.
-     * @return An integer representing the index at which the parking lot is found in the parking lot list of a parking chain.
+     * This method tries to add a vehicle to an area that was already found using getParkingLot() and getArea(),
+     * like addVehicle(), but returns the reason for which the vehicle was not added instead of throwing an exception.
+     * If a journal is attached, only the vehicles that are added are written in it.
+     * @param parkingLot Represents the parking lot that contains the area.
+     * @param area Represents the area in which the car will be added.
+     * @param licensePlate Represents the licencePlate of the car that will be added.
+     * @param vehicle Represents the car that will pe added.
+     * @param entryTime Represents the time when the car entries the parking lot.
+     * @param exitTime Represents the time when the car exits the parking lot.
+     * @return ADMITTED if the vehicle was added, FULL if the maximum capacity of the area for the vehicle type is
+     * reached, BAD_INTERVAL if the exit time is before the entry time or WRONG_TYPE if the license plate was parked
+     * in the parking chain with another type of vehicle.
      */
-    private int getParkingLotIndex(String name) {
-        return IntStream.range(0, parkingLotList.size())
-                .filter(i -> parkingLotList.get(i).getName().equals(name))
-                .findFirst().orElse(-1);
+    public AdmissionStatus tryAdmit(ParkingLot parkingLot, uvt.Area area, String licensePlate, Vehicle vehicle, LocalDateTime entryTime, LocalDateTime exitTime) {
+        return tryAdmit(parkingLot, area, licensePlate, vehicle, entryTime, exitTime, null);
     }
 
     /**
-     * his method returns the index of a area that has a specific name in the area list of a parking lot.
-     * @param parkingLot Represents the name of the parking lot in which the area is searched.
-     * @param name Represents the name of area that is searched.
-     * @return An integer representing the index at which the area is found in the area list of a parking lot.
+     * This method tries to add a vehicle to an area, like tryAdmit(), for a parking interval whose discount may
+     * have been saved in a file.
+     * @param parkingLot Represents the parking lot that contains the area.
+     * @param area Represents the area in which the car will be added.
+     * @param licensePlate Represents the licencePlate of the car that will be added.
+     * @param vehicle Represents the car that will pe added.
+     * @param entryTime Represents the time when the car entries the parking lot.
+     * @param exitTime Represents the time when the car exits the parking lot.
+     * @param discount Represents the saved discount of the parking interval, or null to give the discount to each
+     *                 10th parking entrance of the license plate.
+     * @return ADMITTED if the vehicle was added, FULL if the maximum capacity of the area for the vehicle type is
+     * reached, BAD_INTERVAL if the exit time is before the entry time or WRONG_TYPE if the license plate was parked
+     * in the parking chain with another type of vehicle.
      */
-    private int getAreaIndex(ParkingLot parkingLot, String name) {
-        return IntStream.range(0, parkingLot.getAreaList().size())
-                .filter(i -> parkingLot.getAreaList().get(i).getName().equals(name))
-                .findFirst().orElse(-1);
+    AdmissionStatus tryAdmit(ParkingLot parkingLot, uvt.Area area, String licensePlate, Vehicle vehicle, LocalDateTime entryTime, LocalDateTime exitTime, Boolean discount) {
+        ParkingChainJournal journal = this.journal;
+        long startTime = System.nanoTime();
+
+        if (journal == null) {
+            try {
+                return area.tryAdmit(licensePlate, vehicle, entryTime, exitTime, plateIndex, discount);
+            } finally {
+                metrics.recordAdmission(System.nanoTime() - startTime);
+            }
+        }
+
+        journal.beginChange();
+        area.getAdmissionLock().lock();
+        try {
+            AdmissionStatus status = area.tryAdmit(licensePlate, vehicle, entryTime, exitTime, plateIndex, discount);
+
+            if (status == AdmissionStatus.ADMITTED) {
+                journal.logVehicle(parkingLot, area, licensePlate, area.getVehiclePlatesMap().get(licensePlate), EpochMinutes.of(entryTime), EpochMinutes.of(exitTime), area.getLastDiscount());
+            }
+
+            return status;
+        } finally {
+            area.getAdmissionLock().unlock();
+            journal.endChange();
+            metrics.recordAdmission(System.nanoTime() - startTime);
+        }
     }
 
     /**
-     * This method overwrites the new data of the parking chain in the initial file.
-     * @param file Represents the name of the file in which the new data of the parking chain will be written.
-     * @throws IOException It is thrown when the file is not found.
+     * This method adds a vehicle to any area of a parking lot that has a free parking place for its type, so the
+     * caller does not have to choose the area. A license plate that is already known in the parking chain keeps
+     * its type and a license plate that is still parked in an area of the parking lot is not added again.
+     * @param parkingLotName Represents the name of the parking lot in which the car will be added.
+     * @param licensePlate Represents the licencePlate of the car that will be added.
+     * @param vehicle Represents the car that will pe added.
+     * @param entryTime Represents the time when the car entries the parking lot.
+     * @param exitTime Represents the time when the car exits the parking lot.
+     * @return The area in which the vehicle was added.
+     * @throws InvalidParkingLotNameException It is thrown when there is no parking lot with the name passed as parameter.
+     * @throws MaximumCapacityReachedException It is thrown when no area of the parking lot has a free place for the vehicle type.
+     * @throws InvalidParkingIntervalException It is thrown when the exit time is before the entry time or when the
+     * vehicle is still parked in an area of the parking lot at the entry time.
      */
-    public void writeParkingChainFile(String file) throws IOException {
-        FileWriter output = new FileWriter(file);
+    public uvt.Area addVehicleAnywhere(String parkingLotName, String licensePlate, Vehicle vehicle, LocalDateTime entryTime, LocalDateTime exitTime) throws InvalidParkingLotNameException, MaximumCapacityReachedException, InvalidParkingIntervalException {
+        ParkingLot parkingLot = getParkingLot(parkingLotName);
 
-        for (ParkingLot parkingLot : parkingLotList) {
-            output.write("parkingLot," + parkingLot.getName() + "," + parkingLot.getNoOfEntries() + '\n');
-            writeAreas(output, parkingLot.getAreaList());
+        if (parkingLot == null) {
+            throw new InvalidParkingLotNameException("Parking lot '" + parkingLotName + "' does not exist!");
+        }
+        if (entryTime == null || exitTime == null || exitTime.isBefore(entryTime)) {
+            throw new InvalidParkingIntervalException("The parking interval is not a valid one.");
+        }
+
+        uvt.Area parkedArea = findParkedArea(parkingLot, licensePlate, entryTime);
+
+        if (parkedArea != null) {
+            throw new InvalidParkingIntervalException("Vehicle '" + licensePlate + "' is still parked in area '" + parkedArea.getName() + "'.");
+        }
+
+        vehicle = withKnownType(licensePlate, vehicle);
+        uvt.Area area = admitAnywhere(parkingLot, licensePlate, vehicle, entryTime, exitTime);
+
+        if (area == null) {
+            throw new MaximumCapacityReachedException("All the areas of parking lot '" + parkingLotName + "' are full for " + vehicle.getType());
+        }
+
+        return area;
+    }
+
+    /**
+     * This method tries to add a vehicle to any area of a parking lot that has a free parking place for its type,
+     * like addVehicleAnywhere(), but returns the reason for which the vehicle was not added instead of throwing
+     * an exception.
+     * @param parkingLotName Represents the name of the parking lot in which the car will be added.
+     * @param licensePlate Represents the licencePlate of the car that will be added.
+     * @param vehicle Represents the car that will pe added.
+     * @param entryTime Represents the time when the car entries the parking lot.
+     * @param exitTime Represents the time when the car exits the parking lot.
+     * @return ADMITTED if the vehicle was added, UNKNOWN_LOT if there is no parking lot with the name passed as
+     * parameter, FULL if no area of the parking lot has a free place for the vehicle type, BAD_INTERVAL if the
+     * exit time is before the entry time or ALREADY_PARKED if the vehicle is still parked in an area of the
+     * parking lot.
+     */
+    public AdmissionStatus tryAdmitAnywhere(String parkingLotName, String licensePlate, Vehicle vehicle, LocalDateTime entryTime, LocalDateTime exitTime) {
+        ParkingLot parkingLot = getParkingLot(parkingLotName);
+
+        if (parkingLot == null) {
+            return AdmissionStatus.UNKNOWN_LOT;
+        }
+
+        return tryAdmitAnywhere(parkingLot, licensePlate, vehicle, entryTime, exitTime);
+    }
+
+    /**
+     * This method tries to add a vehicle to any area of a parking lot that was already found using getParkingLot().
+     * @param parkingLot Represents the parking lot in which the car will be added.
+     * @param licensePlate Represents the licencePlate of the car that will be added.
+     * @param vehicle Represents the car that will pe added.
+     * @param entryTime Represents the time when the car entries the parking lot.
+     * @param exitTime Represents the time when the car exits the parking lot.
+     * @return ADMITTED if the vehicle was added, FULL if no area of the parking lot has a free place for the vehicle
+     * type, BAD_INTERVAL if the exit time is before the entry time or ALREADY_PARKED if the vehicle is still parked
+     * in an area of the parking lot.
+     */
+    public AdmissionStatus tryAdmitAnywhere(ParkingLot parkingLot, String licensePlate, Vehicle vehicle, LocalDateTime entryTime, LocalDateTime exitTime) {
+        if (entryTime == null || exitTime == null || exitTime.isBefore(entryTime)) {
+            return AdmissionStatus.BAD_INTERVAL;
+        }
+        if (findParkedArea(parkingLot, licensePlate, entryTime) != null) {
+            return AdmissionStatus.ALREADY_PARKED;
+        }
+
+        vehicle = withKnownType(licensePlate, vehicle);
+
+        return admitAnywhere(parkingLot, licensePlate, vehicle, entryTime, exitTime) != null ? AdmissionStatus.ADMITTED : AdmissionStatus.FULL;
+    }
+
+    /**
+     * This method searches the area of a parking lot in which a vehicle is still parked, using the areas of its
+     * license plate from the license plate index.
+     * @param parkingLot Represents the parking lot.
+     * @param licensePlate Represents the license plate of the vehicle.
+     * @param time Represents the time at which the vehicle would enter the parking lot.
+     * @return The area in which the vehicle occupies a parking place after the given time or null if the vehicle
+     * is not parked in the parking lot.
+     */
+    private uvt.Area findParkedArea(ParkingLot parkingLot, String licensePlate, LocalDateTime time) {
+        PlateIndex.PlateRecord record = plateIndex.get(licensePlate);
+
+        if (record == null) {
+            return null;
         }
-        output.close();
+
+        for (uvt.Area area : record.getAreas()) {
+            if (area.getParkingLot() == parkingLot && area.getDepartureScheduler().isOccupying(licensePlate, time)) {
+                return area;
+            }
+        }
+
+        return null;
     }
 
     /**
-     * This method writes the areas of the parking lots in the initial file.
-     * @param output Represents the name of the file in which the new data will be written in the file.
-     * @param areas Represents the list of areas of the parking lot that will be written in the file.
-     * @throws IOException It is thrown when the file is not found.
+     * This method makes sure that a vehicle has the type with which its license plate is known in the parking
+     * chain, so the free places are searched for the type that the areas count for it.
+     * @param licensePlate Represents the license plate of the vehicle.
+     * @param vehicle Represents the vehicle passed by the caller.
+     * @return The vehicle, or a vehicle of the known type with the same subscription if the types differ.
      */
-    private void writeAreas(FileWriter output, List<uvt.Area> areas) throws IOException {
-        for (uvt.Area area : areas) {
-            StringBuilder maximumParkingSpaces = new StringBuilder();
+    private Vehicle withKnownType(String licensePlate, Vehicle vehicle) {
+        PlateIndex.PlateRecord record = plateIndex.get(licensePlate);
+
+        if (record == null || record.getVehicle().getType() == vehicle.getType()) {
+            return vehicle;
+        }
 
-            for (int value : area.getMaxCapacity().values()) {
-                maximumParkingSpaces.append(value).append(",");
+        Vehicle knownVehicle = Vehicle.getVehicleObject(record.getVehicle().getType());
+        knownVehicle.setSubscription(vehicle.getSubscription());
+
+        return knownVehicle;
+    }
+
+    /**
+     * This method adds a vehicle with a valid parking interval, which is not parked in the parking lot, to any area
+     * of a parking lot that has a free parking place for its type. The first area with a free place is taken from
+     * the free capacity index of the parking lot; if another gate took its last place first, the area is marked as
+     * full and the next one is tried. When no
+     * area after it is free, the departures are processed once, if the earliest exit noted in the parking lot
+     * passed, and the index is searched again from the first area, so each area is tried at most twice.
+     * @param parkingLot Represents the parking lot in which the car will be added.
+     * @param licensePlate Represents the licencePlate of the car that will be added.
+     * @param vehicle Represents the car that will pe added.
+     * @param entryTime Represents the time when the car entries the parking lot.
+     * @param exitTime Represents the time when the car exits the parking lot.
+     * @return The area in which the vehicle was added or null if no area has a free place for the vehicle type.
+     */
+    private uvt.Area admitAnywhere(ParkingLot parkingLot, String licensePlate, Vehicle vehicle, LocalDateTime entryTime, LocalDateTime exitTime) {
+        FreeCapacityIndex freeCapacityIndex = parkingLot.getFreeCapacityIndex();
+        boolean departuresReleased = false;
+        int from = 0;
+
+        while (true) {
+            int position = freeCapacityIndex.findFree(vehicle.getType(), from);
+
+            if (position < 0) {
+                if (departuresReleased || !parkingLot.releaseDueDepartures(LocalDateTime.now())) {
+                    return null;
+                }
+                departuresReleased = true;
+                from = 0;
+                continue;
             }
 
-            output.write("area," + area.getName() + "," + maximumParkingSpaces.substring(0, maximumParkingSpaces.length() - 1) + '\n');
-            writeVehicles(output, area.getVehiclePlatesMap());
+            uvt.Area area = parkingLot.getAreaList().get(position);
+            if (tryAdmit(parkingLot, area, licensePlate, vehicle, entryTime, exitTime) == AdmissionStatus.ADMITTED) {
+                return area;
+            }
+            from = position + 1;
         }
     }
 
     /**
-     * This method writes the vehicles of an area in the initial file.
-     * @param output Represents the name of the file in which the new data will be written in the file.
-     * @param licensePlates Represents the map of licence plates an vehicle of an area that will be written in the file.
-     * @throws IOException It is thrown when the file is not found.
+     * This method frees the parking places of all the vehicles in the parking chain whose exit time passed.
+     * It can be called by a timer at the time returned by getNextDeparture(), so the occupancy is updated
+     * exactly when the vehicles leave.
+     * @param now Represents the time until which the departures are processed.
      */
-    private void writeVehicles(FileWriter output, Map<String, Vehicle> licensePlates) throws IOException {
-        for (Map.Entry<String, Vehicle> map : licensePlates.entrySet()) {
-            Vehicle vehicle = map.getValue();
-            Subscription subscription = vehicle.getSubscription();
-            StringBuilder vehicleInfo = new StringBuilder("vehicle,");
+    public void releaseDepartures(LocalDateTime now) {
+        for (ParkingLot parkingLot : parkingLotList) {
+            for (uvt.Area area : parkingLot.getAreaList()) {
+                area.releaseDepartures(now);
+            }
+        }
+    }
 
-            vehicleInfo.append(vehicle.getType().toString().toLowerCase()).append(",").append(map.getKey()).append(",");
+    /**
+     * This method returns the time of the next departure in the parking chain.
+     * @return A LocalDateTime value representing the earliest exit time of a parked vehicle or null if
+     * there are no parked vehicles.
+     */
+    public LocalDateTime getNextDeparture() {
+        LocalDateTime next = null;
 
-            if (subscription == null) {
-                vehicleInfo.append("null");
-            } else {
-                vehicleInfo.append(subscription.getBoughtTime().format(formatter));
+        for (ParkingLot parkingLot : parkingLotList) {
+            for (uvt.Area area : parkingLot.getAreaList()) {
+                LocalDateTime exit = area.getDepartureScheduler().getNextExit();
+
+                if (exit != null && (next == null || exit.isBefore(next))) {
+                    next = exit;
+                }
             }
+        }
+
+        return next;
+    }
+
+    /**
+     * This method frees the parking places whose exit time passed and returns the departures processed since the
+     * last call. The returned departures are removed from the departure feed of their areas.
+     * @param now Represents the current time.
+     * @return The list of departures of the vehicles whose declared exit passed.
+     */
+    public List<Departure> drainDepartures(LocalDateTime now) {
+        List<Departure> departures = new ArrayList<>();
+
+        for (ParkingLot parkingLot : parkingLotList) {
+            for (uvt.Area area : parkingLot.getAreaList()) {
+                area.releaseDepartures(now);
 
-            writeParkingIntervals(output, vehicle.getParkingIntervals(), vehicleInfo);
+                Departure departure;
+                while ((departure = area.getDepartureScheduler().pollDeparted()) != null) {
+                    departures.add(departure);
+                }
+            }
         }
+
+        return departures;
     }
 
     /**
-     * This method writes the parking intervals of a vehicle in the initial file.
-     * @param output Represents the name of the file in which the new data will be written in the file.
-     * @param parkingIntervalMap Represents the parkingIntervals map of a car.
-     * @param vehicleInfo Represents the data about the car, except from the parking interval.
-     * @throws IOException It is thrown when the file is not found.
+     * This method counts the departures that were dropped from the departure feeds because drainDepartures() was
+     * not called often enough.
+     * @return The number of dropped departures in all the areas of the parking chain.
      */
-    private void writeParkingIntervals(FileWriter output, Map<String, List<ParkingInterval>> parkingIntervalMap, StringBuilder vehicleInfo) throws IOException {
-        for (List<ParkingInterval> parkingIntervals : parkingIntervalMap.values()) {
-            for (ParkingInterval parkingInterval : parkingIntervals) {
-                output.write(vehicleInfo + "," + parkingInterval.getEntry().format(formatter) + "," + parkingInterval.getExit().format(formatter) + "\n");
+    public long getDroppedDepartures() {
+        long dropped = 0;
+
+        for (ParkingLot parkingLot : parkingLotList) {
+            for (uvt.Area area : parkingLot.getAreaList()) {
+                dropped += area.getDepartureScheduler().getDroppedDepartures();
             }
         }
+
+        return dropped;
+    }
+
+    /**
+     * This method saves the parking chain in a binary snapshot, which is much smaller than a parking chain file
+     * and is loaded faster. The parking chain files can still be written with writeParkingChainFile().
+     * @param file Represents the name of the file in which the snapshot will be written.
+     * @return The report that contains the number of bytes written and the throughput.
+     * @throws IOException It is thrown when the file can not be written.
+     */
+    public SaveReport saveBinarySnapshot(String file) throws IOException {
+        SaveReport report = new BinarySnapshotWriter(this).write(Paths.get(file));
+        metrics.recordSave(report);
+        return report;
+    }
+
+    /**
+     * This method loads the parking chain from a binary snapshot written by saveBinarySnapshot().
+     * @param file Represents the file from which the snapshot is read.
+     * @return The report that contains the throughput and the vehicles that could not be loaded.
+     * @throws IOException It is thrown when the file can not be read or is not a valid binary snapshot.
+     */
+    public LoadReport loadBinarySnapshot(String file) throws IOException {
+        LoadReport report = new BinarySnapshotLoader(this).load(Paths.get(file));
+        metrics.recordLoad(report);
+        return report;
+    }
+
+    /**
+     * This method maps a binary snapshot in memory and loads the parking chain from it. The parking lots, the areas
+     * and the vehicles are created immediately, but the parking intervals of a vehicle are decoded only when they
+     * are first used (for example by printGain() or when the vehicle parks again in the same area). The occupancy,
+     * the parking entrances and the license plate index are the same as after loadBinarySnapshot().
+     * The parking chain should be empty.
+     * @param file Represents the file from which the snapshot is read.
+     * @return The report that contains the number of records and the vehicles that could not be loaded.
+     * @throws IOException It is thrown when the file can not be read or is not a valid binary snapshot.
+     */
+    public LoadReport loadMappedSnapshot(String file) throws IOException {
+        LoadReport report = new BinarySnapshotLoader(this).loadMapped(Paths.get(file));
+        metrics.recordLoad(report);
+        return report;
+    }
+
+    /**
+     * This method loads the parking chain from a file that is either a binary snapshot or a parking chain file,
+     * choosing the loader from the first bytes of the file.
+     * @param file Represents the file from which the data is read.
+     * @return The report that contains the throughput and the data that could not be loaded.
+     * @throws IOException It is thrown when the file can not be read.
+     */
+    public LoadReport loadSnapshot(String file) throws IOException {
+        if (BinarySnapshotLoader.isBinarySnapshot(Paths.get(file))) {
+            return loadBinarySnapshot(file);
+        }
+
+        return loadParkingChainFile(file);
+    }
+
+    /**
+     * This method restores the parking chain from a snapshot and a journal and then keeps each change of the
+     * parking chain in the journal, using the default group commit and compaction settings.
+     * @param snapshotFile Represents the file with the snapshot of the parking chain (a parking chain file).
+     * @param journalFile Represents the file of the journal.
+     * @return The report that contains the lines of the snapshot and of the journal that could not be loaded.
+     * @throws IOException It is thrown when the snapshot or the journal can not be read.
+     */
+    public LoadReport openJournal(String snapshotFile, String journalFile) throws IOException {
+        return openJournal(snapshotFile, journalFile, ParkingChainJournal.DEFAULT_GROUP_COMMIT_EVENTS,
+                ParkingChainJournal.DEFAULT_GROUP_COMMIT_MILLIS, ParkingChainJournal.DEFAULT_COMPACTION_BYTES);
+    }
+
+    /**
+     * This method restores the parking chain from a snapshot and a journal and then keeps each change of the
+     * parking chain in the journal. The parking chain should be empty, unless the snapshot does not exist: then it
+     * can already contain the parking chain from which the journal started, loaded from another file.
+     * @param snapshotFile Represents the file with the snapshot of the parking chain (a parking chain file or a
+     * binary snapshot). It is written again by each compaction.
+     * @param journalFile Represents the file of the journal.
+     * @param groupCommitEvents Represents the number of changes after which the journal is synchronized with the
+     * disk (1 to synchronize each change).
+     * @param groupCommitMillis Represents the number of milliseconds after which the changes are synchronized with
+     * the disk even if the group is not full (0 to not synchronize them periodically).
+     * @param compactionBytes Represents the size of the journal after which it is folded in a new snapshot in the
+     * background (0 to not compact it automatically).
+     * @return The report that contains the lines of the snapshot and of the journal that could not be loaded.
+     * @throws IOException It is thrown when the snapshot or the journal can not be read.
+     */
+    public LoadReport openJournal(String snapshotFile, String journalFile, int groupCommitEvents, long groupCommitMillis, long compactionBytes) throws IOException {
+        LoadReport report = ParkingChainJournal.open(this, Paths.get(snapshotFile), Paths.get(journalFile), groupCommitEvents, groupCommitMillis, compactionBytes);
+        metrics.recordLoad(report);
+        return report;
+    }
+
+    /**
+     * This method sets the journal in which the changes of the parking chain are kept.
+     * @param journal Represents the journal.
+     */
+    void attachJournal(ParkingChainJournal journal) {
+        this.journal = journal;
+    }
+
+    /**
+     * This method stops keeping the changes of the parking chain in a journal.
+     * @param journal Represents the journal that is closed.
+     */
+    void detachJournal(ParkingChainJournal journal) {
+        if (this.journal == journal) {
+            this.journal = null;
+        }
+    }
+
+    /**
+     * This is the getter for journal.
+     * @return The journal in which the changes of the parking chain are kept, or null if they are not kept.
+     */
+    public ParkingChainJournal getJournal() {
+        return journal;
+    }
+
+    /**
+     * This method synchronizes the pending changes with the disk and closes the journal, if there is one.
+     * @throws IOException It is thrown when the journal can not be closed.
+     */
+    public void closeJournal() throws IOException {
+        ParkingChainJournal journal = this.journal;
+
+        if (journal != null) {
+            journal.close();
+        }
+    }
+
+    /**
+     * This method overwrites the new data of the parking chain in the initial file.
+     * @param file Represents the name of the file in which the new data of the parking chain will be written.
+     * @throws IOException It is thrown when the file can not be written.
+     */
+    public void writeParkingChainFile(String file) throws IOException {
+        saveParkingChainFile(file);
+    }
+
+    /**
+     * This method saves the data of the parking chain in a file. The data is written in a temporary file that
+     * replaces the given file only after it was completely written, so the initial file is never left half written.
+     * @param file Represents the name of the file in which the data of the parking chain will be written.
+     * @return The report that contains the number of bytes written and the throughput.
+     * @throws IOException It is thrown when the file can not be written.
+     */
+    public SaveReport saveParkingChainFile(String file) throws IOException {
+        SaveReport report = new ParkingChainWriter(this).write(Paths.get(file));
+        metrics.recordSave(report);
+        return report;
     }
 
     /**
@@ -272,12 +843,12 @@ public class ParkingChain {
      * @param parkingLotName Represents the name of the parking lot fo which the occupancy rate is printed.
      */
     public void printOccupancy(String parkingLotName) {
-        int parkingLotIdx = getParkingLotIndex(parkingLotName);
+        ParkingLot parkingLot = getParkingLot(parkingLotName);
 
-        if (parkingLotIdx == -1) {
+        if (parkingLot == null) {
             System.out.println("Parking lot '" + parkingLotName + "' does not exist!");
         } else {
-            printParkingLotOccupancy(parkingLotList.get(parkingLotIdx));
+            printParkingLotOccupancy(parkingLot);
         }
     }
 
@@ -295,12 +866,92 @@ public class ParkingChain {
      * @param parkingLot Represents the parking lot for which the occupancy rate is computed.
      */
     private void printParkingLotOccupancy(ParkingLot parkingLot) {
-        if (parkingLot != null) {
-            parkingLot.printOccupancyRate();
-        } else {
-            for (ParkingLot pl : parkingLotList) {
-                pl.printOccupancyRate();
+        long startTime = System.nanoTime();
+        try {
+            if (parkingLot != null) {
+                parkingLot.printOccupancyRate();
+            } else {
+                for (ParkingLot pl : parkingLotList) {
+                    pl.printOccupancyRate();
+                }
+            }
+        } finally {
+            metrics.recordReport(System.nanoTime() - startTime);
+        }
+    }
+
+    /**
+     * This method returns the reporter that computes the parallel reports with a certain number of threads. The
+     * reporter is kept for the next reports and is replaced only when another number of threads is asked; the
+     * threads of the replaced one end by themselves, since a report may still be computed on them.
+     * @param parallelism Represents the number of threads that compute the reports.
+     * @return The reporter.
+     */
+    private synchronized ParallelReporter getParallelReporter(int parallelism) {
+        if (parallelReporter == null || parallelReporter.getParallelism() != parallelism) {
+            parallelReporter = new ParallelReporter(this, parallelism);
+        }
+
+        return parallelReporter;
+    }
+
+    /**
+     * This method prints the occupancy rate of all parking lots, computing the occupancy of the areas in parallel
+     * on all the available processors.
+     */
+    public void printOccupancyInParallel() {
+        printOccupancyInParallel(Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * This method prints the occupancy rate of all parking lots, computing the occupancy of the areas in parallel.
+     * The output is the same as the one of printOccupancy().
+     * @param parallelism Represents the number of threads that compute the occupancy.
+     */
+    public void printOccupancyInParallel(int parallelism) {
+        long startTime = System.nanoTime();
+        try {
+            int[][] occupancy = getParallelReporter(parallelism).computeOccupancy();
+
+            for (int i = 0; i < occupancy.length; i++) {
+                parkingLotList.get(i).printOccupancyRate(occupancy[i]);
+            }
+        } finally {
+            metrics.recordReport(System.nanoTime() - startTime);
+        }
+    }
+
+    /**
+     * This method prints the gain of all parking lots in a day, computing the gain of the areas in parallel
+     * on all the available processors.
+     * @param date Represents the date on which the gain is computed.
+     */
+    public void printGainInParallel(String date) {
+        printGainInParallel(date, Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * This method prints the gain of all parking lots in a day, computing the gain of the areas in parallel.
+     * The output is the same as the one of printGain().
+     * @param date Represents the date on which the gain is computed.
+     * @param parallelism Represents the number of threads that compute the gain.
+     */
+    public void printGainInParallel(String date, int parallelism) {
+        long startTime = System.nanoTime();
+        try {
+            double[] gains;
+
+            try {
+                gains = getParallelReporter(parallelism).computeGains(LocalDate.parse(date).toEpochDay());
+            } catch (DateTimeParseException e) {
+                gains = new double[parkingLotList.size()];
             }
+
+            for (int i = 0; i < gains.length; i++) {
+                parkingLotList.get(i).printParkingLotGain(date, gains[i]);
+            }
+        } finally {
+            metrics.recordReport(System.nanoTime() - startTime);
         }
     }
 
@@ -319,12 +970,92 @@ public class ParkingChain {
      * @param date Represents the date on which the gain is computed.
      */
     public void printGain(String parkingLotName, String date) {
-        int parkingLotIdx = getParkingLotIndex(parkingLotName);
+        ParkingLot parkingLot = getParkingLot(parkingLotName);
 
-        if (parkingLotIdx == -1) {
+        if (parkingLot == null) {
             System.out.println("Parking lot '" + parkingLotName + "' does not exist!");
         } else {
-            printGainForParkingLot(parkingLotList.get(parkingLotIdx), date);
+            printGainForParkingLot(parkingLot, date);
+        }
+    }
+
+    /**
+     * This method computes the gain of all parking lots in the parking chain in a day.
+     * @param epochDay Represents the day on which the gain is computed, as the number of days since 1970-01-01.
+     * @return The total gain of the parking chain.
+     */
+    public double getGain(long epochDay) {
+        long startTime = System.nanoTime();
+        try {
+            double total = 0;
+
+            for (ParkingLot parkingLot : parkingLotList) {
+                total += parkingLot.getGain(epochDay);
+            }
+
+            return total;
+        } finally {
+            metrics.recordReport(System.nanoTime() - startTime);
+        }
+    }
+
+    /**
+     * This method computes the gain of all parking lots in the parking chain in an interval of days.
+     * @param from Represents the first day.
+     * @param to Represents the last day (included).
+     * @return The total gain of the parking chain between the two days.
+     */
+    public double getGain(LocalDate from, LocalDate to) {
+        long startTime = System.nanoTime();
+        try {
+            double total = 0;
+
+            for (ParkingLot parkingLot : parkingLotList) {
+                total += parkingLot.getGain(from.toEpochDay(), to.toEpochDay());
+            }
+
+            return total;
+        } finally {
+            metrics.recordReport(System.nanoTime() - startTime);
+        }
+    }
+
+    /**
+     * This method computes the revenue of each parking lot for each day of an interval and each type of vehicle,
+     * without walking the parking intervals once for each day.
+     * @param from Represents the first day.
+     * @param to Represents the last day (included).
+     * @return The report with the revenue of each day, parking lot and type of vehicle.
+     */
+    public RevenueReport getRevenueReport(LocalDate from, LocalDate to) {
+        long startTime = System.nanoTime();
+        try {
+            return new RevenueReport(this, from.toEpochDay(), to.toEpochDay());
+        } finally {
+            metrics.recordReport(System.nanoTime() - startTime);
+        }
+    }
+
+    /**
+     * This method computes the gain of one parking lot of the parking chain in an interval of days.
+     * @param parkingLotName The name of the parking lot for which we compute the gain.
+     * @param from Represents the first day.
+     * @param to Represents the last day (included).
+     * @return The total gain of the parking lot between the two days.
+     * @throws InvalidParkingLotNameException It is thrown when there is no parking lot with the name passed as parameter.
+     */
+    public double getGain(String parkingLotName, LocalDate from, LocalDate to) throws InvalidParkingLotNameException {
+        long startTime = System.nanoTime();
+        try {
+            ParkingLot parkingLot = getParkingLot(parkingLotName);
+
+            if (parkingLot == null) {
+                throw new InvalidParkingLotNameException("Parking lot '" + parkingLotName + "' does not exist!");
+            }
+
+            return parkingLot.getGain(from, to);
+        } finally {
+            metrics.recordReport(System.nanoTime() - startTime);
         }
     }
 
@@ -335,12 +1066,17 @@ public class ParkingChain {
      * @param date Represents the date on which the gain is computed.
      */
     private void printGainForParkingLot(ParkingLot parkingLot, String date) {
-        if (parkingLot != null) {
-            parkingLot.printParkingLotGain(date);
-        } else {
-            for (ParkingLot pl : parkingLotList) {
-                pl.printParkingLotGain(date);
+        long startTime = System.nanoTime();
+        try {
+            if (parkingLot != null) {
+                parkingLot.printParkingLotGain(date);
+            } else {
+                for (ParkingLot pl : parkingLotList) {
+                    pl.printParkingLotGain(date);
+                }
             }
+        } finally {
+            metrics.recordReport(System.nanoTime() - startTime);
         }
     }
 
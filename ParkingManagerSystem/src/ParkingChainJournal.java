@@ -0,0 +1,941 @@
+package uvt;
+
+import uvt.Exceptions.*;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * The objects of this class keep an append-only journal of the changes made to a parking chain, so the parking
+ * chain is restored after a crash by loading its last snapshot and replaying the journal.
+ * Each added parking lot, area and vehicle is appended as one line, so the cost of an event does not depend on
+ * the size of the parking chain. The lines are synchronized with the disk in groups: after a number of events
+ * and, in the background, after some milliseconds. An event is appended while the area of the change is locked,
+ * so the journal keeps the order of its admissions, but the journal is synchronized with the disk only after the
+ * area is unlocked, by one thread for all the events appended until then. When the journal becomes too big, a
+ * background compaction writes a new snapshot and starts a new journal.
+ * The journal lines name the parking lot and the area of each event:
+ * <ul>
+ *     <li>parkingLot,name,noOfEntries</li>
+ *     <li>area,parkingLot,name,motorcycle,car,van,bus,truck</li>
+ *     <li>vehicle,parkingLot,area,type,licensePlate,subscription,entry,exit,discount</li>
+ * </ul>
+ * The events are numbered in the order in which they are appended. Each time the journal is opened, it gets a
+ * sequence,number line with the number of the next event, and each compaction writes the number of the last event
+ * that it includes in the snapshot. The replay applies only the events after that number, so a crash during a
+ * compaction does not add the events twice, while two equal admissions are both kept. A vehicle event keeps the
+ * discount that was given to the parking, so the replay gives the same discounts.
+ */
+public class ParkingChainJournal implements Closeable {
+    /**
+     * Represents the default number of events after which the journal is synchronized with the disk.
+     */
+    public static final int DEFAULT_GROUP_COMMIT_EVENTS = 64;
+    /**
+     * Represents the default number of milliseconds after which the events are synchronized with the disk.
+     */
+    public static final long DEFAULT_GROUP_COMMIT_MILLIS = 50;
+    /**
+     * Represents the default size of the journal after which it is compacted, in bytes.
+     */
+    public static final long DEFAULT_COMPACTION_BYTES = 64L << 20;
+    /**
+     * Represents the suffix of the journal that is being folded into a new snapshot.
+     */
+    private static final String COMPACTING_SUFFIX = ".compacting";
+    /**
+     * Represents the initial size of the buffer in which the events are encoded.
+     */
+    private static final int BUFFER_SIZE = 64 << 10;
+
+    /**
+     * Represents the parking chain whose changes are kept.
+     */
+    private final ParkingChain parkingChain;
+    /**
+     * Represents the path of the snapshot of the parking chain.
+     */
+    private final Path snapshotPath;
+    /**
+     * Represents the fact that the snapshot is a binary snapshot, so the compaction writes a binary snapshot too.
+     */
+    private final boolean binarySnapshot;
+    /**
+     * Represents the path of the journal.
+     */
+    private final Path path;
+    /**
+     * Represents the path of the journal while it is folded into a new snapshot.
+     */
+    private final Path compactingPath;
+    /**
+     * Represents the number of events after which the journal is synchronized with the disk.
+     */
+    private final int groupCommitEvents;
+    /**
+     * Represents the size of the journal after which it is compacted, in bytes.
+     */
+    private final long compactionBytes;
+    /**
+     * Represents the lock that keeps the parking chain unchanged while the snapshot is written. The changes take
+     * the read lock and the compaction takes the write lock.
+     */
+    private final ReadWriteLock snapshotLock = new ReentrantReadWriteLock();
+    /**
+     * Represents the lock held while the journal is synchronized with the disk, so only one thread synchronizes it
+     * and the other ones find their events already synchronized. It is taken before the lock of the object.
+     */
+    private final ReentrantLock syncLock = new ReentrantLock();
+    /**
+     * Represents the lock that allows only one compaction at a time.
+     */
+    private final ReentrantLock compactionLock = new ReentrantLock();
+    /**
+     * Represents the fact that a background compaction was started and did not finish yet.
+     */
+    private final AtomicBoolean compactionScheduled = new AtomicBoolean();
+    /**
+     * Represents the thread that synchronizes the journal periodically and compacts it.
+     */
+    private final ScheduledExecutorService scheduler;
+    /**
+     * Represents the channel of the journal.
+     */
+    private FileChannel channel;
+    /**
+     * Represents the buffer in which the events are encoded.
+     */
+    private ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+    /**
+     * Represents the array of the buffer.
+     */
+    private byte[] out = buffer.array();
+    /**
+     * Represents the position in out at which the next byte is written.
+     */
+    private int position;
+    /**
+     * Represents the number of events that were not synchronized with the disk.
+     */
+    private int pendingEvents;
+    /**
+     * Represents the size of the journal written in the file, without the events from the buffer, in bytes.
+     */
+    private volatile long size;
+    /**
+     * Represents the number of events appended to the journal.
+     */
+    private long events;
+    /**
+     * Represents the sequence number of the last event appended to the journal.
+     */
+    private long sequence;
+    /**
+     * Represents the sequence number of the last event that filled a group and must be synchronized with the disk
+     * when its change ends.
+     */
+    private volatile long syncSequence;
+    /**
+     * Represents the sequence number of the last event synchronized with the disk.
+     */
+    private volatile long durableSequence;
+    /**
+     * Represents the number of times the journal was synchronized with the disk.
+     */
+    private volatile long syncs;
+
+    /**
+     * This is the constructor for class ParkingChainJournal. It opens the journal for appending, removing an
+     * incomplete last line left by a crash.
+     * @param parkingChain Represents the parking chain whose changes are kept.
+     * @param snapshotPath Represents the path of the snapshot of the parking chain.
+     * @param binarySnapshot Represents the fact that the snapshot is a binary snapshot.
+     * @param path Represents the path of the journal.
+     * @param groupCommitEvents Represents the number of events after which the journal is synchronized with the disk.
+     * @param groupCommitMillis Represents the number of milliseconds after which the events are synchronized
+     * with the disk (0 for no periodic synchronization).
+     * @param compactionBytes Represents the size of the journal after which it is compacted (0 for no compaction).
+     * @param sequence Represents the sequence number of the last event of the snapshot and of the replayed journal.
+     * @throws IOException It is thrown when the journal can not be opened.
+     */
+    private ParkingChainJournal(ParkingChain parkingChain, Path snapshotPath, boolean binarySnapshot, Path path, int groupCommitEvents, long groupCommitMillis, long compactionBytes, long sequence) throws IOException {
+        this.parkingChain = parkingChain;
+        this.snapshotPath = snapshotPath;
+        this.binarySnapshot = binarySnapshot;
+        this.path = path;
+        this.compactingPath = path.resolveSibling(path.getFileName() + COMPACTING_SUFFIX);
+        this.groupCommitEvents = Math.max(1, groupCommitEvents);
+        this.compactionBytes = compactionBytes;
+        this.sequence = sequence;
+        this.durableSequence = sequence;
+
+        openChannel();
+
+        scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "parking-chain-journal");
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        if (groupCommitMillis > 0) {
+            scheduler.scheduleAtFixedRate(this::syncInBackground, groupCommitMillis, groupCommitMillis, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * This method restores a parking chain from its snapshot and its journal and then keeps its changes in the journal.
+     * The snapshot can be a parking chain file or a binary snapshot, which is mapped in memory so only the parking
+     * intervals needed by the replay are decoded. The compactions keep its format.
+     * @param parkingChain Represents the parking chain, which should be empty if the snapshot exists. Otherwise it
+     *                     can contain the parking chain from which the journal started.
+     * @param snapshotPath Represents the path of the snapshot. It is not required to exist.
+     * @param path Represents the path of the journal. It is not required to exist.
+     * @param groupCommitEvents Represents the number of events after which the journal is synchronized with the disk.
+     * @param groupCommitMillis Represents the number of milliseconds after which the events are synchronized with the disk.
+     * @param compactionBytes Represents the size of the journal after which it is compacted.
+     * @return The report of the loading, which contains the lines of the snapshot and of the journal that could
+     * not be loaded.
+     * @throws IOException It is thrown when the snapshot or the journal can not be read.
+     */
+    static LoadReport open(ParkingChain parkingChain, Path snapshotPath, Path path, int groupCommitEvents, long groupCommitMillis, long compactionBytes) throws IOException {
+        long startTime = System.nanoTime();
+        snapshotPath = snapshotPath.toAbsolutePath();
+        path = path.toAbsolutePath();
+        Path compactingPath = path.resolveSibling(path.getFileName() + COMPACTING_SUFFIX);
+
+        LoadReport report = new LoadReport();
+        long lines = 0;
+        long bytes = 0;
+
+        boolean binarySnapshot = Files.exists(snapshotPath) && BinarySnapshotLoader.isBinarySnapshot(snapshotPath);
+        long snapshotSequence = 0;
+
+        if (Files.exists(snapshotPath)) {
+            LoadReport snapshotReport;
+
+            if (binarySnapshot) {
+                BinarySnapshotLoader loader = new BinarySnapshotLoader(parkingChain);
+                snapshotReport = loader.loadMapped(snapshotPath);
+                snapshotSequence = loader.getJournalSequence();
+            } else {
+                ParkingChainLoader loader = new ParkingChainLoader(parkingChain);
+                snapshotReport = loader.load(snapshotPath);
+                snapshotSequence = loader.getJournalSequence();
+            }
+
+            report.addErrors(snapshotReport);
+            lines += snapshotReport.getLines();
+            bytes += snapshotReport.getBytes();
+        }
+
+        Replay replay = new Replay(parkingChain, snapshotSequence);
+        for (Path journalPath : new Path[] {compactingPath, path}) {
+            if (Files.exists(journalPath)) {
+                lines += replay.apply(journalPath, report);
+                bytes += Files.size(journalPath);
+            }
+        }
+
+        report.finish(lines, bytes, System.nanoTime() - startTime);
+
+        ParkingChainJournal journal = new ParkingChainJournal(parkingChain, snapshotPath, binarySnapshot, path, groupCommitEvents, groupCommitMillis, compactionBytes, replay.lastSequence);
+        parkingChain.attachJournal(journal);
+
+        if (Files.exists(compactingPath)) {
+            journal.compact();
+        }
+
+        return report;
+    }
+
+    /**
+     * This method checks the number of fields of a journal line.
+     * @param fields Represents the fields of the line.
+     * @param count Represents the expected number of fields.
+     * @throws InvalidLineLengthException It is thrown when the line has a different number of fields.
+     */
+    private static void checkFieldCount(String[] fields, int count) throws InvalidLineLengthException {
+        if (fields.length != count) {
+            throw new InvalidLineLengthException("The " + fields[0] + " event has " + fields.length + " fields instead of " + count + ".");
+        }
+    }
+
+    /**
+     * This method searches a parking lot of the parking chain.
+     * @param parkingChain Represents the parking chain.
+     * @param name Represents the name of the parking lot.
+     * @return The parking lot with the given name.
+     * @throws InvalidParkingLotNameException It is thrown when there is no parking lot with the given name.
+     */
+    private static ParkingLot findParkingLot(ParkingChain parkingChain, String name) throws InvalidParkingLotNameException {
+        ParkingLot parkingLot = parkingChain.getParkingLot(name);
+
+        if (parkingLot == null) {
+            throw new InvalidParkingLotNameException("Parking lot '" + name + "' does not exist!");
+        }
+
+        return parkingLot;
+    }
+
+    /**
+     * This method reads an integer from a field of a journal line.
+     * @param value Represents the field.
+     * @return The integer from the field.
+     * @throws InvalidFieldException It is thrown when the field is not a valid integer.
+     */
+    private static int parseInt(String value) throws InvalidFieldException {
+        try {
+            return Integer.parseInt(value);
+        } catch (NumberFormatException e) {
+            throw new InvalidFieldException("'" + value + "' is not a valid number.");
+        }
+    }
+
+    /**
+     * This method reads a long integer from a field of a journal line.
+     * @param value Represents the field.
+     * @return The long integer from the field.
+     * @throws InvalidFieldException It is thrown when the field is not a valid long integer.
+     */
+    private static long parseLong(String value) throws InvalidFieldException {
+        try {
+            return Long.parseLong(value);
+        } catch (NumberFormatException e) {
+            throw new InvalidFieldException("'" + value + "' is not a valid number.");
+        }
+    }
+
+    /**
+     * This method reads the discount of a parking interval from a field of a journal line.
+     * @param value Represents the field.
+     * @return True if the parking interval has the discount, false otherwise.
+     * @throws InvalidFieldException It is thrown when the field is neither true nor false.
+     */
+    private static boolean parseDiscount(String value) throws InvalidFieldException {
+        if (!value.equals("true") && !value.equals("false")) {
+            throw new InvalidFieldException("'" + value + "' is not a valid discount.");
+        }
+
+        return value.equals("true");
+    }
+
+    /**
+     * This method reads a date written with the pattern from Main.formatterPattern from a field of a journal line.
+     * @param value Represents the field.
+     * @return The date from the field.
+     * @throws InvalidFieldException It is thrown when the field is not a valid date.
+     */
+    private static LocalDateTime parseDateTime(String value) throws InvalidFieldException {
+        try {
+            return LocalDateTime.parse(value, Main.formatter);
+        } catch (DateTimeParseException e) {
+            throw new InvalidFieldException("'" + value + "' is not a valid date.");
+        }
+    }
+
+    /**
+     * This method opens the channel of the journal and positions it after the last complete line. Then it appends
+     * the sequence number of the next event, so the events that follow are numbered from it.
+     * @throws IOException It is thrown when the journal can not be opened.
+     */
+    private void openChannel() throws IOException {
+        channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        long end = channel.size();
+
+        if (end > 0) {
+            ByteBuffer last = ByteBuffer.allocate(1);
+            while (end > 0) {
+                last.clear();
+                channel.read(last, end - 1);
+                if (last.get(0) == '\n') {
+                    break;
+                }
+                end--;
+            }
+
+            if (end < channel.size()) {
+                channel.truncate(end);
+            }
+        }
+
+        channel.position(end);
+        size = end;
+        ParkingChainWriter.syncDirectory(path.getParent());
+
+        ensureRemaining(32);
+        put("sequence,");
+        put(Long.toString(sequence + 1));
+        put('\n');
+    }
+
+    /**
+     * This method is called by the parking chain before a change, so the change is not made while a snapshot is written.
+     */
+    void beginChange() {
+        snapshotLock.readLock().lock();
+    }
+
+    /**
+     * This method is called by the parking chain after a change, when the area of the change is no longer locked.
+     * If a group of events is full, it synchronizes the journal with the disk, unless another thread already did it.
+     * It starts a background compaction when the journal became too big.
+     */
+    void endChange() {
+        snapshotLock.readLock().unlock();
+
+        long target = syncSequence;
+        if (target > durableSequence) {
+            syncTo(target);
+        }
+
+        if (compactionBytes > 0 && size >= compactionBytes && compactionScheduled.compareAndSet(false, true)) {
+            scheduler.execute(() -> {
+                try {
+                    compact();
+                } catch (IOException | RuntimeException e) {
+                    e.printStackTrace();
+                } finally {
+                    compactionScheduled.set(false);
+                }
+            });
+        }
+    }
+
+    /**
+     * This method appends an added parking lot to the journal, together with its areas and vehicles.
+     * @param parkingLot Represents the parking lot that was added.
+     */
+    synchronized void logParkingLot(ParkingLot parkingLot) {
+        ensureRemaining(maxLength(parkingLot.getName(), "") + 24);
+        put("parkingLot,");
+        put(parkingLot.getName());
+        put(',');
+        put(Integer.toString(parkingLot.getNoOfEntries()));
+        endEvent();
+
+        for (Area area : parkingLot.getAreaList()) {
+            logArea(parkingLot, area);
+        }
+    }
+
+    /**
+     * This method appends an added area to the journal, together with its vehicles.
+     * @param parkingLot Represents the parking lot to which the area was added.
+     * @param area Represents the area that was added.
+     */
+    synchronized void logArea(ParkingLot parkingLot, Area area) {
+        ensureRemaining(maxLength(parkingLot.getName(), area.getName()) + 80);
+        put("area,");
+        put(parkingLot.getName());
+        put(',');
+        put(area.getName());
+
+        for (int value : area.getMaxCapacityValues()) {
+            put(',');
+            put(Integer.toString(value));
+        }
+        endEvent();
+
+        for (Map.Entry<String, Vehicle> entry : area.getVehiclePlatesMap().entrySet()) {
+            IntervalStore parkingIntervals = entry.getValue().getIntervals();
+
+            for (int i = 0; i < parkingIntervals.size(); i++) {
+                logVehicle(parkingLot, area, entry.getKey(), entry.getValue(), parkingIntervals.getEntry(i), parkingIntervals.getExit(i), parkingIntervals.hasDiscount(i));
+            }
+        }
+    }
+
+    /**
+     * This method appends an admitted vehicle to the journal.
+     * @param parkingLot Represents the parking lot that contains the area.
+     * @param area Represents the area in which the vehicle was admitted.
+     * @param licensePlate Represents the license plate of the vehicle.
+     * @param vehicle Represents the vehicle kept by the area for the license plate.
+     * @param entryMinute Represents the time when the vehicle entered the area, in epoch minutes.
+     * @param exitMinute Represents the time when the vehicle exits the area, in epoch minutes.
+     * @param discount Represents the discount given to the parking interval.
+     */
+    synchronized void logVehicle(ParkingLot parkingLot, Area area, String licensePlate, Vehicle vehicle, long entryMinute, long exitMinute, boolean discount) {
+        ensureRemaining(maxLength(parkingLot.getName(), area.getName()) + licensePlate.length() * 3 + 80);
+        put("vehicle,");
+        put(parkingLot.getName());
+        put(',');
+        put(area.getName());
+        put(',');
+        put(vehicle.getType().toString().toLowerCase());
+        put(',');
+        put(licensePlate);
+        put(',');
+
+        Subscription subscription = vehicle.getSubscription();
+        if (subscription == null) {
+            put("null");
+        } else {
+            position = ParkingChainWriter.encodeDateTime(subscription.getBoughtTime(), out, position);
+        }
+
+        put(',');
+        position = ParkingChainWriter.encodeMinutes(entryMinute, out, position);
+        put(',');
+        position = ParkingChainWriter.encodeMinutes(exitMinute, out, position);
+        put(discount ? ",true" : ",false");
+        endEvent();
+    }
+
+    /**
+     * This method computes the maximum number of bytes of two names encoded with UTF-8.
+     * @param first Represents the first name.
+     * @param second Represents the second name.
+     * @return The maximum number of bytes of the names.
+     */
+    private static int maxLength(String first, String second) {
+        return (first.length() + second.length()) * 3;
+    }
+
+    /**
+     * This method makes sure that the buffer has enough free bytes for an event, writing the buffered events in the
+     * journal or making the buffer bigger if it does not.
+     * @param length Represents the maximum number of bytes of the event.
+     */
+    private void ensureRemaining(int length) {
+        if (out.length - position >= length) {
+            return;
+        }
+
+        writeBuffer();
+
+        if (out.length < length) {
+            buffer = ByteBuffer.allocate(length);
+            out = buffer.array();
+        }
+    }
+
+    /**
+     * This method writes a String in the buffer. The buffer must have enough free bytes.
+     * @param value Represents the String that is written.
+     */
+    private void put(String value) {
+        position = ParkingChainWriter.encodeString(value, out, position);
+    }
+
+    /**
+     * This method writes an ASCII character in the buffer. The buffer must have a free byte.
+     * @param value Represents the character that is written.
+     */
+    private void put(char value) {
+        out[position++] = (byte) value;
+    }
+
+    /**
+     * This method ends the current event. When enough events are pending, the journal is synchronized with the
+     * disk by endChange(), after the area of the change is unlocked.
+     */
+    private void endEvent() {
+        out[position++] = '\n';
+        events++;
+        sequence++;
+        pendingEvents++;
+
+        if (pendingEvents >= groupCommitEvents) {
+            syncSequence = sequence;
+        }
+    }
+
+    /**
+     * This method writes the buffered events in the journal.
+     */
+    private void writeBuffer() {
+        buffer.clear();
+        buffer.limit(position);
+
+        try {
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+
+        size += position;
+        position = 0;
+    }
+
+    /**
+     * This method writes the buffered events in the journal and synchronizes it with the disk. After it returns,
+     * all the events that were appended are kept after a crash. The events are only written while holding the
+     * lock of the object, so the events can be appended while the journal is synchronized.
+     */
+    public void sync() {
+        syncLock.lock();
+        try {
+            long lastSequence;
+
+            synchronized (this) {
+                if (pendingEvents == 0 && position == 0) {
+                    return;
+                }
+
+                writeBuffer();
+                lastSequence = sequence;
+                pendingEvents = 0;
+            }
+
+            try {
+                channel.force(false);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+
+            durableSequence = lastSequence;
+            syncs++;
+        } finally {
+            syncLock.unlock();
+        }
+    }
+
+    /**
+     * This method synchronizes the journal with the disk if an event was not synchronized yet. The threads that
+     * wait for the thread that synchronizes the journal find their events synchronized and return, so one
+     * synchronization is done for the whole group.
+     * @param target Represents the sequence number of the event that must be synchronized.
+     */
+    private void syncTo(long target) {
+        syncLock.lock();
+        try {
+            if (durableSequence < target) {
+                sync();
+            }
+        } finally {
+            syncLock.unlock();
+        }
+    }
+
+    /**
+     * This method is called periodically to synchronize the events that did not fill a group.
+     */
+    private void syncInBackground() {
+        try {
+            sync();
+        } catch (RuntimeException e) {
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * This method folds the journal into a new snapshot. The journal is renamed and a new one is started while the
+     * parking chain is not changed and the snapshot is written in a temporary file, together with the sequence
+     * number of the last event that it includes. Then, while the parking chain can be changed again, the snapshot
+     * replaces the old one and the renamed journal is deleted.
+     * @return The report of the snapshot.
+     * @throws IOException It is thrown when the snapshot or the journal can not be written.
+     */
+    public SaveReport compact() throws IOException {
+        compactionLock.lock();
+        try {
+            long startTime = System.nanoTime();
+            ParkingChainWriter writer = new ParkingChainWriter(parkingChain);
+            BinarySnapshotWriter binaryWriter = new BinarySnapshotWriter(parkingChain);
+            Path temporary;
+
+            snapshotLock.writeLock().lock();
+            try {
+                rotate();
+                writer.setJournalSequence(sequence);
+                binaryWriter.setJournalSequence(sequence);
+                temporary = binarySnapshot ? binaryWriter.writeTemporary(snapshotPath) : writer.writeTemporary(snapshotPath);
+            } finally {
+                snapshotLock.writeLock().unlock();
+            }
+
+            try {
+                ParkingChainWriter.commit(temporary, snapshotPath);
+            } finally {
+                Files.deleteIfExists(temporary);
+            }
+
+            Files.deleteIfExists(compactingPath);
+            ParkingChainWriter.syncDirectory(path.getParent());
+
+            long elapsedNanos = System.nanoTime() - startTime;
+
+            SaveReport report = binarySnapshot ? binaryWriter.getReport(elapsedNanos) : writer.getReport(elapsedNanos);
+            parkingChain.getMetrics().recordSave(report);
+
+            return report;
+        } finally {
+            compactionLock.unlock();
+        }
+    }
+
+    /**
+     * This method renames the journal, so its events are kept until the new snapshot is written, and starts a new one.
+     * If the renamed journal of a compaction that did not finish still exists, the events of the journal are
+     * appended to it instead, so they are not lost.
+     * @throws IOException It is thrown when the journal can not be renamed.
+     */
+    private void rotate() throws IOException {
+        syncLock.lock();
+        try {
+            synchronized (this) {
+                sync();
+                channel.close();
+
+                if (Files.exists(compactingPath)) {
+                    try (FileChannel compacting = FileChannel.open(compactingPath, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+                         FileChannel journal = FileChannel.open(path, StandardOpenOption.READ)) {
+                        journal.transferTo(0, journal.size(), compacting);
+                        compacting.force(false);
+                    }
+                    Files.delete(path);
+                } else {
+                    Files.move(path, compactingPath, StandardCopyOption.ATOMIC_MOVE);
+                }
+
+                openChannel();
+            }
+        } finally {
+            syncLock.unlock();
+        }
+    }
+
+    /**
+     * This method returns the size of the journal.
+     * @return The number of bytes of the journal, including the events that were not written yet.
+     */
+    public synchronized long getSize() {
+        return size + position;
+    }
+
+    /**
+     * This is the getter for events.
+     * @return The number of events appended to the journal.
+     */
+    public synchronized long getEvents() {
+        return events;
+    }
+
+    /**
+     * This is the getter for syncs.
+     * @return The number of times the journal was synchronized with the disk.
+     */
+    public long getSyncs() {
+        return syncs;
+    }
+
+    /**
+     * This method synchronizes the pending events with the disk and closes the journal. The parking chain stops
+     * keeping its changes.
+     * @throws IOException It is thrown when the journal can not be closed.
+     */
+    @Override
+    public void close() throws IOException {
+        scheduler.shutdown();
+        try {
+            scheduler.awaitTermination(1, TimeUnit.MINUTES);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+
+        parkingChain.detachJournal(this);
+
+        syncLock.lock();
+        try {
+            synchronized (this) {
+                try {
+                    sync();
+                } catch (UncheckedIOException e) {
+                    throw e.getCause();
+                } finally {
+                    channel.close();
+                }
+            }
+        } finally {
+            syncLock.unlock();
+        }
+    }
+
+    /**
+     * The objects of this class apply the events of the journals to a parking chain after its snapshot was loaded,
+     * skipping the events that the snapshot already includes.
+     */
+    private static final class Replay {
+        /**
+         * Represents the parking chain.
+         */
+        private final ParkingChain parkingChain;
+        /**
+         * Represents the sequence number of the last event included in the snapshot, or 0 if it has none.
+         */
+        private final long snapshotSequence;
+        /**
+         * Represents the sequence number of the next event of the journal that is replayed, or 0 if the events
+         * were appended before the journal numbered them.
+         */
+        private long nextSequence;
+        /**
+         * Represents the sequence number of the last event of the snapshot and of the replayed journals.
+         */
+        private long lastSequence;
+
+        /**
+         * This is the constructor for class Replay.
+         * @param parkingChain Represents the parking chain, in which the snapshot was loaded.
+         * @param snapshotSequence Represents the sequence number of the last event included in the snapshot.
+         */
+        private Replay(ParkingChain parkingChain, long snapshotSequence) {
+            this.parkingChain = parkingChain;
+            this.snapshotSequence = snapshotSequence;
+            this.lastSequence = snapshotSequence;
+        }
+
+        /**
+         * This method applies the events of a journal to the parking chain. The incomplete last line left by a
+         * crash is ignored and the events that are already in the snapshot are skipped. The events that were
+         * appended before the journal numbered them are applied only if the snapshot was not written by a
+         * compaction, which would include them.
+         * @param journalPath Represents the path of the journal.
+         * @param report Represents the report in which the lines that could not be applied are added.
+         * @return The number of complete lines of the journal.
+         * @throws IOException It is thrown when the journal can not be read.
+         */
+        private long apply(Path journalPath, LoadReport report) throws IOException {
+            byte[] data = Files.readAllBytes(journalPath);
+            long lineNumber = 0;
+            int lineStart = 0;
+            nextSequence = 0;
+
+            for (int i = 0; i < data.length; i++) {
+                if (data[i] != '\n') {
+                    continue;
+                }
+
+                lineNumber++;
+                String line = new String(data, lineStart, i - lineStart, StandardCharsets.UTF_8);
+                lineStart = i + 1;
+
+                if (line.isEmpty()) {
+                    continue;
+                }
+
+                try {
+                    String[] fields = line.split(",", -1);
+
+                    if (fields[0].equals("sequence")) {
+                        checkFieldCount(fields, 2);
+                        nextSequence = parseLong(fields[1]);
+                    } else if (isNewEvent()) {
+                        applyLine(fields);
+                    }
+                } catch (InvalidLineLengthException | InvalidFieldException | InvalidVehicleTypeException | InvalidParkingLotNameException |
+                         InvalidAreaNameException | MaximumCapacityReachedException | InvalidParkingIntervalException e) {
+                    report.addError(lineNumber, journalPath.getFileName() + ": " + e.getMessage());
+                }
+            }
+
+            return lineNumber;
+        }
+
+        /**
+         * This method gives the next event of the journal its sequence number and checks if the snapshot does not
+         * include it.
+         * @return True if the event has to be applied, false otherwise.
+         */
+        private boolean isNewEvent() {
+            if (nextSequence == 0) {
+                return snapshotSequence == 0;
+            }
+
+            long eventSequence = nextSequence++;
+            lastSequence = Math.max(lastSequence, eventSequence);
+
+            return eventSequence > snapshotSequence;
+        }
+
+        /**
+         * This method applies one event of a journal to the parking chain.
+         * @param fields Represents the fields of the journal line.
+         * @throws InvalidLineLengthException It is thrown when the line has a wrong number of fields.
+         * @throws InvalidFieldException It is thrown when a number, a date or a discount is not valid or the line
+         * type is unknown.
+         * @throws InvalidVehicleTypeException It is thrown when the vehicle type is not a valid one.
+         * @throws InvalidParkingLotNameException It is thrown when the parking lot of the event does not exist.
+         * @throws InvalidAreaNameException It is thrown when the area of the event does not exist.
+         * @throws MaximumCapacityReachedException It is thrown when the maximum capacity of the area is reached.
+         * @throws InvalidParkingIntervalException It is thrown when the exit is before the entry.
+         */
+        private void applyLine(String[] fields) throws InvalidLineLengthException, InvalidFieldException, InvalidVehicleTypeException,
+                InvalidParkingLotNameException, InvalidAreaNameException, MaximumCapacityReachedException, InvalidParkingIntervalException {
+            switch (fields[0]) {
+                case "parkingLot":
+                    checkFieldCount(fields, 3);
+
+                    if (parkingChain.getParkingLot(fields[1]) == null) {
+                        parkingChain.addParkingLot(new ParkingLot(fields[1], parseInt(fields[2])));
+                    }
+                    break;
+                case "area":
+                    checkFieldCount(fields, 8);
+                    ParkingLot parkingLot = findParkingLot(parkingChain, fields[1]);
+
+                    if (parkingLot.getArea(fields[2]) == null) {
+                        int[] maxCapacity = new int[5];
+                        for (int i = 0; i < maxCapacity.length; i++) {
+                            maxCapacity[i] = parseInt(fields[i + 3]);
+                        }
+
+                        Area area = new Area(fields[2]);
+                        area.setMaxCapacity(maxCapacity);
+                        parkingChain.addArea(parkingLot, area);
+                    }
+                    break;
+                case "vehicle":
+                    if (fields.length != 8) {
+                        checkFieldCount(fields, 9);
+                    }
+                    ParkingLot vehicleParkingLot = findParkingLot(parkingChain, fields[1]);
+                    Area vehicleArea = vehicleParkingLot.getArea(fields[2]);
+
+                    if (vehicleArea == null) {
+                        throw new InvalidAreaNameException("Area '" + fields[2] + "' does not exist!");
+                    }
+
+                    String licensePlate = fields[4];
+                    LocalDateTime entry = parseDateTime(fields[6]);
+                    LocalDateTime exit = parseDateTime(fields[7]);
+                    Boolean discount = fields.length == 9 ? parseDiscount(fields[8]) : null;
+                    Vehicle vehicle = vehicleArea.getVehiclePlatesMap().get(licensePlate);
+
+                    if (vehicle == null) {
+                        vehicle = Vehicle.getVehicleObject(Vehicle.getVehicleType(fields[3]));
+
+                        if (!fields[5].equals("null")) {
+                            vehicle.setSubscription(new Subscription(parseDateTime(fields[5])));
+                        }
+                    }
+
+                    parkingChain.addVehicle(vehicleParkingLot, vehicleArea, licensePlate, vehicle, entry, exit, discount);
+                    break;
+                default:
+                    throw new InvalidFieldException("Unknown journal event '" + fields[0] + "'.");
+            }
+        }
+    }
+}
@@ -0,0 +1,532 @@
+package uvt;
+
+import uvt.Exceptions.*;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+
+/**
+ * The objects of this class load a parking chain from a file with parkingLot, area and vehicle lines. A snapshot
+ * of a journal also has a sequence line with the sequence number of the last journal event that it includes.
+ * The file is read through a FileChannel in large blocks and each line is split on commas in place, without
+ * regular expressions and without creating a String for each field. A line that can not be loaded is recorded
+ * in the LoadReport together with its number and the loading goes on with the next line.
+ */
+public class ParkingChainLoader {
+    /**
+     * Represents the initial size of the buffer in which the file is read.
+     */
+    private static final int BUFFER_SIZE = 1 << 20;
+    /**
+     * Represents the maximum number of fields whose position is kept for a line.
+     */
+    private static final int MAX_FIELDS = 8;
+    /**
+     * Represents the length of a date written with the pattern from Main.formatterPattern.
+     */
+    private static final int DATE_TIME_LENGTH = 16;
+
+    /**
+     * Represents the first field of the lines that contain a parking lot.
+     */
+    private static final byte[] PARKING_LOT = "parkingLot".getBytes(StandardCharsets.US_ASCII);
+    /**
+     * Represents the first field of the lines that contain an area.
+     */
+    private static final byte[] AREA = "area".getBytes(StandardCharsets.US_ASCII);
+    /**
+     * Represents the first field of the lines that contain a vehicle.
+     */
+    private static final byte[] VEHICLE = "vehicle".getBytes(StandardCharsets.US_ASCII);
+    /**
+     * Represents the first field of the line that contains the sequence number of the last journal event included
+     * in a snapshot.
+     */
+    private static final byte[] SEQUENCE = "sequence".getBytes(StandardCharsets.US_ASCII);
+    /**
+     * Represents the discount field of the vehicle lines for a parking interval with the discount.
+     */
+    private static final byte[] TRUE = "true".getBytes(StandardCharsets.US_ASCII);
+    /**
+     * Represents the discount field of the vehicle lines for a parking interval without the discount.
+     */
+    private static final byte[] FALSE = "false".getBytes(StandardCharsets.US_ASCII);
+
+    /**
+     * Represents the vehicle types, in the same order as their names from VEHICLE_TYPE_NAMES.
+     */
+    private static final VehicleType[] VEHICLE_TYPES = VehicleType.values();
+    /**
+     * Represents the names of the vehicle types as they are written in the file.
+     */
+    private static final byte[][] VEHICLE_TYPE_NAMES = new byte[VEHICLE_TYPES.length][];
+
+    static {
+        for (int i = 0; i < VEHICLE_TYPES.length; i++) {
+            VEHICLE_TYPE_NAMES[i] = VEHICLE_TYPES[i].toString().toLowerCase().getBytes(StandardCharsets.US_ASCII);
+        }
+    }
+
+    /**
+     * Represents the parking chain in which the data is loaded.
+     */
+    private final ParkingChain parkingChain;
+    /**
+     * Represents the position of the first byte of each field of the current line.
+     */
+    private final int[] fieldStart = new int[MAX_FIELDS];
+    /**
+     * Represents the position after the last byte of each field of the current line.
+     */
+    private final int[] fieldEnd = new int[MAX_FIELDS];
+    /**
+     * Represents the number of fields of the current line.
+     */
+    private int fieldCount;
+    /**
+     * Represents the bytes that contain the current line.
+     */
+    private byte[] data;
+    /**
+     * Represents the parking lot of the section that is loaded (null if its line could not be loaded).
+     */
+    private ParkingLot currentParkingLot;
+    /**
+     * Represents the area whose vehicles are loaded (null if its line could not be loaded).
+     */
+    private Area currentArea;
+    /**
+     * Represents the sequence number of the last journal event included in the loaded file, or 0 if the file is
+     * not the snapshot of a journal.
+     */
+    private long journalSequence;
+
+    /**
+     * This is the constructor for class ParkingChainLoader.
+     * @param parkingChain Represents the parking chain in which the data is loaded.
+     */
+    public ParkingChainLoader(ParkingChain parkingChain) {
+        this.parkingChain = parkingChain;
+    }
+
+    /**
+     * This is the getter for journalSequence.
+     * @return The sequence number of the last journal event included in the loaded file, or 0 if it has none.
+     */
+    long getJournalSequence() {
+        return journalSequence;
+    }
+
+    /**
+     * This method loads the parking lots, areas and vehicles from a file. The file is read in blocks and every
+     * complete line of a block is processed before the next block is read.
+     * @param path Represents the path to the file.
+     * @return The report that contains the throughput and the lines that could not be loaded.
+     * @throws IOException It is thrown when the file can not be read.
+     */
+    public LoadReport load(Path path) throws IOException {
+        LoadReport report = new LoadReport();
+        long startTime = System.nanoTime();
+        long lineNumber = 0;
+        long bytes = 0;
+
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+            int read;
+
+            while ((read = channel.read(buffer)) >= 0) {
+                bytes += read;
+                data = buffer.array();
+                int limit = buffer.position();
+                int lineStart = 0;
+
+                for (int i = 0; i < limit; i++) {
+                    if (data[i] == '\n') {
+                        processLine(lineStart, i, ++lineNumber, report);
+                        lineStart = i + 1;
+                    }
+                }
+
+                buffer = keepIncompleteLine(buffer, lineStart, limit);
+            }
+
+            if (buffer.position() > 0) {
+                data = buffer.array();
+                processLine(0, buffer.position(), ++lineNumber, report);
+            }
+        }
+
+        report.finish(lineNumber, bytes, System.nanoTime() - startTime);
+
+        return report;
+    }
+
+    /**
+     * This method loads the lines from a part of a file that was already read in memory.
+     * @param section Represents the bytes of the part of the file.
+     * @param firstLineNumber Represents the number of the first line of the part in the whole file.
+     * @param report Represents the report in which the errors are added.
+     * @return The number of lines of the part.
+     */
+    long load(byte[] section, long firstLineNumber, LoadReport report) {
+        data = section;
+        long lineNumber = firstLineNumber - 1;
+        int lineStart = 0;
+
+        for (int i = 0; i < section.length; i++) {
+            if (section[i] == '\n') {
+                processLine(lineStart, i, ++lineNumber, report);
+                lineStart = i + 1;
+            }
+        }
+
+        if (lineStart < section.length) {
+            processLine(lineStart, section.length, ++lineNumber, report);
+        }
+
+        return lineNumber - firstLineNumber + 1;
+    }
+
+    /**
+     * This method moves the incomplete line from the end of the buffer at its beginning, so the next block is read
+     * after it. If the line fills the whole buffer, a bigger buffer is used.
+     * @param buffer Represents the buffer in which the file is read.
+     * @param lineStart Represents the position at which the incomplete line starts.
+     * @param limit Represents the position after the last byte that was read.
+     * @return The buffer in which the next block will be read.
+     */
+    private static ByteBuffer keepIncompleteLine(ByteBuffer buffer, int lineStart, int limit) {
+        int remaining = limit - lineStart;
+
+        if (lineStart == 0 && remaining == buffer.capacity()) {
+            ByteBuffer bigger = ByteBuffer.allocate(buffer.capacity() * 2);
+            bigger.put(buffer.array(), 0, remaining);
+            return bigger;
+        }
+
+        System.arraycopy(buffer.array(), lineStart, buffer.array(), 0, remaining);
+        buffer.clear();
+        buffer.position(remaining);
+
+        return buffer;
+    }
+
+    /**
+     * This method splits a line in fields and loads it based on its first field. If the line can not be loaded,
+     * the error is added to the report.
+     * @param start Represents the position of the first byte of the line.
+     * @param end Represents the position after the last byte of the line.
+     * @param lineNumber Represents the number of the line.
+     * @param report Represents the report in which the errors are added.
+     */
+    private void processLine(int start, int end, long lineNumber, LoadReport report) {
+        if (end > start && data[end - 1] == '\r') {
+            end--;
+        }
+        if (end == start) {
+            return;
+        }
+
+        split(start, end);
+
+        try {
+            if (fieldEquals(0, PARKING_LOT)) {
+                addParkingLot();
+            } else if (fieldEquals(0, AREA)) {
+                addArea();
+            } else if (fieldEquals(0, VEHICLE)) {
+                addVehicle();
+            } else if (fieldEquals(0, SEQUENCE)) {
+                readJournalSequence();
+            } else {
+                throw new InvalidFieldException("The introduced field is not a valid one");
+            }
+        } catch (Exception e) {
+            report.addError(lineNumber, e.getMessage() != null ? e.getMessage() : e.toString());
+        }
+    }
+
+    /**
+     * This method finds the position of the fields of a line, which are separated by commas.
+     * @param start Represents the position of the first byte of the line.
+     * @param end Represents the position after the last byte of the line.
+     */
+    private void split(int start, int end) {
+        fieldCount = 0;
+        int fieldBegin = start;
+
+        for (int i = start; i <= end; i++) {
+            if (i == end || data[i] == ',') {
+                if (fieldCount < MAX_FIELDS) {
+                    fieldStart[fieldCount] = fieldBegin;
+                    fieldEnd[fieldCount] = i;
+                }
+                fieldCount++;
+                fieldBegin = i + 1;
+            }
+        }
+    }
+
+    /**
+     * This method checks if the current line has the number of fields expected for its type.
+     * @param rowFields Represents the expected number of fields.
+     * @throws InvalidLineLengthException It is thrown when the line has a different number of fields.
+     */
+    private void checkFieldCount(int rowFields) throws InvalidLineLengthException {
+        if (fieldCount != rowFields) {
+            throw new InvalidLineLengthException("Invalid number of fields (" + fieldCount + " instead of " + rowFields + ") for type " + field(0) + ".");
+        }
+    }
+
+    /**
+     * This method reads the sequence number of the last journal event included in the file from the current line.
+     * @throws InvalidLineLengthException It is thrown when the line has a wrong number of fields.
+     * @throws InvalidFieldException It is thrown when the sequence number is not a valid number.
+     */
+    private void readJournalSequence() throws InvalidLineLengthException, InvalidFieldException {
+        checkFieldCount(2);
+
+        try {
+            journalSequence = Long.parseLong(field(1));
+        } catch (NumberFormatException e) {
+            throw new InvalidFieldException("Invalid number: '" + field(1) + "'.");
+        }
+    }
+
+    /**
+     * This method creates a parking lot from the current line and adds it to the parking chain.
+     * @throws InvalidLineLengthException It is thrown when the line has a wrong number of fields.
+     * @throws InvalidFieldException It is thrown when the number of entries is not a valid number.
+     */
+    private void addParkingLot() throws InvalidLineLengthException, InvalidFieldException {
+        currentParkingLot = null;
+        currentArea = null;
+        checkFieldCount(3);
+
+        ParkingLot parkingLot = new ParkingLot(field(1), parseInt(2));
+        parkingChain.addParkingLot(parkingLot);
+        currentParkingLot = parkingLot;
+    }
+
+    /**
+     * This method creates an area from the current line and adds it to the current parking lot.
+     * @throws InvalidLineLengthException It is thrown when the line has a wrong number of fields.
+     * @throws InvalidFieldException It is thrown when a capacity is not a valid number or when there is no
+     * parking lot to which the area can be added.
+     */
+    private void addArea() throws InvalidLineLengthException, InvalidFieldException {
+        currentArea = null;
+        checkFieldCount(7);
+
+        if (currentParkingLot == null) {
+            throw new InvalidFieldException("The area does not belong to a valid parking lot.");
+        }
+
+        int[] maxCapacity = new int[5];
+        for (int i = 0; i < maxCapacity.length; i++) {
+            maxCapacity[i] = parseInt(i + 2);
+        }
+
+        Area area = new Area(field(1));
+        area.setMaxCapacity(maxCapacity);
+        parkingChain.addArea(currentParkingLot, area);
+        currentArea = area;
+    }
+
+    /**
+     * This method admits the vehicle from the current line in the current area. The vehicle and its subscription
+     * are created only if the vehicle was not already parked in the area. A line may end with the discount of the
+     * parking interval (true or false), as written by ParkingChainWriter; without it, each 10th parking entrance of
+     * the license plate gets the discount.
+     * @throws InvalidLineLengthException It is thrown when the line has a wrong number of fields.
+     * @throws InvalidFieldException It is thrown when a date or the discount is not valid or when there is no area
+     * to which the vehicle can be added.
+     * @throws InvalidVehicleTypeException It is thrown when the vehicle type is not a valid one.
+     * @throws MaximumCapacityReachedException It is thrown when the maximum capacity of the area is reached.
+     * @throws InvalidParkingIntervalException It is thrown when the exit is before the entry.
+     */
+    private void addVehicle() throws InvalidLineLengthException, InvalidFieldException, InvalidVehicleTypeException, MaximumCapacityReachedException, InvalidParkingIntervalException {
+        if (fieldCount != 7) {
+            checkFieldCount(6);
+        }
+
+        if (currentArea == null) {
+            throw new InvalidFieldException("The vehicle does not belong to a valid area.");
+        }
+
+        VehicleType type = parseVehicleType(1);
+        String licensePlate = field(2);
+        LocalDateTime entry = parseDateTime(4);
+        LocalDateTime exit = parseDateTime(5);
+        Boolean discount = null;
+
+        if (fieldCount == 7) {
+            if (fieldEquals(6, TRUE)) {
+                discount = true;
+            } else if (fieldEquals(6, FALSE)) {
+                discount = false;
+            } else {
+                throw new InvalidFieldException("Invalid discount: '" + field(6) + "'.");
+            }
+        }
+
+        Vehicle vehicle = currentArea.getVehiclePlatesMap().get(licensePlate);
+
+        if (vehicle == null) {
+            vehicle = Vehicle.getVehicleObject(type);
+
+            LocalDateTime boughtTime = parseOptionalDateTime(3);
+            if (boughtTime != null) {
+                vehicle.setSubscription(new Subscription(boughtTime));
+            }
+        }
+
+        parkingChain.addVehicle(currentParkingLot, currentArea, licensePlate, vehicle, entry, exit, discount);
+    }
+
+    /**
+     * This method checks if a field of the current line is equal to some bytes.
+     * @param field Represents the index of the field.
+     * @param value Represents the bytes to which the field is compared.
+     * @return True if the field contains exactly the bytes passed as parameter, false otherwise.
+     */
+    private boolean fieldEquals(int field, byte[] value) {
+        int start = fieldStart[field];
+
+        if (fieldEnd[field] - start != value.length) {
+            return false;
+        }
+
+        for (int i = 0; i < value.length; i++) {
+            if (data[start + i] != value[i]) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    /**
+     * This method creates a String from a field of the current line.
+     * @param field Represents the index of the field.
+     * @return The String value of the field.
+     */
+    private String field(int field) {
+        return new String(data, fieldStart[field], fieldEnd[field] - fieldStart[field], StandardCharsets.UTF_8);
+    }
+
+    /**
+     * This method reads a non-negative integer from a field of the current line.
+     * @param field Represents the index of the field.
+     * @return The value of the field.
+     * @throws InvalidFieldException It is thrown when the field is not a valid number.
+     */
+    private int parseInt(int field) throws InvalidFieldException {
+        int start = fieldStart[field];
+        int end = fieldEnd[field];
+
+        if (end == start || end - start > 9) {
+            throw new InvalidFieldException("Invalid number: '" + field(field) + "'.");
+        }
+
+        int value = 0;
+        for (int i = start; i < end; i++) {
+            int digit = data[i] - '0';
+
+            if (digit < 0 || digit > 9) {
+                throw new InvalidFieldException("Invalid number: '" + field(field) + "'.");
+            }
+            value = value * 10 + digit;
+        }
+
+        return value;
+    }
+
+    /**
+     * This method reads the vehicle type from a field of the current line.
+     * @param field Represents the index of the field.
+     * @return The type of the vehicle.
+     * @throws InvalidVehicleTypeException It is thrown when the field is not a valid vehicle type.
+     */
+    private VehicleType parseVehicleType(int field) throws InvalidVehicleTypeException {
+        for (int i = 0; i < VEHICLE_TYPE_NAMES.length; i++) {
+            if (fieldEquals(field, VEHICLE_TYPE_NAMES[i])) {
+                return VEHICLE_TYPES[i];
+            }
+        }
+
+        throw new InvalidVehicleTypeException("Unexpected value: '" + field(field) + "'.");
+    }
+
+    /**
+     * This method reads a date written with the pattern from Main.formatterPattern from a field of the current line.
+     * @param field Represents the index of the field.
+     * @return The LocalDateTime value of the field.
+     * @throws InvalidFieldException It is thrown when the field is not a valid date.
+     */
+    private LocalDateTime parseDateTime(int field) throws InvalidFieldException {
+        LocalDateTime dateTime = parseOptionalDateTime(field);
+
+        if (dateTime == null) {
+            throw new InvalidFieldException("Invalid date: '" + field(field) + "'.");
+        }
+
+        return dateTime;
+    }
+
+    /**
+     * This method reads a date written with the pattern from Main.formatterPattern from a field of the current line.
+     * @param field Represents the index of the field.
+     * @return The LocalDateTime value of the field or null if the field is not a valid date (for example "null").
+     */
+    private LocalDateTime parseOptionalDateTime(int field) {
+        int start = fieldStart[field];
+
+        if (fieldEnd[field] - start != DATE_TIME_LENGTH || data[start + 4] != '-' || data[start + 7] != '-'
+                || data[start + 10] != ' ' || data[start + 13] != ':') {
+            return null;
+        }
+
+        int year = digits(start, 4);
+        int month = digits(start + 5, 2);
+        int day = digits(start + 8, 2);
+        int hour = digits(start + 11, 2);
+        int minute = digits(start + 14, 2);
+
+        if ((year | month | day | hour | minute) < 0) {
+            return null;
+        }
+
+        try {
+            return LocalDateTime.of(year, month, day, hour, minute);
+        } catch (RuntimeException e) {
+            return null;
+        }
+    }
+
+    /**
+     * This method reads a fixed number of digits from the current line.
+     * @param start Represents the position of the first digit.
+     * @param length Represents the number of digits.
+     * @return The value of the digits or -1 if one of the bytes is not a digit.
+     */
+    private int digits(int start, int length) {
+        int value = 0;
+
+        for (int i = start; i < start + length; i++) {
+            int digit = data[i] - '0';
+
+            if (digit < 0 || digit > 9) {
+                return -1;
+            }
+            value = value * 10 + digit;
+        }
+
+        return value;
+    }
+}
@@ -0,0 +1,611 @@
+package uvt;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * The objects of this class save a parking chain in the format read by ParkingChainLoader.
+ * The lines are encoded directly into a large byte buffer that is written through a FileChannel. The data is
+ * written in a temporary file from the same directory, which is synchronized with the disk and then renamed
+ * over the target file, so a crash during the save never leaves a partially written file.
+ */
+public class ParkingChainWriter {
+    /**
+     * Represents the size of the buffer in which the lines are encoded.
+     */
+    private static final int BUFFER_SIZE = 1 << 20;
+    /**
+     * Represents the maximum number of bytes of a vehicle line, without the license plate.
+     */
+    private static final int MAX_VEHICLE_LINE = 72;
+
+    /**
+     * Represents the beginning of the parking lot lines.
+     */
+    private static final byte[] PARKING_LOT = "parkingLot,".getBytes(StandardCharsets.US_ASCII);
+    /**
+     * Represents the beginning of the area lines.
+     */
+    private static final byte[] AREA = "area,".getBytes(StandardCharsets.US_ASCII);
+    /**
+     * Represents the value written instead of the bought time of a vehicle without a subscription.
+     */
+    private static final byte[] NULL = "null".getBytes(StandardCharsets.US_ASCII);
+    /**
+     * Represents the beginning of the line with the sequence number of the last journal event included in a snapshot.
+     */
+    private static final byte[] SEQUENCE = "sequence,".getBytes(StandardCharsets.US_ASCII);
+    /**
+     * Represents the end of the vehicle lines whose parking interval does not get the discount that the 10th
+     * parking entrance rule would give it when the file is loaded, indexed by its discount (0 without the discount,
+     * 1 with it). The other vehicle lines end after the exit, as in the files written by ChainGenerator.
+     */
+    private static final byte[][] DISCOUNT_SUFFIX = {
+            ",false\n".getBytes(StandardCharsets.US_ASCII),
+            ",true\n".getBytes(StandardCharsets.US_ASCII)
+    };
+
+    /**
+     * Represents the beginning of the vehicle lines for each vehicle type, indexed by the ordinal of the type.
+     */
+    private static final byte[][] VEHICLE_PREFIX = new byte[VehicleType.values().length][];
+
+    static {
+        for (VehicleType type : VehicleType.values()) {
+            VEHICLE_PREFIX[type.ordinal()] = ("vehicle," + type.toString().toLowerCase() + ",").getBytes(StandardCharsets.US_ASCII);
+        }
+    }
+
+    /**
+     * Represents the parking chain that is saved.
+     */
+    private final ParkingChain parkingChain;
+    /**
+     * Represents the buffer in which the lines are encoded.
+     */
+    private final ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+    /**
+     * Represents the array of the buffer.
+     */
+    private final byte[] out = buffer.array();
+    /**
+     * Represents the position in out at which the next byte is written.
+     */
+    private int position;
+    /**
+     * Represents the encoded beginning of the lines of the current vehicle (up to the subscription, inclusive).
+     */
+    private byte[] vehicleHeader = new byte[MAX_VEHICLE_LINE * 2];
+    /**
+     * Represents the number of bytes of vehicleHeader.
+     */
+    private int vehicleHeaderLength;
+    /**
+     * Represents the channel of the temporary file.
+     */
+    private FileChannel channel;
+    /**
+     * Represents the number of bytes written in the file.
+     */
+    private long bytes;
+    /**
+     * Represents the number of lines written in the file.
+     */
+    private long lines;
+    /**
+     * Represents the sequence number of the last journal event included in the file, or 0 if the file is not
+     * the snapshot of a journal.
+     */
+    private long journalSequence;
+    /**
+     * Maps each license plate to the number of its parking intervals written in the file, which is the number of
+     * parking entrances that it will have when the file is loaded.
+     */
+    private final Map<String, int[]> writtenEntrances = new HashMap<>();
+    /**
+     * Represents the order in which the parking intervals of the current vehicle are written, as their indices.
+     */
+    private int[] intervalOrder = new int[16];
+
+    /**
+     * This is the constructor for class ParkingChainWriter.
+     * @param parkingChain Represents the parking chain that is saved.
+     */
+    public ParkingChainWriter(ParkingChain parkingChain) {
+        this.parkingChain = parkingChain;
+    }
+
+    /**
+     * This method saves the parking chain in a file. The file is replaced only after all the data was written
+     * and synchronized with the disk.
+     * @param path Represents the path of the file.
+     * @return The report that contains the number of bytes written and the throughput.
+     * @throws IOException It is thrown when the file can not be written.
+     */
+    public SaveReport write(Path path) throws IOException {
+        long startTime = System.nanoTime();
+        Path target = path.toAbsolutePath();
+        Path temporary = writeTemporary(target);
+
+        try {
+            commit(temporary, target);
+        } finally {
+            Files.deleteIfExists(temporary);
+        }
+
+        return getReport(System.nanoTime() - startTime);
+    }
+
+    /**
+     * This is the setter for journalSequence.
+     * @param journalSequence Represents the sequence number of the last journal event included in the file.
+     */
+    void setJournalSequence(long journalSequence) {
+        this.journalSequence = journalSequence;
+    }
+
+    /**
+     * This method creates the report of the last file written.
+     * @param elapsedNanos Represents the time it took to save the file, in nanoseconds.
+     * @return The report that contains the number of lines and bytes written.
+     */
+    SaveReport getReport(long elapsedNanos) {
+        return new SaveReport(lines, bytes, elapsedNanos);
+    }
+
+    /**
+     * This method writes the parking chain in a temporary file from the directory of the target file. Only this
+     * step reads the parking chain, so it is the only one that has to be done while the parking chain is not modified.
+     * @param target Represents the absolute path of the file that will be replaced.
+     * @return The path of the temporary file.
+     * @throws IOException It is thrown when the file can not be written.
+     */
+    Path writeTemporary(Path target) throws IOException {
+        Path temporary = Files.createTempFile(target.getParent(), target.getFileName().toString(), ".tmp");
+
+        try (FileChannel fileChannel = FileChannel.open(temporary, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            channel = fileChannel;
+            position = 0;
+            bytes = 0;
+            lines = 0;
+            writtenEntrances.clear();
+
+            if (journalSequence > 0) {
+                put(SEQUENCE);
+                putString(Long.toString(journalSequence));
+                endLine();
+            }
+
+            for (ParkingLot parkingLot : parkingChain.parkingLotList) {
+                writeParkingLot(parkingLot);
+            }
+
+            flush();
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(temporary);
+            throw e;
+        } finally {
+            channel = null;
+            writtenEntrances.clear();
+        }
+
+        return temporary;
+    }
+
+    /**
+     * This method synchronizes a temporary file with the disk and renames it over the target file. The directory
+     * is synchronized too, so the rename is also kept after a crash.
+     * @param temporary Represents the path of the temporary file.
+     * @param target Represents the absolute path of the target file.
+     * @throws IOException It is thrown when the file can not be synchronized or renamed.
+     */
+    static void commit(Path temporary, Path target) throws IOException {
+        try (FileChannel fileChannel = FileChannel.open(temporary, StandardOpenOption.WRITE)) {
+            fileChannel.force(true);
+        }
+
+        try {
+            Files.move(temporary, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(temporary, target, StandardCopyOption.REPLACE_EXISTING);
+        }
+
+        syncDirectory(target.getParent());
+    }
+
+    /**
+     * This method synchronizes a directory with the disk, so the files created or renamed in it are kept after a crash.
+     * @param directory Represents the path of the directory.
+     */
+    static void syncDirectory(Path directory) {
+        try (FileChannel channel = FileChannel.open(directory, StandardOpenOption.READ)) {
+            channel.force(true);
+        } catch (IOException ignored) {
+            // Some file systems do not allow a directory to be opened. The files themselves were already synchronized.
+        }
+    }
+
+    /**
+     * This method writes a parking lot line followed by its areas.
+     * @param parkingLot Represents the parking lot that is written.
+     * @throws IOException It is thrown when the file can not be written.
+     */
+    private void writeParkingLot(ParkingLot parkingLot) throws IOException {
+        put(PARKING_LOT);
+        putString(parkingLot.getName());
+        put((byte) ',');
+        putInt(parkingLot.getNoOfEntries());
+        endLine();
+
+        for (Area area : parkingLot.getAreaList()) {
+            writeArea(area);
+        }
+    }
+
+    /**
+     * This method writes an area line followed by the lines of its vehicles.
+     * @param area Represents the area that is written.
+     * @throws IOException It is thrown when the file can not be written.
+     */
+    private void writeArea(Area area) throws IOException {
+        put(AREA);
+        putString(area.getName());
+
+        for (int value : area.getMaxCapacityValues()) {
+            put((byte) ',');
+            putInt(value);
+        }
+        endLine();
+
+        for (Map.Entry<String, Vehicle> entry : area.getVehiclePlatesMap().entrySet()) {
+            writeVehicle(entry.getKey(), entry.getValue());
+        }
+    }
+
+    /**
+     * This method writes a line for each parking interval of a vehicle. The beginning of the lines (type, license
+     * plate and subscription) is encoded once and copied for each interval. When the file is loaded, each 10th
+     * parking entrance of a license plate, in the order of the lines, gets the discount, so the intervals are
+     * ordered to put the ones with the discount on these lines. The lines keep the six fields of the original format,
+     * unless the discount of the interval is still not the one given by that rule: then the line ends with the
+     * discount, so the parking costs the same after the file is loaded.
+     * @param licensePlate Represents the license plate of the vehicle.
+     * @param vehicle Represents the vehicle that is written.
+     * @throws IOException It is thrown when the file can not be written.
+     */
+    private void writeVehicle(String licensePlate, Vehicle vehicle) throws IOException {
+        encodeVehicleHeader(licensePlate, vehicle);
+
+        IntervalStore parkingIntervals = vehicle.getIntervals();
+        int[] entrances = writtenEntrances.computeIfAbsent(licensePlate, plate -> new int[1]);
+        orderIntervals(parkingIntervals, entrances[0]);
+        for (int j = 0; j < parkingIntervals.size(); j++) {
+            int i = intervalOrder[j];
+            ensureRemaining(vehicleHeaderLength + 41);
+            System.arraycopy(vehicleHeader, 0, out, position, vehicleHeaderLength);
+            position += vehicleHeaderLength;
+            out[position++] = ',';
+            position = encodeMinutes(parkingIntervals.getEntry(i), out, position);
+            out[position++] = ',';
+            position = encodeMinutes(parkingIntervals.getExit(i), out, position);
+            boolean hasDiscount = parkingIntervals.hasDiscount(i);
+            if (hasDiscount == (++entrances[0] % 10 == 0)) {
+                out[position++] = '\n';
+            } else {
+                byte[] suffix = DISCOUNT_SUFFIX[hasDiscount ? 1 : 0];
+                System.arraycopy(suffix, 0, out, position, suffix.length);
+                position += suffix.length;
+            }
+            lines++;
+        }
+    }
+
+    /**
+     * This method chooses the order in which the parking intervals of a vehicle are written, in intervalOrder. The
+     * intervals are written in the order of the store, unless a discount would then not fall on a 10th parking
+     * entrance: then the intervals with the discount are moved to the 10th parking entrances, as far as there are
+     * enough of them, and the other intervals keep their order on the remaining lines. The last interval is always
+     * written last, because its exit becomes the lastExit of the vehicle when the file is loaded.
+     * @param parkingIntervals Represents the parking intervals of the vehicle.
+     * @param entrances Represents the number of parking intervals of the license plate already written in the file.
+     */
+    private void orderIntervals(IntervalStore parkingIntervals, int entrances) {
+        int size = parkingIntervals.size();
+        boolean ordered = true;
+
+        if (intervalOrder.length < size) {
+            intervalOrder = new int[Math.max(size, intervalOrder.length * 2)];
+        }
+        for (int i = 0; i < size; i++) {
+            intervalOrder[i] = i;
+            ordered &= parkingIntervals.hasDiscount(i) == ((entrances + i + 1) % 10 == 0);
+        }
+
+        if (ordered) {
+            return;
+        }
+
+        int nextDiscounted = 0;
+        int nextPlain = 0;
+        for (int line = 0; line < size - 1; line++) {
+            nextDiscounted = nextInterval(parkingIntervals, nextDiscounted, true);
+            nextPlain = nextInterval(parkingIntervals, nextPlain, false);
+
+            boolean discounted = (entrances + line + 1) % 10 == 0 ? nextDiscounted < size - 1 : nextPlain >= size - 1;
+            if (discounted) {
+                intervalOrder[line] = nextDiscounted++;
+            } else {
+                intervalOrder[line] = nextPlain++;
+            }
+        }
+        intervalOrder[size - 1] = size - 1;
+    }
+
+    /**
+     * This method finds the next parking interval of a vehicle that has or does not have the discount.
+     * @param parkingIntervals Represents the parking intervals of the vehicle.
+     * @param from Represents the index from which the interval is searched.
+     * @param discount Represents the discount of the interval.
+     * @return The index of the interval, or the index of the last interval if there is no such interval before it.
+     */
+    private static int nextInterval(IntervalStore parkingIntervals, int from, boolean discount) {
+        int last = parkingIntervals.size() - 1;
+
+        while (from < last && parkingIntervals.hasDiscount(from) != discount) {
+            from++;
+        }
+
+        return from;
+    }
+
+    /**
+     * This method encodes the beginning of the lines of a vehicle in vehicleHeader.
+     * @param licensePlate Represents the license plate of the vehicle.
+     * @param vehicle Represents the vehicle.
+     */
+    private void encodeVehicleHeader(String licensePlate, Vehicle vehicle) {
+        byte[] prefix = VEHICLE_PREFIX[vehicle.getType().ordinal()];
+        int maxLength = MAX_VEHICLE_LINE + licensePlate.length() * 3;
+
+        if (vehicleHeader.length < maxLength) {
+            vehicleHeader = new byte[maxLength * 2];
+        }
+
+        System.arraycopy(prefix, 0, vehicleHeader, 0, prefix.length);
+        int length = prefix.length;
+
+        length = encodeString(licensePlate, vehicleHeader, length);
+        vehicleHeader[length++] = ',';
+
+        Subscription subscription = vehicle.getSubscription();
+        if (subscription == null) {
+            System.arraycopy(NULL, 0, vehicleHeader, length, NULL.length);
+            length += NULL.length;
+        } else {
+            length = encodeDateTime(subscription.getBoughtTime(), vehicleHeader, length);
+        }
+
+        vehicleHeaderLength = length;
+    }
+
+    /**
+     * This method encodes a String in an array. The ASCII characters are copied directly.
+     * The array must have at least 3 free bytes for each character.
+     * @param value Represents the String that is encoded.
+     * @param target Represents the array in which the String is encoded.
+     * @param offset Represents the position of the first byte of the String.
+     * @return The position after the last byte of the String.
+     */
+    static int encodeString(String value, byte[] target, int offset) {
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+
+            if (c >= 0x80) {
+                byte[] encoded = value.substring(i).getBytes(StandardCharsets.UTF_8);
+                System.arraycopy(encoded, 0, target, offset, encoded.length);
+                return offset + encoded.length;
+            }
+            target[offset++] = (byte) c;
+        }
+
+        return offset;
+    }
+
+    /**
+     * This method encodes a date with the pattern from Main.formatterPattern, without using a DateTimeFormatter.
+     * @param dateTime Represents the date that is encoded.
+     * @param target Represents the array in which the date is encoded.
+     * @param offset Represents the position of the first byte of the date.
+     * @return The position after the last byte of the date.
+     */
+    static int encodeDateTime(LocalDateTime dateTime, byte[] target, int offset) {
+        return encodeDateTime(dateTime.getYear(), dateTime.getMonthValue(), dateTime.getDayOfMonth(),
+                dateTime.getHour(), dateTime.getMinute(), target, offset);
+    }
+
+    /**
+     * This method encodes a date given in epoch minutes with the pattern from Main.formatterPattern, without
+     * creating a LocalDateTime. The day is split in year, month and day with the civil calendar algorithm
+     * used by LocalDate.ofEpochDay.
+     * @param epochMinute Represents the date that is encoded, in minutes since 1970-01-01 00:00.
+     * @param target Represents the array in which the date is encoded.
+     * @param offset Represents the position of the first byte of the date.
+     * @return The position after the last byte of the date.
+     */
+    static int encodeMinutes(long epochMinute, byte[] target, int offset) {
+        long epochDay = Math.floorDiv(epochMinute, IntervalStore.MINUTES_PER_DAY);
+        int minuteOfDay = Math.floorMod(epochMinute, IntervalStore.MINUTES_PER_DAY);
+
+        long days = epochDay + 719468;
+        long era = Math.floorDiv(days, 146097);
+        long dayOfEra = days - era * 146097;
+        long yearOfEra = (dayOfEra - dayOfEra / 1460 + dayOfEra / 36524 - dayOfEra / 146096) / 365;
+        long dayOfYear = dayOfEra - (365 * yearOfEra + yearOfEra / 4 - yearOfEra / 100);
+        long monthIndex = (5 * dayOfYear + 2) / 153;
+        int day = (int) (dayOfYear - (153 * monthIndex + 2) / 5 + 1);
+        int month = (int) (monthIndex < 10 ? monthIndex + 3 : monthIndex - 9);
+        int year = (int) (yearOfEra + era * 400 + (month <= 2 ? 1 : 0));
+
+        return encodeDateTime(year, month, day, minuteOfDay / 60, minuteOfDay % 60, target, offset);
+    }
+
+    /**
+     * This method encodes the fields of a date with the pattern from Main.formatterPattern.
+     * @param year Represents the year (between 0 and 9999).
+     * @param month Represents the month (between 1 and 12).
+     * @param day Represents the day of the month.
+     * @param hour Represents the hour.
+     * @param minute Represents the minute.
+     * @param target Represents the array in which the date is encoded.
+     * @param offset Represents the position of the first byte of the date.
+     * @return The position after the last byte of the date.
+     */
+    private static int encodeDateTime(int year, int month, int day, int hour, int minute, byte[] target, int offset) {
+        target[offset] = (byte) ('0' + year / 1000 % 10);
+        target[offset + 1] = (byte) ('0' + year / 100 % 10);
+        target[offset + 2] = (byte) ('0' + year / 10 % 10);
+        target[offset + 3] = (byte) ('0' + year % 10);
+        target[offset + 4] = '-';
+        twoDigits(month, target, offset + 5);
+        target[offset + 7] = '-';
+        twoDigits(day, target, offset + 8);
+        target[offset + 10] = ' ';
+        twoDigits(hour, target, offset + 11);
+        target[offset + 13] = ':';
+        twoDigits(minute, target, offset + 14);
+
+        return offset + 16;
+    }
+
+    /**
+     * This method encodes a number with two digits.
+     * @param value Represents the number (between 0 and 99).
+     * @param target Represents the array in which the number is encoded.
+     * @param offset Represents the position of the first digit.
+     */
+    private static void twoDigits(int value, byte[] target, int offset) {
+        target[offset] = (byte) ('0' + value / 10);
+        target[offset + 1] = (byte) ('0' + value % 10);
+    }
+
+    /**
+     * This method writes a byte in the buffer.
+     * @param value Represents the byte that is written.
+     * @throws IOException It is thrown when the file can not be written.
+     */
+    private void put(byte value) throws IOException {
+        ensureRemaining(1);
+        out[position++] = value;
+    }
+
+    /**
+     * This method writes some bytes in the buffer.
+     * @param values Represents the bytes that are written.
+     * @throws IOException It is thrown when the file can not be written.
+     */
+    private void put(byte[] values) throws IOException {
+        if (values.length > out.length) {
+            flush();
+            channel.write(ByteBuffer.wrap(values));
+            bytes += values.length;
+            return;
+        }
+
+        ensureRemaining(values.length);
+        System.arraycopy(values, 0, out, position, values.length);
+        position += values.length;
+    }
+
+    /**
+     * This method writes a String in the buffer. The ASCII characters are written directly.
+     * @param value Represents the String that is written.
+     * @throws IOException It is thrown when the file can not be written.
+     */
+    private void putString(String value) throws IOException {
+        for (int i = 0; i < value.length(); i++) {
+            if (value.charAt(i) >= 0x80) {
+                put(value.getBytes(StandardCharsets.UTF_8));
+                return;
+            }
+        }
+
+        ensureRemaining(Math.min(value.length(), out.length));
+        for (int i = 0; i < value.length(); i++) {
+            if (position == out.length) {
+                flush();
+            }
+            out[position++] = (byte) value.charAt(i);
+        }
+    }
+
+    /**
+     * This method writes a non-negative integer in the buffer.
+     * @param value Represents the integer that is written.
+     * @throws IOException It is thrown when the file can not be written.
+     */
+    private void putInt(int value) throws IOException {
+        ensureRemaining(11);
+
+        if (value < 0) {
+            out[position++] = '-';
+            value = -value;
+        }
+
+        int digits = 1;
+        for (int rest = value / 10; rest > 0; rest /= 10) {
+            digits++;
+        }
+
+        for (int i = position + digits - 1; i >= position; i--) {
+            out[i] = (byte) ('0' + value % 10);
+            value /= 10;
+        }
+        position += digits;
+    }
+
+    /**
+     * This method ends the current line.
+     * @throws IOException It is thrown when the file can not be written.
+     */
+    private void endLine() throws IOException {
+        put((byte) '\n');
+        lines++;
+    }
+
+    /**
+     * This method makes sure that the buffer has enough free bytes, writing it in the file if it does not.
+     * @param length Represents the number of bytes that will be written.
+     * @throws IOException It is thrown when the file can not be written.
+     */
+    private void ensureRemaining(int length) throws IOException {
+        if (out.length - position < length) {
+            flush();
+        }
+    }
+
+    /**
+     * This method writes the content of the buffer in the file.
+     * @throws IOException It is thrown when the file can not be written.
+     */
+    private void flush() throws IOException {
+        buffer.clear();
+        buffer.limit(position);
+
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+
+        bytes += position;
+        position = 0;
+    }
+}
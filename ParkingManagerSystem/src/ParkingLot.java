@@ -1,8 +1,16 @@
 package uvt;
 
+import uvt.Exceptions.InvalidParkingIntervalException;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * The objects of this class represent a parking lot.
@@ -24,6 +32,22 @@ public class ParkingLot {
      */
     private final List<uvt.Area> areaList = new ArrayList<>();
 
+    /**
+     * Maps each area of the parking lot to its name. If two areas have the same name, the first one is kept.
+     */
+    private final Map<String, uvt.Area> areasByName = new HashMap<>();
+
+    /**
+     * Represents the index of the areas that have a free parking place for each type of vehicle.
+     */
+    private final FreeCapacityIndex freeCapacityIndex = new FreeCapacityIndex();
+
+    /**
+     * Represents a minute (in epoch minutes) not later than the earliest exit of the vehicles that occupy a parking
+     * place in the parking lot, so a full parking lot does not look for due departures in each area before it.
+     */
+    private final AtomicLong nextDepartureMinute = new AtomicLong(Long.MAX_VALUE);
+
     /**
      * This is the constructor for objects of class ParkingLot.
      * @param name Represents the name of the parking lot.
@@ -36,10 +60,20 @@ public class ParkingLot {
 
     /**
      * This is the getter fot the areaList
-     * @return The list of areas.
+     * @return The list of areas. It can not be modified, the areas are added using addArea().
      */
     public List<uvt.Area> getAreaList() {
-        return areaList;
+        return Collections.unmodifiableList(areaList);
+    }
+
+    /**
+     * This method returns the area that has a specific name. The returned area can be kept and used
+     * again without searching for it.
+     * @param name Represents the name of the area.
+     * @return The area with the name passed as parameter or null if there is no such area.
+     */
+    public uvt.Area getArea(String name) {
+        return areasByName.get(name);
     }
 
     /**
@@ -47,7 +81,154 @@ public class ParkingLot {
      * @param area Represents the area that will be added to the parking lot.
      */
     public void addArea(uvt.Area area) {
+        int position = areaList.size();
+
         areaList.add(area);
+        areasByName.putIfAbsent(area.getName(), area);
+        freeCapacityIndex.ensureCapacity(position + 1);
+        area.setParkingLot(this, position);
+    }
+
+    /**
+     * This is the getter for freeCapacityIndex.
+     * @return The index of the areas that have a free parking place for each type of vehicle.
+     */
+    FreeCapacityIndex getFreeCapacityIndex() {
+        return freeCapacityIndex;
+    }
+
+    /**
+     * This method finds the first area of the parking lot that has a free parking place for a type of vehicle,
+     * without trying the areas one by one. The departures that are due but were not processed yet are not seen,
+     * so an area whose vehicles left is found only after releaseDepartures() is called.
+     * @param type Represents the type of vehicle.
+     * @return The first area with a free parking place for the type, or null if there is no such area.
+     */
+    public uvt.Area findFreeArea(VehicleType type) {
+        int position = freeCapacityIndex.findFree(type, 0);
+
+        return position < 0 ? null : areaList.get(position);
+    }
+
+    /**
+     * This method counts the areas of the parking lot that have a free parking place for a type of vehicle.
+     * @param type Represents the type of vehicle.
+     * @return The number of areas with a free parking place for the type.
+     */
+    public int countFreeAreas(VehicleType type) {
+        return freeCapacityIndex.countFree(type);
+    }
+
+    /**
+     * This method frees the parking places of the vehicles that left the areas of the parking lot until a certain
+     * time.
+     * @param now Represents the time until which the departures are processed.
+     */
+    public void releaseDepartures(LocalDateTime now) {
+        for (uvt.Area area : areaList) {
+            area.releaseDepartures(now);
+        }
+    }
+
+    /**
+     * This method notes the exit of a vehicle that occupies a parking place in an area of the parking lot.
+     * @param exitMinute Represents the exit of the vehicle, in epoch minutes.
+     */
+    void noteDeparture(long exitMinute) {
+        long next;
+
+        while (exitMinute < (next = nextDepartureMinute.get()) && !nextDepartureMinute.compareAndSet(next, exitMinute)) {
+            Thread.onSpinWait();
+        }
+    }
+
+    /**
+     * This method frees the parking places of the vehicles that left the areas of the parking lot until a certain
+     * time, only if the earliest exit noted in the parking lot passed. The earliest exit is then computed again from
+     * the areas, while the admissions keep noting theirs.
+     * @param now Represents the time until which the departures are processed.
+     * @return True if the departures were processed, false if none of them was due.
+     */
+    boolean releaseDueDepartures(LocalDateTime now) {
+        if (EpochMinutes.of(now) < nextDepartureMinute.get()) {
+            return false;
+        }
+
+        nextDepartureMinute.set(Long.MAX_VALUE);
+        for (uvt.Area area : areaList) {
+            area.releaseDepartures(now);
+
+            LocalDateTime nextExit = area.getDepartureScheduler().getNextExit();
+            if (nextExit != null) {
+                noteDeparture(EpochMinutes.of(nextExit));
+            }
+        }
+
+        return true;
+    }
+
+    /**
+     * This method builds a revenue tree of the parking lot from the ledgers of the areas. The tree is a new one for
+     * each call, so it is not changed by the next admissions and can be read without synchronization. The ledgers
+     * are read without taking the admission locks, so a parking admitted while the tree is built may be missing.
+     * @return The revenue of the parking lot for each day with revenue, when the method was called.
+     */
+    public RevenueTree getRevenueTree() {
+        long firstDay = Long.MAX_VALUE;
+        long endDay = Long.MIN_VALUE;
+        List<RevenueLedger> revenueLedgers = new ArrayList<>(areaList.size());
+
+        for (uvt.Area area : areaList) {
+            RevenueLedger revenueLedger = area.getRevenueLedger();
+
+            revenueLedgers.add(revenueLedger);
+            if (revenueLedger.getEndDay() > revenueLedger.getFirstDay()) {
+                firstDay = Math.min(firstDay, revenueLedger.getFirstDay());
+                endDay = Math.max(endDay, revenueLedger.getEndDay());
+            }
+        }
+
+        if (firstDay > endDay) {
+            firstDay = LocalDate.now().toEpochDay();
+            endDay = firstDay;
+        }
+
+        double[] dailyRevenue = new double[Math.toIntExact(endDay - firstDay)];
+        for (RevenueLedger revenueLedger : revenueLedgers) {
+            for (long day = Math.max(firstDay, revenueLedger.getFirstDay()); day < Math.min(endDay, revenueLedger.getEndDay()); day++) {
+                dailyRevenue[(int) (day - firstDay)] += revenueLedger.getRevenue(day);
+            }
+        }
+
+        return new RevenueTree(firstDay, dailyRevenue);
+    }
+
+    /**
+     * This method computes the total gain of the parking lot in an interval of days, as the sum of the gains of its
+     * areas. Each area reads its gain from the revenue tree of its ledger, so the gain of the parking lot is computed
+     * in O(A log D) without waiting for the admissions, where A is the number of areas.
+     * @param fromDay Represents the first day, as the number of days since 1970-01-01.
+     * @param toDay Represents the last day (included), as the number of days since 1970-01-01.
+     * @return The total gain of the parking lot between the two days.
+     */
+    public double getGain(long fromDay, long toDay) {
+        double total = 0;
+
+        for (uvt.Area area : areaList) {
+            total += area.getGain(fromDay, toDay);
+        }
+
+        return total;
+    }
+
+    /**
+     * This method computes the total gain of the parking lot in an interval of days.
+     * @param from Represents the first day.
+     * @param to Represents the last day (included).
+     * @return The total gain of the parking lot between the two days.
+     */
+    public double getGain(LocalDate from, LocalDate to) {
+        return getGain(from.toEpochDay(), to.toEpochDay());
     }
 
     /**
@@ -79,7 +260,7 @@ public class ParkingLot {
         }
 
         a.setMaxCapacity(arrayOfValues);
-        areaList.add(a);
+        addArea(a);
     }
 
     /**
@@ -90,23 +271,67 @@ public class ParkingLot {
      * for that type of vehicles. Then it prints the values.
      */
     public void printOccupancyRate() {
+        int[] occupied = new int[VehicleType.values().length];
+
+        for (uvt.Area area : areaList) {
+            for (VehicleType type : VehicleType.values()) {
+                occupied[type.ordinal()] += area.getCurrentCapacity(type);
+            }
+        }
+
+        printOccupancyRate(occupied);
+    }
+
+    /**
+     * This method prints the occupancy rate of the parking lot for each type of vehicles, from the number of
+     * occupied places that was already computed.
+     * @param occupied Represents the number of occupied places of the parking lot, indexed by the ordinal of the type.
+     */
+    void printOccupancyRate(int[] occupied) {
         System.out.println("Occupancy rate for " + this.name + " is:");
 
         for (VehicleType type : VehicleType.values()) {
             double total = 0;
-            double occupied = 0;
             for (uvt.Area area : areaList) {
-                total += area.getMaxCapacity().get(type);
-                if (area.getCurrentCapacity().get(type) != null) {
-                    occupied += area.getCurrentCapacity().get(type);
-                }
+                total += area.getMaxCapacity(type);
             }
 
-            double percent = (occupied * 100) / total;
+            double percent = ((double) occupied[type.ordinal()] * 100) / total;
             System.out.println(" - " + type.toString().toLowerCase() + ": " + percent + "%");
         }
     }
 
+    /**
+     * This method returns the number of parking intervals of a type of vehicle in all the areas of the parking lot
+     * that include a certain time.
+     * @param type Represents the type of vehicle.
+     * @param time Represents the time, in the past or in the future.
+     * @return The number of parking intervals that entered at that time or before it and exit after it.
+     */
+    public int getOccupancy(VehicleType type, LocalDateTime time) {
+        int occupancy = 0;
+
+        for (uvt.Area area : areaList) {
+            occupancy += area.getOccupancy(type, time);
+        }
+
+        return occupancy;
+    }
+
+    /**
+     * This method computes the occupancy of the parking lot for each type of vehicle during an interval of time,
+     * with one sweep over the parking intervals of all its areas.
+     * @param from Represents the beginning of the interval of time.
+     * @param to Represents the end of the interval of time (not included).
+     * @param stepMinutes Represents the number of minutes between two sample times (for example 5).
+     * @return The occupancy at each sample time, the peak occupancy and the time at capacity for each type.
+     * @throws InvalidParkingIntervalException It is thrown when the end is before the beginning or the step
+     * is not a positive number of minutes.
+     */
+    public OccupancySeries getOccupancySeries(LocalDateTime from, LocalDateTime to, int stepMinutes) throws InvalidParkingIntervalException {
+        return new OccupancySeries(areaList, from, to, stepMinutes);
+    }
+
     /** This method computes the total gain of the parking lot in a day. It loops
      * through the ares in the areaList and for each area it computes the
      * gain and adds it to the total gain of the parking lot.
@@ -115,15 +340,38 @@ public class ParkingLot {
     public void printParkingLotGain(String date) {
         double total = 0;
 
-        for (uvt.Area area : areaList) {
-            for (Map.Entry<String, Vehicle> vehicle : area.getVehiclePlatesMap().entrySet()) {
-                total += vehicle.getValue().parkingCost(date);
-            }
+        try {
+            total = getGain(LocalDate.parse(date).toEpochDay());
+        } catch (DateTimeParseException ignored) {
         }
 
+        printParkingLotGain(date, total);
+    }
+
+    /**
+     * This method prints the total gain of the parking lot in a day that was already computed.
+     * @param date Represents the date in which the total gain was computed.
+     * @param total Represents the total gain of the parking lot.
+     */
+    void printParkingLotGain(String date, double total) {
         System.out.println(name + " gained " + total + " on " + date + '.');
     }
 
+    /**
+     * This method computes the total gain of the parking lot in a day, as the sum of the gains of its areas.
+     * @param epochDay Represents the day in which the total gain is computed, as the number of days since 1970-01-01.
+     * @return The total gain of the parking lot.
+     */
+    public double getGain(long epochDay) {
+        double total = 0;
+
+        for (uvt.Area area : areaList) {
+            total += area.getGain(epochDay);
+        }
+
+        return total;
+    }
+
     /**
      * This methods overrides the toString() method.
      * @return The the representation of an object of type ParkingLot.
@@ -0,0 +1,347 @@
+package uvt;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * The objects of this class map each license plate of the parking chain to its canonical vehicle and to the
+ * areas in which it was parked, so a vehicle is found without visiting the areas of the parking chain.
+ * The vehicles can be registered from several threads (the admissions in different areas): the records are kept
+ * in a concurrent map and the parking entrances of a license plate are counted while holding the lock of its record.
+ * Merging two indexes is only done by the thread that loads the parking chain.
+ */
+public class PlateIndex {
+    /**
+     * Maps the record of each vehicle to its license plate.
+     */
+    private final Map<String, PlateRecord> records = new ConcurrentHashMap<>();
+
+    /**
+     * Represents the fact that the parkings are kept in the order in which they were made, so that the index can
+     * be merged in another one (used when the parking lots are loaded in parallel).
+     */
+    private final boolean trackVisits;
+    /**
+     * Represents the record of each parking, in the order in which they were made.
+     */
+    private PlateRecord[] visitRecords;
+    /**
+     * Represents the vehicle of each parking, in the order in which they were made.
+     */
+    private Vehicle[] visitVehicles;
+    /**
+     * Represents the entry of each parking, in epoch minutes, in the order in which they were made.
+     */
+    private long[] visitEntries;
+    /**
+     * Represents the exit of each parking, in epoch minutes, in the order in which they were made.
+     */
+    private long[] visitExits;
+    /**
+     * Represents the fact that the discount of each parking was read from the file instead of being given to the
+     * 10th parking, in the order in which they were made. These discounts are kept when the index is merged.
+     */
+    private boolean[] visitSaved;
+    /**
+     * Represents the number of parkings that were kept.
+     */
+    private int visitCount;
+
+    /**
+     * This is the constructor for class PlateIndex.
+     */
+    public PlateIndex() {
+        this(false);
+    }
+
+    /**
+     * This is the constructor for class PlateIndex.
+     * @param trackVisits Represents the fact that the parkings are kept so the index can be merged in another one.
+     */
+    PlateIndex(boolean trackVisits) {
+        this.trackVisits = trackVisits;
+
+        if (trackVisits) {
+            visitRecords = new PlateRecord[1024];
+            visitVehicles = new Vehicle[1024];
+            visitEntries = new long[1024];
+            visitExits = new long[1024];
+            visitSaved = new boolean[1024];
+        }
+    }
+
+    /**
+     * This method returns the record of a license plate.
+     * @param licensePlate Represents the license plate that is searched.
+     * @return The record of the license plate or null if the vehicle was never parked in the parking chain.
+     */
+    public PlateRecord get(String licensePlate) {
+        return records.get(licensePlate);
+    }
+
+    /**
+     * This method returns the number of license plates in the index.
+     * @return An integer representing the number of distinct vehicles of the parking chain.
+     */
+    public int size() {
+        return records.size();
+    }
+
+    /**
+     * This method adds a vehicle that was parked in an area to the index. The first vehicle registered for a
+     * license plate becomes its canonical vehicle, on which the parking entrances of the license plate in all the
+     * areas are counted, while the vehicles of the other areas keep 0 parking entrances. The area becomes the
+     * current location of the vehicle. The type of the vehicle is not checked, see admit().
+     * @param licensePlate Represents the license plate of the vehicle.
+     * @param vehicle Represents the vehicle from the area.
+     * @param area Represents the area in which the vehicle was parked.
+     * @return The record of the license plate.
+     */
+    public PlateRecord register(String licensePlate, Vehicle vehicle, Area area) {
+        PlateRecord record = records.get(licensePlate);
+
+        if (record == null) {
+            record = records.computeIfAbsent(licensePlate, plate -> new PlateRecord(vehicle));
+        }
+
+        record.moveTo(area);
+
+        return record;
+    }
+
+    /**
+     * This method adds a vehicle that is admitted in an area to the index, like register(), unless its license
+     * plate is already known with another type of vehicle. The type is checked against the canonical vehicle, so
+     * two areas that admit the same new license plate at the same time can not give it different types.
+     * @param licensePlate Represents the license plate of the vehicle.
+     * @param vehicle Represents the vehicle from the area.
+     * @param area Represents the area in which the vehicle is admitted.
+     * @return The record of the license plate or null if the license plate is known with another type of vehicle,
+     * in which case the index is not changed.
+     */
+    PlateRecord admit(String licensePlate, Vehicle vehicle, Area area) {
+        PlateRecord record = records.get(licensePlate);
+
+        if (record == null) {
+            record = records.computeIfAbsent(licensePlate, plate -> new PlateRecord(vehicle));
+        }
+
+        if (record.vehicle.getType() != vehicle.getType()) {
+            return null;
+        }
+
+        record.moveTo(area);
+
+        return record;
+    }
+
+    /**
+     * This method keeps a parking, if the index was created to be merged in another one.
+     * @param record Represents the record of the vehicle that parked.
+     * @param vehicle Represents the vehicle that holds the parking interval.
+     * @param entryMinute Represents the entry of the parking interval, in epoch minutes.
+     * @param exitMinute Represents the exit of the parking interval, in epoch minutes.
+     * @param saved Represents the fact that the discount of the parking was read from the file.
+     */
+    void logVisit(PlateRecord record, Vehicle vehicle, long entryMinute, long exitMinute, boolean saved) {
+        if (!trackVisits) {
+            return;
+        }
+
+        if (visitCount == visitRecords.length) {
+            visitRecords = Arrays.copyOf(visitRecords, visitCount * 2);
+            visitVehicles = Arrays.copyOf(visitVehicles, visitCount * 2);
+            visitEntries = Arrays.copyOf(visitEntries, visitCount * 2);
+            visitExits = Arrays.copyOf(visitExits, visitCount * 2);
+            visitSaved = Arrays.copyOf(visitSaved, visitCount * 2);
+        }
+
+        visitRecords[visitCount] = record;
+        visitVehicles[visitCount] = vehicle;
+        visitEntries[visitCount] = entryMinute;
+        visitExits[visitCount] = exitMinute;
+        visitSaved[visitCount] = saved;
+        visitCount++;
+    }
+
+    /**
+     * This method adds the records of an index built for a later part of the parking chain to this index.
+     * The license plates that were not in this index are added as they are. For the other ones, the canonical
+     * vehicle stays the one from this index, the areas are added to its record and the parkings are counted
+     * again in their order, so the 10th parking in the whole parking chain gets the discount, as if the parts
+     * were loaded one after another. The discounts that were read from the file are kept, but their parkings are
+     * still counted. As for the admissions, the parkings are counted only on the canonical vehicle, so the vehicle
+     * of the other index is left with 0 parking entrances, like the vehicles of the other areas.
+     * @param other Represents the index that was created with parkings kept.
+     */
+    void merge(PlateIndex other) {
+        Map<PlateRecord, PlateRecord> mergedRecords = new IdentityHashMap<>();
+
+        for (Map.Entry<String, PlateRecord> entry : other.records.entrySet()) {
+            PlateRecord record = records.putIfAbsent(entry.getKey(), entry.getValue());
+
+            if (record != null) {
+                PlateRecord otherRecord = entry.getValue();
+
+                for (Area area : otherRecord.areas) {
+                    record.moveTo(area);
+                }
+                record.moveTo(otherRecord.currentArea);
+                otherRecord.vehicle.setParkingEntrances(0);
+                mergedRecords.put(otherRecord, record);
+            }
+        }
+
+        if (mergedRecords.isEmpty()) {
+            return;
+        }
+
+        for (int i = 0; i < other.visitCount; i++) {
+            if (!other.visitSaved[i] && mergedRecords.containsKey(other.visitRecords[i])) {
+                other.visitVehicles[i].setDiscount(other.visitEntries[i], other.visitExits[i], false);
+            }
+        }
+        for (int i = 0; i < other.visitCount; i++) {
+            PlateRecord record = mergedRecords.get(other.visitRecords[i]);
+
+            if (record != null) {
+                record.vehicle.addParkingEntrances();
+                if (!other.visitSaved[i] && record.vehicle.getParkingEntrances() % 10 == 0) {
+                    other.visitVehicles[i].setDiscount(other.visitEntries[i], other.visitExits[i], true);
+                }
+            }
+        }
+    }
+
+    /**
+     * This method adds all the vehicles of a parking lot to the index.
+     * @param parkingLot Represents the parking lot whose vehicles are added.
+     */
+    public void register(ParkingLot parkingLot) {
+        for (Area area : parkingLot.getAreaList()) {
+            register(area);
+        }
+    }
+
+    /**
+     * This method adds all the vehicles of an area to the index.
+     * @param area Represents the area whose vehicles are added.
+     */
+    public void register(Area area) {
+        for (Map.Entry<String, Vehicle> entry : area.getVehiclePlatesMap().entrySet()) {
+            register(entry.getKey(), entry.getValue(), area);
+        }
+    }
+
+    /**
+     * The objects of this class keep the canonical vehicle of a license plate and the areas in which it was parked.
+     */
+    public static class PlateRecord {
+        /**
+         * Represents the canonical vehicle of the license plate. It counts the parking entrances of the
+         * license plate in the whole parking chain.
+         */
+        private final Vehicle vehicle;
+        /**
+         * Represents the area in which the vehicle was parked the last time.
+         */
+        private volatile Area currentArea;
+        /**
+         * Represents the areas in which the vehicle was parked, in the order of its first parking in each of them.
+         * A vehicle is parked in few areas, so the list is copied when an area is added and read without a lock.
+         */
+        private final List<Area> areas = new CopyOnWriteArrayList<>();
+
+        /**
+         * This is the constructor for class PlateRecord.
+         * @param vehicle Represents the canonical vehicle of the license plate.
+         */
+        private PlateRecord(Vehicle vehicle) {
+            this.vehicle = vehicle;
+        }
+
+        /**
+         * This method sets the current location of the vehicle.
+         * @param area Represents the area in which the vehicle was parked.
+         */
+        private synchronized void moveTo(Area area) {
+            if (currentArea != area && !areas.contains(area)) {
+                areas.add(area);
+            }
+            currentArea = area;
+        }
+
+        /**
+         * This method counts new parking entrances of the license plate on its canonical vehicle. The entrances of a
+         * license plate can be counted by the admissions of different areas at the same time, so the new number is
+         * read while holding the lock of the record and each admission gets its own position (for the discount).
+         * @param count Represents the number of new parking entrances.
+         * @return The number of parking entrances of the license plate, including the new ones.
+         */
+        synchronized int addParkingEntrances(int count) {
+            int parkingEntrances = vehicle.getParkingEntrances() + count;
+            vehicle.setParkingEntrances(parkingEntrances);
+
+            return parkingEntrances;
+        }
+
+        /**
+         * This is the getter for vehicle.
+         * @return The canonical vehicle of the license plate.
+         */
+        public Vehicle getVehicle() {
+            return vehicle;
+        }
+
+        /**
+         * This method returns the number of times the vehicle parked in the parking chain.
+         * @return An integer representing the number of parking entrances in all the areas.
+         */
+        public int getParkingEntrances() {
+            return vehicle.getParkingEntrances();
+        }
+
+        /**
+         * This is the getter for currentArea.
+         * @return The area in which the vehicle was parked the last time.
+         */
+        public Area getCurrentArea() {
+            return currentArea;
+        }
+
+        /**
+         * This method returns the parking lot in which the vehicle was parked the last time.
+         * @return The parking lot that contains the current area.
+         */
+        public ParkingLot getCurrentParkingLot() {
+            return currentArea.getParkingLot();
+        }
+
+        /**
+         * This is the getter for areas.
+         * @return The list of areas in which the vehicle was parked. Each area knows its parking lot.
+         */
+        public List<Area> getAreas() {
+            return Collections.unmodifiableList(areas);
+        }
+
+        /**
+         * This methods overrides the toString() method.
+         * @return The representation of an object of type PlateRecord.
+         */
+        @Override
+        public String toString() {
+            return "PlateRecord{" +
+                    "vehicle=" + vehicle.getType() +
+                    ", parkingEntrances=" + getParkingEntrances() +
+                    ", currentArea='" + currentArea.getName() + '\'' +
+                    ", areas=" + areas.size() +
+                    '}';
+        }
+    }
+}
@@ -0,0 +1,266 @@
+package uvt;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.Arrays;
+
+/**
+ * The objects of this class keep the revenue of an area for each day and each type of vehicle, so the gain of a
+ * day is read instead of being computed again from all the parking intervals. The days are kept in a dense array
+ * that starts at the first day with revenue and grows in both directions when needed, together with a revenue
+ * tree of the same days, so the revenue of an interval of days is read in O(log D).
+ * The revenue is only changed by the thread that holds the admission lock of the area, but it can be read by any
+ * thread without a lock: the array and its first day are published together and a grown array replaces the old
+ * one only after the old values were copied into it. The revenue of an interval of days is read from several
+ * positions of the tree, so the ledger also has a version that is odd while it is changed: the reader reads again
+ * if the version changed during the read, instead of waiting for the admission.
+ */
+public final class RevenueLedger {
+    /**
+     * Represents the number of types of vehicles.
+     */
+    private static final int TYPES = VehicleType.values().length;
+    /**
+     * Represents the number of days for which space is reserved around a new day.
+     */
+    private static final int DAY_CHUNK = 32;
+    /**
+     * Represents the access to the elements of the revenue arrays, so a value written by an admission is read
+     * whole by the other threads.
+     */
+    private static final VarHandle REVENUE = MethodHandles.arrayElementVarHandle(double[].class);
+    /**
+     * Represents the access to the version of the ledger.
+     */
+    private static final VarHandle VERSION;
+
+    static {
+        try {
+            VERSION = MethodHandles.lookup().findVarHandle(RevenueLedger.class, "version", long.class);
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    /**
+     * Represents the days that have a place in the ledger and their revenue, or null if no revenue was added.
+     */
+    private volatile Days days;
+    /**
+     * Represents the number of changes of the ledger, counted twice: it is odd while a change is made.
+     */
+    private long version;
+
+    /**
+     * This is the constructor for class RevenueLedger. No memory is reserved until some revenue is added.
+     */
+    public RevenueLedger() { }
+
+    /**
+     * This method adds an amount to the revenue of a day for a type of vehicle.
+     * @param epochDay Represents the day, as the number of days since 1970-01-01.
+     * @param type Represents the type of the vehicle that paid.
+     * @param amount Represents the amount that was paid.
+     */
+    void add(long epochDay, VehicleType type, double amount) {
+        if (amount == 0) {
+            return;
+        }
+
+        long version = beginChange();
+        try {
+            Days days = ensureDay(epochDay);
+            int position = (int) (epochDay - days.firstDay) * TYPES + type.ordinal();
+            REVENUE.setRelease(days.revenue, position, (double) REVENUE.getOpaque(days.revenue, position) + amount);
+            days.revenueTree.add(epochDay, amount);
+        } finally {
+            VERSION.setRelease(this, version + 2);
+        }
+    }
+
+    /**
+     * This method marks the beginning of a change of the ledger, making its version odd before any value is changed.
+     * @return The version of the ledger before the change.
+     */
+    private long beginChange() {
+        long version = (long) VERSION.getOpaque(this);
+
+        VERSION.setOpaque(this, version + 1);
+        VarHandle.storeStoreFence();
+
+        return version;
+    }
+
+    /**
+     * This method returns the revenue of a day for a type of vehicle.
+     * @param epochDay Represents the day, as the number of days since 1970-01-01.
+     * @param type Represents the type of vehicle.
+     * @return The amount paid by the vehicles of that type on that day.
+     */
+    public double getRevenue(long epochDay, VehicleType type) {
+        Days days = this.days;
+
+        if (days == null || !days.contains(epochDay)) {
+            return 0;
+        }
+
+        return (double) REVENUE.getAcquire(days.revenue, (int) (epochDay - days.firstDay) * TYPES + type.ordinal());
+    }
+
+    /**
+     * This method returns the revenue of a day for all types of vehicles.
+     * @param epochDay Represents the day, as the number of days since 1970-01-01.
+     * @return The amount paid on that day.
+     */
+    public double getRevenue(long epochDay) {
+        Days days = this.days;
+
+        if (days == null || !days.contains(epochDay)) {
+            return 0;
+        }
+
+        double total = 0;
+        int position = (int) (epochDay - days.firstDay) * TYPES;
+        for (int i = 0; i < TYPES; i++) {
+            total += (double) REVENUE.getAcquire(days.revenue, position + i);
+        }
+
+        return total;
+    }
+
+    /**
+     * This method returns the revenue of an interval of days for all types of vehicles, from the revenue tree.
+     * It does not wait for the admissions: if the ledger was changed during the read, the revenue is read again.
+     * @param fromDay Represents the first day, as the number of days since 1970-01-01.
+     * @param toDay Represents the last day (included), as the number of days since 1970-01-01.
+     * @return The amount paid between the two days.
+     */
+    public double getRevenue(long fromDay, long toDay) {
+        if (toDay < fromDay) {
+            return 0;
+        }
+
+        while (true) {
+            long version = (long) VERSION.getAcquire(this);
+
+            if ((version & 1) == 0) {
+                Days days = this.days;
+                double revenue = days == null ? 0 : days.revenueTree.getRevenue(fromDay, toDay);
+
+                VarHandle.loadLoadFence();
+                if ((long) VERSION.getOpaque(this) == version) {
+                    return revenue;
+                }
+            }
+            Thread.onSpinWait();
+        }
+    }
+
+    /**
+     * This is the getter for firstDay.
+     * @return The first day that may have revenue, as the number of days since 1970-01-01.
+     */
+    public long getFirstDay() {
+        Days days = this.days;
+
+        return days == null ? 0 : days.firstDay;
+    }
+
+    /**
+     * This method returns the day after the last day that may have revenue.
+     * @return The day after the last day that may have revenue, as the number of days since 1970-01-01.
+     */
+    public long getEndDay() {
+        Days days = this.days;
+
+        return days == null ? 0 : days.firstDay + days.revenue.length / TYPES;
+    }
+
+    /**
+     * This method removes all the revenue, before it is computed again.
+     */
+    void clear() {
+        long version = beginChange();
+
+        days = null;
+        VERSION.setRelease(this, version + 2);
+    }
+
+    /**
+     * This method makes sure that a day has a place in the ledger, moving the days that are already kept
+     * if the new day is before them.
+     * @param epochDay Represents the day, as the number of days since 1970-01-01.
+     * @return The days of the ledger, including the new day.
+     */
+    private Days ensureDay(long epochDay) {
+        Days days = this.days;
+
+        if (days != null && days.contains(epochDay)) {
+            return days;
+        }
+
+        if (days == null) {
+            days = new Days(epochDay - DAY_CHUNK / 2, new double[DAY_CHUNK * TYPES]);
+        } else {
+            int count = days.revenue.length / TYPES;
+
+            if (epochDay < days.firstDay) {
+                int shift = Math.toIntExact(days.firstDay - epochDay + Math.max(DAY_CHUNK, count / 2));
+                double[] moved = new double[(count + shift) * TYPES];
+                System.arraycopy(days.revenue, 0, moved, shift * TYPES, count * TYPES);
+                days = new Days(days.firstDay - shift, moved);
+            } else {
+                count = Math.toIntExact(epochDay - days.firstDay + 1 + Math.max(DAY_CHUNK, count / 2));
+                days = new Days(days.firstDay, Arrays.copyOf(days.revenue, count * TYPES));
+            }
+        }
+
+        this.days = days;
+        return days;
+    }
+
+    /**
+     * The objects of this class keep the first day of the ledger together with the revenue of its days and their
+     * revenue tree, so they are always read together.
+     */
+    private static final class Days {
+        /**
+         * Represents the first day (as the number of days since 1970-01-01) that has a place in revenue.
+         */
+        private final long firstDay;
+        /**
+         * Represents the revenue of each day and type, at position (day - firstDay) * TYPES + ordinal of the type.
+         */
+        private final double[] revenue;
+        /**
+         * Represents the revenue of each day for all the types, used for the revenue of an interval of days.
+         */
+        private final RevenueTree revenueTree;
+
+        /**
+         * This is the constructor for class Days. The revenue tree is built from the revenue of each day.
+         * @param firstDay Represents the first day that has a place in revenue.
+         * @param revenue Represents the revenue of each day and type.
+         */
+        private Days(long firstDay, double[] revenue) {
+            double[] dailyRevenue = new double[revenue.length / TYPES];
+
+            for (int i = 0; i < revenue.length; i++) {
+                dailyRevenue[i / TYPES] += revenue[i];
+            }
+
+            this.firstDay = firstDay;
+            this.revenue = revenue;
+            this.revenueTree = new RevenueTree(firstDay, dailyRevenue);
+        }
+
+        /**
+         * This method checks if a day has a place in revenue.
+         * @param epochDay Represents the day, as the number of days since 1970-01-01.
+         * @return True if the day has a place, false otherwise.
+         */
+        private boolean contains(long epochDay) {
+            return epochDay >= firstDay && epochDay - firstDay < revenue.length / TYPES;
+        }
+    }
+}
@@ -0,0 +1,164 @@
+package uvt;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * The objects of this class represent the revenue of the parking lots of a parking chain for each day of an
+ * interval of days and for each type of vehicle. The report is read from the revenue ledgers of the areas,
+ * which are computed with one pass over the parking intervals of the vehicles (or were already updated by the
+ * admissions), so its cost does not depend on the number of days for which the parking intervals are walked.
+ */
+public class RevenueReport {
+    /**
+     * Represents the number of types of vehicles.
+     */
+    private static final int TYPES = VehicleType.values().length;
+
+    /**
+     * Represents the first day of the report, as the number of days since 1970-01-01.
+     */
+    private final long firstDay;
+    /**
+     * Represents the number of days of the report.
+     */
+    private final int days;
+    /**
+     * Represents the names of the parking lots, in the order of the parking chain.
+     */
+    private final List<String> parkingLotNames;
+    /**
+     * Represents the revenue of each day, parking lot and type, at position
+     * ((day - firstDay) * number of parking lots + parking lot) * TYPES + ordinal of the type.
+     */
+    private final double[] revenue;
+
+    /**
+     * This is the constructor for class RevenueReport. It reads the revenue from the ledgers of the areas.
+     * @param parkingChain Represents the parking chain.
+     * @param fromDay Represents the first day, as the number of days since 1970-01-01.
+     * @param toDay Represents the last day (included), as the number of days since 1970-01-01.
+     */
+    RevenueReport(ParkingChain parkingChain, long fromDay, long toDay) {
+        this.firstDay = fromDay;
+        this.days = Math.toIntExact(Math.max(0, toDay - fromDay + 1));
+
+        List<String> names = new ArrayList<>();
+        for (ParkingLot parkingLot : parkingChain.parkingLotList) {
+            names.add(parkingLot.getName());
+        }
+        this.parkingLotNames = Collections.unmodifiableList(names);
+        this.revenue = new double[days * names.size() * TYPES];
+
+        for (int lot = 0; lot < names.size(); lot++) {
+            for (Area area : parkingChain.parkingLotList.get(lot).getAreaList()) {
+                RevenueLedger revenueLedger = area.getRevenueLedger();
+                long endDay = Math.min(toDay + 1, revenueLedger.getEndDay());
+
+                for (long day = Math.max(fromDay, revenueLedger.getFirstDay()); day < endDay; day++) {
+                    int position = ((int) (day - fromDay) * names.size() + lot) * TYPES;
+
+                    for (VehicleType type : VehicleType.values()) {
+                        revenue[position + type.ordinal()] += revenueLedger.getRevenue(day, type);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * This is the getter for firstDay.
+     * @return The first day of the report.
+     */
+    public LocalDate getFirstDay() {
+        return LocalDate.ofEpochDay(firstDay);
+    }
+
+    /**
+     * This is the getter for days.
+     * @return The number of days of the report.
+     */
+    public int getDays() {
+        return days;
+    }
+
+    /**
+     * This is the getter for parkingLotNames.
+     * @return The names of the parking lots, in the order used by the report.
+     */
+    public List<String> getParkingLotNames() {
+        return parkingLotNames;
+    }
+
+    /**
+     * This method returns the revenue of a parking lot in a day for a type of vehicle.
+     * @param day Represents the index of the day in the report (0 for the first day).
+     * @param parkingLot Represents the index of the parking lot in the report.
+     * @param type Represents the type of vehicle.
+     * @return The amount paid by the vehicles of that type in the parking lot on that day.
+     */
+    public double getRevenue(int day, int parkingLot, VehicleType type) {
+        return revenue[(day * parkingLotNames.size() + parkingLot) * TYPES + type.ordinal()];
+    }
+
+    /**
+     * This method returns the revenue of a parking lot in a day for all types of vehicles.
+     * @param day Represents the index of the day in the report (0 for the first day).
+     * @param parkingLot Represents the index of the parking lot in the report.
+     * @return The amount paid in the parking lot on that day.
+     */
+    public double getRevenue(int day, int parkingLot) {
+        double total = 0;
+
+        for (VehicleType type : VehicleType.values()) {
+            total += getRevenue(day, parkingLot, type);
+        }
+
+        return total;
+    }
+
+    /**
+     * This method returns the revenue of all the parking lots in a day.
+     * @param day Represents the index of the day in the report (0 for the first day).
+     * @return The amount paid in the parking chain on that day.
+     */
+    public double getRevenue(int day) {
+        double total = 0;
+
+        for (int parkingLot = 0; parkingLot < parkingLotNames.size(); parkingLot++) {
+            total += getRevenue(day, parkingLot);
+        }
+
+        return total;
+    }
+
+    /**
+     * This method returns the revenue of a parking lot for all the days of the report.
+     * @param parkingLot Represents the index of the parking lot in the report.
+     * @return The amount paid in the parking lot in the days of the report.
+     */
+    public double getParkingLotRevenue(int parkingLot) {
+        double total = 0;
+
+        for (int day = 0; day < days; day++) {
+            total += getRevenue(day, parkingLot);
+        }
+
+        return total;
+    }
+
+    /**
+     * This methods overrides the toString() method.
+     * @return The representation of an object of type RevenueReport.
+     */
+    @Override
+    public String toString() {
+        return "RevenueReport{" +
+                "firstDay=" + getFirstDay() +
+                ", days=" + days +
+                ", parkingLotNames=" + parkingLotNames +
+                '}';
+    }
+}
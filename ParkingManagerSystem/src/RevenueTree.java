@@ -0,0 +1,114 @@
+package uvt;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+
+/**
+ * The objects of this class keep the revenue of each day of a range of days in a Fenwick (binary indexed) tree,
+ * so the revenue of any interval of days is computed in O(log D) and the revenue of a day is changed in O(log D),
+ * where D is the number of days of the range.
+ * The tree is changed by one thread at a time. A thread that reads it while it may be changed must check that no
+ * change happened during the read, as RevenueLedger does, because a change updates several positions of the tree.
+ */
+public final class RevenueTree {
+    /**
+     * Represents the access to the positions of the tree, so a value written by a change is read whole by the
+     * other threads.
+     */
+    private static final VarHandle TREE = MethodHandles.arrayElementVarHandle(double[].class);
+
+    /**
+     * Represents the first day of the range, as the number of days since 1970-01-01.
+     */
+    private final long firstDay;
+    /**
+     * Represents the Fenwick tree. Position i (starting from 1) keeps the revenue of the days
+     * (i - lowestBit(i), i], counted from firstDay.
+     */
+    private final double[] tree;
+
+    /**
+     * This is the constructor for class RevenueTree. The tree is built in O(D) from the revenue of each day.
+     * @param firstDay Represents the first day of the range, as the number of days since 1970-01-01.
+     * @param dailyRevenue Represents the revenue of each day of the range, starting with firstDay.
+     */
+    public RevenueTree(long firstDay, double[] dailyRevenue) {
+        this.firstDay = firstDay;
+        this.tree = new double[dailyRevenue.length + 1];
+
+        System.arraycopy(dailyRevenue, 0, tree, 1, dailyRevenue.length);
+        for (int i = 1; i < tree.length; i++) {
+            int parent = i + (i & -i);
+
+            if (parent < tree.length) {
+                tree[parent] += tree[i];
+            }
+        }
+    }
+
+    /**
+     * This is the getter for firstDay.
+     * @return The first day of the range, as the number of days since 1970-01-01.
+     */
+    public long getFirstDay() {
+        return firstDay;
+    }
+
+    /**
+     * This method returns the day after the last day of the range.
+     * @return The day after the last day of the range, as the number of days since 1970-01-01.
+     */
+    public long getEndDay() {
+        return firstDay + tree.length - 1;
+    }
+
+    /**
+     * This method checks if a day is part of the range of the tree.
+     * @param epochDay Represents the day, as the number of days since 1970-01-01.
+     * @return True if the revenue of the day can be changed in the tree, false otherwise.
+     */
+    public boolean contains(long epochDay) {
+        return epochDay >= firstDay && epochDay < getEndDay();
+    }
+
+    /**
+     * This method adds an amount to the revenue of a day.
+     * @param epochDay Represents the day, as the number of days since 1970-01-01. It must be part of the range.
+     * @param amount Represents the amount that is added.
+     */
+    void add(long epochDay, double amount) {
+        for (int i = (int) (epochDay - firstDay) + 1; i < tree.length; i += i & -i) {
+            TREE.setOpaque(tree, i, (double) TREE.getOpaque(tree, i) + amount);
+        }
+    }
+
+    /**
+     * This method computes the revenue of an interval of days. The days outside the range have no revenue.
+     * @param fromDay Represents the first day of the interval, as the number of days since 1970-01-01.
+     * @param toDay Represents the last day of the interval (included), as the number of days since 1970-01-01.
+     * @return The revenue of the days between fromDay and toDay.
+     */
+    public double getRevenue(long fromDay, long toDay) {
+        if (toDay < fromDay) {
+            return 0;
+        }
+
+        return prefix(toDay + 1) - prefix(fromDay);
+    }
+
+    /**
+     * This method computes the revenue of the days of the range before a day.
+     * @param endDay Represents the day after the last day that is counted.
+     * @return The revenue of the days between firstDay and endDay (not included).
+     */
+    private double prefix(long endDay) {
+        int count = (int) Math.max(0, Math.min(endDay - firstDay, tree.length - 1));
+        double total = 0;
+
+        for (int i = count; i > 0; i -= i & -i) {
+            total += (double) TREE.getOpaque(tree, i);
+        }
+
+        return total;
+    }
+}
@@ -0,0 +1,74 @@
+package uvt;
+
+/**
+ * The objects of this class describe the result of saving a parking chain to a file: how many lines and bytes
+ * were written and how long it took.
+ */
+public class SaveReport {
+    /**
+     * Represents the number of lines that were written.
+     */
+    private final long lines;
+    /**
+     * Represents the number of bytes that were written.
+     */
+    private final long bytes;
+    /**
+     * Represents the time it took to save the file (including the synchronization with the disk), in nanoseconds.
+     */
+    private final long elapsedNanos;
+
+    /**
+     * This is the constructor for class SaveReport.
+     * @param lines Represents the number of lines that were written.
+     * @param bytes Represents the number of bytes that were written.
+     * @param elapsedNanos Represents the time it took to save the file, in nanoseconds.
+     */
+    public SaveReport(long lines, long bytes, long elapsedNanos) {
+        this.lines = lines;
+        this.bytes = bytes;
+        this.elapsedNanos = elapsedNanos;
+    }
+
+    /**
+     * This is the getter for lines.
+     * @return The number of lines that were written.
+     */
+    public long getLines() {
+        return lines;
+    }
+
+    /**
+     * This is the getter for bytes.
+     * @return The number of bytes that were written.
+     */
+    public long getBytes() {
+        return bytes;
+    }
+
+    /**
+     * This is the getter for elapsedNanos.
+     * @return The time it took to save the file, in nanoseconds.
+     */
+    public long getElapsedNanos() {
+        return elapsedNanos;
+    }
+
+    /**
+     * This method computes the number of bytes written per second.
+     * @return A double representing the throughput in bytes per second.
+     */
+    public double getBytesPerSecond() {
+        return elapsedNanos == 0 ? 0 : bytes * 1e9 / elapsedNanos;
+    }
+
+    /**
+     * This methods overrides the toString() method.
+     * @return The representation of an object of type SaveReport.
+     */
+    @Override
+    public String toString() {
+        return String.format("Saved %d lines (%d bytes) in %.3f s: %.2f MB/s.",
+                lines, bytes, elapsedNanos / 1e9, getBytesPerSecond() / (1024 * 1024));
+    }
+}
@@ -0,0 +1,193 @@
+package uvt;
+
+import java.util.Arrays;
+
+/**
+ * The objects of this class describe the result of a gate simulation: how many vehicles arrived at the gates,
+ * how many of them were admitted or rejected for each type of vehicle, how long it took and how long the
+ * admissions took.
+ */
+public class SimulationReport {
+    /**
+     * Represents the number of gates that sent vehicles.
+     */
+    private final int gates;
+    /**
+     * Represents the number of vehicles that arrived for each type, indexed by the ordinal of the type.
+     */
+    private final long[] arrivals;
+    /**
+     * Represents the number of vehicles that were admitted for each type, indexed by the ordinal of the type.
+     */
+    private final long[] admissions;
+    /**
+     * Represents the number of vehicles that were rejected because the area was full, for each type.
+     */
+    private final long[] fullRejections;
+    /**
+     * Represents the number of vehicles that were rejected for another reason, for each type.
+     */
+    private final long[] otherRejections;
+    /**
+     * Represents the duration of each admission attempt, in nanoseconds, sorted in ascending order.
+     */
+    private final long[] latencies;
+    /**
+     * Represents the time the simulation took, in nanoseconds.
+     */
+    private final long elapsedNanos;
+
+    /**
+     * This is the constructor for class SimulationReport.
+     * @param gates Represents the number of gates that sent vehicles.
+     * @param arrivals Represents the number of vehicles that arrived for each type.
+     * @param admissions Represents the number of vehicles that were admitted for each type.
+     * @param fullRejections Represents the number of vehicles that were rejected because the area was full, for each type.
+     * @param otherRejections Represents the number of vehicles that were rejected for another reason, for each type.
+     * @param latencies Represents the duration of each admission attempt, in nanoseconds, in any order.
+     * @param elapsedNanos Represents the time the simulation took, in nanoseconds.
+     */
+    SimulationReport(int gates, long[] arrivals, long[] admissions, long[] fullRejections, long[] otherRejections, long[] latencies, long elapsedNanos) {
+        this.gates = gates;
+        this.arrivals = arrivals;
+        this.admissions = admissions;
+        this.fullRejections = fullRejections;
+        this.otherRejections = otherRejections;
+        this.latencies = latencies;
+        this.elapsedNanos = elapsedNanos;
+        Arrays.sort(this.latencies);
+    }
+
+    /**
+     * This is the getter for gates.
+     * @return The number of gates that sent vehicles.
+     */
+    public int getGates() {
+        return gates;
+    }
+
+    /**
+     * This method returns the number of vehicles of a type that arrived at the gates.
+     * @param type Represents the type of vehicle.
+     * @return The number of arrivals of that type.
+     */
+    public long getArrivals(VehicleType type) {
+        return arrivals[type.ordinal()];
+    }
+
+    /**
+     * This method returns the number of vehicles that arrived at the gates.
+     * @return The number of arrivals of all types.
+     */
+    public long getArrivals() {
+        return Arrays.stream(arrivals).sum();
+    }
+
+    /**
+     * This method returns the number of vehicles of a type that were admitted.
+     * @param type Represents the type of vehicle.
+     * @return The number of admissions of that type.
+     */
+    public long getAdmissions(VehicleType type) {
+        return admissions[type.ordinal()];
+    }
+
+    /**
+     * This method returns the number of vehicles that were admitted.
+     * @return The number of admissions of all types.
+     */
+    public long getAdmissions() {
+        return Arrays.stream(admissions).sum();
+    }
+
+    /**
+     * This method returns the number of vehicles of a type that were rejected because the area was full.
+     * @param type Represents the type of vehicle.
+     * @return The number of rejections of that type because of the capacity.
+     */
+    public long getFullRejections(VehicleType type) {
+        return fullRejections[type.ordinal()];
+    }
+
+    /**
+     * This method returns the number of vehicles of a type that were rejected for another reason than the capacity.
+     * @param type Represents the type of vehicle.
+     * @return The number of other rejections of that type.
+     */
+    public long getOtherRejections(VehicleType type) {
+        return otherRejections[type.ordinal()];
+    }
+
+    /**
+     * This method computes the part of the vehicles of a type that were rejected.
+     * @param type Represents the type of vehicle.
+     * @return A double between 0 and 1 representing the rejection rate of that type.
+     */
+    public double getRejectionRate(VehicleType type) {
+        long arrivals = getArrivals(type);
+
+        return arrivals == 0 ? 0 : (double) (getFullRejections(type) + getOtherRejections(type)) / arrivals;
+    }
+
+    /**
+     * This method computes the part of the vehicles that were rejected.
+     * @return A double between 0 and 1 representing the rejection rate of all types.
+     */
+    public double getRejectionRate() {
+        long arrivals = getArrivals();
+
+        return arrivals == 0 ? 0 : (double) (arrivals - getAdmissions()) / arrivals;
+    }
+
+    /**
+     * This is the getter for elapsedNanos.
+     * @return The time the simulation took, in nanoseconds.
+     */
+    public long getElapsedNanos() {
+        return elapsedNanos;
+    }
+
+    /**
+     * This method computes the number of admissions per second.
+     * @return A double representing the admission throughput of all the gates.
+     */
+    public double getAdmissionsPerSecond() {
+        return elapsedNanos == 0 ? 0 : getAdmissions() * 1e9 / elapsedNanos;
+    }
+
+    /**
+     * This method returns a percentile of the duration of the admission attempts (admitted or rejected).
+     * @param percentile Represents the percentile, between 0 and 100 (for example 99.9).
+     * @return The duration, in nanoseconds, that is not exceeded by that percent of the attempts.
+     */
+    public long getLatencyPercentile(double percentile) {
+        if (latencies.length == 0) {
+            return 0;
+        }
+
+        int rank = (int) Math.ceil(percentile / 100 * latencies.length);
+
+        return latencies[Math.min(latencies.length - 1, Math.max(0, rank - 1))];
+    }
+
+    /**
+     * This methods overrides the toString() method.
+     * @return The representation of an object of type SimulationReport.
+     */
+    @Override
+    public String toString() {
+        StringBuilder builder = new StringBuilder(String.format(
+                "%d gates, %d arrivals, %d admitted in %.3f s: %.0f admissions/s, %.1f%% rejected%n",
+                gates, getArrivals(), getAdmissions(), elapsedNanos / 1e9, getAdmissionsPerSecond(), getRejectionRate() * 100));
+
+        for (VehicleType type : VehicleType.values()) {
+            builder.append(String.format(" - %s: %d arrivals, %d full, %d other, %.1f%% rejected%n",
+                    type.toString().toLowerCase(), getArrivals(type), getFullRejections(type), getOtherRejections(type),
+                    getRejectionRate(type) * 100));
+        }
+
+        return builder.append(String.format("latency p50=%.1f us, p90=%.1f us, p99=%.1f us, p99.9=%.1f us, max=%.1f us",
+                getLatencyPercentile(50) / 1e3, getLatencyPercentile(90) / 1e3, getLatencyPercentile(99) / 1e3,
+                getLatencyPercentile(99.9) / 1e3, getLatencyPercentile(100) / 1e3)).toString();
+    }
+}
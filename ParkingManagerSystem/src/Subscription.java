@@ -15,14 +15,38 @@ public class Subscription {
      * Represents the price paid for the subscription.
      */
     private final double price;
+    /**
+     * Represents the day on which the subscription was bought, as the number of days since 1970-01-01.
+     */
+    private final long boughtDay;
+    /**
+     * Represents the first minute (in epoch minutes) in which the subscription is valid.
+     */
+    private final long validFrom;
+    /**
+     * Represents the last minute (in epoch minutes) in which the subscription is valid.
+     */
+    private final long validUntil;
 
     /**
      * This is the constructor for class Subscription. It sets the price of a subscription equal to 130.
+     * The days and minutes in which the subscription is valid are computed once, so the billing does not
+     * create dates for each parking interval.
      * @param boughtTime The date on with the subscription was bought.
      */
     public Subscription(LocalDateTime boughtTime) {
         this.boughtTime = boughtTime;
         this.price = 130;
+
+        if (boughtTime != null) {
+            this.boughtDay = boughtTime.toLocalDate().toEpochDay();
+            this.validFrom = EpochMinutes.ceilOf(boughtTime);
+            this.validUntil = EpochMinutes.of(boughtTime.plusDays(30));
+        } else {
+            this.boughtDay = Long.MIN_VALUE;
+            this.validFrom = Long.MAX_VALUE;
+            this.validUntil = Long.MIN_VALUE;
+        }
     }
 
     /**
@@ -33,6 +57,14 @@ public class Subscription {
         return boughtTime;
     }
 
+    /**
+     * This is the getter for boughtDay.
+     * @return The day on which the subscription was bought, as the number of days since 1970-01-01.
+     */
+    public long getBoughtDay() {
+        return boughtDay;
+    }
+
     /**
      * This is the getter for the price;
      * @return A double representing the price of the subscription.
@@ -55,6 +87,15 @@ public class Subscription {
         return false;
     }
 
+    /**
+     * This method checks if the subscription is valid at a certain minute, without creating dates.
+     * @param epochMinute The minute (in epoch minutes) on which is checked if the subscription is still valid.
+     * @return A boolean representing if the subscription is valid or not.
+     */
+    public boolean isValid(long epochMinute) {
+        return epochMinute >= validFrom && epochMinute <= validUntil;
+    }
+
     /**
      * This methods overrides the toString() method.
      * @return The the representation of an object of type Subscription
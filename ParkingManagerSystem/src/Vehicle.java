@@ -3,10 +3,11 @@ package uvt;
 import uvt.Exceptions.InvalidVehicleTypeException;
 import uvt.Vehicles.*;
 
-import java.time.Duration;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
 import java.util.ArrayList;
-import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 
@@ -28,7 +29,9 @@ public abstract class Vehicle {
 
     /**
      * Represents the number of times the vehicle parked in the parking chain. It is used
-     * to give a discount for the vehicle at the 10th parking.
+     * to give a discount for the vehicle at the 10th parking. When the vehicle is parked in
+     * several areas of a parking chain, the parkings are counted only on the vehicle of the
+     * first area (the canonical vehicle of the PlateIndex) and the other ones keep 0.
      */
     private int parkingEntrances;
 
@@ -50,9 +53,15 @@ public abstract class Vehicle {
     protected VehicleType type;
 
     /**
-     * Represents the parking intervals for the car in each day.
+     * Represents the parking intervals of the car, sorted by their entry.
      */
-    private final Map<String, List<uvt.ParkingInterval>> parkingIntervals = new HashMap<>();
+    private final IntervalStore parkingIntervals = new IntervalStore();
+
+    /**
+     * Represents the parking intervals that were not decoded yet from a mapped snapshot, or null if all the
+     * parking intervals are in parkingIntervals.
+     */
+    private volatile LazyHistory lazyHistory;
 
     /**
      * This is an empty constructor for class Vehicle.
@@ -116,35 +125,131 @@ public abstract class Vehicle {
      * This is the getter for parkingEntrances.
      *
      * @return An integer representing the number of times tge vehicle parked
-     * in the parking chain.
+     * in the parking chain, or 0 if the vehicle is not the canonical vehicle of its
+     * license plate (the record returned by ParkingChain.findVehicle() has the number
+     * for the whole parking chain).
      */
     public int getParkingEntrances() {
         return parkingEntrances;
     }
 
     /**
-     * This is the getter for parkingIntervals.
+     * This is the setter for parkingEntrances. It is used when the number of parkings is counted again.
+     * @param parkingEntrances Represents the new number of times the vehicle parked in the parking chain.
+     */
+    void setParkingEntrances(int parkingEntrances) {
+        this.parkingEntrances = parkingEntrances;
+    }
+
+    /**
+     * This method returns the parking intervals of the car in each day. The map is a copy built from the
+     * interval store, with the days and the intervals of each day in chronological order, so changing it
+     * does not change the vehicle.
      *
-     * @return A map representing the parkingIntervalsMap.
-     * in which the car was parked each day.
+     * @return A map representing the parking intervals in which the car was parked each day.
      */
     public Map<String, List<uvt.ParkingInterval>> getParkingIntervals() {
+        IntervalStore intervals = getIntervals();
+        Map<String, List<uvt.ParkingInterval>> parkingIntervalsMap = new LinkedHashMap<>();
+
+        for (int i = 0; i < intervals.size(); i++) {
+            uvt.ParkingInterval parkingInterval = intervals.get(i);
+            parkingIntervalsMap.computeIfAbsent(parkingInterval.getEntry().toLocalDate().toString(), date -> new ArrayList<>()).add(parkingInterval);
+        }
+
+        return parkingIntervalsMap;
+    }
+
+    /**
+     * This is the getter for parkingIntervals.
+     * @return The interval store with the parking intervals of the car, sorted by their entry.
+     */
+    public IntervalStore getIntervals() {
+        hydrate();
         return parkingIntervals;
     }
 
+    /**
+     * This method sets the parking intervals that will be decoded from a mapped snapshot the first time they are needed.
+     * @param lazyHistory Represents the parking intervals that were not decoded yet.
+     */
+    void setLazyHistory(LazyHistory lazyHistory) {
+        this.lazyHistory = lazyHistory;
+    }
+
+    /**
+     * This method checks if the parking intervals of the vehicle were decoded.
+     * @return True if all the parking intervals are in memory, false if some are still in a mapped snapshot.
+     */
+    public boolean isHydrated() {
+        return lazyHistory == null;
+    }
+
+    /**
+     * This method decodes the parking intervals that are still in a mapped snapshot, before they are used.
+     */
+    private void hydrate() {
+        if (lazyHistory == null) {
+            return;
+        }
+
+        synchronized (this) {
+            LazyHistory history = lazyHistory;
+
+            if (history != null) {
+                history.hydrate(this);
+                lazyHistory = null;
+            }
+        }
+    }
+
     /**
      * This method adds a parking interval to the list of parking intervals of a car.
      * @param entry Represents the time the vehicle entries the parking lot.
      * @param exit Represents the time the vehicle exits the parking lot.
      */
     public void addParkingInterval(LocalDateTime entry, LocalDateTime exit) {
-        String date = entry.toLocalDate().toString();
+        addParkingInterval(EpochMinutes.of(entry), EpochMinutes.of(exit), false);
+    }
 
-        if (!parkingIntervals.containsKey(date)) {
-            parkingIntervals.put(date, new ArrayList<>());
-        }
+    /**
+     * This method adds a parking interval to the list of parking intervals of a car.
+     * @param entryMinute Represents the time the vehicle entries the parking lot, in epoch minutes.
+     * @param exitMinute Represents the time the vehicle exits the parking lot, in epoch minutes.
+     * @param discount Represents the fact that the parking gets the discount of the 10th parking.
+     */
+    void addParkingInterval(long entryMinute, long exitMinute, boolean discount) {
+        hydrate();
+        parkingIntervals.add(entryMinute, exitMinute, discount);
+    }
 
-        parkingIntervals.get(date).add(new uvt.ParkingInterval(entry, exit));
+    /**
+     * This method adds a parking interval decoded from a mapped snapshot, without decoding the other ones.
+     * @param entryMinute Represents the time the vehicle entries the parking lot, in epoch minutes.
+     * @param exitMinute Represents the time the vehicle exits the parking lot, in epoch minutes.
+     * @param discount Represents the fact that the parking gets the discount of the 10th parking.
+     */
+    void addDecodedInterval(long entryMinute, long exitMinute, boolean discount) {
+        parkingIntervals.add(entryMinute, exitMinute, discount);
+    }
+
+    /**
+     * This method sets the discount of a parking interval. It is used when the parkings are counted again.
+     * If the vehicle has several equal parking intervals, the first one whose discount is different is changed,
+     * so each call changes one of them.
+     * @param entryMinute Represents the time the vehicle entries the parking lot, in epoch minutes.
+     * @param exitMinute Represents the time the vehicle exits the parking lot, in epoch minutes.
+     * @param discount Represents the fact that the parking gets the discount of the 10th parking.
+     */
+    void setDiscount(long entryMinute, long exitMinute, boolean discount) {
+        hydrate();
+
+        for (int i = parkingIntervals.indexOf(entryMinute, exitMinute); i >= 0 && i < parkingIntervals.size() && parkingIntervals.getEntry(i) == entryMinute; i++) {
+            if (parkingIntervals.getExit(i) == exitMinute && parkingIntervals.hasDiscount(i) != discount) {
+                parkingIntervals.setDiscount(i, discount);
+                return;
+            }
+        }
     }
 
     /**
@@ -168,34 +273,75 @@ public abstract class Vehicle {
      * @return A double representing the amount of money that was paid.
      */
     public double parkingCost(String data) {
+        long epochDay;
+
+        try {
+            epochDay = LocalDate.parse(data).toEpochDay();
+        } catch (DateTimeParseException e) {
+            return 0;
+        }
+
+        return parkingCost(epochDay);
+    }
+
+    /**
+     * This computes the total amount of money that must be paid for the parking intervals in a day, like
+     * parkingCost(String), without creating objects. The intervals of the day are found in the interval store,
+     * the hours are rounded up from the number of minutes and the subscription is checked against its
+     * validity window in epoch minutes.
+     *
+     * @param epochDay Represents the day in which the parking cost will be computed, as the number of days
+     *                 since 1970-01-01.
+     * @return A double representing the amount of money that was paid.
+     */
+    public double parkingCost(long epochDay) {
+        hydrate();
         double amount = 0;
 
-        if (subscription != null) {
-            if (String.valueOf(subscription.getBoughtTime().toLocalDate()).equals(data)) {
-                amount += subscription.getPrice();
-            }
+        if (subscription != null && subscription.getBoughtDay() == epochDay) {
+            amount += subscription.getPrice();
         }
 
-        if (parkingIntervals.containsKey(data)) {
-            for (uvt.ParkingInterval parkingInterval : parkingIntervals.get(data)) {
-                Duration duration = Duration.between(parkingInterval.getEntry(), parkingInterval.getExit());
-                long hours = duration.toHours();
-
-                if (duration.toMinutesPart() > 0) {
-                    hours++;
-                }
-                if (this.subscription == null || !subscription.isValid(parkingInterval.getEntry())) {
-                    if (parkingInterval.hasDiscount()) {
-                        amount += (parkingPriceHour - discount) * hours;
-                    } else {
-                        amount += parkingPriceHour * hours;
-                    }
-                }
-            }
+        for (int i = parkingIntervals.firstOfDay(epochDay), end = parkingIntervals.endOfDay(epochDay); i < end; i++) {
+            amount += intervalCost(parkingIntervals.getEntry(i), parkingIntervals.getDuration(i), parkingIntervals.hasDiscount(i));
         }
         return amount;
     }
 
+    /**
+     * This method computes the amount of money that must be paid for one parking interval. Nothing is paid
+     * if the subscription of the vehicle is valid at the entry.
+     * @param entryMinute Represents the entry, in epoch minutes.
+     * @param minutes Represents the duration of the parking interval, in minutes.
+     * @param hasDiscount Represents the fact that the parking gets the discount of the 10th parking.
+     * @return A double representing the amount of money that is paid for the parking interval.
+     */
+    double intervalCost(long entryMinute, int minutes, boolean hasDiscount) {
+        if (subscription != null && subscription.isValid(entryMinute)) {
+            return 0;
+        }
+
+        long hours = (minutes + 59) / 60;
+        return hasDiscount ? (parkingPriceHour - discount) * hours : parkingPriceHour * hours;
+    }
+
+    /**
+     * This method adds all the amounts paid by the vehicle (the subscription and each parking interval)
+     * to a revenue ledger, on the day on which they were paid.
+     * @param revenueLedger Represents the ledger of the area of the vehicle.
+     */
+    void addRevenue(RevenueLedger revenueLedger) {
+        hydrate();
+
+        if (subscription != null) {
+            revenueLedger.add(subscription.getBoughtDay(), type, subscription.getPrice());
+        }
+        for (int i = 0; i < parkingIntervals.size(); i++) {
+            long entryMinute = parkingIntervals.getEntry(i);
+            revenueLedger.add(EpochMinutes.toEpochDay(entryMinute), type, intervalCost(entryMinute, parkingIntervals.getDuration(i), parkingIntervals.hasDiscount(i)));
+        }
+    }
+
     /**
      * This method returns the type of a vehicle.
      * @param carType Represents the string representation of the type.
@@ -234,6 +380,21 @@ public abstract class Vehicle {
         return vehicle;
     }
 
+    /**
+     * This method creates an object of a class that extends class Vehicle based on its type.
+     * @param type Represents the type of the vehicle.
+     * @return An object of one of the classes that extend class Vehicle.
+     */
+    public static Vehicle getVehicleObject(VehicleType type) {
+        return switch (type) {
+            case MOTORCYCLE -> new Motorcycle();
+            case CAR -> new Car();
+            case VAN -> new Van();
+            case BUS -> new Bus();
+            case TRUCK -> new Truck();
+        };
+    }
+
     /**
      * This methods overrides the toString() method.
      *
@@ -247,7 +408,7 @@ public abstract class Vehicle {
                 ", discount=" + discount +
                 ", parkingPriceHour=" + parkingPriceHour +
                 ", type=" + type +
-                ", parkingIntervals=" + parkingIntervals +
+                ", parkingIntervals=" + getParkingIntervals() +
                 '}';
     }
 }
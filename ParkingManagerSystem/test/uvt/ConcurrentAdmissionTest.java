@@ -0,0 +1,220 @@
+package uvt;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * This test admits vehicles from several gates into different areas of one parking lot at the same time, while
+ * another thread reads the gain of the parking lot. It checks that each area takes exactly its capacity and that
+ * the gain is the same as when the admitted vehicles are added by a single thread.
+ * It is run with: java -cp out uvt.ConcurrentAdmissionTest
+ */
+public class ConcurrentAdmissionTest {
+    /**
+     * Represents the number of areas of the parking lot.
+     */
+    private static final int AREAS = 8;
+    /**
+     * Represents the number of gates that admit vehicles in each area.
+     */
+    private static final int GATES_PER_AREA = 2;
+    /**
+     * Represents the number of vehicles that each gate tries to admit.
+     */
+    private static final int ATTEMPTS_PER_GATE = 400;
+    /**
+     * Represents the number of parking places of each area for cars.
+     */
+    private static final int CAPACITY = 500;
+    /**
+     * Represents the number of days before today on which the first vehicle enters.
+     */
+    private static final int DAYS = 6;
+
+    /**
+     * The objects of this class keep an admitted vehicle, so it can be admitted again in another parking chain.
+     */
+    private static final class Admission {
+        /**
+         * Represents the name of the area of the vehicle.
+         */
+        private final String area;
+        /**
+         * Represents the license plate of the vehicle.
+         */
+        private final String licensePlate;
+        /**
+         * Represents the time when the vehicle enters the area.
+         */
+        private final LocalDateTime entry;
+
+        /**
+         * This is the constructor for class Admission.
+         * @param area Represents the name of the area of the vehicle.
+         * @param licensePlate Represents the license plate of the vehicle.
+         * @param entry Represents the time when the vehicle enters the area.
+         */
+        private Admission(String area, String licensePlate, LocalDateTime entry) {
+            this.area = area;
+            this.licensePlate = licensePlate;
+            this.entry = entry;
+        }
+    }
+
+    /**
+     * This method builds a parking chain with one parking lot whose areas have parking places only for cars.
+     * @return The parking chain.
+     */
+    private static ParkingChain build() {
+        ParkingChain parkingChain = new ParkingChain();
+        ParkingLot parkingLot = new ParkingLot("Lot", GATES_PER_AREA * AREAS);
+        Map<VehicleType, Integer> capacity = new EnumMap<>(VehicleType.class);
+        capacity.put(VehicleType.CAR, CAPACITY);
+
+        parkingChain.addParkingLot(parkingLot);
+        for (int i = 0; i < AREAS; i++) {
+            parkingChain.addArea(parkingLot, new Area("Area" + i, capacity));
+        }
+
+        return parkingChain;
+    }
+
+    /**
+     * This method throws an error if a condition is false.
+     * @param condition Represents the condition.
+     * @param message Represents the message of the error.
+     */
+    private static void check(boolean condition, String message) {
+        if (!condition) {
+            throw new AssertionError(message);
+        }
+    }
+
+    /**
+     * This is the main method. It runs the test and prints its result.
+     * @param args The arguments are not used.
+     * @throws InterruptedException It is thrown when the test is interrupted while it waits for the gates.
+     */
+    public static void main(String[] args) throws InterruptedException {
+        ParkingChain parkingChain = build();
+        ParkingLot parkingLot = parkingChain.getParkingLot("Lot");
+        LocalDateTime firstEntry = LocalDate.now().minusDays(DAYS).atStartOfDay();
+        LocalDateTime exit = LocalDateTime.now().plusDays(2);
+        long fromDay = firstEntry.toLocalDate().toEpochDay();
+        long toDay = exit.toLocalDate().toEpochDay();
+
+        check(parkingLot.getGain(fromDay, toDay) == 0, "the parking lot has a gain before any admission");
+
+        List<List<Admission>> admitted = new ArrayList<>();
+        List<Thread> gates = new ArrayList<>();
+        CountDownLatch start = new CountDownLatch(1);
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+
+        for (int i = 0; i < AREAS * GATES_PER_AREA; i++) {
+            Area area = parkingLot.getAreaList().get(i % AREAS);
+            String gate = "G" + i;
+            List<Admission> gateAdmitted = new ArrayList<>();
+            admitted.add(gateAdmitted);
+
+            gates.add(new Thread(() -> {
+                try {
+                    start.await();
+                    for (int j = 0; j < ATTEMPTS_PER_GATE; j++) {
+                        String licensePlate = gate + "-" + j;
+                        LocalDateTime entry = firstEntry.plusMinutes(j * 17L);
+
+                        if (parkingChain.tryAdmit(parkingLot, area, licensePlate, Vehicle.getVehicleObject(VehicleType.CAR), entry, exit) == AdmissionStatus.ADMITTED) {
+                            gateAdmitted.add(new Admission(area.getName(), licensePlate, entry));
+                        }
+                    }
+                } catch (Throwable e) {
+                    failure.compareAndSet(null, e);
+                }
+            }));
+        }
+
+        AtomicBoolean running = new AtomicBoolean(true);
+        int[] reads = new int[1];
+        Thread reader = new Thread(() -> {
+            double previous = 0;
+
+            while (running.get()) {
+                double gain = parkingLot.getGain(fromDay, toDay);
+
+                if (gain < previous - 1e-6) {
+                    failure.compareAndSet(null, new AssertionError("the gain went down from " + previous + " to " + gain));
+                }
+                previous = gain;
+                reads[0]++;
+            }
+        });
+
+        gates.forEach(Thread::start);
+        reader.start();
+        start.countDown();
+        for (Thread gate : gates) {
+            gate.join();
+        }
+        running.set(false);
+        reader.join();
+
+        if (failure.get() != null) {
+            throw new AssertionError("an admission or a read failed", failure.get());
+        }
+
+        int admissions = 0;
+        for (List<Admission> gateAdmitted : admitted) {
+            admissions += gateAdmitted.size();
+        }
+        check(admissions == AREAS * CAPACITY, admissions + " vehicles were admitted instead of " + AREAS * CAPACITY);
+
+        for (Area area : parkingLot.getAreaList()) {
+            check(area.getCurrentCapacity(VehicleType.CAR) == CAPACITY, area.getName() + " uses "
+                    + area.getCurrentCapacity(VehicleType.CAR) + " parking places instead of " + CAPACITY);
+            check(area.getVehiclePlatesMap().size() == CAPACITY, area.getName() + " has "
+                    + area.getVehiclePlatesMap().size() + " vehicles instead of " + CAPACITY);
+        }
+
+        Area fullArea = parkingLot.getAreaList().get(0);
+        long rejections = fullArea.getMetrics().getRejections();
+        AdmissionStatus reversed = parkingChain.tryAdmit(parkingLot, fullArea, "REVERSED", Vehicle.getVehicleObject(VehicleType.CAR), exit, firstEntry);
+        check(reversed == AdmissionStatus.BAD_INTERVAL, "a reversed interval in a full area gives " + reversed + " instead of BAD_INTERVAL");
+        check(fullArea.getMetrics().getRejections() == rejections, "a reversed interval is counted as a capacity rejection");
+
+        Admission first = admitted.get(0).get(0);
+        Area otherArea = parkingLot.getAreaList().get(1);
+        AdmissionStatus wrongType = parkingChain.tryAdmit(parkingLot, otherArea, first.licensePlate, Vehicle.getVehicleObject(VehicleType.BUS), exit, exit.plusHours(1));
+        check(wrongType == AdmissionStatus.WRONG_TYPE, "a car admitted again as a bus gives " + wrongType + " instead of WRONG_TYPE");
+        check(!otherArea.getVehiclePlatesMap().containsKey(first.licensePlate), "a car admitted again as a bus was added to " + otherArea.getName());
+        check(parkingChain.findVehicle(first.licensePlate).getAreas().size() == 1, "a car admitted again as a bus was moved to " + otherArea.getName());
+
+        ParkingChain sequential = build();
+        ParkingLot sequentialLot = sequential.getParkingLot("Lot");
+        for (List<Admission> gateAdmitted : admitted) {
+            for (Admission admission : gateAdmitted) {
+                AdmissionStatus status = sequential.tryAdmit(sequentialLot, sequentialLot.getArea(admission.area), admission.licensePlate,
+                        Vehicle.getVehicleObject(VehicleType.CAR), admission.entry, exit);
+                check(status == AdmissionStatus.ADMITTED, admission.licensePlate + " was not admitted again: " + status);
+            }
+        }
+
+        double expected = sequentialLot.getGain(fromDay, toDay);
+        double gain = parkingLot.getGain(fromDay, toDay);
+        check(expected > 0, "the admitted vehicles have no gain");
+        check(Math.abs(gain - expected) < 1e-6, "the gain is " + gain + " instead of " + expected);
+        check(Math.abs(parkingLot.getRevenueTree().getRevenue(fromDay, toDay) - expected) < 1e-6, "the revenue tree does not have the gain " + expected);
+
+        for (long day = fromDay; day <= toDay; day++) {
+            check(Math.abs(parkingLot.getGain(day, day) - parkingLot.getGain(day)) < 1e-6, "the gain of day " + day + " is not the gain of its interval");
+        }
+
+        System.out.println("ConcurrentAdmissionTest passed (" + reads[0] + " gain reads during the admissions)");
+    }
+}
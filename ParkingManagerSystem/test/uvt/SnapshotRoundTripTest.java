@@ -0,0 +1,246 @@
+package uvt;
+
+import uvt.Exceptions.InvalidAreaNameException;
+import uvt.Exceptions.InvalidParkingIntervalException;
+import uvt.Exceptions.InvalidParkingLotNameException;
+import uvt.Exceptions.InvalidVehicleTypeException;
+import uvt.Exceptions.MaximumCapacityReachedException;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Comparator;
+import java.util.stream.Stream;
+
+/**
+ * This test saves generated parking chains and loads them again, checking that the gain of each day does not
+ * change. The license plates park more than ten times, so the discount of each 10th parking must be kept by
+ * the files. It is run with: java -cp out uvt.SnapshotRoundTripTest
+ */
+public class SnapshotRoundTripTest {
+    /**
+     * Represents the first day of the generated parking intervals.
+     */
+    private static final LocalDate FIRST_DAY = LocalDate.of(2023, 11, 1);
+    /**
+     * Represents the number of days of the generated parking intervals.
+     */
+    private static final int DAYS = 30;
+
+    /**
+     * This method generates a parking chain file and loads it.
+     * @param directory Represents the directory in which the file is generated.
+     * @param name Represents the name of the file.
+     * @param sharedPlates Represents the number of license plates shared by the parking chain, or 0.
+     * @param intervalsPerPlate Represents the number of parking intervals of each license plate in an area.
+     * @return The loaded parking chain.
+     * @throws IOException It is thrown when the file can not be written or read.
+     */
+    private static ParkingChain generate(Path directory, String name, int sharedPlates, int intervalsPerPlate) throws IOException {
+        ChainGenerator generator = new ChainGenerator();
+        generator.setParkingLots(3);
+        generator.setAreasPerLot(4);
+        generator.setPlatesPerArea(200);
+        generator.setSharedPlates(sharedPlates);
+        generator.setIntervalsPerPlate(intervalsPerPlate);
+        generator.setCapacity(new int[] {1000, 1000, 1000, 1000, 1000});
+        generator.setDateSpan(FIRST_DAY, DAYS);
+
+        Path file = directory.resolve(name);
+        generator.generate(file.toString());
+
+        ParkingChain parkingChain = new ParkingChain();
+        check(parkingChain.loadParkingChainFile(file.toString()).getErrorCount() == 0, name + " was not loaded without errors");
+
+        return parkingChain;
+    }
+
+    /**
+     * This method computes the gain of the parking chain in each generated day.
+     * @param parkingChain Represents the parking chain.
+     * @return The gain of each day.
+     */
+    private static double[] gains(ParkingChain parkingChain) {
+        double[] gains = new double[DAYS];
+
+        for (int i = 0; i < DAYS; i++) {
+            gains[i] = parkingChain.getGain(FIRST_DAY.plusDays(i).toEpochDay());
+        }
+
+        return gains;
+    }
+
+    /**
+     * This method checks that the gain of each day of a parking chain is the expected one.
+     * @param expected Represents the gain of each day before the parking chain was saved.
+     * @param parkingChain Represents the parking chain that was loaded again.
+     * @param description Represents the description of the check, used in the error.
+     */
+    private static void checkGains(double[] expected, ParkingChain parkingChain, String description) {
+        double[] actual = gains(parkingChain);
+
+        for (int i = 0; i < DAYS; i++) {
+            check(Math.abs(expected[i] - actual[i]) < 1e-6, description + ": the gain of " + FIRST_DAY.plusDays(i)
+                    + " is " + actual[i] + " instead of " + expected[i]);
+        }
+    }
+
+    /**
+     * This method throws an error if a condition is false.
+     * @param condition Represents the condition.
+     * @param message Represents the message of the error.
+     */
+    private static void check(boolean condition, String message) {
+        if (!condition) {
+            throw new AssertionError(message);
+        }
+    }
+
+    /**
+     * This method saves a parking chain in each format and loads it again, checking the gains.
+     * @param directory Represents the directory in which the files are written.
+     * @param name Represents the name of the parking chain.
+     * @param parkingChain Represents the parking chain.
+     * @throws IOException It is thrown when a file can not be written or read.
+     */
+    private static void checkRoundTrips(Path directory, String name, ParkingChain parkingChain) throws IOException {
+        double[] expected = gains(parkingChain);
+
+        String text = directory.resolve(name + ".saved.txt").toString();
+        parkingChain.saveParkingChainFile(text);
+
+        ParkingChain reloaded = new ParkingChain();
+        check(reloaded.loadParkingChainFile(text).getErrorCount() == 0, name + ": the saved file has errors");
+        checkGains(expected, reloaded, name + " (text file)");
+
+        ParkingChain parallel = new ParkingChain();
+        check(parallel.loadParkingChainFileParallel(text, 4).getErrorCount() == 0, name + ": the saved file has errors");
+        checkGains(expected, parallel, name + " (text file, parallel load)");
+
+        String binary = directory.resolve(name + ".snapshot").toString();
+        parkingChain.saveBinarySnapshot(binary);
+
+        ParkingChain snapshot = new ParkingChain();
+        check(snapshot.loadBinarySnapshot(binary).getErrorCount() == 0, name + ": the snapshot has errors");
+        checkGains(expected, snapshot, name + " (binary snapshot)");
+
+        ParkingChain mapped = new ParkingChain();
+        check(mapped.loadMappedSnapshot(binary).getErrorCount() == 0, name + ": the snapshot has errors");
+        checkGains(expected, mapped, name + " (mapped snapshot)");
+    }
+
+    /**
+     * This method admits a license plate more than ten times, not in the order of the entries, and saves the
+     * parking chain in a text file. The file must keep the six fields of the vehicle lines of the original format
+     * and the gains must not change when it is loaded again.
+     * @param directory Represents the directory in which the file is written.
+     * @throws IOException It is thrown when the file can not be written or read.
+     * @throws MaximumCapacityReachedException It is thrown when the maximum capacity of the area is reached.
+     * @throws InvalidParkingIntervalException It is thrown when the exit is before the entry.
+     * @throws InvalidVehicleTypeException It is thrown when the vehicle was parked with another type.
+     */
+    private static void checkOriginalFormat(Path directory) throws IOException, MaximumCapacityReachedException, InvalidParkingIntervalException, InvalidVehicleTypeException {
+        ParkingChain parkingChain = new ParkingChain();
+        ParkingLot parkingLot = new ParkingLot("Lot", 1);
+        Area area = new Area("Area");
+        area.setMaxCapacity(new int[] {10, 10, 10, 10, 10});
+        parkingChain.addParkingLot(parkingLot);
+        parkingChain.addArea(parkingLot, area);
+
+        for (int i = 12; i > 0; i--) {
+            LocalDateTime entry = FIRST_DAY.plusDays(i).atTime(8, 0);
+            parkingChain.addVehicle(parkingLot, area, "ORDER", Vehicle.getVehicleObject(VehicleType.CAR), entry, entry.plusHours(5));
+        }
+
+        double[] expected = gains(parkingChain);
+        Path file = directory.resolve("original.txt");
+        parkingChain.saveParkingChainFile(file.toString());
+
+        for (String line : Files.readAllLines(file)) {
+            check(!line.startsWith("vehicle,") || line.split(",").length == 6, "the line '" + line + "' does not have six fields");
+        }
+
+        ParkingChain reloaded = new ParkingChain();
+        check(reloaded.loadParkingChainFile(file.toString()).getErrorCount() == 0, "the file in the original format has errors");
+        checkGains(expected, reloaded, "original format");
+    }
+
+    /**
+     * This method keeps the changes of a parking chain in a journal and restores it, checking the gains. A license
+     * plate is admitted twice for the same parking interval and enough times to get a discount. The journal is
+     * then compacted and restored again as if the compaction had crashed before deleting the old journal.
+     * @param directory Represents the directory in which the files are written.
+     * @param generated Represents the generated parking chain file, used as the first snapshot.
+     * @throws IOException It is thrown when a file can not be written or read.
+     * @throws InvalidParkingLotNameException It is thrown when the parking lot of a vehicle does not exist.
+     * @throws InvalidAreaNameException It is thrown when the area of a vehicle does not exist.
+     * @throws MaximumCapacityReachedException It is thrown when the maximum capacity of the area is reached.
+     * @throws InvalidParkingIntervalException It is thrown when the exit is before the entry.
+     * @throws InvalidVehicleTypeException It is thrown when a vehicle was parked with another type.
+     */
+    private static void checkJournal(Path directory, Path generated) throws IOException, InvalidParkingLotNameException, InvalidAreaNameException, MaximumCapacityReachedException, InvalidParkingIntervalException, InvalidVehicleTypeException {
+        Path snapshot = directory.resolve("journal.txt");
+        Path journal = directory.resolve("journal.txt.journal");
+        Files.copy(generated, snapshot);
+
+        ParkingChain parkingChain = new ParkingChain();
+        check(parkingChain.openJournal(snapshot.toString(), journal.toString(), 1, 0, 0).getErrorCount() == 0, "the journal was not opened without errors");
+
+        ParkingLot parkingLot = parkingChain.parkingLotList.get(0);
+        Area area = parkingLot.getAreaList().get(0);
+        String licensePlate = area.getVehiclePlatesMap().keySet().iterator().next();
+        Vehicle vehicle = area.getVehiclePlatesMap().get(licensePlate);
+
+        for (int i = 0; i < 12; i++) {
+            LocalDateTime entry = FIRST_DAY.plusDays(i % 3).atTime(6, 0);
+            parkingChain.addVehicle(parkingLot.getName(), area.getName(), licensePlate, vehicle, entry, entry.plusHours(3));
+        }
+
+        double[] expected = gains(parkingChain);
+        parkingChain.closeJournal();
+        Path oldJournal = directory.resolve("journal.old");
+        Files.copy(journal, oldJournal);
+
+        ParkingChain restored = new ParkingChain();
+        check(restored.openJournal(snapshot.toString(), journal.toString(), 1, 0, 0).getErrorCount() == 0, "the journal was not replayed without errors");
+        checkGains(expected, restored, "journal replay");
+        restored.getJournal().compact();
+        restored.closeJournal();
+
+        Files.move(oldJournal, directory.resolve("journal.txt.journal.compacting"), StandardCopyOption.REPLACE_EXISTING);
+
+        ParkingChain compacted = new ParkingChain();
+        check(compacted.openJournal(snapshot.toString(), journal.toString(), 1, 0, 0).getErrorCount() == 0, "the compacted journal was not replayed without errors");
+        checkGains(expected, compacted, "journal compaction");
+        compacted.closeJournal();
+    }
+
+    /**
+     * This is the main method. It runs the test and prints its result.
+     * @param args The arguments are not used.
+     * @throws IOException It is thrown when a file can not be written or read.
+     * @throws InvalidParkingLotNameException It is thrown when the parking lot of a vehicle does not exist.
+     * @throws InvalidAreaNameException It is thrown when the area of a vehicle does not exist.
+     * @throws MaximumCapacityReachedException It is thrown when the maximum capacity of the area is reached.
+     * @throws InvalidParkingIntervalException It is thrown when the exit is before the entry.
+     * @throws InvalidVehicleTypeException It is thrown when a vehicle was parked with another type.
+     */
+    public static void main(String[] args) throws IOException, InvalidParkingLotNameException, InvalidAreaNameException, MaximumCapacityReachedException, InvalidParkingIntervalException, InvalidVehicleTypeException {
+        Path directory = Files.createTempDirectory("round-trip");
+
+        try {
+            checkRoundTrips(directory, "intervals", generate(directory, "intervals.txt", 0, 12));
+            checkRoundTrips(directory, "shared", generate(directory, "shared.txt", 800, 3));
+            checkJournal(directory, directory.resolve("intervals.txt"));
+            checkOriginalFormat(directory);
+            System.out.println("SnapshotRoundTripTest passed");
+        } finally {
+            try (Stream<Path> files = Files.walk(directory)) {
+                files.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+            }
+        }
+    }
+}